@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Class for loading the raw payment group and validation json files of the payment module from the benchmark classpath
+ */
+public final class BenchmarkResources {
+
+    private BenchmarkResources() {
+    }
+
+    /**
+     * Load the validations from the validations.json file
+     *
+     * @return the ValidationGroups mapped by network code
+     */
+    public static Map<String, ValidationGroup> loadValidations() {
+        List<ValidationGroup> groups = fromJson("/validations.json", new TypeToken<List<ValidationGroup>>() { }.getType());
+        Map<String, ValidationGroup> map = new HashMap<>();
+        for (ValidationGroup group : groups) {
+            map.put(group.getCode(), group);
+        }
+        return map;
+    }
+
+    /**
+     * Load the smart selection regexes of all networks from the groups.json file
+     *
+     * @return the smart selection regexes mapped by network code
+     */
+    public static Map<String, String> loadSmartSelectionRegexes() {
+        List<PaymentGroup> groups = fromJson("/groups.json", new TypeToken<List<PaymentGroup>>() { }.getType());
+        Map<String, String> map = new HashMap<>();
+        for (PaymentGroup group : groups) {
+            for (PaymentGroupItem item : group.getPaymentGroupItems()) {
+                map.put(item.getCode(), item.getRegex());
+            }
+        }
+        return map;
+    }
+
+    private static <T> T fromJson(String name, Type type) {
+        try (InputStream in = BenchmarkResources.class.getResourceAsStream(name);
+            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return new Gson().fromJson(reader, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load benchmark resource: " + name, e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.payoneer.mrs.payment.model.ApplicableNetwork;
+import com.payoneer.mrs.payment.resource.BenchmarkResources;
+
+/**
+ * Benchmark of the smart selection of card networks on each account number keystroke, with all seven card networks grouped.
+ * The regex benchmark matches every network with its own Pattern and serves as reference for the prefix trie of the SmartSwitch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SmartSwitchBenchmark {
+
+    private final static String[] CODES = { "DISCOVER", "MASTERCARD", "DINERS", "UNIONPAY", "AMEX", "JCB", "VISA" };
+
+    @Param({ "6221260000000000", "5555444433331111", "4111111111111111" })
+    public String number;
+
+    private String[] prefixes;
+    private SmartSwitch smartSwitch;
+    private List<PaymentNetwork> networks;
+    private Map<String, Pattern> patterns;
+    private List<PaymentNetwork> selected;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Map<String, String> regexes = BenchmarkResources.loadSmartSelectionRegexes();
+        networks = new ArrayList<>();
+        smartSwitch = new SmartSwitch(networks);
+        patterns = new LinkedHashMap<>();
+        selected = new ArrayList<>();
+
+        for (String code : CODES) {
+            ApplicableNetwork network = new ApplicableNetwork();
+            network.setCode(code);
+            networks.add(new PaymentNetwork(network));
+            smartSwitch.addSelectionRegex(code, regexes.get(code));
+            patterns.put(code, Pattern.compile(regexes.get(code)));
+        }
+        prefixes = new String[number.length()];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = number.substring(0, i + 1);
+        }
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return smartSwitch.validate(nextPrefix());
+    }
+
+    @Benchmark
+    public int validateRegex() {
+        String text = nextPrefix();
+        selected.clear();
+        for (PaymentNetwork network : networks) {
+            if (patterns.get(network.getCode()).matcher(text).matches()) {
+                selected.add(network);
+            }
+        }
+        return selected.size();
+    }
+
+    private String nextPrefix() {
+        String prefix = prefixes[index];
+        index = (index + 1) % prefixes.length;
+        return prefix;
+    }
+}
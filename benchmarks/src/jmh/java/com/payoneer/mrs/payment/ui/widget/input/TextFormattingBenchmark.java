@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.widget.input;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark of the formatting logic of the GroupingTextWatcher and ExpiryDateTextWatcher, run on each keystroke.
+ * The EditText itself is not part of the benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TextFormattingBenchmark {
+
+    private final Pattern inputPattern = GroupingTextWatcher.createInputPattern(4);
+    private final String groupedInput = "4111 1111 1111 1111";
+    private final String ungroupedInput = "4111 11111 111 1111";
+    private final String expiryInput = "1/40";
+
+    @Benchmark
+    public boolean groupingInputCorrect() {
+        return inputPattern.matcher(groupedInput).matches();
+    }
+
+    @Benchmark
+    public String groupingBuildCorrectInput() {
+        return GroupingTextWatcher.buildCorrectInput(ungroupedInput, 4);
+    }
+
+    @Benchmark
+    public String expiryDateFormat() {
+        StringBuilder sb = new StringBuilder(ExpiryDateTextWatcher.normalize(expiryInput));
+        ExpiryDateTextWatcher.formatExpiryDate(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.validation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark of the card number and IBAN checksums, both run when an account number widget is validated
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ChecksumBenchmark {
+
+    private final String cardNumber = "4556260657599841";
+    private final String groupedCardNumber = "4556 2606 5759 9841";
+    private final String iban = "DE89370400440532013000";
+    private final String groupedIban = "DE89 3704 0044 0532 0130 00";
+    private final CardNumberState cardNumberState = new CardNumberState();
+
+    @Benchmark
+    public boolean isValidLuhn() {
+        return CardNumberValidator.isValidLuhn(cardNumber);
+    }
+
+    @Benchmark
+    public boolean cardNumberStateTyped() {
+        // type the grouped card number one keystroke at a time, as GroupingTextWatcher does
+        CardNumberState state = cardNumberState;
+        state.clear();
+        boolean valid = false;
+        for (int i = 0, len = groupedCardNumber.length(); i < len; i++) {
+            state.replace(state.length(), 0, groupedCardNumber, i, i + 1);
+            valid = state.isValidLuhn();
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public boolean isValidIban() {
+        return IbanValidator.isValidIban(iban);
+    }
+
+    @Benchmark
+    public boolean isValidIbanPrefix() {
+        return IbanStructure.isValidPrefix(groupedIban);
+    }
+}
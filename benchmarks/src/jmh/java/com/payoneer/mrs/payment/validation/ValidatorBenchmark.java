@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.validation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.payoneer.mrs.payment.core.PaymentInputType;
+import com.payoneer.mrs.payment.core.PaymentNetworkCodes;
+import com.payoneer.mrs.payment.model.PaymentMethod;
+import com.payoneer.mrs.payment.resource.BenchmarkResources;
+
+/**
+ * Benchmark of validating a valid value of each PaymentInputType, as done when a widget loses focus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ValidatorBenchmark {
+
+    @Param({
+        PaymentInputType.ACCOUNT_NUMBER, PaymentInputType.VERIFICATION_CODE, PaymentInputType.HOLDER_NAME, PaymentInputType.BANK_CODE,
+        PaymentInputType.EXPIRY_DATE, PaymentInputType.EXPIRY_MONTH, PaymentInputType.EXPIRY_YEAR, PaymentInputType.IBAN,
+        PaymentInputType.BIC
+    })
+    public String type;
+
+    private Validator validator;
+    private String method;
+    private String code;
+    private String value1;
+    private String value2;
+
+    @Setup
+    public void setUp() {
+        validator = new Validator(BenchmarkResources.loadValidations());
+        method = PaymentMethod.CREDIT_CARD;
+        code = PaymentNetworkCodes.VISA;
+
+        switch (type) {
+            case PaymentInputType.ACCOUNT_NUMBER:
+                value1 = "4111111111111111";
+                break;
+            case PaymentInputType.VERIFICATION_CODE:
+                value1 = "123";
+                break;
+            case PaymentInputType.HOLDER_NAME:
+                value1 = "John Doe";
+                break;
+            case PaymentInputType.BANK_CODE:
+                value1 = "37040044";
+                break;
+            case PaymentInputType.EXPIRY_DATE:
+                value1 = "12";
+                value2 = "2040";
+                break;
+            case PaymentInputType.EXPIRY_MONTH:
+                value1 = "12";
+                break;
+            case PaymentInputType.EXPIRY_YEAR:
+                value1 = "2040";
+                break;
+            case PaymentInputType.IBAN:
+                method = PaymentMethod.DIRECT_DEBIT;
+                code = PaymentNetworkCodes.SEPADD;
+                value1 = "DE89370400440532013000";
+                break;
+            case PaymentInputType.BIC:
+                method = PaymentMethod.DIRECT_DEBIT;
+                code = PaymentNetworkCodes.SEPADD;
+                value1 = "COBADEFFXXX";
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return validator.validate(method, code, type, value1, value2);
+    }
+
+    @Benchmark
+    public ValidationStatus validateShared() {
+        return validator.validateShared(method, code, type, value1, value2);
+    }
+}
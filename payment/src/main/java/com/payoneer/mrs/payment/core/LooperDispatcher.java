@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.core;
+
+import java.util.ArrayDeque;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * The default MainThreadDispatcher posting callbacks to the main Looper using one shared Handler.
+ * Callbacks dispatched before the main Looper gets to them are coalesced into a single message,
+ * i.e. WorkerTasks completing within the same frame only post one message to the main Looper.
+ */
+final class LooperDispatcher implements MainThreadDispatcher, Runnable {
+
+    private final ArrayDeque<Runnable> callbacks = new ArrayDeque<>();
+    private final Handler handler;
+    private boolean scheduled;
+
+    LooperDispatcher() {
+        this.handler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispatch(Runnable callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback cannot be null");
+        }
+        synchronized (callbacks) {
+            callbacks.add(callback);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        handler.post(this);
+    }
+
+    /**
+     * Run the callbacks that were dispatched before this message was handled.
+     * Callbacks dispatched while running are left for the next message so that the main Looper is not starved.
+     */
+    @Override
+    public void run() {
+        int count;
+        synchronized (callbacks) {
+            count = callbacks.size();
+        }
+        try {
+            for (int i = 0; i < count; i++) {
+                Runnable callback;
+                synchronized (callbacks) {
+                    callback = callbacks.poll();
+                }
+                callback.run();
+            }
+        } finally {
+            boolean repost;
+            synchronized (callbacks) {
+                repost = !callbacks.isEmpty();
+                scheduled = repost;
+            }
+            if (repost) {
+                handler.post(this);
+            }
+        }
+    }
+}
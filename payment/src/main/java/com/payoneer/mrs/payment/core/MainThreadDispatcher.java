@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.core;
+
+/**
+ * The MainThreadDispatcher delivers the callbacks of completed WorkerTasks to the main UI Thread.
+ * Callbacks must be run in the order in which they were dispatched.
+ */
+public interface MainThreadDispatcher {
+
+    /**
+     * Dispatch the callback to be run on the main UI Thread
+     *
+     * @param callback to be run on the main UI Thread
+     */
+    void dispatch(Runnable callback);
+}
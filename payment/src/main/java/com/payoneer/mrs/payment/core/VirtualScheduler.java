@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A deterministic WorkerScheduler running all tasks on the calling thread in virtual time.
+ * Once installed, the lanes of the Workers and the MainThreadDispatcher queue their tasks in this scheduler,
+ * tasks are only run when the test or benchmark calls runUntilIdle() or advanceBy().
+ *
+ * Tasks run in order of their scheduled time, tasks scheduled for the same time run in the order in which they were scheduled.
+ * Sleeping advances the virtual time immediately, i.e. retries and expiry of cached sessions take no real time.
+ * The critical path length counts how many tasks had to run one after the other, independent tasks executed
+ * by the same task share the same position on the path. Accidental serialization of tasks increases this length.
+ *
+ * This scheduler is meant to be driven by a single thread, blocking calls made by tasks, e.g. network requests, block that thread.
+ */
+public final class VirtualScheduler implements WorkerScheduler {
+
+    private final PriorityQueue<ScheduledTask> queue = new PriorityQueue<>();
+    private Thread runner;
+    private long now;
+    private long sequence;
+    private int currentDepth;
+    private int criticalPathLength;
+    private int executedCount;
+
+    /**
+     * Install this scheduler in the Workers, replacing the executors of all lanes and the MainThreadDispatcher
+     */
+    public void install() {
+        Workers workers = Workers.getInstance();
+        workers.setScheduler(this);
+        workers.setNetworkExecutor(createExecutor());
+        workers.setComputeExecutor(createExecutor());
+        workers.setBackgroundExecutor(createExecutor());
+        workers.setMainThreadDispatcher(createMainThreadDispatcher());
+    }
+
+    /**
+     * Restore the default executors, MainThreadDispatcher and scheduler of the Workers
+     */
+    public void uninstall() {
+        Workers workers = Workers.getInstance();
+        workers.setScheduler(null);
+        workers.setNetworkExecutor(null);
+        workers.setComputeExecutor(null);
+        workers.setBackgroundExecutor(null);
+        workers.setMainThreadDispatcher(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long currentTimeMillis() {
+        return now;
+    }
+
+    /**
+     * Advance the virtual time by the given amount without running other tasks.
+     *
+     * @param millis the amount of time to wait in milliseconds
+     */
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (millis < 0) {
+            throw new IllegalArgumentException("millis cannot be negative");
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        synchronized (this) {
+            now += millis;
+        }
+    }
+
+    /**
+     * Schedule the task to run as soon as possible
+     *
+     * @param task to be run by this scheduler
+     */
+    public void execute(Runnable task) {
+        schedule(task, 0);
+    }
+
+    /**
+     * Schedule the task to run once the virtual time has advanced by the delay
+     *
+     * @param task to be run by this scheduler
+     * @param delay in milliseconds before the task is run
+     */
+    public synchronized void schedule(Runnable task, long delay) {
+        if (task == null) {
+            throw new IllegalArgumentException("task cannot be null");
+        }
+        if (delay < 0) {
+            throw new IllegalArgumentException("delay cannot be negative");
+        }
+        int depth = Thread.currentThread() == runner ? currentDepth + 1 : 1;
+        queue.add(new ScheduledTask(task, now + delay, sequence++, depth));
+    }
+
+    /**
+     * Create an ExecutorService queueing its tasks in this scheduler
+     *
+     * @return the newly created executor
+     */
+    public ExecutorService createExecutor() {
+        return new VirtualExecutor();
+    }
+
+    /**
+     * Create a MainThreadDispatcher queueing its callbacks in this scheduler
+     *
+     * @return the newly created dispatcher
+     */
+    public MainThreadDispatcher createMainThreadDispatcher() {
+        return new MainThreadDispatcher() {
+            @Override
+            public void dispatch(Runnable callback) {
+                execute(callback);
+            }
+        };
+    }
+
+    /**
+     * Run all tasks that are due at the current virtual time, including the tasks they schedule without delay.
+     *
+     * @return the number of tasks that have been run
+     */
+    public int runUntilIdle() {
+        return runUntil(currentTimeMillis());
+    }
+
+    /**
+     * Advance the virtual time by the given amount and run all tasks that become due in order of their scheduled time.
+     *
+     * @param millis the amount of virtual time to advance
+     * @return the number of tasks that have been run
+     */
+    public int advanceBy(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("millis cannot be negative");
+        }
+        long target;
+        synchronized (this) {
+            target = now + millis;
+        }
+        int count = runUntil(target);
+        synchronized (this) {
+            now = Math.max(now, target);
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of tasks waiting to be run
+     *
+     * @return the number of pending tasks
+     */
+    public synchronized int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Get the number of tasks that have been run by this scheduler
+     *
+     * @return the number of executed tasks
+     */
+    public synchronized int getExecutedCount() {
+        return executedCount;
+    }
+
+    /**
+     * Get the length of the longest chain of tasks where each task was scheduled by the task before it
+     *
+     * @return the critical path length
+     */
+    public synchronized int getCriticalPathLength() {
+        return criticalPathLength;
+    }
+
+    private int runUntil(long target) {
+        int count = 0;
+        while (true) {
+            ScheduledTask next;
+            synchronized (this) {
+                next = queue.peek();
+                if (next == null || next.time > Math.max(target, now)) {
+                    return count;
+                }
+                queue.poll();
+                now = Math.max(now, next.time);
+                runner = Thread.currentThread();
+                currentDepth = next.depth;
+                criticalPathLength = Math.max(criticalPathLength, next.depth);
+                executedCount++;
+            }
+            try {
+                next.task.run();
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    currentDepth = 0;
+                }
+            }
+            count++;
+        }
+    }
+
+    /**
+     * Task scheduled at a virtual time, ordered by time and sequence
+     */
+    private static final class ScheduledTask implements Comparable<ScheduledTask> {
+        final Runnable task;
+        final long time;
+        final long sequence;
+        final int depth;
+
+        ScheduledTask(Runnable task, long time, long sequence, int depth) {
+            this.task = task;
+            this.time = time;
+            this.sequence = sequence;
+            this.depth = depth;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            if (time != other.time) {
+                return time < other.time ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * ExecutorService queueing its tasks in the VirtualScheduler
+     */
+    private final class VirtualExecutor extends AbstractExecutorService {
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("VirtualExecutor has been shut down");
+            }
+            VirtualScheduler.this.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return new ArrayList<>();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return shutdown;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.core;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.os.Process;
+
+/**
+ * A bounded executor running the tasks of one Workers lane on a fixed number of named threads.
+ * Idle threads are stopped after the keep alive time. Tasks submitted while the queue is full or after shutdown are rejected:
+ * a WorkerTask fails with a RejectedExecutionException that is delivered to its subscriber and dependent tasks, so callers
+ * on the main UI Thread never have to handle the rejection. Other tasks are rejected by throwing a RejectedExecutionException.
+ * The executor records how long tasks waited before they were started and how many tasks were rejected.
+ */
+public final class WorkerExecutor extends ThreadPoolExecutor {
+
+    private final static long KEEP_ALIVE_TIME = 30;
+
+    private final String name;
+    private final AtomicLong executedCount;
+    private final AtomicLong totalWaitTime;
+    private final AtomicLong maxWaitTime;
+    private final AtomicLong rejectedCount;
+
+    /**
+     * Construct a new WorkerExecutor
+     *
+     * @param name of this executor, used as prefix of the thread names
+     * @param threads the maximum number of threads running tasks
+     * @param queueCapacity the maximum number of tasks waiting to be started
+     * @param threadPriority the Android thread priority of the threads, e.g. Process.THREAD_PRIORITY_BACKGROUND
+     */
+    public WorkerExecutor(String name, int threads, int queueCapacity, int threadPriority) {
+        super(threads, threads, KEEP_ALIVE_TIME, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(queueCapacity),
+            new WorkerThreadFactory(name, threadPriority), new RejectPolicy());
+        this.name = name;
+        this.executedCount = new AtomicLong();
+        this.totalWaitTime = new AtomicLong();
+        this.maxWaitTime = new AtomicLong();
+        this.rejectedCount = new AtomicLong();
+        allowCoreThreadTimeOut(true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of tasks waiting in the queue to be started
+     *
+     * @return the number of queued tasks
+     */
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    /**
+     * Get the number of tasks that were rejected because the queue was full or this executor had been shut down
+     *
+     * @return the number of rejected tasks
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Get the number of tasks that have been started by this executor
+     *
+     * @return the number of started tasks
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * Get the average time tasks waited in the queue before they were started
+     *
+     * @return the average wait time in millis
+     */
+    public long getAverageWaitTime() {
+        long count = executedCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitTime.get() / count);
+    }
+
+    /**
+     * Get the longest time a task waited in the queue before it was started
+     *
+     * @return the max wait time in millis
+     */
+    public long getMaxWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitTime.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException("command cannot be null");
+        }
+        super.execute(new QueuedTask(command));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+        if (runnable instanceof QueuedTask) {
+            long waitTime = System.nanoTime() - ((QueuedTask) runnable).queued;
+            executedCount.incrementAndGet();
+            totalWaitTime.addAndGet(waitTime);
+            long max;
+            while (waitTime > (max = maxWaitTime.get()) && !maxWaitTime.compareAndSet(max, waitTime)) {
+                // retry until the max wait time has been updated
+            }
+        }
+    }
+
+    /**
+     * Reject the task, a WorkerTask fails with the RejectedExecutionException instead of throwing it
+     */
+    private void reject(Runnable runnable) {
+        rejectedCount.incrementAndGet();
+        String reason = isShutdown() ? " has been shut down" : " queue is full";
+        RejectedExecutionException error = new RejectedExecutionException(name + reason);
+        Runnable task = runnable instanceof QueuedTask ? ((QueuedTask) runnable).task : runnable;
+        if (task instanceof WorkerTask) {
+            ((WorkerTask<?>) task).reject(error);
+            return;
+        }
+        throw error;
+    }
+
+    /**
+     * RejectedExecutionHandler rejecting the tasks that do not fit in the queue of the WorkerExecutor
+     */
+    private static final class RejectPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            ((WorkerExecutor) executor).reject(runnable);
+        }
+    }
+
+    /**
+     * Runnable remembering when it was put in the queue
+     */
+    private static final class QueuedTask implements Runnable {
+        private final Runnable task;
+        private final long queued;
+
+        QueuedTask(Runnable task) {
+            this.task = task;
+            this.queued = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    /**
+     * ThreadFactory creating named daemon threads running with the given Android thread priority
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final String name;
+        private final int threadPriority;
+        private final AtomicInteger count;
+
+        WorkerThreadFactory(String name, int threadPriority) {
+            this.name = name;
+            this.threadPriority = threadPriority;
+            this.count = new AtomicInteger();
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(threadPriority);
+                    runnable.run();
+                }
+            }, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.core;
+
+/**
+ * WorkerFunction applied to the result of a completed WorkerTask
+ */
+public interface WorkerFunction<T, R> {
+
+    /**
+     * Apply this function to the result of the WorkerTask
+     *
+     * @param value the result of the completed WorkerTask
+     * @return the result of this function
+     */
+    R apply(T value) throws Exception;
+}
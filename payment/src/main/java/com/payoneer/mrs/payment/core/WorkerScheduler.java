@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.core;
+
+/**
+ * The WorkerScheduler provides the time used by WorkerTasks and network requests, e.g. for retries and expiry of cached sessions.
+ * The default scheduler uses the system clock, the VirtualScheduler replaces it with virtual time in tests and benchmarks.
+ */
+public interface WorkerScheduler {
+
+    /**
+     * Get the current time of this scheduler
+     *
+     * @return the current time in milliseconds
+     */
+    long currentTimeMillis();
+
+    /**
+     * Wait for the given amount of time before continuing
+     *
+     * @param millis the amount of time to wait in milliseconds
+     * @throws InterruptedException when the waiting thread has been interrupted
+     */
+    void sleep(long millis) throws InterruptedException;
+}
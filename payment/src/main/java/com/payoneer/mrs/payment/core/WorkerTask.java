@@ -8,20 +8,40 @@
 
 package com.payoneer.mrs.payment.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
-
-import android.os.Handler;
-import android.os.Looper;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A WorkerTask executing one Callable and notifying the WorkerSubscriber once it is completed.
  * The WorkerSubscriber must be subscribed or unsubscribed on the main UI Thread.
+ * The WorkerSubscriber is notified through the shared MainThreadDispatcher, see Workers.getMainThreadDispatcher().
+ *
+ * WorkerTasks can be composed into a dependency graph using thenApply, thenCompose and allOf.
+ * A dependent task is not executed by an executor, it completes on the thread that completed the task it depends on.
+ * Errors are propagated to all dependent tasks and cancelling a dependent task cancels the tasks it depends on,
+ * except for the task a detached dependent was composed from, see thenComposeDetached.
  */
 public final class WorkerTask<V> extends FutureTask<V> {
 
-    private WorkerSubscriber<V> subscriber;
+    private final static Callable<Object> DEPENDENT = new Callable<Object>() {
+        @Override
+        public Object call() {
+            throw new IllegalStateException("A dependent WorkerTask cannot be executed");
+        }
+    };
+
+    private final List<Runnable> continuations = new ArrayList<>();
+    private final List<WorkerTask<?>> sources = Collections.synchronizedList(new ArrayList<WorkerTask<?>>());
+    private boolean completed;
+    private volatile WorkerSubscriber<V> subscriber;
 
     private WorkerTask(Callable<V> callable) {
         super(callable);
@@ -37,6 +57,137 @@ public final class WorkerTask<V> extends FutureTask<V> {
         return new WorkerTask<>(callable);
     }
 
+    /**
+     * Create a new WorkerTask that has already completed with the value
+     *
+     * @param value the result of the WorkerTask
+     * @return newly created and completed WorkerTask
+     */
+    public static <V> WorkerTask<V> fromValue(V value) {
+        WorkerTask<V> task = createDependent();
+        task.set(value);
+        return task;
+    }
+
+    /**
+     * Create a new WorkerTask that completes when all given tasks have completed successfully.
+     * When one of the tasks fails, the returned task fails with the same error and the other tasks are cancelled.
+     *
+     * @param tasks the tasks to wait for
+     * @return newly created WorkerTask completing with null
+     */
+    public static WorkerTask<Void> allOf(WorkerTask<?>... tasks) {
+        final WorkerTask<Void> dependent = createDependent();
+        final List<WorkerTask<?>> all = Arrays.asList(tasks);
+        final AtomicInteger remaining = new AtomicInteger(all.size());
+        dependent.sources.addAll(all);
+
+        if (all.isEmpty()) {
+            dependent.set(null);
+            return dependent;
+        }
+        for (final WorkerTask<?> task : all) {
+            task.whenComplete(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.getResult();
+                        if (remaining.decrementAndGet() == 0) {
+                            dependent.set(null);
+                        }
+                    } catch (Throwable error) {
+                        if (dependent.fail(error)) {
+                            for (WorkerTask<?> other : all) {
+                                other.cancel(true);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        return dependent;
+    }
+
+    /**
+     * Create a new WorkerTask that completes with the result of the function applied to the result of this task
+     *
+     * @param function applied to the result of this task on the thread completing this task
+     * @return newly created dependent WorkerTask
+     */
+    public <R> WorkerTask<R> thenApply(final WorkerFunction<? super V, ? extends R> function) {
+        final WorkerTask<R> dependent = createDependent();
+        dependent.sources.add(this);
+        whenComplete(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    dependent.set(function.apply(getResult()));
+                } catch (Throwable error) {
+                    dependent.fail(error);
+                }
+            }
+        });
+        return dependent;
+    }
+
+    /**
+     * Create a new WorkerTask that completes with the result of the task returned by the function.
+     * The function is applied to the result of this task and is responsible for executing the task it returns.
+     *
+     * @param function returning the next task, applied on the thread completing this task
+     * @return newly created dependent WorkerTask
+     */
+    public <R> WorkerTask<R> thenCompose(final WorkerFunction<? super V, WorkerTask<R>> function) {
+        return compose(function, true);
+    }
+
+    /**
+     * Create a new WorkerTask that completes with the result of the task returned by the function, like thenCompose.
+     * Cancelling the returned task does not cancel this task, only the task returned by the function.
+     * This allows tasks that are shared by several dependents, e.g. a preloading task, to keep running when one dependent is cancelled.
+     *
+     * @param function returning the next task, applied on the thread completing this task
+     * @return newly created dependent WorkerTask
+     */
+    public <R> WorkerTask<R> thenComposeDetached(final WorkerFunction<? super V, WorkerTask<R>> function) {
+        return compose(function, false);
+    }
+
+    private <R> WorkerTask<R> compose(final WorkerFunction<? super V, WorkerTask<R>> function, boolean cancelSource) {
+        final WorkerTask<R> dependent = createDependent();
+        if (cancelSource) {
+            dependent.sources.add(this);
+        }
+        whenComplete(new Runnable() {
+            @Override
+            public void run() {
+                final WorkerTask<R> next;
+                try {
+                    next = function.apply(getResult());
+                } catch (Throwable error) {
+                    dependent.fail(error);
+                    return;
+                }
+                dependent.sources.add(next);
+                if (dependent.isCancelled()) {
+                    next.cancel(true);
+                    return;
+                }
+                next.whenComplete(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            dependent.set(next.getResult());
+                        } catch (Throwable error) {
+                            dependent.fail(error);
+                        }
+                    }
+                });
+            }
+        });
+        return dependent;
+    }
+
     /**
      * Subscribe the WorkerSubscriber to this task, this subscriber will be notified when the task is successful or has failed
      *
@@ -53,6 +204,30 @@ public final class WorkerTask<V> extends FutureTask<V> {
         this.subscriber = null;
     }
 
+    /**
+     * Cancel this task and unsubscribe from it, a task that has not been started yet will never run.
+     * When mayInterruptIfRunning is true the worker thread running this task is interrupted, blocking network requests
+     * must be aborted by the owner of the connection, see BaseConnection.abortRequests().
+     *
+     * @param mayInterruptIfRunning true if the worker thread running this task should be interrupted
+     * @return false if the task could not be cancelled, typically because it has already completed
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        unsubscribe();
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            List<WorkerTask<?>> copy;
+            synchronized (sources) {
+                copy = new ArrayList<WorkerTask<?>>(sources);
+            }
+            for (WorkerTask<?> source : copy) {
+                source.cancel(mayInterruptIfRunning);
+            }
+        }
+        return cancelled;
+    }
+
     /**
      * Check if a Subscriber has been subscribed to this WorkerTask.
      *
@@ -67,34 +242,106 @@ public final class WorkerTask<V> extends FutureTask<V> {
      */
     @Override
     protected void done() {
-        try {
-            callSuccessOnMainThread(get());
-        } catch (InterruptedException e) {
-            callErrorOnMainThread(e);
-        } catch (ExecutionException e) {
-            callErrorOnMainThread(e.getCause());
+        List<Runnable> pending;
+        synchronized (continuations) {
+            completed = true;
+            pending = new ArrayList<>(continuations);
+            continuations.clear();
         }
-    }
-
-    private void callSuccessOnMainThread(V result) {
-        Handler handler = new Handler(Looper.getMainLooper());
-        handler.post(new Runnable() {
+        for (Runnable continuation : pending) {
+            continuation.run();
+        }
+        // tasks without a subscriber, e.g. intermediate tasks of a dependency graph, never post to the main UI Thread
+        if (isCancelled() || subscriber == null) {
+            return;
+        }
+        Workers.getInstance().getMainThreadDispatcher().dispatch(new Runnable() {
+            @Override
             public void run() {
-                if (subscriber != null) {
-                    subscriber.onSuccess(result);
-                }
+                notifySubscriber();
             }
         });
     }
 
-    private void callErrorOnMainThread(Throwable throwable) {
-        Handler handler = new Handler(Looper.getMainLooper());
-        handler.post(new Runnable() {
-            public void run() {
-                if (subscriber != null) {
-                    subscriber.onError(throwable);
-                }
+    /**
+     * Run the continuation once this task has completed, immediately if it has completed already
+     *
+     * @param continuation to be run on the thread completing this task
+     */
+    private void whenComplete(Runnable continuation) {
+        synchronized (continuations) {
+            if (!completed) {
+                continuations.add(continuation);
+                return;
             }
-        });
+        }
+        continuation.run();
+    }
+
+    /**
+     * Get the result of this completed task, the error of a failed task is thrown unwrapped
+     *
+     * @return the result of this task
+     */
+    private V getResult() throws Throwable {
+        try {
+            return get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Fail this task because it was rejected by the executor, the error is delivered like any other error of the task
+     *
+     * @param error the rejection of the executor
+     */
+    void reject(RejectedExecutionException error) {
+        if (!isDone()) {
+            setException(error);
+        }
+    }
+
+    /**
+     * Complete this dependent task with the error, a cancellation of the task it depends on cancels this task
+     *
+     * @param error the cause of the failure
+     * @return true when this task failed with the error, false if it had completed before
+     */
+    private boolean fail(Throwable error) {
+        if (isDone()) {
+            return false;
+        }
+        if (error instanceof CancellationException) {
+            return cancel(false);
+        }
+        setException(error);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> WorkerTask<V> createDependent() {
+        return new WorkerTask<>((Callable<V>) DEPENDENT);
+    }
+
+    /**
+     * Notify the subscriber about the result of this completed task, called on the main UI Thread
+     */
+    private void notifySubscriber() {
+        WorkerSubscriber<V> current = subscriber;
+        if (current == null) {
+            return;
+        }
+        V result;
+        try {
+            result = get();
+        } catch (InterruptedException e) {
+            current.onError(e);
+            return;
+        } catch (ExecutionException e) {
+            current.onError(e.getCause());
+            return;
+        }
+        current.onSuccess(result);
     }
 }
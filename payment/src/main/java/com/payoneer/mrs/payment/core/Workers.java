@@ -9,17 +9,51 @@
 package com.payoneer.mrs.payment.core;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+
+import android.os.Process;
 
 /**
- * The Singleton class maintaining a list of Workers processing background tasks
+ * The Singleton class maintaining the lanes of Workers processing background tasks.
+ * Network, compute and background tasks run on separate executors with a fixed number of threads so that low priority work,
+ * e.g. prefetching, does not delay the tasks the user is waiting for. The queues of the default lanes are bounded, a WorkerTask
+ * submitted to a full lane fails with a RejectedExecutionException, see WorkerExecutor. A task must not block on another task
+ * queued in the same lane.
+ * The host app may replace the executor of each lane with its own executor.
+ * Results of WorkerTasks are delivered to the main UI Thread through one shared MainThreadDispatcher.
+ * The lanes, dispatcher and WorkerScheduler may be replaced together by a VirtualScheduler in tests and benchmarks.
  */
 public final class Workers {
 
-    private final ExecutorService networkService;
+    private final static int NETWORK_THREADS = 4;
+    private final static int NETWORK_QUEUE_CAPACITY = 64;
+    private final static int COMPUTE_QUEUE_CAPACITY = 64;
+    private final static int BACKGROUND_THREADS = 2;
+    private final static int BACKGROUND_QUEUE_CAPACITY = 16;
+
+    private final ExecutorService defaultNetworkService;
+    private final ExecutorService defaultComputeService;
+    private final ExecutorService defaultBackgroundService;
+    private volatile ExecutorService networkService;
+    private volatile ExecutorService computeService;
+    private volatile ExecutorService backgroundService;
+    private final WorkerScheduler defaultScheduler;
+    private volatile WorkerScheduler scheduler;
+    private volatile MainThreadDispatcher mainThreadDispatcher;
+    private MainThreadDispatcher defaultMainThreadDispatcher;
 
     private Workers() {
-        this.networkService = Executors.newCachedThreadPool();
+        int computeThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        this.defaultNetworkService = new WorkerExecutor("payoneer-network", NETWORK_THREADS, NETWORK_QUEUE_CAPACITY,
+            Process.THREAD_PRIORITY_BACKGROUND);
+        this.defaultComputeService = new WorkerExecutor("payoneer-compute", computeThreads, COMPUTE_QUEUE_CAPACITY,
+            Process.THREAD_PRIORITY_BACKGROUND);
+        this.defaultBackgroundService = new WorkerExecutor("payoneer-background", BACKGROUND_THREADS, BACKGROUND_QUEUE_CAPACITY,
+            Process.THREAD_PRIORITY_LOWEST);
+        this.networkService = defaultNetworkService;
+        this.computeService = defaultComputeService;
+        this.backgroundService = defaultBackgroundService;
+        this.defaultScheduler = new SystemScheduler();
+        this.scheduler = defaultScheduler;
     }
 
     /**
@@ -32,7 +66,7 @@ public final class Workers {
     }
 
     /**
-     * Get the WorkerExecutor for network tasks
+     * Get the WorkerExecutor for network tasks, i.e. requests to the Payment API the user is waiting for
      *
      * @return the network executor for network tasks
      */
@@ -40,6 +74,106 @@ public final class Workers {
         return networkService;
     }
 
+    /**
+     * Get the WorkerExecutor for compute tasks, i.e. parsing resources and building the models shown to the user
+     *
+     * @return the compute executor for compute tasks
+     */
+    public ExecutorService forComputeTasks() {
+        return computeService;
+    }
+
+    /**
+     * Get the WorkerExecutor for low priority background tasks, i.e. prefetching data the user may need later
+     *
+     * @return the background executor for background tasks
+     */
+    public ExecutorService forBackgroundTasks() {
+        return backgroundService;
+    }
+
+    /**
+     * Set the executor used for network tasks, the host app is responsible for shutting down its own executor
+     *
+     * @param executor the executor to be used or null to use the default executor
+     */
+    public void setNetworkExecutor(ExecutorService executor) {
+        this.networkService = executor != null ? executor : defaultNetworkService;
+    }
+
+    /**
+     * Set the executor used for compute tasks, the host app is responsible for shutting down its own executor
+     *
+     * @param executor the executor to be used or null to use the default executor
+     */
+    public void setComputeExecutor(ExecutorService executor) {
+        this.computeService = executor != null ? executor : defaultComputeService;
+    }
+
+    /**
+     * Set the executor used for background tasks, the host app is responsible for shutting down its own executor
+     *
+     * @param executor the executor to be used or null to use the default executor
+     */
+    public void setBackgroundExecutor(ExecutorService executor) {
+        this.backgroundService = executor != null ? executor : defaultBackgroundService;
+    }
+
+    /**
+     * Get the WorkerScheduler providing the time for retries and expiry of cached sessions
+     *
+     * @return the scheduler providing the time
+     */
+    public WorkerScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Set the WorkerScheduler providing the time, e.g. a VirtualScheduler in tests and benchmarks
+     *
+     * @param scheduler the scheduler to be used or null to use the system clock
+     */
+    public void setScheduler(WorkerScheduler scheduler) {
+        this.scheduler = scheduler != null ? scheduler : defaultScheduler;
+    }
+
+    /**
+     * Get the MainThreadDispatcher delivering the results of WorkerTasks to the main UI Thread
+     *
+     * @return the dispatcher for the main UI Thread
+     */
+    public MainThreadDispatcher getMainThreadDispatcher() {
+        MainThreadDispatcher dispatcher = mainThreadDispatcher;
+        if (dispatcher != null) {
+            return dispatcher;
+        }
+        synchronized (this) {
+            if (mainThreadDispatcher == null) {
+                mainThreadDispatcher = getDefaultMainThreadDispatcher();
+            }
+            return mainThreadDispatcher;
+        }
+    }
+
+    /**
+     * Set the MainThreadDispatcher delivering the results of WorkerTasks, e.g. a synchronous dispatcher in tests
+     *
+     * @param dispatcher the dispatcher to be used or null to use the default dispatcher
+     */
+    public synchronized void setMainThreadDispatcher(MainThreadDispatcher dispatcher) {
+        this.mainThreadDispatcher = dispatcher != null ? dispatcher : getDefaultMainThreadDispatcher();
+    }
+
+    /**
+     * The default dispatcher is created on first use so that the main Looper is not required to create the Workers
+     */
+    private synchronized MainThreadDispatcher getDefaultMainThreadDispatcher() {
+        if (defaultMainThreadDispatcher == null) {
+            defaultMainThreadDispatcher = new LooperDispatcher();
+        }
+        return defaultMainThreadDispatcher;
+    }
+
     private static class InstanceHolder {
         static final Workers INSTANCE = new Workers();
     }
@@ -8,39 +8,146 @@
 
 package com.payoneer.mrs.payment.localization;
 
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+
+import com.payoneer.mrs.payment.core.Workers;
 
 /**
- * Class for caching the Localization files based on a cache id
+ * Memory LRU cache for the decoded localization files, keyed by language file URL and locale.
+ * Each localization is stamped with the version of the language file in the HttpCache, i.e. its ETag, Last-Modified or response time.
+ * A localization is only reused while the HttpCache holds a fresh language file with the same version and the time to live,
+ * measured with the clock of the WorkerScheduler, has not passed. An update of the language file on the server therefore becomes
+ * visible as soon as the Cache-Control freshness of the stored file expires.
+ * This cache does not store anything on disk, the language files are persisted across process restarts by the HttpCache.
+ * This class is thread-safe and may be used by concurrent loaders.
  */
-public class LocalizationCache {
+public final class LocalizationCache {
+
+    /** The default maximum time in millis a decoded localization may be reused, the HTTP freshness usually expires earlier */
+    public final static long DEFAULT_TIME_TO_LIVE = 24 * 60 * 60 * 1000L;
+
+    /** The default maximum number of localizations kept in memory */
+    public final static int DEFAULT_MAX_ENTRIES = 32;
 
-    private String cacheId;
-    private final Map<String, LocalizationHolder> cache;
+    private final int maxEntries;
+    private final long timeToLive;
+    private final Map<String, Entry> memory;
 
+    /**
+     * Construct a new LocalizationCache with the default maximum number of entries and time to live
+     */
     public LocalizationCache() {
-        cache = new ConcurrentHashMap<>();
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * Construct a new LocalizationCache
+     *
+     * @param maxEntries the maximum number of localizations kept in memory
+     * @param timeToLive the maximum time in millis a decoded localization may be reused
+     */
+    public LocalizationCache(int maxEntries, long timeToLive) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be larger than 0");
+        }
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("timeToLive must be larger than 0");
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > LocalizationCache.this.maxEntries;
+            }
+        };
     }
 
-    public String getCacheId() {
-        return cacheId;
+    /**
+     * Get the localization for the language file URL and locale
+     *
+     * @param url pointing to the language file
+     * @param locale for which the localization was loaded
+     * @param version of the fresh language file currently stored in the HttpCache, null if there is none
+     * @return the localization or null if not cached, expired or decoded from a different version of the language file
+     */
+    public LocalizationHolder get(URL url, Locale locale, String version) {
+        String key = toKey(url, locale);
+        if (version == null) {
+            return null;
+        }
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (isValid(entry, version)) {
+                return entry.holder;
+            }
+            memory.remove(key);
+            return null;
+        }
     }
 
-    public void setCacheId(String cacheId) {
-        this.cacheId = cacheId;
+    /**
+     * Put the localization for the language file URL and locale in this cache
+     *
+     * @param url pointing to the language file
+     * @param locale for which the localization was loaded
+     * @param version of the language file in the HttpCache from which the translations were decoded
+     * @param holder containing the translations
+     */
+    public void put(URL url, Locale locale, String version, LocalizationHolder holder) {
+        if (url == null || locale == null || version == null || holder == null) {
+            throw new IllegalArgumentException("url, locale, version and holder cannot be null");
+        }
+        String key = toKey(url, locale);
+        Entry entry = new Entry(currentTimeMillis(), version, holder);
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
     }
 
+    /**
+     * Remove all localizations from this cache
+     */
     public void clear() {
-        this.cacheId = null;
-        cache.clear();
+        synchronized (memory) {
+            memory.clear();
+        }
     }
 
-    public LocalizationHolder get(String key) {
-        return cache.get(key);
+    private boolean isValid(Entry entry, String version) {
+        long age = currentTimeMillis() - entry.created;
+        return entry.version.equals(version) && age >= 0 && age < timeToLive;
     }
 
-    public void put(String key, LocalizationHolder holder) {
-        cache.put(key, holder);
+    private static long currentTimeMillis() {
+        return Workers.getInstance().getScheduler().currentTimeMillis();
+    }
+
+    private static String toKey(URL url, Locale locale) {
+        if (url == null || locale == null) {
+            throw new IllegalArgumentException("url and locale cannot be null");
+        }
+        return url.toString() + '#' + locale.toString();
+    }
+
+    /**
+     * Class holding one cached localization
+     */
+    private static final class Entry {
+        private final long created;
+        private final String version;
+        private final LocalizationHolder holder;
+
+        Entry(long created, String version, LocalizationHolder holder) {
+            this.created = created;
+            this.version = version;
+            this.holder = holder;
+        }
     }
 }
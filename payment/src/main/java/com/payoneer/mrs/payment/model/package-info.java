@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+/**
+ * The model classes of the Payment API, the Gson TypeAdapters of these classes are generated into the ModelTypeAdapterFactory.
+ */
+@GenerateTypeAdapters("ModelTypeAdapterFactory")
+package com.payoneer.mrs.payment.model;
+
+import com.payoneer.mrs.processor.GenerateTypeAdapters;
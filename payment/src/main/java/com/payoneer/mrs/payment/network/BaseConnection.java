@@ -8,29 +8,24 @@
 
 package com.payoneer.mrs.payment.network;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.lang.reflect.Type;
 import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonParseException;
 import com.payoneer.mrs.payment.core.PaymentException;
-import com.payoneer.mrs.payment.model.ErrorInfo;
+import com.payoneer.mrs.payment.util.GsonHelper;
 
 import android.content.Context;
-import android.text.TextUtils;
-import android.util.Log;
 
 /**
- * The base class for all Payment API implementations
+ * The base class for all Payment API implementations.
+ * The requests are made by the RequestPipeline of the connection and the responses are decoded by its ResponseDecoder.
  */
 abstract class BaseConnection {
 
@@ -40,13 +35,13 @@ abstract class BaseConnection {
     final static String URI_PATH_API = "api";
     final static String URI_PATH_LISTS = "lists";
     final static String VALUE_APP_JSON = "application/json;charset=UTF-8";
-    private final static int TIMEOUT_CONNECT = 5000;
-    private final static int TIMEOUT_READ = 30000;
-    private final static String HEADER_USER_AGENT = "User-Agent";
-    private final static String HTTP_GET = "GET";
-    private final static String HTTP_POST = "POST";
-    private final static String CONTENTTYPE_JSON = "application/json";
+    private final static long DEFAULT_MAX_BODY_SIZE = 4 * 1024 * 1024;
+    private final static String HTTP_CACHE_DIR = "payoneer-http";
     private static volatile String userAgent;
+    private static volatile HttpCache defaultHttpCache;
+
+    /** The transport shared by all connections not constructed with their own transport */
+    private final static HttpTransport DEFAULT_TRANSPORT = new KeepAliveHttpTransport();
 
     /**
      * For now we will use Gson to parse json content
@@ -55,20 +50,41 @@ abstract class BaseConnection {
      */
     final Gson gson;
 
+    /** The decoder of the response bodies */
+    private final ResponseDecoder decoder;
+
+    /** The pipeline making the requests of this connection */
+    private final RequestPipeline pipeline;
+
     /**
-     * Construct a new BaseConnection
+     * Construct a new BaseConnection using the default shared transport
      *
      * @param context used to initialize the custom UserAgent
      */
     BaseConnection(Context context) {
+        this(context, DEFAULT_TRANSPORT);
+    }
+
+    /**
+     * Construct a new BaseConnection
+     *
+     * @param context used to initialize the custom UserAgent
+     * @param transport used to open and release the HttpURLConnections
+     */
+    BaseConnection(Context context, HttpTransport transport) {
         if (context == null) {
             throw new IllegalArgumentException("Context cannot be null");
         }
+        if (transport == null) {
+            throw new IllegalArgumentException("HttpTransport cannot be null");
+        }
         if (CookieHandler.getDefault() == null) {
             CookieHandler.setDefault(new CookieManager());
         }
-        this.gson = new GsonBuilder().create();
+        this.gson = GsonHelper.getInstance().getGson();
         initUserAgent(context);
+        this.decoder = new ResponseDecoder(gson, DEFAULT_MAX_BODY_SIZE);
+        this.pipeline = new RequestPipeline(transport, decoder, userAgent, initDefaultHttpCache(context));
     }
 
     /**
@@ -87,16 +103,88 @@ abstract class BaseConnection {
     }
 
     /**
-     * This method will try to close the
-     * HttpURLConnection if it exists
+     * Get the default HttpCache shared by all connections, it is created the first time a connection is constructed
+     *
+     * @param context used to obtain the cache directory
+     * @return the default HttpCache
+     */
+    private static HttpCache initDefaultHttpCache(Context context) {
+        if (defaultHttpCache != null) {
+            return defaultHttpCache;
+        }
+        synchronized (BaseConnection.class) {
+            if (defaultHttpCache == null) {
+                File dir = new File(context.getApplicationContext().getCacheDir(), HTTP_CACHE_DIR);
+                defaultHttpCache = new HttpCache(dir, HttpCache.DEFAULT_MAX_SIZE);
+            }
+        }
+        return defaultHttpCache;
+    }
+
+    /**
+     * Set the HttpCache used for GET requests made by this connection, only responses of public resources like the localization
+     * files are stored in the cache.
+     *
+     * @param httpCache the cache to be used or null to disable caching
+     */
+    public void setHttpCache(HttpCache httpCache) {
+        pipeline.setHttpCache(httpCache);
+    }
+
+    /**
+     * Get the HttpCache used for GET requests made by this connection
+     *
+     * @return the cache or null if caching is disabled
+     */
+    public HttpCache getHttpCache() {
+        return pipeline.getHttpCache();
+    }
+
+    /**
+     * Set the RetryPolicy used for GET requests made by this connection, POST requests are never retried.
+     *
+     * @param retryPolicy the policy to be used
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        pipeline.setRetryPolicy(retryPolicy);
+    }
+
+    /**
+     * Get the RetryPolicy used for GET requests made by this connection
+     *
+     * @return the retry policy
+     */
+    public RetryPolicy getRetryPolicy() {
+        return pipeline.getRetryPolicy();
+    }
+
+    /**
+     * Set the maximum number of bytes that will be read from a response body.
+     * Responses exceeding this size are rejected while being decoded.
+     *
+     * @param maxBodySize the maximum size in bytes
+     */
+    public void setMaxBodySize(long maxBodySize) {
+        decoder.setMaxBodySize(maxBodySize);
+    }
+
+    /**
+     * Abort all GET requests currently made by this connection, the threads making them fail promptly with an IOException.
+     * POST requests are never aborted since an operation that is already on the wire may have been processed by the Payment API.
+     * Threads should be interrupted before calling this method so that aborted requests are not retried.
+     */
+    public void abortRequests() {
+        pipeline.abortRequests();
+    }
+
+    /**
+     * This method will release the HttpURLConnection
+     * to the transport if it exists
      *
      * @param conn the connection to close
      */
     void close(final HttpURLConnection conn) {
-
-        if (conn != null) {
-            conn.disconnect();
-        }
+        pipeline.release(conn);
     }
 
     /**
@@ -116,12 +204,7 @@ abstract class BaseConnection {
      * @return HttpURLConnection a HttpURLConnection object
      */
     HttpURLConnection createGetConnection(final URL url) throws IOException {
-        final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        setConnProperties(conn);
-        conn.setRequestMethod(HTTP_GET);
-        conn.setDoInput(true);
-        conn.setDoOutput(false);
-        return conn;
+        return pipeline.openConnection(url, false);
     }
 
     /**
@@ -141,59 +224,55 @@ abstract class BaseConnection {
      * @return HttpURLConnection the created HttpURLConnection
      */
     HttpURLConnection createPostConnection(final URL url) throws IOException {
-        final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        setConnProperties(conn);
-        conn.setRequestMethod(HTTP_POST);
-        conn.setDoInput(true);
-        conn.setDoOutput(true);
-        return conn;
+        return pipeline.openConnection(url, true);
     }
 
     /**
-     * Reads a String from the given Inputstream.
+     * Make a GET request for the json resource at the given URL and decode the response, see RequestPipeline.
      *
-     * @param conn the HttpURLConnection to read from
-     * @return the string representation read from the Inputstream
+     * @param url the Url pointing to the Payment API resource
+     * @param type the type of the object to decode
+     * @param endpoint the type of Payment API endpoint reported in the NetworkMetrics
+     * @return the decoded object
      */
-    String readFromInputStream(final HttpURLConnection conn) throws IOException {
+    <T> T getJson(final URL url, final Type type, final NetworkMetrics.Endpoint endpoint) throws IOException, PaymentException {
+        return pipeline.getJson(url, type, endpoint);
+    }
 
-        try (InputStream in = conn.getInputStream();
-            InputStreamReader ir = new InputStreamReader(in);
-            BufferedReader rd = new BufferedReader(ir)) {
-            return readFromBufferedReader(rd);
-        }
+    /**
+     * Make the POST request using the prepared connection and decode the response, POST requests are never retried.
+     *
+     * @param conn the POST connection with all request headers set
+     * @param data the request body
+     * @param type the type of the object to decode
+     * @param endpoint the type of Payment API endpoint reported in the NetworkMetrics
+     * @return the decoded object
+     */
+    <T> T postJson(final HttpURLConnection conn, final String data, final Type type, final NetworkMetrics.Endpoint endpoint)
+        throws IOException, PaymentException {
+        return pipeline.postJson(conn, data, type, endpoint);
     }
 
     /**
-     * Reads a String from the error stream
+     * Decode the json content of the Inputstream directly into an object of the given type.
      *
      * @param conn the HttpURLConnection to read from
-     * @return the string representation read from the inputstream
+     * @param type the type of the object to decode
+     * @return the decoded object or null if the response body is empty
      */
-    private String readFromErrorStream(final HttpURLConnection conn) throws IOException {
-
-        if (conn.getErrorStream() == null) {
-            return null;
-        }
-        try (InputStream in = conn.getErrorStream();
-            InputStreamReader ir = new InputStreamReader(in);
-            BufferedReader rd = new BufferedReader(ir)) {
-            return readFromBufferedReader(rd);
-        }
+    <T> T readFromInputStream(final HttpURLConnection conn, final Type type) throws IOException {
+        return pipeline.readFromInputStream(conn, type, null);
     }
 
     /**
-     * Write the data to the OutputStream of the
-     * HttpURLConnection with UTF8 encoding
+     * Decode the json content from the InputStream without buffering the complete body in memory.
      *
-     * @param conn the conn
-     * @param data the data
+     * @param in the InputStream containing the json content
+     * @param type the type of the object to decode
+     * @return the decoded object or null if the stream is empty
      */
-    void writeToOutputStream(final HttpURLConnection conn, String data) throws IOException {
-
-        try (OutputStream out = conn.getOutputStream()) {
-            out.write(data.getBytes(StandardCharsets.UTF_8));
-        }
+    <T> T readJson(final InputStream in, final Type type) throws IOException {
+        return decoder.decode(in, null, type, null);
     }
 
     /**
@@ -204,25 +283,7 @@ abstract class BaseConnection {
      * @return PaymentException network exception
      */
     PaymentException createPaymentException(final int statusCode, final HttpURLConnection conn) {
-        String data;
-        ErrorInfo errorInfo = null;
-
-        try {
-            data = readFromErrorStream(conn);
-            String contentType = conn.getContentType();
-
-            if (!TextUtils.isEmpty(data) && !TextUtils.isEmpty(contentType) && contentType.contains(CONTENTTYPE_JSON)) {
-                errorInfo = gson.fromJson(data, ErrorInfo.class);
-            }
-        } catch (IOException | JsonParseException e) {
-            // Ignore the exceptions since the ErrorInfo is an optional field
-            // and it is more important to not lose the status error code
-            Log.w("android-sdk", e);
-        }
-        if (errorInfo != null) {
-            return new PaymentException(errorInfo);
-        }
-        return new PaymentException("Received HTTP statusCode: " + statusCode + "from the Payment API");
+        return pipeline.createPaymentException(statusCode, conn);
     }
 
     /**
@@ -235,33 +296,4 @@ abstract class BaseConnection {
     PaymentException createPaymentException(Throwable cause, boolean networkFailure) {
         return new PaymentException(cause, networkFailure);
     }
-
-    /**
-     * Set connection properties
-     *
-     * @param conn the url connection
-     */
-    private void setConnProperties(final HttpURLConnection conn) {
-        conn.setConnectTimeout(TIMEOUT_CONNECT);
-        conn.setReadTimeout(TIMEOUT_READ);
-
-        if (!TextUtils.isEmpty(userAgent)) {
-            conn.setRequestProperty(HEADER_USER_AGENT, userAgent);
-        }
-    }
-
-    /**
-     * Read all content as a String from the buffered reader
-     *
-     * @return The content from the buffered reader
-     */
-    private String readFromBufferedReader(final BufferedReader in) throws IOException {
-        final StringBuilder buf = new StringBuilder();
-        String line;
-
-        while ((line = in.readLine()) != null) {
-            buf.append(line);
-        }
-        return buf.toString();
-    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import android.text.TextUtils;
+
+/**
+ * Class with helper methods for the content encodings supported when reading responses from the Payment API
+ */
+final class ContentEncoding {
+
+    final static String GZIP = "gzip";
+    final static String DEFLATE = "deflate";
+    final static String IDENTITY = "identity";
+
+    /** The value of the Accept-Encoding header send with each request */
+    final static String ACCEPT_ENCODING = GZIP + ", " + DEFLATE;
+
+    private final static int BUFFER_SIZE = 8192;
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * Normalize the value of the Content-Encoding response header
+     *
+     * @param contentEncoding the value of the Content-Encoding header, may be null
+     * @return the normalized content encoding, identity if none was provided
+     */
+    static String normalize(String contentEncoding) {
+        if (TextUtils.isEmpty(contentEncoding)) {
+            return IDENTITY;
+        }
+        return contentEncoding.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Wrap the InputStream with a stream decompressing the content while it is read
+     *
+     * @param contentEncoding the normalized content encoding of the response
+     * @param in the InputStream with the encoded content
+     * @return the InputStream providing the decoded content
+     */
+    static InputStream decode(String contentEncoding, InputStream in) throws IOException {
+        switch (contentEncoding) {
+            case IDENTITY:
+                return in;
+            case GZIP:
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            case DEFLATE:
+                return createInflaterInputStream(in);
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        }
+    }
+
+    /**
+     * Create an InflaterInputStream, servers may send deflate content with or without the zlib wrapper.
+     *
+     * @param in the InputStream with the deflated content
+     * @return the InputStream providing the inflated content
+     */
+    private static InputStream createInflaterInputStream(InputStream in) throws IOException {
+        PushbackInputStream pin = new PushbackInputStream(in, 2);
+        byte[] header = new byte[2];
+        int read = 0;
+
+        while (read < header.length) {
+            int count = pin.read(header, read, header.length - read);
+            if (count == -1) {
+                break;
+            }
+            read += count;
+        }
+        if (read > 0) {
+            pin.unread(header, 0, read);
+        }
+        boolean nowrap = read < 2 || !isZlibHeader(header[0] & 0xFF, header[1] & 0xFF);
+        return new InflaterInputStream(pin, new Inflater(nowrap), BUFFER_SIZE);
+    }
+
+    private static boolean isZlibHeader(int cmf, int flg) {
+        return (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream counting the number of bytes read from the wrapped InputStream and optionally the time spent reading them
+ */
+class CountingInputStream extends FilterInputStream {
+
+    private final boolean timed;
+    private long count;
+    private long readTime;
+
+    /**
+     * Construct a new CountingInputStream
+     *
+     * @param in the InputStream to read from
+     */
+    CountingInputStream(InputStream in) {
+        this(in, false);
+    }
+
+    /**
+     * Construct a new CountingInputStream
+     *
+     * @param in the InputStream to read from
+     * @param timed measure the time spent in reading from the wrapped InputStream
+     */
+    CountingInputStream(InputStream in, boolean timed) {
+        super(in);
+        this.timed = timed;
+    }
+
+    /**
+     * Get the number of bytes read from the wrapped InputStream
+     *
+     * @return the number of bytes read
+     */
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the time spent in reading from the wrapped InputStream, only measured when this stream is timed
+     *
+     * @return the read time in nanos
+     */
+    long getReadTime() {
+        return readTime;
+    }
+
+    /**
+     * Read and discard the remaining bytes of the wrapped InputStream
+     */
+    void drain() throws IOException {
+        byte[] buf = new byte[1024];
+        while (read(buf, 0, buf.length) != -1) {
+            // discard the content
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        long start = timed ? System.nanoTime() : 0;
+        int value = super.read();
+        if (timed) {
+            readTime += System.nanoTime() - start;
+        }
+        if (value != -1) {
+            count(1);
+        }
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = timed ? System.nanoTime() : 0;
+        int read = super.read(b, off, len);
+        if (timed) {
+            readTime += System.nanoTime() - start;
+        }
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            count(skipped);
+        }
+        return skipped;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Add the number of read bytes to the count
+     *
+     * @param read the number of bytes read
+     */
+    void count(long read) throws IOException {
+        count += read;
+    }
+}
@@ -0,0 +1,513 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.payoneer.mrs.payment.core.Workers;
+import com.payoneer.mrs.payment.util.GsonHelper;
+
+import android.text.TextUtils;
+import android.util.Log;
+
+/**
+ * Disk backed HTTP cache for GET requests of public Payment API resources, i.e. the localization files.
+ * Responses are stored as received on the wire and revalidated using the ETag and Last-Modified headers, only the bytes are cached
+ * so every request decodes a new object. Responses containing session or customer data, e.g. LIST results, must never be stored.
+ * The Cache-Control directives no-store, private, no-cache and max-age are honoured. The age of a response received by this process
+ * is measured with the clock of the WorkerScheduler, the age of a response loaded from disk is measured with the wall clock.
+ * When the total size of the stored responses exceeds the maximum size, the least recently used responses are evicted.
+ */
+public final class HttpCache {
+
+    /** The default maximum size of the cache in bytes */
+    public final static long DEFAULT_MAX_SIZE = 5 * 1024 * 1024;
+
+    final static String HEADER_CACHE_CONTROL = "Cache-Control";
+    final static String HEADER_ETAG = "ETag";
+    final static String HEADER_LAST_MODIFIED = "Last-Modified";
+    final static String HEADER_IF_NONE_MATCH = "If-None-Match";
+    final static String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    private final static String SUFFIX_BODY = ".body";
+    private final static String SUFFIX_META = ".meta";
+    private final static String SUFFIX_TEMP = ".tmp";
+
+    private final File directory;
+    private final long maxSize;
+    private final Gson gson;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong revalidationCount;
+    private long size;
+    private boolean initialized;
+
+    /**
+     * Construct a new HttpCache storing its responses in the given directory
+     *
+     * @param directory in which the responses are stored, created if it does not exist
+     * @param maxSize the maximum size in bytes of all stored responses
+     */
+    public HttpCache(File directory, long maxSize) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be larger than 0");
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.gson = GsonHelper.getInstance().getGson();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.revalidationCount = new AtomicLong();
+    }
+
+    /**
+     * Get the number of responses served from the cache without contacting the Payment API
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Get the number of responses that had to be downloaded in full from the Payment API
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Get the number of stored responses that were revalidated by the Payment API with a 304 Not Modified
+     *
+     * @return the number of revalidations
+     */
+    public long getRevalidationCount() {
+        return revalidationCount.get();
+    }
+
+    /**
+     * Get the total size in bytes of all stored responses
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getSize() {
+        initialize();
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Remove all stored responses from this cache
+     */
+    public synchronized void clear() {
+        initialize();
+        for (Entry entry : entries.values()) {
+            deleteFiles(entry.key);
+        }
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Get the stored entry for the given URL
+     *
+     * @param url of the GET request
+     * @return the entry or null if no response is stored for this URL
+     */
+    synchronized Entry get(URL url) {
+        initialize();
+        // the access order is kept in memory, a cache loaded from disk again starts in the order in which responses were stored
+        return entries.get(toKey(url));
+    }
+
+    /**
+     * Get the version of the fresh response stored for the given URL, this is its ETag, Last-Modified or response time.
+     * The version changes whenever a different response is stored, it allows decoded responses to be kept in memory for as long
+     * as the stored response may be served without revalidating it.
+     *
+     * @param url of the GET request
+     * @return the version or null if no fresh response is stored for this URL
+     */
+    synchronized String getFreshVersion(URL url) {
+        initialize();
+        Entry entry = entries.get(toKey(url));
+        return entry != null && entry.isFresh() ? entry.getVersion() : null;
+    }
+
+    /**
+     * Remove the stored entry from this cache
+     *
+     * @param entry to be removed
+     */
+    synchronized void remove(Entry entry) {
+        initialize();
+        Entry removed = entries.remove(entry.key);
+        if (removed != null) {
+            size -= removed.size;
+        }
+        deleteFiles(entry.key);
+    }
+
+    /**
+     * Create a new entry from the response headers, the entry is not stored yet.
+     *
+     * @param url of the GET request
+     * @param conn containing the response headers
+     * @return the new entry or null if the response may not be stored
+     */
+    Entry createEntry(URL url, HttpURLConnection conn) {
+        return Entry.fromResponse(toKey(url), url.toString(), ContentEncoding.normalize(conn.getContentEncoding()), null, conn);
+    }
+
+    /**
+     * Create a temporary file to which a response body can be written before it is stored
+     *
+     * @return the temporary file or null if it could not be created
+     */
+    File createTempFile() {
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                return null;
+            }
+            return File.createTempFile("response", SUFFIX_TEMP, directory);
+        } catch (IOException e) {
+            Log.w("android-sdk", e);
+            return null;
+        }
+    }
+
+    /**
+     * Store the entry with its response body in this cache
+     *
+     * @param entry containing the response headers
+     * @param body temporary file containing the response body as received on the wire
+     */
+    synchronized void put(Entry entry, File body) {
+        initialize();
+        File bodyFile = getBodyFile(entry.key);
+        if (!body.renameTo(bodyFile) || !writeMeta(entry)) {
+            body.delete();
+            remove(entry);
+            return;
+        }
+        Entry previous = entries.put(entry.key, entry);
+        if (previous != null) {
+            size -= previous.size;
+        }
+        entry.size = bodyFile.length();
+        size += entry.size;
+        evict();
+    }
+
+    /**
+     * Replace the stored entry by a revalidated entry after the Payment API responded with 304 Not Modified.
+     * Entries are immutable, the revalidated entry only replaces the stored entry if it has not been replaced or removed meanwhile.
+     *
+     * @param entry the stored entry
+     * @param conn containing the headers of the 304 response
+     * @return the revalidated entry or null if the response may not be stored anymore
+     */
+    synchronized Entry revalidate(Entry entry, HttpURLConnection conn) {
+        initialize();
+        revalidationCount.incrementAndGet();
+        Entry revalidated = Entry.fromResponse(entry.key, entry.url, entry.contentEncoding, entry, conn);
+        if (revalidated == null) {
+            remove(entry);
+            return null;
+        }
+        revalidated.size = entry.size;
+        if (entries.get(entry.key) == entry) {
+            entries.put(entry.key, revalidated);
+            writeMeta(revalidated);
+        }
+        return revalidated;
+    }
+
+    /**
+     * Open the stored response body of the entry
+     *
+     * @param entry the stored entry
+     * @return the InputStream to read the body from as received on the wire
+     */
+    InputStream openBody(Entry entry) throws IOException {
+        return new FileInputStream(getBodyFile(entry.key));
+    }
+
+    void recordHit() {
+        hitCount.incrementAndGet();
+    }
+
+    void recordMiss() {
+        missCount.incrementAndGet();
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.size;
+            deleteFiles(eldest.key);
+        }
+    }
+
+    private boolean writeMeta(Entry entry) {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(getMetaFile(entry.key)), StandardCharsets.UTF_8)) {
+            gson.toJson(entry, writer);
+            return true;
+        } catch (IOException | JsonParseException e) {
+            Log.w("android-sdk", e);
+            return false;
+        }
+    }
+
+    private Entry readMeta(File metaFile) {
+        try (Reader reader = new InputStreamReader(new FileInputStream(metaFile), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, Entry.class);
+        } catch (IOException | JsonParseException e) {
+            Log.w("android-sdk", e);
+            return null;
+        }
+    }
+
+    /**
+     * Load the index of stored responses from disk, the least recently used responses first
+     */
+    private void initialize() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<File> metaFiles = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(SUFFIX_META)) {
+                metaFiles.add(file);
+            } else if (name.endsWith(SUFFIX_TEMP)) {
+                file.delete();
+            }
+        }
+        Collections.sort(metaFiles, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                return Long.compare(lhs.lastModified(), rhs.lastModified());
+            }
+        });
+        for (File metaFile : metaFiles) {
+            String name = metaFile.getName();
+            String key = name.substring(0, name.length() - SUFFIX_META.length());
+            File bodyFile = getBodyFile(key);
+            Entry entry = readMeta(metaFile);
+
+            if (entry == null || !bodyFile.isFile()) {
+                deleteFiles(key);
+                continue;
+            }
+            entry.key = key;
+            entry.size = bodyFile.length();
+            entries.put(key, entry);
+            size += entry.size;
+        }
+        evict();
+    }
+
+    private File getBodyFile(String key) {
+        return new File(directory, key + SUFFIX_BODY);
+    }
+
+    private File getMetaFile(String key) {
+        return new File(directory, key + SUFFIX_META);
+    }
+
+    private void deleteFiles(String key) {
+        getBodyFile(key).delete();
+        getMetaFile(key).delete();
+    }
+
+    private static String toKey(URL url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(url.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder buf = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                buf.append(String.format(Locale.ROOT, "%02x", b));
+            }
+            return buf.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Class holding the response headers of one stored response.
+     * Entries are immutable, a revalidated response is stored as a new entry. The response time is persisted using the wall clock,
+     * the WorkerScheduler time at which the response was received is only kept in memory.
+     */
+    static final class Entry {
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final String contentEncoding;
+        private final long responseTime;
+        private final long maxAge;
+        private final boolean noCache;
+
+        private final transient long receivedTime;
+        private final transient boolean received;
+        private transient String key;
+        private transient long size;
+
+        private Entry(String key, String url, String etag, String lastModified, String contentEncoding, long maxAge, boolean noCache) {
+            this.key = key;
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentEncoding = contentEncoding;
+            this.maxAge = maxAge;
+            this.noCache = noCache;
+            this.responseTime = System.currentTimeMillis();
+            this.receivedTime = Workers.getInstance().getScheduler().currentTimeMillis();
+            this.received = true;
+        }
+
+        String getUrl() {
+            return url;
+        }
+
+        String getContentEncoding() {
+            return contentEncoding;
+        }
+
+        String getVersion() {
+            if (!TextUtils.isEmpty(etag)) {
+                return etag;
+            }
+            return !TextUtils.isEmpty(lastModified) ? lastModified : String.valueOf(responseTime);
+        }
+
+        /**
+         * Check if this entry may be served without revalidating it with the Payment API
+         *
+         * @return true when fresh, false otherwise
+         */
+        boolean isFresh() {
+            if (noCache || maxAge <= 0) {
+                return false;
+            }
+            // entries loaded from disk have not been received by this process and only know their wall clock response time
+            long age = received ? Workers.getInstance().getScheduler().currentTimeMillis() - receivedTime
+                : System.currentTimeMillis() - responseTime;
+            return age >= 0 && age < maxAge * 1000L;
+        }
+
+        /**
+         * Add the conditional request headers allowing the Payment API to respond with 304 Not Modified
+         *
+         * @param conn the connection to which the headers should be added
+         */
+        void addConditionalHeaders(HttpURLConnection conn) {
+            if (!TextUtils.isEmpty(etag)) {
+                conn.setRequestProperty(HEADER_IF_NONE_MATCH, etag);
+            }
+            if (!TextUtils.isEmpty(lastModified)) {
+                conn.setRequestProperty(HEADER_IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+
+        /**
+         * Create a new entry from the headers of the response, the validators and directives of the previous entry are kept
+         * when the response does not contain new ones.
+         *
+         * @param key of the entry
+         * @param url of the GET request
+         * @param contentEncoding of the stored response body
+         * @param previous the entry being revalidated, null for a new response
+         * @param conn containing the response headers
+         * @return the new entry or null if the response may not be stored
+         */
+        static Entry fromResponse(String key, String url, String contentEncoding, Entry previous, HttpURLConnection conn) {
+            String etag = conn.getHeaderField(HEADER_ETAG);
+            String lastModified = conn.getHeaderField(HEADER_LAST_MODIFIED);
+            String cacheControl = conn.getHeaderField(HEADER_CACHE_CONTROL);
+            long maxAge = previous != null ? previous.maxAge : -1;
+            boolean noCache = previous != null && previous.noCache;
+
+            if (TextUtils.isEmpty(etag) && previous != null) {
+                etag = previous.etag;
+            }
+            if (TextUtils.isEmpty(lastModified) && previous != null) {
+                lastModified = previous.lastModified;
+            }
+            if (!TextUtils.isEmpty(cacheControl)) {
+                noCache = false;
+                maxAge = -1;
+                for (String directive : cacheControl.split(",")) {
+                    String value = directive.trim().toLowerCase(Locale.ROOT);
+                    if (value.equals("no-store") || value.equals("private")) {
+                        return null;
+                    } else if (value.equals("no-cache")) {
+                        noCache = true;
+                    } else if (value.startsWith("max-age=")) {
+                        maxAge = parseSeconds(value.substring("max-age=".length()));
+                    }
+                }
+            }
+            if (maxAge <= 0 && TextUtils.isEmpty(etag) && TextUtils.isEmpty(lastModified)) {
+                return null;
+            }
+            return new Entry(key, url, etag, lastModified, contentEncoding, maxAge, noCache);
+        }
+
+        private static long parseSeconds(String value) {
+            try {
+                return Long.parseLong(value.replace("\"", ""));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * The HttpTransport is responsible for opening and releasing the HttpURLConnections used by the Payment API connections.
+ * Implementations must be thread safe since one transport is shared by all connections.
+ */
+public interface HttpTransport {
+
+    /**
+     * Open a new HttpURLConnection for the given URL, the connection is not yet connected.
+     *
+     * @param url pointing to the Payment API resource
+     * @return the newly opened HttpURLConnection
+     */
+    HttpURLConnection openConnection(URL url) throws IOException;
+
+    /**
+     * Release the HttpURLConnection once the request has been completed.
+     * The transport decides whether the underlying socket is kept alive or closed.
+     *
+     * @param conn the connection to release, may be null
+     * @param responseReceived true when the response code has been read, the remaining response body may then be consumed
+     * without causing a new request
+     * @param bodyConsumed true when the response body has been read until the end and closed by the caller
+     */
+    void releaseConnection(HttpURLConnection conn, boolean responseReceived, boolean bodyConsumed);
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HttpTransport releasing connections in a way that allows the platform HTTP stack to reuse their sockets.
+ * The socket pooling itself is done by the platform HttpURLConnection, this transport requests keep-alive connections
+ * and, when releasing a connection of which the response body has not been consumed, drains the unread part of the body
+ * instead of disconnecting. A socket is only returned to the platform pool once its response body has been fully consumed
+ * and closed, a consumed body is therefore never opened again. Connections of which the response body is too large to drain
+ * or cannot be read are disconnected.
+ */
+public final class KeepAliveHttpTransport implements HttpTransport {
+
+    private final static String HEADER_CONNECTION = "Connection";
+    private final static String VALUE_KEEP_ALIVE = "keep-alive";
+    private final static int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private final AtomicLong connectionCount = new AtomicLong();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HttpURLConnection openConnection(URL url) throws IOException {
+        if (url == null) {
+            throw new IllegalArgumentException("url cannot be null");
+        }
+        final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestProperty(HEADER_CONNECTION, VALUE_KEEP_ALIVE);
+        connectionCount.incrementAndGet();
+        return conn;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void releaseConnection(HttpURLConnection conn, boolean responseReceived, boolean bodyConsumed) {
+        if (conn == null) {
+            return;
+        }
+        if (!responseReceived) {
+            conn.disconnect();
+        } else if (!bodyConsumed && !drain(getResponseStream(conn))) {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Get the number of HttpURLConnections opened through this transport.
+     * This is the number of requests made, not the number of sockets, since sockets are reused by the platform.
+     *
+     * @return the number of opened connections
+     */
+    public long getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Get the stream containing the response body, this is the error stream for error responses.
+     *
+     * @param conn the connection of which the response has been received
+     * @return the response stream or null if there is no response body
+     */
+    private static InputStream getResponseStream(HttpURLConnection conn) {
+        InputStream in = conn.getErrorStream();
+        if (in != null) {
+            return in;
+        }
+        try {
+            return conn.getInputStream();
+        } catch (IOException e) {
+            // no response body, e.g. an error response without content
+            return null;
+        }
+    }
+
+    /**
+     * Drain and close the remaining content of the stream so the socket can be reused.
+     *
+     * @param in the stream to drain, may be null
+     * @return true when the stream was fully drained, false otherwise
+     */
+    private static boolean drain(InputStream in) {
+        if (in == null) {
+            return true;
+        }
+        byte[] buf = new byte[4096];
+        int total = 0;
+        int read;
+        try (InputStream stream = in) {
+            while ((read = stream.read(buf)) != -1) {
+                total += read;
+                if (total > MAX_DRAIN_BYTES) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // the stream could not be drained or has been closed in an unknown state
+            return false;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream limiting the number of bytes that can be read from the wrapped InputStream
+ */
+final class LimitedInputStream extends CountingInputStream {
+
+    private final long limit;
+
+    /**
+     * Construct a new LimitedInputStream
+     *
+     * @param in the InputStream to read from
+     * @param limit the maximum number of bytes that may be read
+     */
+    LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void count(long read) throws IOException {
+        super.count(read);
+        if (getCount() > limit) {
+            throw new LimitExceededException("Response body exceeds the maximum size of " + limit + " bytes");
+        }
+    }
+
+    /**
+     * Exception thrown when more bytes are read than allowed by the limit
+     */
+    static final class LimitExceededException extends IOException {
+
+        LimitExceededException(String message) {
+            super(message);
+        }
+    }
+}
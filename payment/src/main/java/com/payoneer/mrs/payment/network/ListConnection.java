@@ -11,6 +11,7 @@ package com.payoneer.mrs.payment.network;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.URL;
 
 import com.google.gson.JsonParseException;
 import com.payoneer.mrs.payment.core.PaymentException;
@@ -39,6 +40,16 @@ public final class ListConnection extends BaseConnection {
         super(context);
     }
 
+    /**
+     * Construct a new ListConnection with its own transport
+     *
+     * @param context used to construct the UserAgent header
+     * @param transport used to open and release the HttpURLConnections
+     */
+    public ListConnection(Context context, HttpTransport transport) {
+        super(context, transport);
+    }
+
     /**
      * Create a new payment session through the Server Payment API. Remind this is not
      * a request mobile apps should be making as this call is normally executed
@@ -73,14 +84,7 @@ public final class ListConnection extends BaseConnection {
             conn.setRequestProperty(HEADER_CONTENT_TYPE, VALUE_APP_JSON);
             conn.setRequestProperty(HEADER_ACCEPT, VALUE_APP_JSON);
 
-            writeToOutputStream(conn, listData);
-            conn.connect();
-            final int rc = conn.getResponseCode();
-
-            if (rc == HttpURLConnection.HTTP_OK) {
-                return handleCreatePaymentSessionOk(readFromInputStream(conn));
-            }
-            throw createPaymentException(rc, conn);
+            return postJson(conn, listData, ListResult.class, NetworkMetrics.Endpoint.LIST);
         } catch (JsonParseException | MalformedURLException | SecurityException e) {
             throw createPaymentException(e, false);
         } catch (IOException e) {
@@ -101,49 +105,14 @@ public final class ListConnection extends BaseConnection {
         if (TextUtils.isEmpty(url)) {
             throw new IllegalArgumentException("url cannot be null or empty");
         }
-        HttpURLConnection conn = null;
-
         try {
             final String requestUrl = Uri.parse(url).buildUpon()
                 .build().toString();
-
-            conn = createGetConnection(requestUrl);
-            conn.setRequestProperty(HEADER_CONTENT_TYPE, VALUE_APP_JSON);
-            conn.setRequestProperty(HEADER_ACCEPT, VALUE_APP_JSON);
-
-            conn.connect();
-            final int rc = conn.getResponseCode();
-            if (rc == HttpURLConnection.HTTP_OK) {
-                return handleGetListResultOk(readFromInputStream(conn));
-            }
-            throw createPaymentException(rc, conn);
+            return getJson(new URL(requestUrl), ListResult.class, NetworkMetrics.Endpoint.LIST);
         } catch (JsonParseException | MalformedURLException | SecurityException e) {
             throw createPaymentException(e, false);
         } catch (IOException e) {
             throw createPaymentException(e, true);
-        } finally {
-            close(conn);
         }
     }
-
-
-    /**
-     * Handle the create new payment session OK state
-     *
-     * @param data the response data received from the API
-     * @return the ListResult
-     */
-    private ListResult handleCreatePaymentSessionOk(final String data) throws JsonParseException {
-        return gson.fromJson(data, ListResult.class);
-    }
-
-    /**
-     * Handle get list result OK state
-     *
-     * @param data the response data received from the Payment API
-     * @return the ListResult
-     */
-    private ListResult handleGetListResultOk(final String data) throws JsonParseException {
-        return gson.fromJson(data, ListResult.class);
-    }
 }
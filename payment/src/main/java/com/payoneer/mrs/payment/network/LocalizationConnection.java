@@ -9,7 +9,7 @@
 package com.payoneer.mrs.payment.network;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
+import java.lang.reflect.Type;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
@@ -32,6 +32,9 @@ import android.content.Context;
  */
 public final class LocalizationConnection extends BaseConnection {
 
+    private final static Type LOCALIZATION_TYPE = new TypeToken<HashMap<String, String>>() {
+    }.getType();
+
     /**
      * Construct a new LocalizationConnection
      *
@@ -41,6 +44,16 @@ public final class LocalizationConnection extends BaseConnection {
         super(context);
     }
 
+    /**
+     * Construct a new LocalizationConnection with its own transport
+     *
+     * @param context used to create the custom UserAgent value
+     * @param transport used to open and release the HttpURLConnections
+     */
+    public LocalizationConnection(Context context, HttpTransport transport) {
+        super(context, transport);
+    }
+
     /**
      * Load the localization file given the URL.
      *
@@ -51,35 +64,37 @@ public final class LocalizationConnection extends BaseConnection {
         if (url == null) {
             throw new IllegalArgumentException("url cannot be null");
         }
-        HttpURLConnection conn = null;
         try {
-            conn = createGetConnection(url);
-            conn.setRequestProperty(HEADER_CONTENT_TYPE, VALUE_APP_JSON);
-            conn.setRequestProperty(HEADER_ACCEPT, VALUE_APP_JSON);
-            conn.connect();
-            final int rc = conn.getResponseCode();
-            if (rc == HttpURLConnection.HTTP_OK) {
-                return handleLoadLocalizationOk(readFromInputStream(conn));
-            }
-            throw createPaymentException(rc, conn);
+            return handleLoadLocalizationOk(getJson(url, LOCALIZATION_TYPE, NetworkMetrics.Endpoint.LOCALIZATION));
         } catch (JsonParseException | SecurityException e) {
             throw createPaymentException(e, false);
         } catch (IOException e) {
             throw createPaymentException(e, true);
-        } finally {
-            close(conn);
         }
     }
 
+    /**
+     * Get the version of the language file stored in the HttpCache of this connection.
+     * A version is only returned while the stored language file may be used without revalidating it with the server.
+     *
+     * @param url containing the address of the remote language file
+     * @return the version or null if the language file is not stored, must be revalidated or caching is disabled
+     */
+    public String getCachedVersion(URL url) {
+        if (url == null) {
+            throw new IllegalArgumentException("url cannot be null");
+        }
+        HttpCache cache = getHttpCache();
+        return cache != null ? cache.getFreshVersion(url) : null;
+    }
+
     /**
      * Handle get localizations ok
      *
-     * @param data the response data received from the Payment API
+     * @param map the localizations received from the Payment API
      * @return the LocalizationHolder containing the localizations
      */
-    private LocalizationHolder handleLoadLocalizationOk(final String data) throws JsonParseException {
-        Map<String, String> map = gson.fromJson(data, new TypeToken<HashMap<String, String>>() {
-        }.getType());
+    private LocalizationHolder handleLoadLocalizationOk(final Map<String, String> map) {
         return new MapLocalizationHolder(map);
     }
 }
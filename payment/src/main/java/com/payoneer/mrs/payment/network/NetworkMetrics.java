@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class holding the metrics of one request made to the Payment API.
+ * All phase timings are in millis and are 0 when the phase did not take place, e.g. the connect phase of a request served from the cache.
+ * When a request has been retried, the phase timings and byte counts belong to the last attempt and the total time covers all attempts.
+ */
+public final class NetworkMetrics {
+
+    /**
+     * The type of Payment API endpoint that was requested
+     */
+    public enum Endpoint {
+        LIST,
+        OPERATION,
+        LOCALIZATION
+    }
+
+    /**
+     * The outcome of looking up the response in the HttpCache
+     */
+    public enum CacheOutcome {
+        /** The request is not cacheable or the cache is disabled */
+        NONE,
+        /** The response was served from the cache without contacting the Payment API */
+        HIT,
+        /** The cached response was revalidated by the Payment API */
+        REVALIDATED,
+        /** The response was loaded from the Payment API */
+        MISS
+    }
+
+    private final Endpoint endpoint;
+    private final String method;
+    private final URL url;
+    private final int statusCode;
+    private final long connectTime;
+    private final long requestTime;
+    private final long firstByteTime;
+    private final long downloadTime;
+    private final long decodeTime;
+    private final long totalTime;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final long bytesDecoded;
+    private final String contentEncoding;
+    private final int retryCount;
+    private final CacheOutcome cacheOutcome;
+    private final Throwable error;
+
+    private NetworkMetrics(Recorder recorder) {
+        this.endpoint = recorder.endpoint;
+        this.method = recorder.method;
+        this.url = recorder.url;
+        this.statusCode = recorder.statusCode;
+        this.connectTime = toMillis(recorder.connectNanos);
+        this.requestTime = toMillis(recorder.requestNanos);
+        this.firstByteTime = toMillis(recorder.firstByteNanos);
+        this.downloadTime = toMillis(recorder.downloadNanos);
+        this.decodeTime = toMillis(recorder.bodyNanos - recorder.downloadNanos);
+        this.totalTime = toMillis(recorder.totalNanos);
+        this.bytesSent = recorder.bytesSent;
+        this.bytesReceived = recorder.bytesReceived;
+        this.bytesDecoded = recorder.bytesDecoded;
+        this.contentEncoding = recorder.contentEncoding;
+        this.retryCount = recorder.retryCount;
+        this.cacheOutcome = recorder.cacheOutcome;
+        this.error = recorder.error;
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+    /**
+     * Get the HTTP status code of the response
+     *
+     * @return the status code or 0 if no response was received or it was served from the cache
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Get the time to establish the connection, including the DNS lookup and TLS handshake.
+     * This is close to 0 when a kept-alive connection was reused.
+     *
+     * @return the connect time in millis
+     */
+    public long getConnectTime() {
+        return connectTime;
+    }
+
+    /**
+     * Get the time to send the request body
+     *
+     * @return the request time in millis
+     */
+    public long getRequestTime() {
+        return requestTime;
+    }
+
+    /**
+     * Get the time between sending the request and receiving the response headers
+     *
+     * @return the time to first byte in millis
+     */
+    public long getFirstByteTime() {
+        return firstByteTime;
+    }
+
+    /**
+     * Get the time spent waiting for response body bytes from the network
+     *
+     * @return the download time in millis
+     */
+    public long getDownloadTime() {
+        return downloadTime;
+    }
+
+    /**
+     * Get the time spent decompressing and decoding the json response body, excluding the time waiting for the network
+     *
+     * @return the decode time in millis
+     */
+    public long getDecodeTime() {
+        return decodeTime;
+    }
+
+    /**
+     * Get the time from starting the request until it completed, including all retries and the delays between them
+     *
+     * @return the total time in millis
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Get the number of response body bytes received on the wire, i.e. before decompression
+     *
+     * @return the number of bytes received
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Get the number of response body bytes after decompression
+     *
+     * @return the number of decoded bytes
+     */
+    public long getBytesDecoded() {
+        return bytesDecoded;
+    }
+
+    /**
+     * Get the content encoding of the response body, i.e. gzip, deflate or identity
+     *
+     * @return the content encoding or null if no response body has been read from the network
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    public CacheOutcome getCacheOutcome() {
+        return cacheOutcome;
+    }
+
+    /**
+     * Get the error that caused the request to fail
+     *
+     * @return the error or null if the request succeeded
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "NetworkMetrics[endpoint=" + endpoint + ", method=" + method + ", statusCode=" + statusCode + ", connect=" + connectTime
+            + ", request=" + requestTime + ", firstByte=" + firstByteTime + ", download=" + downloadTime + ", decode=" + decodeTime
+            + ", total=" + totalTime + ", received=" + bytesReceived + ", retries=" + retryCount + ", cache=" + cacheOutcome + "]";
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos > 0 ? TimeUnit.NANOSECONDS.toMillis(nanos) : 0;
+    }
+
+    /**
+     * Class collecting the timings of a request while it is being made, a new attempt resets the phases of the previous attempt.
+     */
+    static final class Recorder {
+        private final Endpoint endpoint;
+        private final String method;
+        private final long start;
+        private URL url;
+        private int statusCode;
+        private long phaseStart;
+        private long connectNanos;
+        private long requestNanos;
+        private long firstByteNanos;
+        private long downloadNanos;
+        private long bodyNanos;
+        private long totalNanos;
+        private long bytesSent;
+        private long bytesReceived;
+        private long bytesDecoded;
+        private String contentEncoding;
+        private int retryCount;
+        private CacheOutcome cacheOutcome;
+        private Throwable error;
+
+        Recorder(Endpoint endpoint, String method) {
+            this.endpoint = endpoint;
+            this.method = method;
+            this.start = System.nanoTime();
+            this.cacheOutcome = CacheOutcome.NONE;
+        }
+
+        void startAttempt(URL url, int attempt) {
+            this.url = url;
+            this.retryCount = attempt - 1;
+            this.statusCode = 0;
+            this.connectNanos = 0;
+            this.requestNanos = 0;
+            this.firstByteNanos = 0;
+            this.downloadNanos = 0;
+            this.bodyNanos = 0;
+            this.bytesSent = 0;
+            this.bytesReceived = 0;
+            this.bytesDecoded = 0;
+            this.contentEncoding = null;
+            this.phaseStart = System.nanoTime();
+        }
+
+        void connected() {
+            connectNanos = endPhase();
+        }
+
+        void requestSent(long bytesSent) {
+            this.bytesSent = bytesSent;
+            requestNanos = endPhase();
+        }
+
+        void responseReceived(int statusCode) {
+            this.statusCode = statusCode;
+            firstByteNanos = endPhase();
+        }
+
+        void bodyRead(TransferStats stats, long downloadNanos) {
+            this.bytesReceived = stats.getCompressedBytes();
+            this.bytesDecoded = stats.getUncompressedBytes();
+            this.contentEncoding = stats.getContentEncoding();
+            this.downloadNanos = downloadNanos;
+            bodyNanos = endPhase();
+        }
+
+        void setCacheOutcome(CacheOutcome cacheOutcome) {
+            this.cacheOutcome = cacheOutcome;
+        }
+
+        NetworkMetrics complete(Throwable error) {
+            this.error = error;
+            this.totalNanos = System.nanoTime() - start;
+            return new NetworkMetrics(this);
+        }
+
+        private long endPhase() {
+            long now = System.nanoTime();
+            long duration = now - phaseStart;
+            phaseStart = now;
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import android.util.Log;
+
+/**
+ * The Singleton class holding the NetworkMetricsListener of the integrating app.
+ * Connections only collect metrics while a listener is registered.
+ */
+public final class NetworkMetricsDispatcher {
+
+    private volatile NetworkMetricsListener listener;
+
+    private NetworkMetricsDispatcher() {
+    }
+
+    /**
+     * Get the instance of this NetworkMetricsDispatcher
+     *
+     * @return the instance of this NetworkMetricsDispatcher
+     */
+    public static NetworkMetricsDispatcher getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Set the listener receiving the metrics of all requests made to the Payment API
+     *
+     * @param listener the listener or null to stop collecting metrics
+     */
+    public void setListener(NetworkMetricsListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Get the registered listener
+     *
+     * @return the listener or null if none is registered
+     */
+    public NetworkMetricsListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Create a recorder for a new request if a listener is registered
+     *
+     * @param endpoint the type of Payment API endpoint
+     * @param method the HTTP method of the request
+     * @return the recorder or null if no metrics should be collected
+     */
+    NetworkMetrics.Recorder startRecording(NetworkMetrics.Endpoint endpoint, String method) {
+        return listener == null ? null : new NetworkMetrics.Recorder(endpoint, method);
+    }
+
+    /**
+     * Deliver the metrics to the registered listener, errors thrown by the listener do not affect the request.
+     *
+     * @param metrics collected for the request
+     */
+    void dispatch(NetworkMetrics metrics) {
+        NetworkMetricsListener current = listener;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.onNetworkMetrics(metrics);
+        } catch (RuntimeException e) {
+            Log.w("android-sdk", e);
+        }
+    }
+
+    private static class InstanceHolder {
+        static final NetworkMetricsDispatcher INSTANCE = new NetworkMetricsDispatcher();
+    }
+}
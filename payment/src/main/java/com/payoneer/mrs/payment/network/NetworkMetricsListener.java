@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+/**
+ * Listener receiving the NetworkMetrics of every request made to the Payment API.
+ * The listener is called on the thread that made the request and should return quickly, e.g. by queueing the metrics for upload.
+ */
+public interface NetworkMetricsListener {
+
+    /**
+     * Called when a request has completed, either successfully or with an error
+     *
+     * @param metrics collected for the request
+     */
+    void onNetworkMetrics(NetworkMetrics metrics);
+}
@@ -38,6 +38,16 @@ public final class PaymentConnection extends BaseConnection {
         super(context);
     }
 
+    /**
+     * Construct a new PaymentConnection with its own transport
+     *
+     * @param context used to construct the custom UserAgent header
+     * @param transport used to open and release the HttpURLConnections
+     */
+    public PaymentConnection(Context context, HttpTransport transport) {
+        super(context, transport);
+    }
+
     /**
      * Post an operation to the Payment API, i.e. a Preset or Charge operation.
      *
@@ -55,14 +65,8 @@ public final class PaymentConnection extends BaseConnection {
             conn.setRequestProperty(HEADER_CONTENT_TYPE, VALUE_APP_JSON);
             conn.setRequestProperty(HEADER_ACCEPT, VALUE_APP_JSON);
 
-            writeToOutputStream(conn, operation.toJson());
-            conn.connect();
-            final int rc = conn.getResponseCode();
-            if (rc == HttpURLConnection.HTTP_OK) {
-                return handlePostOperationOk(readFromInputStream(conn));
-            }
-            throw createPaymentException(rc, conn);
-        } catch (MalformedURLException | SecurityException e) {
+            return postJson(conn, operation.toJson(), OperationResult.class, NetworkMetrics.Endpoint.OPERATION);
+        } catch (JsonParseException | MalformedURLException | SecurityException e) {
             throw createPaymentException(e, false);
         } catch (IOException e) {
             throw createPaymentException(e, true);
@@ -70,14 +74,4 @@ public final class PaymentConnection extends BaseConnection {
             close(conn);
         }
     }
-
-    /**
-     * Handle the post Operation OK state
-     *
-     * @param data the response data received from the API
-     * @return the network response containing the OperationResult
-     */
-    private OperationResult handlePostOperationOk(final String data) throws JsonParseException {
-        return gson.fromJson(data, OperationResult.class);
-    }
 }
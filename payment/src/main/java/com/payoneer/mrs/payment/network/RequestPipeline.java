@@ -0,0 +1,528 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.JsonParseException;
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.core.WorkerScheduler;
+import com.payoneer.mrs.payment.core.Workers;
+import com.payoneer.mrs.payment.model.ErrorInfo;
+
+import android.text.TextUtils;
+import android.util.Log;
+
+/**
+ * Class making the HTTP requests of a Payment API connection.
+ * The pipeline opens and releases the HttpURLConnections through the HttpTransport, serves and stores GET responses using
+ * the HttpCache, retries failed GET requests according to the RetryPolicy, records the NetworkMetrics and tracks the GET
+ * requests in progress so that they can be aborted. Response bodies are decoded by the ResponseDecoder.
+ */
+final class RequestPipeline {
+
+    private final static int TIMEOUT_CONNECT = 5000;
+    private final static int TIMEOUT_READ = 30000;
+    private final static String HEADER_USER_AGENT = "User-Agent";
+    private final static String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    private final static String HTTP_GET = "GET";
+    private final static String HTTP_POST = "POST";
+    private final static String CONTENTTYPE_JSON = "application/json";
+
+    private final HttpTransport transport;
+    private final ResponseDecoder decoder;
+    private final String userAgent;
+
+    /** The cache used for GET requests, null if caching is disabled */
+    private volatile HttpCache httpCache;
+
+    /** The policy used to retry GET requests that failed with a network error */
+    private volatile RetryPolicy retryPolicy = RetryPolicy.createDefault();
+
+    /** The GET connections currently in use, these are disconnected when the requests are aborted */
+    private final Set<HttpURLConnection> activeConnections = Collections.newSetFromMap(new ConcurrentHashMap<HttpURLConnection, Boolean>());
+
+    /** The connections for which a response has been received, mapped to whether their response body has been consumed */
+    private final Map<HttpURLConnection, Boolean> respondedConnections = new ConcurrentHashMap<>();
+
+    /**
+     * Construct a new RequestPipeline
+     *
+     * @param transport used to open and release the HttpURLConnections
+     * @param decoder used to decode the response bodies
+     * @param userAgent send with each request, may be null
+     * @param httpCache used for GET requests, null to disable caching
+     */
+    RequestPipeline(HttpTransport transport, ResponseDecoder decoder, String userAgent, HttpCache httpCache) {
+        this.transport = transport;
+        this.decoder = decoder;
+        this.userAgent = userAgent;
+        this.httpCache = httpCache;
+    }
+
+    void setHttpCache(HttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
+
+    HttpCache getHttpCache() {
+        return httpCache;
+    }
+
+    void setRetryPolicy(RetryPolicy retryPolicy) {
+        if (retryPolicy == null) {
+            throw new IllegalArgumentException("retryPolicy cannot be null");
+        }
+        this.retryPolicy = retryPolicy;
+    }
+
+    RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Open a new HttpURLConnection through the transport with the timeouts and common request headers set
+     *
+     * @param url pointing to the Payment API resource
+     * @param post true for a POST connection, false for a GET connection
+     * @return the newly opened HttpURLConnection
+     */
+    HttpURLConnection openConnection(final URL url, final boolean post) throws IOException {
+        final HttpURLConnection conn = transport.openConnection(url);
+        conn.setConnectTimeout(TIMEOUT_CONNECT);
+        conn.setReadTimeout(TIMEOUT_READ);
+        conn.setRequestProperty(HEADER_ACCEPT_ENCODING, ContentEncoding.ACCEPT_ENCODING);
+
+        if (!TextUtils.isEmpty(userAgent)) {
+            conn.setRequestProperty(HEADER_USER_AGENT, userAgent);
+        }
+        conn.setRequestMethod(post ? HTTP_POST : HTTP_GET);
+        conn.setDoInput(true);
+        conn.setDoOutput(post);
+        return conn;
+    }
+
+    /**
+     * Release the HttpURLConnection to the transport, the transport is told whether the response body has been consumed
+     *
+     * @param conn the connection to release, may be null
+     */
+    void release(final HttpURLConnection conn) {
+        if (conn != null) {
+            Boolean bodyConsumed = respondedConnections.remove(conn);
+            transport.releaseConnection(conn, bodyConsumed != null, Boolean.TRUE.equals(bodyConsumed));
+        }
+    }
+
+    /**
+     * Abort all GET requests currently made through this pipeline, the threads making them fail promptly with an IOException.
+     */
+    void abortRequests() {
+        for (HttpURLConnection conn : activeConnections) {
+            if (activeConnections.remove(conn)) {
+                conn.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Make a GET request for the json resource at the given URL and decode the response.
+     * When an HttpCache is set and the endpoint serves public resources, fresh stored responses are served without contacting
+     * the Payment API and stored responses are revalidated using conditional request headers.
+     * Requests failing with a network error are retried according to the RetryPolicy.
+     *
+     * @param url the Url pointing to the Payment API resource
+     * @param type the type of the object to decode
+     * @param endpoint the type of Payment API endpoint reported in the NetworkMetrics
+     * @return the decoded object
+     */
+    <T> T getJson(final URL url, final Type type, final NetworkMetrics.Endpoint endpoint) throws IOException, PaymentException {
+        final NetworkMetricsDispatcher dispatcher = NetworkMetricsDispatcher.getInstance();
+        final NetworkMetrics.Recorder recorder = dispatcher.startRecording(endpoint, HTTP_GET);
+        final HttpCache cache = isCacheable(endpoint) ? httpCache : null;
+        if (recorder == null) {
+            return getJsonWithRetries(url, type, cache, null);
+        }
+        Throwable error = null;
+        try {
+            return getJsonWithRetries(url, type, cache, recorder);
+        } catch (IOException | PaymentException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            dispatcher.dispatch(recorder.complete(error));
+        }
+    }
+
+    /**
+     * Make the POST request using the prepared connection and decode the response, POST requests are never retried.
+     * The connection must be released by the caller.
+     *
+     * @param conn the POST connection with all request headers set
+     * @param data the request body
+     * @param type the type of the object to decode
+     * @param endpoint the type of Payment API endpoint reported in the NetworkMetrics
+     * @return the decoded object
+     */
+    <T> T postJson(final HttpURLConnection conn, final String data, final Type type, final NetworkMetrics.Endpoint endpoint)
+        throws IOException, PaymentException {
+        final NetworkMetricsDispatcher dispatcher = NetworkMetricsDispatcher.getInstance();
+        final NetworkMetrics.Recorder recorder = dispatcher.startRecording(endpoint, HTTP_POST);
+        Throwable error = null;
+        try {
+            if (recorder != null) {
+                recorder.startAttempt(conn.getURL(), 1);
+            }
+            conn.connect();
+            if (recorder != null) {
+                recorder.connected();
+            }
+            final int bytesSent = writeToOutputStream(conn, data);
+            if (recorder != null) {
+                recorder.requestSent(bytesSent);
+            }
+            final int rc = conn.getResponseCode();
+            respondedConnections.put(conn, Boolean.FALSE);
+            if (recorder != null) {
+                recorder.responseReceived(rc);
+            }
+            if (rc == HttpURLConnection.HTTP_OK) {
+                return readFromInputStream(conn, type, recorder);
+            }
+            throw createPaymentException(rc, conn);
+        } catch (IOException | PaymentException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            if (recorder != null) {
+                dispatcher.dispatch(recorder.complete(error));
+            }
+        }
+    }
+
+    /**
+     * Decode the json content of the connection's response body
+     *
+     * @param conn the HttpURLConnection to read from
+     * @param type the type of the object to decode
+     * @param recorder collecting the NetworkMetrics, may be null
+     * @return the decoded object or null if the response body is empty
+     */
+    <T> T readFromInputStream(final HttpURLConnection conn, final Type type, final NetworkMetrics.Recorder recorder)
+        throws IOException {
+        T value = decoder.decode(conn.getInputStream(), conn.getContentEncoding(), type, recorder);
+        bodyConsumed(conn);
+        return value;
+    }
+
+    /**
+     * Create the PaymentException for an error response, the ErrorInfo is decoded from the error stream when available
+     *
+     * @param statusCode the status code
+     * @param conn the conn
+     * @return PaymentException network exception
+     */
+    PaymentException createPaymentException(final int statusCode, final HttpURLConnection conn) {
+        ErrorInfo errorInfo = null;
+
+        try {
+            String contentType = conn.getContentType();
+
+            if (!TextUtils.isEmpty(contentType) && contentType.contains(CONTENTTYPE_JSON)) {
+                errorInfo = readFromErrorStream(conn, ErrorInfo.class);
+            }
+        } catch (IOException | JsonParseException e) {
+            // Ignore the exceptions since the ErrorInfo is an optional field
+            // and it is more important to not lose the status error code
+            Log.w("android-sdk", e);
+        }
+        if (errorInfo != null) {
+            return new PaymentException(errorInfo);
+        }
+        return new PaymentException("Received HTTP statusCode: " + statusCode + "from the Payment API");
+    }
+
+    /**
+     * Check if responses of the endpoint may be stored in the HttpCache.
+     * Only the localization files are public resources, LIST responses contain session and customer data and are never stored on disk.
+     *
+     * @param endpoint the type of Payment API endpoint
+     * @return true when responses of the endpoint may be cached, false otherwise
+     */
+    private static boolean isCacheable(final NetworkMetrics.Endpoint endpoint) {
+        return endpoint == NetworkMetrics.Endpoint.LOCALIZATION;
+    }
+
+    /**
+     * Make the GET request and retry it according to the RetryPolicy of this pipeline.
+     *
+     * @param url the Url pointing to the Payment API resource
+     * @param type the type of the object to decode
+     * @param cache the HttpCache to be used, null if the response should not be cached
+     * @param recorder collecting the NetworkMetrics, may be null
+     * @return the decoded object
+     */
+    private <T> T getJsonWithRetries(final URL url, final Type type, final HttpCache cache, final NetworkMetrics.Recorder recorder)
+        throws IOException, PaymentException {
+        final RetryPolicy policy = retryPolicy;
+        final RetryPolicy.Listener listener = policy.getListener();
+        final WorkerScheduler scheduler = Workers.getInstance().getScheduler();
+        final long start = scheduler.currentTimeMillis();
+        int attempt = 1;
+
+        while (true) {
+            try {
+                if (recorder != null) {
+                    recorder.startAttempt(url, attempt);
+                }
+                T value = getJsonAttempt(url, type, cache, recorder);
+                if (listener != null) {
+                    listener.onComplete(url, attempt, null);
+                }
+                return value;
+            } catch (IOException e) {
+                long delay = policy.getDelay(attempt);
+                if (!isRetryable(e) || Thread.currentThread().isInterrupted() || !policy.shouldRetry(attempt, scheduler.currentTimeMillis() - start, delay)) {
+                    if (listener != null) {
+                        listener.onComplete(url, attempt, e);
+                    }
+                    throw e;
+                }
+                if (listener != null) {
+                    listener.onRetry(url, attempt, delay, e);
+                }
+                sleepBeforeRetry(scheduler, delay);
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Check if the request may be retried after it failed with the IOException.
+     * Malformed URLs and interrupted threads will not succeed when retried, socket timeouts are retried.
+     *
+     * @param e the IOException of the failed attempt
+     * @return true when the request may be retried, false otherwise
+     */
+    private static boolean isRetryable(final IOException e) {
+        if (e instanceof MalformedURLException) {
+            return false;
+        }
+        return !(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException;
+    }
+
+    /**
+     * Wait before the next attempt is made, the interrupt status of the thread is restored when interrupted.
+     *
+     * @param scheduler providing the time to wait
+     * @param delay in millis before the next attempt
+     */
+    private static void sleepBeforeRetry(final WorkerScheduler scheduler, final long delay) throws InterruptedIOException {
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            scheduler.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException ioe = new InterruptedIOException("Interrupted while waiting to retry the request");
+            ioe.initCause(e);
+            throw ioe;
+        }
+    }
+
+    /**
+     * Make a single attempt of the GET request for the json resource at the given URL.
+     *
+     * @param url the Url pointing to the Payment API resource
+     * @param type the type of the object to decode
+     * @param cache the HttpCache to be used, null if the response should not be cached
+     * @param recorder collecting the NetworkMetrics, may be null
+     * @return the decoded object
+     */
+    private <T> T getJsonAttempt(final URL url, final Type type, final HttpCache cache, final NetworkMetrics.Recorder recorder)
+        throws IOException, PaymentException {
+        HttpCache.Entry entry = cache == null ? null : cache.get(url);
+
+        if (entry != null && entry.isFresh()) {
+            try {
+                T value = readFromCache(cache, entry, type);
+                cache.recordHit();
+                if (recorder != null) {
+                    recorder.setCacheOutcome(NetworkMetrics.CacheOutcome.HIT);
+                }
+                return value;
+            } catch (IOException | JsonParseException e) {
+                Log.w("android-sdk", e);
+                cache.remove(entry);
+                entry = null;
+            }
+        }
+        HttpURLConnection conn = null;
+        try {
+            conn = openConnection(url, false);
+            activeConnections.add(conn);
+            // checked after registering the connection, an abort following the interrupt will find it
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Request to the Payment API has been aborted");
+            }
+            conn.setUseCaches(false);
+            conn.setRequestProperty(BaseConnection.HEADER_CONTENT_TYPE, BaseConnection.VALUE_APP_JSON);
+            conn.setRequestProperty(BaseConnection.HEADER_ACCEPT, BaseConnection.VALUE_APP_JSON);
+            if (entry != null) {
+                entry.addConditionalHeaders(conn);
+            }
+            conn.connect();
+            if (recorder != null) {
+                recorder.connected();
+            }
+            final int rc = conn.getResponseCode();
+            respondedConnections.put(conn, Boolean.FALSE);
+            if (recorder != null) {
+                recorder.responseReceived(rc);
+                recorder.setCacheOutcome(cache == null ? NetworkMetrics.CacheOutcome.NONE : NetworkMetrics.CacheOutcome.MISS);
+            }
+            if (rc == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+                // a 304 response never has a body
+                bodyConsumed(conn);
+                if (recorder != null) {
+                    recorder.setCacheOutcome(NetworkMetrics.CacheOutcome.REVALIDATED);
+                }
+                try {
+                    // the stored body is read before revalidating since the entry is removed when it may not be stored anymore
+                    T value = readFromCache(cache, entry, type);
+                    cache.revalidate(entry, conn);
+                    return value;
+                } catch (IOException | JsonParseException e) {
+                    cache.remove(entry);
+                    throw e;
+                }
+            }
+            if (rc == HttpURLConnection.HTTP_OK) {
+                return cache == null ? this.<T>readFromInputStream(conn, type, recorder) : this.<T>readAndCache(cache, url, conn, type, recorder);
+            }
+            throw createPaymentException(rc, conn);
+        } finally {
+            if (conn != null && !activeConnections.remove(conn)) {
+                // aborted connections are not returned to the transport
+                respondedConnections.remove(conn);
+                conn.disconnect();
+            } else {
+                release(conn);
+            }
+        }
+    }
+
+    /**
+     * Read and decode the stored response of the cache entry, a new object is decoded each time since the model objects are mutable.
+     *
+     * @param cache containing the entry
+     * @param entry the stored cache entry
+     * @param type the type of the object to decode
+     * @return the decoded object
+     */
+    private <T> T readFromCache(final HttpCache cache, final HttpCache.Entry entry, final Type type) throws IOException {
+        return decoder.decode(cache.openBody(entry), entry.getContentEncoding(), type, null);
+    }
+
+    /**
+     * Decode the response and store it in the cache if the response headers allow it
+     *
+     * @param cache in which the response should be stored
+     * @param url the Url of the GET request
+     * @param conn the connection containing the response
+     * @param type the type of the object to decode
+     * @param recorder collecting the NetworkMetrics, may be null
+     * @return the decoded object
+     */
+    private <T> T readAndCache(final HttpCache cache, final URL url, final HttpURLConnection conn, final Type type,
+        final NetworkMetrics.Recorder recorder) throws IOException {
+        cache.recordMiss();
+        HttpCache.Entry entry = cache.createEntry(url, conn);
+        File tempFile = entry == null ? null : cache.createTempFile();
+
+        if (tempFile == null) {
+            HttpCache.Entry stale = cache.get(url);
+            if (stale != null) {
+                cache.remove(stale);
+            }
+            return readFromInputStream(conn, type, recorder);
+        }
+        boolean stored = false;
+        try {
+            InputStream in = new TeeInputStream(conn.getInputStream(), new FileOutputStream(tempFile));
+            T value = decoder.decode(in, conn.getContentEncoding(), type, recorder);
+            bodyConsumed(conn);
+            cache.put(entry, tempFile);
+            stored = true;
+            return value;
+        } finally {
+            if (!stored) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Decode the json content of the error stream into an object of the given type.
+     *
+     * @param conn the HttpURLConnection to read from
+     * @param type the type of the object to decode
+     * @return the decoded object or null if there is no error stream or it is empty
+     */
+    private <T> T readFromErrorStream(final HttpURLConnection conn, final Type type) throws IOException {
+        InputStream in = conn.getErrorStream();
+        if (in == null) {
+            return null;
+        }
+        T value = decoder.decode(in, conn.getContentEncoding(), type, null);
+        bodyConsumed(conn);
+        return value;
+    }
+
+    /**
+     * Mark the response body of the connection as consumed, the transport does not need to drain it when the connection is released
+     *
+     * @param conn the connection of which the response body has been read until the end
+     */
+    private void bodyConsumed(final HttpURLConnection conn) {
+        respondedConnections.replace(conn, Boolean.TRUE);
+    }
+
+    /**
+     * Write the data to the OutputStream of the
+     * HttpURLConnection with UTF8 encoding
+     *
+     * @param conn the conn
+     * @param data the data
+     * @return the number of bytes written
+     */
+    private static int writeToOutputStream(final HttpURLConnection conn, String data) throws IOException {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+
+        try (OutputStream out = conn.getOutputStream()) {
+            out.write(bytes);
+        }
+        return bytes.length;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Class decoding json response bodies directly from the response stream without buffering the complete body in memory.
+ * Compressed content is decompressed while it is being decoded and the maximum body size applies to the decompressed content.
+ */
+final class ResponseDecoder {
+
+    private final Gson gson;
+
+    /** The maximum number of bytes read from a response body */
+    private volatile long maxBodySize;
+
+    /**
+     * Construct a new ResponseDecoder
+     *
+     * @param gson used to decode the json content
+     * @param maxBodySize the maximum number of decompressed bytes read from a response body
+     */
+    ResponseDecoder(Gson gson, long maxBodySize) {
+        this.gson = gson;
+        setMaxBodySize(maxBodySize);
+    }
+
+    /**
+     * Set the maximum number of bytes that will be read from a response body.
+     * Responses exceeding this size are rejected while being decoded.
+     *
+     * @param maxBodySize the maximum size in bytes
+     */
+    void setMaxBodySize(long maxBodySize) {
+        if (maxBodySize <= 0) {
+            throw new IllegalArgumentException("maxBodySize must be larger than 0");
+        }
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Decode the json content from the InputStream and record the transfer in the NetworkMetrics.
+     * The stream is always read until the end and closed so that the underlying socket can be reused.
+     *
+     * @param in the InputStream containing the json content
+     * @param contentEncoding the value of the Content-Encoding header, may be null
+     * @param type the type of the object to decode
+     * @param recorder collecting the NetworkMetrics and TransferStats, may be null
+     * @return the decoded object or null if the stream is empty
+     */
+    <T> T decode(final InputStream in, final String contentEncoding, final Type type, final NetworkMetrics.Recorder recorder)
+        throws IOException {
+        String encoding = ContentEncoding.normalize(contentEncoding);
+
+        try (CountingInputStream wire = new CountingInputStream(in, recorder != null);
+            LimitedInputStream limited = new LimitedInputStream(ContentEncoding.decode(encoding, wire), maxBodySize);
+            JsonReader reader = new JsonReader(new InputStreamReader(limited, StandardCharsets.UTF_8))) {
+            T value = gson.fromJson(reader, type);
+            limited.drain();
+            wire.drain();
+            if (recorder != null) {
+                recorder.bodyRead(new TransferStats(encoding, wire.getCount(), limited.getCount()), wire.getReadTime());
+            }
+            return value;
+        } catch (JsonParseException e) {
+            // Gson wraps IOExceptions of the underlying stream, these must still be reported as network failures
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException && !(cause instanceof LimitedInputStream.LimitExceededException)) {
+                throw (IOException) cause;
+            }
+            throw e;
+        } catch (LimitedInputStream.LimitExceededException e) {
+            throw new JsonParseException(e.getMessage(), e);
+        }
+    }
+}
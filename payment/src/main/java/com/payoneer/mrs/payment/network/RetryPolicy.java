@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policy for retrying idempotent GET requests to the Payment API that failed with a network error.
+ * The delay between attempts grows exponentially and is randomized with full jitter, no attempt is started after the deadline.
+ * POST requests are never retried.
+ */
+public final class RetryPolicy {
+
+    /** The default maximum number of attempts including the first attempt */
+    public final static int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /** The default upper bound in millis of the delay before the first retry */
+    public final static long DEFAULT_INITIAL_DELAY = 250;
+
+    /** The default upper bound in millis of the delay before any retry */
+    public final static long DEFAULT_MAX_DELAY = 2000;
+
+    /** The default time in millis after the first attempt in which retries may be started */
+    public final static long DEFAULT_DEADLINE = 10000;
+
+    private final int maxAttempts;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final long deadline;
+    private final Listener listener;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialDelay = builder.initialDelay;
+        this.maxDelay = builder.maxDelay;
+        this.deadline = builder.deadline;
+        this.listener = builder.listener;
+    }
+
+    public static Builder createBuilder() {
+        return new Builder();
+    }
+
+    public static RetryPolicy createDefault() {
+        return createBuilder().build();
+    }
+
+    /**
+     * Create a RetryPolicy that never retries a request
+     *
+     * @return the newly created RetryPolicy
+     */
+    public static RetryPolicy createNoRetry() {
+        return createBuilder().setMaxAttempts(1).build();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialDelay() {
+        return initialDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public Listener getListener() {
+        return listener;
+    }
+
+    /**
+     * Get the upper bound of the delay before the retry, it doubles with every attempt until the max delay is reached
+     *
+     * @param attempt the number of the failed attempt, starting at 1
+     * @return the upper bound of the delay in millis
+     */
+    long getDelayBound(int attempt) {
+        long bound = initialDelay;
+        for (int i = 1; i < attempt && bound < maxDelay; i++) {
+            bound *= 2;
+        }
+        return Math.min(bound, maxDelay);
+    }
+
+    /**
+     * Get the randomized delay before the retry, a random value between 0 and the delay bound
+     *
+     * @param attempt the number of the failed attempt, starting at 1
+     * @return the delay in millis
+     */
+    long getDelay(int attempt) {
+        long bound = getDelayBound(attempt);
+        return bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0;
+    }
+
+    /**
+     * Check if the request should be retried after the failed attempt
+     *
+     * @param attempt the number of the failed attempt, starting at 1
+     * @param elapsed time in millis since the first attempt was started
+     * @param delay in millis before the retry would be started
+     * @return true when the request should be retried, false otherwise
+     */
+    boolean shouldRetry(int attempt, long elapsed, long delay) {
+        return attempt < maxAttempts && elapsed + delay < deadline;
+    }
+
+    /**
+     * Listener notified about every attempt of a request made with this RetryPolicy
+     */
+    public interface Listener {
+
+        /**
+         * Called when an attempt failed and the request will be retried after the delay
+         *
+         * @param url of the request
+         * @param attempt the number of the failed attempt, starting at 1
+         * @param delay in millis before the next attempt is started
+         * @param cause of the failed attempt
+         */
+        void onRetry(URL url, int attempt, long delay, IOException cause);
+
+        /**
+         * Called when the request has completed, either successfully or with the error of the last attempt
+         *
+         * @param url of the request
+         * @param attempts the number of attempts made
+         * @param cause of the failed last attempt or null if the request succeeded
+         */
+        void onComplete(URL url, int attempts, IOException cause);
+    }
+
+    public static final class Builder {
+        int maxAttempts;
+        long initialDelay;
+        long maxDelay;
+        long deadline;
+        Listener listener;
+
+        Builder() {
+            this.maxAttempts = DEFAULT_MAX_ATTEMPTS;
+            this.initialDelay = DEFAULT_INITIAL_DELAY;
+            this.maxDelay = DEFAULT_MAX_DELAY;
+            this.deadline = DEFAULT_DEADLINE;
+        }
+
+        public Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("maxAttempts must be larger than 0");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder setInitialDelay(long initialDelay) {
+            if (initialDelay < 0) {
+                throw new IllegalArgumentException("initialDelay cannot be negative");
+            }
+            this.initialDelay = initialDelay;
+            return this;
+        }
+
+        public Builder setMaxDelay(long maxDelay) {
+            if (maxDelay < 0) {
+                throw new IllegalArgumentException("maxDelay cannot be negative");
+            }
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder setDeadline(long deadline) {
+            if (deadline <= 0) {
+                throw new IllegalArgumentException("deadline must be larger than 0");
+            }
+            this.deadline = deadline;
+            return this;
+        }
+
+        public Builder setListener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
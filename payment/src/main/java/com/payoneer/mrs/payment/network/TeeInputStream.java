@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * InputStream copying all bytes read from the wrapped InputStream to an OutputStream
+ */
+final class TeeInputStream extends FilterInputStream {
+
+    private final OutputStream out;
+
+    /**
+     * Construct a new TeeInputStream
+     *
+     * @param in the InputStream to read from
+     * @param out the OutputStream receiving a copy of all bytes read
+     */
+    TeeInputStream(InputStream in, OutputStream out) {
+        super(in);
+        this.out = out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value != -1) {
+            out.write(value);
+        }
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            out.write(b, off, read);
+        }
+        return read;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buf = new byte[(int) Math.min(n, 1024)];
+        int read = read(buf, 0, buf.length);
+        return read == -1 ? 0 : read;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            out.close();
+        }
+    }
+}
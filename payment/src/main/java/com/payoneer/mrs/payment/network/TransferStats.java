@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+/**
+ * Class holding the number of bytes transferred for one response body read from the Payment API
+ */
+public final class TransferStats {
+
+    private final String contentEncoding;
+    private final long compressedBytes;
+    private final long uncompressedBytes;
+
+    /**
+     * Construct a new TransferStats
+     *
+     * @param contentEncoding the content encoding of the response body, i.e. gzip, deflate or identity
+     * @param compressedBytes number of bytes received on the wire
+     * @param uncompressedBytes number of bytes after decompression
+     */
+    TransferStats(String contentEncoding, long compressedBytes, long uncompressedBytes) {
+        this.contentEncoding = contentEncoding;
+        this.compressedBytes = compressedBytes;
+        this.uncompressedBytes = uncompressedBytes;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+}
@@ -19,10 +19,21 @@ public class PaymentGroup {
 
     private List<PaymentGroupItem> items;
 
+    public PaymentGroup() {
+    }
+
+    PaymentGroup(List<PaymentGroupItem> items) {
+        this.items = items;
+    }
+
     public void setPaymentGroupItems(List<PaymentGroupItem> items) {
         this.items = items;
     }
 
+    public List<PaymentGroupItem> getPaymentGroupItems() {
+        return items;
+    }
+
     /**
      * The code of the first filter in the payment group is used to uniquely identify this group
      *
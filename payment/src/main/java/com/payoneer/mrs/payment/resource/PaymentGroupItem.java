@@ -19,6 +19,11 @@ public class PaymentGroupItem {
     private PaymentGroupItem() {
     }
 
+    PaymentGroupItem(String code, String regex) {
+        this.code = code;
+        this.regex = regex;
+    }
+
     public String getCode() {
         return code;
     }
@@ -17,9 +17,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.CRC32;
 
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
+import com.payoneer.mrs.payment.R;
 import com.payoneer.mrs.payment.core.PaymentException;
 import com.payoneer.mrs.payment.util.GsonHelper;
 
@@ -30,6 +32,56 @@ import android.content.res.Resources;
  */
 public final class ResourceLoader {
 
+    /**
+     * Load the payment groups precompiled at build time from the groups json file.
+     * Each PaymentGroupItem code can be used as lookup key to find the corresponding PaymentGroup.
+     *
+     * @return map of payment group objects.
+     */
+    public static Map<String, PaymentGroup> loadPaymentGroups() {
+        return toPaymentGroupMap(PrecompiledResources.createPaymentGroups());
+    }
+
+    /**
+     * Load the validations precompiled at build time from the validations json file.
+     * The lookup key for each validation group is the code of the PaymentMethod.
+     *
+     * @return the map of ValidationGroup objects
+     */
+    public static Map<String, ValidationGroup> loadValidations() {
+        return toValidationMap(PrecompiledResources.createValidationGroups());
+    }
+
+    /**
+     * Load the payment groups from the R.raw.groups resource.
+     * The precompiled payment groups are used when the resource is the groups file of this library, a groups file provided by
+     * the app overriding R.raw.groups is parsed instead.
+     *
+     * @param res the System resources
+     * @return map of payment group objects.
+     */
+    public static Map<String, PaymentGroup> loadPaymentGroups(Resources res) throws PaymentException {
+        if (isPrecompiled(res, R.raw.groups, PrecompiledResources.GROUPS_LENGTH, PrecompiledResources.GROUPS_CHECKSUM)) {
+            return loadPaymentGroups();
+        }
+        return loadPaymentGroups(res, R.raw.groups);
+    }
+
+    /**
+     * Load the validations from the R.raw.validations resource.
+     * The precompiled validations are used when the resource is the validations file of this library, a validations file provided
+     * by the app overriding R.raw.validations is parsed instead.
+     *
+     * @param res the System resources
+     * @return the map of ValidationGroup objects
+     */
+    public static Map<String, ValidationGroup> loadValidations(Resources res) throws PaymentException {
+        if (isPrecompiled(res, R.raw.validations, PrecompiledResources.VALIDATIONS_LENGTH, PrecompiledResources.VALIDATIONS_CHECKSUM)) {
+            return loadValidations();
+        }
+        return loadValidations(res, R.raw.validations);
+    }
+
     /**
      * Load the payment group definition json file and return the map of PaymentGroups that should be used in the PaymentPage.
      * Each PaymentGroupItem code can be used as lookup key to find the corresponding PaymentGroup.
@@ -44,12 +96,7 @@ public final class ResourceLoader {
             String val = readRawResource(res, resId);
             Type listType = new TypeToken<ArrayList<PaymentGroup>>() { }.getType();
             List<PaymentGroup> groups = GsonHelper.getInstance().fromJson(val, listType);
-            HashMap<String, PaymentGroup> map = new HashMap<>();
-
-            for (PaymentGroup group : groups) {
-                group.populate(map);
-            }
-            return map;
+            return toPaymentGroupMap(groups);
         } catch (IOException | JsonSyntaxException e) {
             throw new PaymentException(e);
         }
@@ -69,12 +116,7 @@ public final class ResourceLoader {
             String val = readRawResource(res, resId);
             Type listType = new TypeToken<ArrayList<ValidationGroup>>() { }.getType();
             List<ValidationGroup> groups = GsonHelper.getInstance().fromJson(val, listType);
-            Map<String, ValidationGroup> map = new HashMap<>();
-
-            for (ValidationGroup group : groups) {
-                map.put(group.getCode(), group);
-            }
-            return map;
+            return toValidationMap(groups);
         } catch (IOException | JsonSyntaxException e) {
             throw new PaymentException(e);
         }
@@ -103,4 +145,50 @@ public final class ResourceLoader {
         }
         return sb.toString();
     }
+
+    /**
+     * Check if the raw resource is the file from which the precompiled resources have been generated.
+     * Reading and checksumming the raw bytes is much cheaper than parsing the json and compiling the regexes it contains.
+     *
+     * @param res the System resources
+     * @param resId the resource id
+     * @param length the length in bytes of the precompiled file
+     * @param checksum the CRC32 of the precompiled file
+     * @return true when the resource matches the precompiled file, false otherwise
+     */
+    static boolean isPrecompiled(Resources res, int resId, int length, long checksum) throws PaymentException {
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[4096];
+        int total = 0;
+        int read;
+
+        try (InputStream is = res.openRawResource(resId)) {
+            while ((read = is.read(buf)) != -1) {
+                total += read;
+                if (total > length) {
+                    return false;
+                }
+                crc.update(buf, 0, read);
+            }
+        } catch (IOException | Resources.NotFoundException e) {
+            throw new PaymentException(e);
+        }
+        return total == length && crc.getValue() == checksum;
+    }
+
+    private static Map<String, PaymentGroup> toPaymentGroupMap(List<PaymentGroup> groups) {
+        HashMap<String, PaymentGroup> map = new HashMap<>();
+        for (PaymentGroup group : groups) {
+            group.populate(map);
+        }
+        return map;
+    }
+
+    private static Map<String, ValidationGroup> toValidationMap(List<ValidationGroup> groups) {
+        Map<String, ValidationGroup> map = new HashMap<>();
+        for (ValidationGroup group : groups) {
+            map.put(group.getCode(), group);
+        }
+        return map;
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.validation.Validator;
+
+import android.content.Context;
+
+/**
+ * The Singleton class memoizing the payment groups and the Validator for the lifetime of the process.
+ * The resources are loaded once on first use and shared as immutable copies by all payment sessions.
+ * The precompiled resources are used unless the app overrides R.raw.groups or R.raw.validations, see ResourceLoader.
+ * The registry assumes that these resources do not vary by configuration, i.e. there are no locale or mobile network specific
+ * versions of them. Memoized resources are not reloaded when the configuration changes, call invalidate if they do vary.
+ */
+public final class ResourceRegistry {
+
+    private Map<String, PaymentGroup> paymentGroups;
+    private Validator validator;
+    private int loadCount;
+    private int hitCount;
+    private long loadTime;
+
+    private ResourceRegistry() {
+    }
+
+    /**
+     * Get the instance of this ResourceRegistry
+     *
+     * @return the instance of this ResourceRegistry
+     */
+    public static ResourceRegistry getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Get the shared and immutable map of PaymentGroups, each PaymentGroupItem code is a lookup key for its PaymentGroup.
+     * The PaymentGroups in the map are immutable copies of the loaded groups and reject any change.
+     *
+     * @param context used to obtain the application resources
+     * @return the map of PaymentGroups
+     */
+    public synchronized Map<String, PaymentGroup> getPaymentGroups(Context context) throws PaymentException {
+        checkContext(context);
+        if (paymentGroups != null) {
+            hitCount++;
+            return paymentGroups;
+        }
+        long start = System.nanoTime();
+        paymentGroups = toImmutableMap(ResourceLoader.loadPaymentGroups(context.getApplicationContext().getResources()));
+        recordLoad(start);
+        return paymentGroups;
+    }
+
+    /**
+     * Get the shared Validator created from the validations
+     *
+     * @param context used to obtain the application resources
+     * @return the Validator
+     */
+    public synchronized Validator getValidator(Context context) throws PaymentException {
+        checkContext(context);
+        if (validator != null) {
+            hitCount++;
+            return validator;
+        }
+        long start = System.nanoTime();
+        validator = new Validator(Collections.unmodifiableMap(ResourceLoader.loadValidations(context.getApplicationContext().getResources())));
+        recordLoad(start);
+        return validator;
+    }
+
+    /**
+     * Invalidate the memoized resources, they will be loaded again when next requested
+     */
+    public synchronized void invalidate() {
+        paymentGroups = null;
+        validator = null;
+    }
+
+    /**
+     * Get the number of times a resource has been loaded
+     *
+     * @return the number of loads
+     */
+    public synchronized int getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Get the number of times a memoized resource has been returned without loading it
+     *
+     * @return the number of hits
+     */
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the total time spent loading resources
+     *
+     * @return the load time in nanoseconds
+     */
+    public synchronized long getLoadTime() {
+        return loadTime;
+    }
+
+    private void recordLoad(long start) {
+        loadTime += System.nanoTime() - start;
+        loadCount++;
+    }
+
+    private static Map<String, PaymentGroup> toImmutableMap(Map<String, PaymentGroup> groups) {
+        // all codes of a group map to the same instance, this must still be the case for the copies
+        Map<PaymentGroup, PaymentGroup> copies = new IdentityHashMap<>();
+        Map<String, PaymentGroup> map = new HashMap<>();
+        for (Map.Entry<String, PaymentGroup> entry : groups.entrySet()) {
+            PaymentGroup group = entry.getValue();
+            PaymentGroup copy = copies.get(group);
+            if (copy == null) {
+                copy = new ImmutablePaymentGroup(group.getPaymentGroupItems());
+                copies.put(group, copy);
+            }
+            map.put(entry.getKey(), copy);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static void checkContext(Context context) {
+        if (context == null) {
+            throw new IllegalArgumentException("Context cannot be null");
+        }
+    }
+
+    /**
+     * PaymentGroup shared through the registry, its items are copied when created and cannot be changed afterwards
+     */
+    private static final class ImmutablePaymentGroup extends PaymentGroup {
+
+        ImmutablePaymentGroup(List<PaymentGroupItem> items) {
+            super(items != null ? Collections.unmodifiableList(new ArrayList<>(items)) : null);
+        }
+
+        @Override
+        public void setPaymentGroupItems(List<PaymentGroupItem> items) {
+            throw new UnsupportedOperationException("PaymentGroups of the ResourceRegistry cannot be changed");
+        }
+    }
+
+    private static class InstanceHolder {
+        static final ResourceRegistry INSTANCE = new ResourceRegistry();
+    }
+}
@@ -19,6 +19,14 @@ public class ValidationGroup {
     private String code;
     private List<ValidationGroupItem> items;
 
+    public ValidationGroup() {
+    }
+
+    ValidationGroup(String code, List<ValidationGroupItem> items) {
+        this.code = code;
+        this.items = items;
+    }
+
     public void setCode(String code) {
         this.code = code;
     }
@@ -27,6 +35,10 @@ public class ValidationGroup {
         this.items = items;
     }
 
+    public List<ValidationGroupItem> getValidationGroupItems() {
+        return items;
+    }
+
     public String getCode() {
         return code;
     }
@@ -21,6 +21,13 @@ public class ValidationGroupItem {
     private ValidationGroupItem() {
     }
 
+    ValidationGroupItem(String type, String regex, boolean hide, int maxLength) {
+        this.type = type;
+        this.regex = regex;
+        this.hide = hide;
+        this.maxLength = maxLength;
+    }
+
     public int getMaxLength() {
         return maxLength;
     }
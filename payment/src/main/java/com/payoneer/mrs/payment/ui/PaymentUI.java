@@ -12,10 +12,15 @@ import com.payoneer.mrs.payment.R;
 import com.payoneer.mrs.payment.localization.LocalLocalizationHolder;
 import com.payoneer.mrs.payment.localization.Localization;
 import com.payoneer.mrs.payment.model.PresetAccount;
+import com.payoneer.mrs.payment.network.NetworkMetricsDispatcher;
+import com.payoneer.mrs.payment.network.NetworkMetricsListener;
 import com.payoneer.mrs.payment.ui.page.ChargePaymentActivity;
 import com.payoneer.mrs.payment.ui.page.PaymentListActivity;
+import com.payoneer.mrs.payment.ui.service.PaymentSessionPrefetcher;
+import com.payoneer.mrs.payment.ui.service.PaymentSessionRepository;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
 import android.text.TextUtils;
@@ -129,6 +134,41 @@ public final class PaymentUI {
         this.theme = theme;
     }
 
+    /**
+     * Set the listener receiving the timings, byte counts and cache outcome of every request made to the Payment API.
+     * No metrics are collected while no listener is set.
+     *
+     * @param listener the listener or null to stop receiving metrics
+     */
+    public void setNetworkMetricsListener(NetworkMetricsListener listener) {
+        NetworkMetricsDispatcher.getInstance().setListener(listener);
+    }
+
+    /**
+     * Get the listener receiving the network metrics
+     *
+     * @return the listener or null if none is set
+     */
+    public NetworkMetricsListener getNetworkMetricsListener() {
+        return NetworkMetricsDispatcher.getInstance().getListener();
+    }
+
+    /**
+     * Set the listUrl and start loading the payment session and localizations in the background,
+     * e.g. while the user is still on the cart screen. The Payment Page uses the prefetched result when it is shown
+     * within the max age of the PaymentSessionPrefetcher, otherwise it loads the payment session itself.
+     *
+     * @param context used to load the payment session and localizations
+     * @param listUrl the listUrl to be set in this PaymentUI and prefetched
+     */
+    public void prefetch(Context context, String listUrl) {
+        if (context == null) {
+            throw new IllegalArgumentException("context may not be null");
+        }
+        setListUrl(listUrl);
+        PaymentSessionPrefetcher.getInstance().prefetch(context, listUrl);
+    }
+
     /**
      * Open the PaymentPage and instruct the page to immediately charge the PresetAccount.
      * If no PresetAccount is set in the ListResult then an error will be returned.
@@ -138,6 +178,10 @@ public final class PaymentUI {
      * @param presetAccount account that has been preset and should be charged
      */
     public void chargePresetAccount(Activity activity, int requestCode, PresetAccount presetAccount) {
+        // start loading the payment session while the page is launched, unless it has been loaded before
+        if (activity != null && listUrl != null && PaymentSessionRepository.getInstance().getPaymentSession(listUrl) == null) {
+            PaymentSessionPrefetcher.getInstance().prefetch(activity, listUrl);
+        }
         Intent intent = ChargePaymentActivity.createStartIntent(activity, presetAccount);
         launchActivity(activity, intent, requestCode);
         activity.overridePendingTransition(ChargePaymentActivity.getStartTransition(), R.anim.no_animation);
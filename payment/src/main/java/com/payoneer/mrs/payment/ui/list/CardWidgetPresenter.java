@@ -10,7 +10,8 @@ package com.payoneer.mrs.payment.ui.list;
 
 import com.payoneer.mrs.payment.ui.widget.FormWidget;
 import com.payoneer.mrs.payment.ui.widget.WidgetPresenter;
-import com.payoneer.mrs.payment.validation.ValidationResult;
+import com.payoneer.mrs.payment.validation.CardNumberState;
+import com.payoneer.mrs.payment.validation.ValidationStatus;
 
 import android.view.View;
 
@@ -58,8 +59,18 @@ class CardWidgetPresenter implements WidgetPresenter {
     }
 
     @Override
-    public ValidationResult validate(String type, String value1, String value2) {
-        return adapter.validate(holder.getAdapterPosition(), type, value1, value2);
+    public ValidationStatus validate(String type, String value1, String value2) {
+        return adapter.validate(holder.getAdapterPosition(), type, value1, value2, null);
+    }
+
+    @Override
+    public ValidationStatus validate(String type, String value1, String value2, CardNumberState state) {
+        return adapter.validate(holder.getAdapterPosition(), type, value1, value2, state);
+    }
+
+    @Override
+    public boolean isCompleteCardNumber(CardNumberState state) {
+        return adapter.isCompleteCardNumber(holder.getAdapterPosition(), state);
     }
 
     @Override
@@ -8,14 +8,17 @@
 
 package com.payoneer.mrs.payment.ui.list;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.payoneer.mrs.payment.localization.Localization;
 import com.payoneer.mrs.payment.ui.model.AccountCard;
 import com.payoneer.mrs.payment.ui.model.NetworkCard;
 import com.payoneer.mrs.payment.ui.model.PaymentCard;
 import com.payoneer.mrs.payment.ui.model.PresetCard;
-import com.payoneer.mrs.payment.validation.ValidationResult;
+import com.payoneer.mrs.payment.validation.CardNumberState;
+import com.payoneer.mrs.payment.validation.ValidationStatus;
 import com.payoneer.mrs.payment.validation.Validator;
 
 import android.content.Context;
@@ -32,10 +35,13 @@ final class ListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     private final List<ListItem> items;
     private final PaymentList list;
+    private final Map<String, Map<String, ValidationStatus>> errorResults;
+    private Localization errorLocalization;
 
     ListAdapter(PaymentList list, List<ListItem> items) {
         this.list = list;
         this.items = items;
+        this.errorResults = new HashMap<>();
     }
 
     /**
@@ -158,7 +164,7 @@ final class ListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         return validator.getMaxLength(code, type);
     }
 
-    ValidationResult validate(int position, String type, String value1, String value2) {
+    ValidationStatus validate(int position, String type, String value1, String value2, CardNumberState state) {
         if (isInvalidPosition(position)) {
             return null;
         }
@@ -169,13 +175,53 @@ final class ListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         }
         PaymentCard card = item.getPaymentCard();
         Validator validator = list.getPaymentSession().getValidator();
-        ValidationResult result = validator.validate(card.getPaymentMethod(), card.getCode(), type, value1, value2);
+        ValidationStatus result = validator.validateShared(card.getPaymentMethod(), card.getCode(), type, value1, value2, state);
 
         if (!result.isError()) {
             return result;
         }
-        result.setMessage(Localization.translateError(card.getCode(), result.getError()));
-        return result;
+        return getErrorResult(card.getCode(), result);
+    }
+
+    boolean isCompleteCardNumber(int position, CardNumberState state) {
+        if (isInvalidPosition(position)) {
+            return false;
+        }
+        ListItem item = items.get(position);
+
+        if (!item.hasPaymentCard()) {
+            return false;
+        }
+        Validator validator = list.getPaymentSession().getValidator();
+        return validator.isCompleteCardNumber(item.getPaymentCard().getCode(), state);
+    }
+
+    /**
+     * Get the shared ValidationStatus holding the localized error message, messages are translated once per network and error
+     * and translated again when the Localization has changed.
+     *
+     * @param code the network code of the validated card
+     * @param result the shared ValidationStatus holding the error
+     * @return the shared ValidationStatus holding the error and its message
+     */
+    private ValidationStatus getErrorResult(String code, ValidationStatus result) {
+        Localization localization = Localization.getInstance();
+        if (localization != errorLocalization) {
+            errorResults.clear();
+            errorLocalization = localization;
+        }
+        Map<String, ValidationStatus> results = errorResults.get(code);
+        if (results == null) {
+            results = new HashMap<>();
+            errorResults.put(code, results);
+        }
+        String error = result.getError();
+        ValidationStatus errorResult = results.get(error);
+        if (errorResult == null) {
+            errorResult = result.withMessage(Localization.translateError(code, error));
+            results.put(error, errorResult);
+        }
+        return errorResult;
     }
 
     private ListItem getItemWithViewType(int viewType) {
@@ -196,6 +196,19 @@ public final class NetworkCard implements PaymentCard {
         return network == null ? networks.get(0) : network;
     }
 
+    /**
+     * Create a copy of this NetworkCard with the same PaymentNetworks and smart selection regexes.
+     * The smart selection made while the user was typing in this NetworkCard is not copied.
+     *
+     * @return the newly created NetworkCard
+     */
+    public NetworkCard copy() {
+        NetworkCard card = new NetworkCard();
+        card.networks.addAll(networks);
+        card.smartSwitch.copySelectionRegexes(smartSwitch);
+        return card;
+    }
+
     /**
      * Get the SmartSwitch from this NetworkCard.
      *
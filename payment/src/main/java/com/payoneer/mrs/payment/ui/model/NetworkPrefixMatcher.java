@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Matcher compiling the smart selection regexes of payment networks into a single prefix trie.
+ * Smart selection regexes are IIN prefix ranges followed by any number of digits, e.g. "^(5[0-5]|222[1-9])[0-9]*$".
+ * These are compiled into one trie so that all matching networks are found in a single pass over the first digits.
+ * Regexes that are not in this form are matched using a regular Pattern.
+ */
+final class NetworkPrefixMatcher {
+
+    private final static String ANY_DIGITS = "[0-9]*";
+    private final static int ALL_DIGITS = 0x3FF;
+    private final static int MAX_DEPTH = 8;
+    private final static int MAX_PREFIXES = 1000;
+    private final static int MAX_CODES = 64;
+
+    private final Node root = new Node();
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final Map<String, Pattern> patterns = new HashMap<>();
+
+    private NetworkPrefixMatcher() {
+    }
+
+    /**
+     * Compile the smart selection regexes into a new NetworkPrefixMatcher
+     *
+     * @param regexes mapping network codes to their smart selection regex
+     * @return the newly compiled NetworkPrefixMatcher
+     */
+    static NetworkPrefixMatcher compile(Map<String, String> regexes) {
+        NetworkPrefixMatcher matcher = new NetworkPrefixMatcher();
+        for (Map.Entry<String, String> entry : regexes.entrySet()) {
+            matcher.add(entry.getKey(), entry.getValue());
+        }
+        return matcher;
+    }
+
+    /**
+     * Match the text against all prefixes in the trie
+     *
+     * @param text to be matched
+     * @return the bitmask of networks in the trie matching the text, to be used with isSelected
+     */
+    long match(String text) {
+        long result = 0;
+        Node node = root;
+
+        for (int i = 0, len = text.length(); i < len; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return 0;
+            }
+            if (node != null) {
+                result |= node.accepted;
+                node = node.children[digit];
+            }
+        }
+        if (node != null) {
+            result |= node.accepted;
+        }
+        return result;
+    }
+
+    /**
+     * Check if the network is selected by the text
+     *
+     * @param code of the network
+     * @param text to be matched
+     * @param match the result of match(text)
+     * @return true when the smart selection regex of the network matches the text
+     */
+    boolean isSelected(String code, String text, long match) {
+        Integer index = indices.get(code);
+        if (index != null) {
+            return (match & (1L << index)) != 0;
+        }
+        Pattern pattern = patterns.get(code);
+        return pattern != null && pattern.matcher(text).matches();
+    }
+
+    /**
+     * Get the number of networks compiled into the trie
+     *
+     * @return the number of networks in the trie
+     */
+    int getPrefixCodeCount() {
+        return indices.size();
+    }
+
+    private void add(String code, String regex) {
+        List<int[]> prefixes = indices.size() < MAX_CODES ? parsePrefixes(regex) : null;
+        if (prefixes == null) {
+            patterns.put(code, Pattern.compile(regex));
+            return;
+        }
+        int index = indices.size();
+        indices.put(code, index);
+        for (int[] prefix : prefixes) {
+            insert(root, prefix, 0, 1L << index);
+        }
+    }
+
+    private static void insert(Node node, int[] prefix, int depth, long bit) {
+        if (depth == prefix.length) {
+            node.accepted |= bit;
+            return;
+        }
+        int mask = prefix[depth];
+        for (int digit = 0; digit < 10; digit++) {
+            if ((mask & (1 << digit)) != 0) {
+                if (node.children[digit] == null) {
+                    node.children[digit] = new Node();
+                }
+                insert(node.children[digit], prefix, depth + 1, bit);
+            }
+        }
+    }
+
+    /**
+     * Parse the regex into a list of prefixes, each prefix is an array of digit bitmasks.
+     *
+     * @param regex to be parsed
+     * @return the list of prefixes or null if the regex is not a prefix range followed by any number of digits
+     */
+    static List<int[]> parsePrefixes(String regex) {
+        String body = regex;
+        if (body.startsWith("^")) {
+            body = body.substring(1);
+        }
+        if (body.endsWith("$")) {
+            body = body.substring(0, body.length() - 1);
+        }
+        if (!body.endsWith(ANY_DIGITS)) {
+            return null;
+        }
+        body = body.substring(0, body.length() - ANY_DIGITS.length());
+
+        if (body.startsWith("(") && body.endsWith(")")) {
+            body = body.substring(1, body.length() - 1);
+        } else if (body.indexOf('|') != -1) {
+            // without a group the trailing digits only belong to the last alternative
+            return null;
+        }
+        List<int[]> prefixes = new ArrayList<>();
+        int paths = 0;
+        for (String alternative : body.split("\\|", -1)) {
+            int[] prefix = parseAlternative(alternative);
+            if (prefix == null) {
+                return null;
+            }
+            paths += countPaths(prefix);
+            if (paths > MAX_PREFIXES) {
+                return null;
+            }
+            prefixes.add(prefix);
+        }
+        return prefixes;
+    }
+
+    private static int[] parseAlternative(String alternative) {
+        int[] masks = new int[MAX_DEPTH];
+        int depth = 0;
+        int i = 0;
+        int len = alternative.length();
+
+        while (i < len) {
+            char c = alternative.charAt(i);
+            int mask;
+            if (isDigit(c)) {
+                mask = 1 << (c - '0');
+                i++;
+            } else if (c == '[') {
+                int end = alternative.indexOf(']', i);
+                if (end == -1) {
+                    return null;
+                }
+                mask = parseClass(alternative.substring(i + 1, end));
+                i = end + 1;
+            } else if (c == '\\' && i + 1 < len && alternative.charAt(i + 1) == 'd') {
+                mask = ALL_DIGITS;
+                i += 2;
+            } else {
+                return null;
+            }
+            if (mask == 0) {
+                return null;
+            }
+            int repeat = 1;
+            if (i < len && alternative.charAt(i) == '{') {
+                int end = alternative.indexOf('}', i);
+                if (end == -1 || end == i + 1) {
+                    return null;
+                }
+                repeat = 0;
+                for (int j = i + 1; j < end; j++) {
+                    char r = alternative.charAt(j);
+                    if (!isDigit(r) || repeat > MAX_DEPTH) {
+                        return null;
+                    }
+                    repeat = repeat * 10 + (r - '0');
+                }
+                i = end + 1;
+            }
+            if (depth + repeat > MAX_DEPTH) {
+                return null;
+            }
+            for (int j = 0; j < repeat; j++) {
+                masks[depth++] = mask;
+            }
+        }
+        int[] prefix = new int[depth];
+        System.arraycopy(masks, 0, prefix, 0, depth);
+        return prefix;
+    }
+
+    private static int parseClass(String content) {
+        int mask = 0;
+        int i = 0;
+        int len = content.length();
+
+        while (i < len) {
+            char from = content.charAt(i);
+            if (!isDigit(from)) {
+                return 0;
+            }
+            char to = from;
+            if (i + 2 < len && content.charAt(i + 1) == '-') {
+                to = content.charAt(i + 2);
+                if (!isDigit(to) || to < from) {
+                    return 0;
+                }
+                i += 3;
+            } else {
+                i++;
+            }
+            for (char d = from; d <= to; d++) {
+                mask |= 1 << (d - '0');
+            }
+        }
+        return mask;
+    }
+
+    private static int countPaths(int[] prefix) {
+        int paths = 1;
+        for (int mask : prefix) {
+            paths *= Integer.bitCount(mask);
+            if (paths > MAX_PREFIXES) {
+                return paths;
+            }
+        }
+        return paths;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private final static class Node {
+        final Node[] children = new Node[10];
+        long accepted;
+    }
+}
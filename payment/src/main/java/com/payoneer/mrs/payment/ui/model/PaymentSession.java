@@ -10,6 +10,7 @@ package com.payoneer.mrs.payment.ui.model;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -17,7 +18,9 @@ import com.payoneer.mrs.payment.model.ListResult;
 import com.payoneer.mrs.payment.validation.Validator;
 
 /**
- * Class for storing the ListResult and the list of supported PaymentMethods
+ * Class for storing the ListResult and the list of supported PaymentMethods, the lists of cards cannot be modified.
+ * The PaymentSessionRepository hands out a copy of a stored PaymentSession to every activity, the NetworkCards hold
+ * the state of the user input and are never shared between activities.
  */
 public final class PaymentSession {
     private final ListResult listResult;
@@ -39,11 +42,28 @@ public final class PaymentSession {
         Validator validator) {
         this.listResult = listResult;
         this.presetCard = presetCard;
-        this.accounts = accounts;
-        this.networks = networks;
+        this.accounts = accounts != null ? Collections.unmodifiableList(accounts) : null;
+        this.networks = networks != null ? Collections.unmodifiableList(networks) : null;
         this.validator = validator;
     }
 
+    /**
+     * Create a copy of this PaymentSession with new NetworkCards, see NetworkCard.copy().
+     * The ListResult, Validator, PresetCard and AccountCards do not change once loaded and are shared with the copy.
+     *
+     * @return the newly created PaymentSession
+     */
+    public PaymentSession copy() {
+        List<NetworkCard> cards = null;
+        if (networks != null) {
+            cards = new ArrayList<>(networks.size());
+            for (NetworkCard card : networks) {
+                cards.add(card.copy());
+            }
+        }
+        return new PaymentSession(listResult, presetCard, accounts, cards, validator);
+    }
+
     public ListResult getListResult() {
         return listResult;
     }
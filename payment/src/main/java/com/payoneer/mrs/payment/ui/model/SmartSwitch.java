@@ -9,36 +9,49 @@
 package com.payoneer.mrs.payment.ui.model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 import android.text.TextUtils;
 
 /**
- * Class for storing and selecting payment networks based on smart switch logic
+ * Class for storing and selecting payment networks based on smart switch logic.
+ * The smart selection regexes are compiled into a NetworkPrefixMatcher, all networks are matched in one pass over the text.
  */
 public final class SmartSwitch {
 
-    private final Map<String, Pattern> smartMapping;
+    private final Map<String, String> smartMapping;
     private final List<PaymentNetwork> networks;
     private final List<PaymentNetwork> smartSelected;
     private final List<PaymentNetwork> smartBuffer;
+    private NetworkPrefixMatcher matcher;
 
     public SmartSwitch(List<PaymentNetwork> networks) {
         this.networks = networks;
-        this.smartMapping = new HashMap<>();
+        this.smartMapping = new LinkedHashMap<>();
         this.smartSelected = new ArrayList<>();
         this.smartBuffer = new ArrayList<>();
     }
 
     public void addSelectionRegex(String code, String regex) {
         if (!TextUtils.isEmpty(regex)) {
-            smartMapping.put(code, Pattern.compile(regex));
+            smartMapping.put(code, regex);
+            matcher = NetworkPrefixMatcher.compile(smartMapping);
         }
     }
 
+    /**
+     * Copy the selection regexes of the other SmartSwitch into this SmartSwitch, the selected networks are not copied.
+     * The compiled matcher is shared, it is never modified after it has been compiled.
+     *
+     * @param other the SmartSwitch from which the selection regexes are copied
+     */
+    void copySelectionRegexes(SmartSwitch other) {
+        smartMapping.putAll(other.smartMapping);
+        matcher = other.matcher;
+    }
+
     /**
      * Get the first smart selected PaymentNetwork, may return null if none are selected.
      *
@@ -66,11 +79,10 @@ public final class SmartSwitch {
     public boolean validate(String text) {
         smartBuffer.clear();
 
-        if (text != null) {
+        if (text != null && matcher != null) {
+            long match = matcher.match(text);
             for (PaymentNetwork network : networks) {
-                Pattern pattern = smartMapping.get(network.getCode());
-
-                if (pattern != null && pattern.matcher(text).matches()) {
+                if (matcher.isSelected(network.getCode(), text, match)) {
                     smartBuffer.add(network);
                 }
             }
@@ -35,6 +35,7 @@ import com.payoneer.mrs.payment.ui.service.NetworkService;
 import com.payoneer.mrs.payment.ui.service.NetworkServiceLookup;
 import com.payoneer.mrs.payment.ui.service.NetworkServicePresenter;
 import com.payoneer.mrs.payment.ui.service.PaymentSessionListener;
+import com.payoneer.mrs.payment.ui.service.PaymentSessionRepository;
 import com.payoneer.mrs.payment.ui.service.PaymentSessionService;
 import com.payoneer.mrs.payment.util.PaymentResultHelper;
 
@@ -265,6 +266,7 @@ final class ChargePaymentPresenter implements PaymentSessionListener, NetworkSer
             return;
         }
         Interaction interaction = result.getInteraction();
+        PaymentSessionRepository.getInstance().invalidate(listUrl, interaction);
         switch (interaction.getCode()) {
             case InteractionCode.TRY_OTHER_ACCOUNT:
             case InteractionCode.TRY_OTHER_NETWORK:
@@ -326,6 +328,8 @@ final class ChargePaymentPresenter implements PaymentSessionListener, NetworkSer
     }
 
     private void closeWithProceedCode(PaymentResult result) {
+        // the list has been completed and may not be used for another payment
+        PaymentSessionRepository.getInstance().invalidate(listUrl);
         view.setPaymentResult(RESULT_CODE_PROCEED, result);
         view.close();
     }
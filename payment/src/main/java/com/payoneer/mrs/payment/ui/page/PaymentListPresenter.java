@@ -44,10 +44,14 @@ import com.payoneer.mrs.payment.ui.service.NetworkService;
 import com.payoneer.mrs.payment.ui.service.NetworkServiceLookup;
 import com.payoneer.mrs.payment.ui.service.NetworkServicePresenter;
 import com.payoneer.mrs.payment.ui.service.PaymentSessionListener;
+import com.payoneer.mrs.payment.ui.service.PaymentSessionRepository;
 import com.payoneer.mrs.payment.ui.service.PaymentSessionService;
 import com.payoneer.mrs.payment.ui.widget.FormWidget;
 import com.payoneer.mrs.payment.util.PaymentResultHelper;
 import com.payoneer.mrs.payment.util.PaymentUtils;
+import com.payoneer.mrs.payment.validation.ValidationStatus;
+import com.payoneer.mrs.payment.validation.ValidationValues;
+import com.payoneer.mrs.payment.validation.Validator;
 
 import android.app.Activity;
 import android.text.TextUtils;
@@ -141,7 +145,7 @@ final class PaymentListPresenter implements PaymentSessionListener, Localization
             onPresetCardSelected((PresetCard) card);
             return;
         }
-        if (!validateWidgets(widgets)) {
+        if (!validateWidgets(card, widgets)) {
             return;
         }
         try {
@@ -310,6 +314,7 @@ final class PaymentListPresenter implements PaymentSessionListener, Localization
         }
         this.operation = null;
         Interaction interaction = result.getInteraction();
+        PaymentSessionRepository.getInstance().invalidate(listUrl, interaction);
         switch (interaction.getCode()) {
             case InteractionCode.RELOAD:
                 reloadPaymentSession(null);
@@ -385,10 +390,35 @@ final class PaymentListPresenter implements PaymentSessionListener, Localization
         }
     }
 
-    private boolean validateWidgets(Map<String, FormWidget> widgets) {
+    /**
+     * Validate the input values of all widgets of the card at once and apply the results to the widgets in a single pass.
+     * Widgets that do not provide input values validate themselves.
+     *
+     * @param card the PaymentCard holding the widgets
+     * @param widgets containing the user input data
+     * @return true when all widgets are valid, false otherwise
+     */
+    private boolean validateWidgets(PaymentCard card, Map<String, FormWidget> widgets) {
+        ValidationValues values = new ValidationValues();
+        for (FormWidget widget : widgets.values()) {
+            widget.putValidationValues(values);
+        }
+        String code = card.getCode();
+        Validator validator = session.getValidator();
+        Map<String, ValidationStatus> results = validator.validateAll(card.getPaymentMethod(), code, values);
+
         boolean error = false;
         for (FormWidget widget : widgets.values()) {
-            if (!widget.validate()) {
+            ValidationStatus result = results.get(widget.getName());
+            boolean valid;
+            if (result == null) {
+                valid = widget.validate();
+            } else if (result.isError()) {
+                valid = widget.setValidationStatus(result.withMessage(Localization.translateError(code, result.getError())));
+            } else {
+                valid = widget.setValidationStatus(result);
+            }
+            if (!valid) {
                 error = true;
             }
             widget.clearFocus();
@@ -432,10 +462,13 @@ final class PaymentListPresenter implements PaymentSessionListener, Localization
 
     private void reloadPaymentSession(Interaction interaction) {
         this.reloadInteraction = interaction;
+        PaymentSessionRepository.getInstance().invalidate(listUrl);
         loadPaymentSession(this.listUrl);
     }
 
     private void closeWithProceedCode(PaymentResult result) {
+        // the list has been completed and may not be used for another payment
+        PaymentSessionRepository.getInstance().invalidate(listUrl);
         view.setPaymentResult(RESULT_CODE_PROCEED, result);
         view.close();
     }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.service;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.localization.LocalizationCache;
+import com.payoneer.mrs.payment.localization.LocalizationHolder;
+import com.payoneer.mrs.payment.network.LocalizationConnection;
+
+import android.util.Log;
+
+/**
+ * Class loading a batch of language files concurrently.
+ * Each distinct URL is fetched once, localizations found in the cache are not fetched at all.
+ * The number of concurrent downloads is limited by the max concurrency, the calling thread takes part in the downloads.
+ */
+final class LocalizationLoader {
+
+    /** The default maximum number of language files downloaded at the same time */
+    final static int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private final LocalizationConnection connection;
+    private final LocalizationCache cache;
+    private final ExecutorService executor;
+    private final int maxConcurrency;
+
+    /**
+     * Construct a new LocalizationLoader
+     *
+     * @param connection used to download the language files
+     * @param cache in which the downloaded localizations are stored
+     * @param executor used to run the additional downloads next to the calling thread
+     * @param maxConcurrency the maximum number of language files downloaded at the same time
+     */
+    LocalizationLoader(LocalizationConnection connection, LocalizationCache cache, ExecutorService executor, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be larger than 0");
+        }
+        this.connection = connection;
+        this.cache = cache;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Load the localizations for the language file URLs, blocks until all localizations are loaded.
+     *
+     * @param urls pointing to the language files, duplicate URLs are loaded once
+     * @param locale for which the localizations are loaded
+     * @return the localizations by URL string in the order of the given URLs
+     */
+    Map<String, LocalizationHolder> load(Collection<URL> urls, Locale locale) throws PaymentException {
+        Map<String, LocalizationHolder> holders = new LinkedHashMap<>();
+        List<URL> missing = new ArrayList<>();
+
+        for (URL url : urls) {
+            String key = url.toString();
+            if (holders.containsKey(key)) {
+                continue;
+            }
+            LocalizationHolder holder = cache.get(url, locale, connection.getCachedVersion(url));
+            holders.put(key, holder);
+            if (holder == null) {
+                missing.add(url);
+            }
+        }
+        if (!missing.isEmpty()) {
+            LocalizationHolder[] loaded = fetch(missing, locale);
+            for (int i = 0, e = missing.size(); i < e; i++) {
+                holders.put(missing.get(i).toString(), loaded[i]);
+            }
+        }
+        return holders;
+    }
+
+    /**
+     * Fetch the language files using the calling thread and up to maxConcurrency - 1 helper tasks.
+     * The calling thread never waits for a helper that has not started, once all URLs have been taken the queued helpers are
+     * cancelled and only downloads that are in progress are awaited. Loading therefore also completes when the executor is
+     * saturated or never runs the helpers.
+     */
+    private LocalizationHolder[] fetch(List<URL> urls, Locale locale) throws PaymentException {
+        Batch batch = new Batch(urls, locale);
+        int helpers = Math.min(maxConcurrency, urls.size()) - 1;
+        List<Future<?>> futures = new ArrayList<>(helpers);
+
+        try {
+            for (int i = 0; i < helpers; i++) {
+                futures.add(executor.submit(batch));
+            }
+        } catch (RejectedExecutionException e) {
+            // the executor is saturated, the current thread loads the remaining files itself
+            Log.w("android-sdk", e);
+        }
+        batch.run();
+        for (Future<?> future : futures) {
+            future.cancel(false);
+        }
+        try {
+            batch.awaitInProgress();
+        } catch (InterruptedException e) {
+            batch.abort();
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new PaymentException("Interrupted while loading localizations", e);
+        }
+        return batch.getResults();
+    }
+
+    /**
+     * A batch of language files shared by all workers, each worker takes the next URL until none are left
+     */
+    private final class Batch implements Runnable {
+        private final List<URL> urls;
+        private final Locale locale;
+        private final LocalizationHolder[] results;
+        private final PaymentException[] errors;
+        private int next;
+        private int inProgress;
+
+        Batch(List<URL> urls, Locale locale) {
+            this.urls = urls;
+            this.locale = locale;
+            this.results = new LocalizationHolder[urls.size()];
+            this.errors = new PaymentException[urls.size()];
+        }
+
+        @Override
+        public void run() {
+            int index;
+            while ((index = take()) >= 0) {
+                URL url = urls.get(index);
+                try {
+                    LocalizationHolder holder = connection.loadLocalization(url);
+                    // language files that must be revalidated with the server have no version and are not kept in memory
+                    String version = connection.getCachedVersion(url);
+                    if (version != null) {
+                        cache.put(url, locale, version, holder);
+                    }
+                    results[index] = holder;
+                } catch (PaymentException e) {
+                    errors[index] = e;
+                    abort();
+                } catch (RuntimeException e) {
+                    errors[index] = new PaymentException("Failed to load localization", e);
+                    abort();
+                } finally {
+                    release();
+                }
+            }
+        }
+
+        synchronized void abort() {
+            next = urls.size();
+        }
+
+        /**
+         * Wait until the downloads taken by other workers have finished, must only be called after all URLs have been taken.
+         */
+        synchronized void awaitInProgress() throws InterruptedException {
+            while (inProgress > 0) {
+                wait();
+            }
+        }
+
+        private synchronized int take() {
+            if (next >= urls.size()) {
+                return -1;
+            }
+            inProgress++;
+            return next++;
+        }
+
+        private synchronized void release() {
+            if (--inProgress == 0) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * Get the loaded localizations, must only be called after awaitInProgress has returned.
+         * When downloads failed, the error of the first failed URL is thrown.
+         *
+         * @return the localizations in the order of the URLs
+         */
+        synchronized LocalizationHolder[] getResults() throws PaymentException {
+            for (PaymentException error : errors) {
+                if (error != null) {
+                    throw error;
+                }
+            }
+            return results;
+        }
+    }
+}
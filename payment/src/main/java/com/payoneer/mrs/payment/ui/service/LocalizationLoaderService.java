@@ -9,11 +9,16 @@
 package com.payoneer.mrs.payment.ui.service;
 
 import java.net.URL;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.core.WorkerFunction;
 import com.payoneer.mrs.payment.core.WorkerSubscriber;
 import com.payoneer.mrs.payment.core.WorkerTask;
 import com.payoneer.mrs.payment.core.Workers;
@@ -22,24 +27,28 @@ import com.payoneer.mrs.payment.localization.Localization;
 import com.payoneer.mrs.payment.localization.LocalizationCache;
 import com.payoneer.mrs.payment.localization.LocalizationHolder;
 import com.payoneer.mrs.payment.localization.MultiLocalizationHolder;
+import com.payoneer.mrs.payment.model.AccountRegistration;
+import com.payoneer.mrs.payment.model.ApplicableNetwork;
+import com.payoneer.mrs.payment.model.ListResult;
+import com.payoneer.mrs.payment.model.Networks;
 import com.payoneer.mrs.payment.network.LocalizationConnection;
-import com.payoneer.mrs.payment.ui.model.AccountCard;
-import com.payoneer.mrs.payment.ui.model.PaymentNetwork;
 import com.payoneer.mrs.payment.ui.model.PaymentSession;
 
 import android.content.Context;
+import android.util.Log;
 
 /**
  * The LocalizationService providing asynchronous loading of the localizations needed for presenting the list of payment networks and showing errors.
  * This service makes callbacks in the listener to notify of request completions.
  */
 public final class LocalizationLoaderService {
+    /** Memory cache of decoded localizations shared by all payment sessions */
+    private final static LocalizationCache cache = new LocalizationCache();
+
     private final LocalizationConnection connection;
     private LocalizationLoaderListener listener;
     private WorkerTask<Localization> task;
-
-    /** Memory cache of localizations */
-    private static final LocalizationCache cache = new LocalizationCache();
+    private int maxConcurrency;
 
     /**
      * Create a new LocalizationService, this service is used to load the localizations.
@@ -48,6 +57,27 @@ public final class LocalizationLoaderService {
      */
     public LocalizationLoaderService(Context context) {
         this.connection = new LocalizationConnection(context);
+        this.maxConcurrency = LocalizationLoader.DEFAULT_MAX_CONCURRENCY;
+    }
+
+    /**
+     * Set the maximum number of language files downloaded at the same time
+     *
+     * @param maxConcurrency the maximum number of concurrent downloads, must be larger than 0
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be larger than 0");
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Remove all localizations loaded by previous payment sessions from memory.
+     * Language files stored in the HttpCache are only reused for as long as their Cache-Control headers allow.
+     */
+    public static void clearCache() {
+        cache.clear();
     }
 
     /**
@@ -60,13 +90,14 @@ public final class LocalizationLoaderService {
     }
 
     /**
-     * Stop and unsubscribe from tasks that are currently active in this service.
+     * Stop and cancel the tasks that are currently active in this service, requests in progress are aborted.
      */
     public void stop() {
         if (task != null) {
-            task.unsubscribe();
+            task.cancel(true);
             task = null;
         }
+        connection.abortRequests();
     }
 
     /**
@@ -79,10 +110,17 @@ public final class LocalizationLoaderService {
         if (task != null) {
             throw new IllegalStateException("Already loading localizations, stop first");
         }
-        task = WorkerTask.fromCallable(new Callable<Localization>() {
+        // the lookup is executed after subscribing, a Localization that is already available is then still delivered to the listener
+        WorkerTask<WorkerTask<Localization>> lookup = WorkerTask.fromCallable(new Callable<WorkerTask<Localization>>() {
             @Override
-            public Localization call() throws PaymentException {
-                return asyncLoadLocalizations(context, session);
+            public WorkerTask<Localization> call() {
+                return getOrLoadLocalization(context, session);
+            }
+        });
+        task = lookup.thenCompose(new WorkerFunction<WorkerTask<Localization>, WorkerTask<Localization>>() {
+            @Override
+            public WorkerTask<Localization> apply(WorkerTask<Localization> localizationTask) {
+                return localizationTask;
             }
         });
         task.subscribe(new WorkerSubscriber<Localization>() {
@@ -102,37 +140,192 @@ public final class LocalizationLoaderService {
                 }
             }
         });
-        Workers.getInstance().forNetworkTasks().execute(task);
+        Workers.getInstance().forNetworkTasks().execute(lookup);
+    }
+
+    /**
+     * Start loading the localizations for the ListResult in the background as soon as its links are known, i.e. while the
+     * PaymentSession is still being created and before the localizations are requested by the Payment Page.
+     * The preloading task completes with null when the localizations could not be loaded, see storePreloadTask.
+     *
+     * @param context needed to load the local localization store
+     * @param listResult containing the links of the language files
+     * @return the preloading task
+     */
+    WorkerTask<Localization> preloadLocalizations(final Context context, final ListResult listResult) {
+        WorkerTask<Localization> preloadTask = WorkerTask.fromCallable(new Callable<Localization>() {
+            @Override
+            public Localization call() {
+                try {
+                    return asyncLoadLocalizations(context, listResult, Workers.getInstance().forNetworkTasks());
+                } catch (PaymentException e) {
+                    // the Payment Page loads the localizations again when it needs them
+                    Log.w("android-sdk", e);
+                    return null;
+                }
+            }
+        });
+        Workers.getInstance().forNetworkTasks().execute(preloadTask);
+        return preloadTask;
+    }
+
+    /**
+     * Store the preloading task in the PaymentSessionRepository together with the PaymentSession created from the same ListResult.
+     * The preloaded Localization is stored in the repository once it has been loaded.
+     *
+     * @param session the stored payment session
+     * @param preloadTask started by preloadLocalizations
+     * @return true when stored, false if the PaymentSession is not stored in the repository
+     */
+    static boolean storePreloadTask(final PaymentSession session, WorkerTask<Localization> preloadTask) {
+        WorkerTask<Localization> storeTask = preloadTask.thenApply(new WorkerFunction<Localization, Localization>() {
+            @Override
+            public Localization apply(Localization localization) {
+                if (localization != null) {
+                    PaymentSessionRepository.getInstance().putLocalization(session, localization);
+                }
+                return localization;
+            }
+        });
+        return PaymentSessionRepository.getInstance().putLocalizationTask(session, storeTask);
+    }
+
+    /**
+     * Get the task providing the Localization from the repository, preloading task or prefetcher, this method never blocks.
+     * Only if none of them has the Localization a task is started that loads the localizations.
+     */
+    private WorkerTask<Localization> getOrLoadLocalization(final Context context, final PaymentSession session) {
+        PaymentSessionRepository repository = PaymentSessionRepository.getInstance();
+        Localization localization = repository.getLocalization(session);
+        if (localization != null) {
+            return WorkerTask.fromValue(localization);
+        }
+        WorkerTask<Localization> preloadTask = repository.getLocalizationTask(session);
+        if (preloadTask == null || preloadTask.isCancelled()) {
+            return takeOrLoadLocalization(context, session);
+        }
+        // the preloading task is shared with later payment pages, stopping this service must not cancel it
+        return preloadTask.thenComposeDetached(new WorkerFunction<Localization, WorkerTask<Localization>>() {
+            @Override
+            public WorkerTask<Localization> apply(Localization preloaded) {
+                return preloaded != null ? WorkerTask.fromValue(preloaded) : takeOrLoadLocalization(context, session);
+            }
+        });
+    }
+
+    /**
+     * Get the task providing the Localization from the prefetcher, this method never blocks.
+     * When the prefetcher does not have the Localization for the PaymentSession, the localizations are loaded by this service.
+     */
+    private WorkerTask<Localization> takeOrLoadLocalization(final Context context, final PaymentSession session) {
+        WorkerTask<Localization> prefetchTask = PaymentSessionPrefetcher.getInstance().takeLocalization(session);
+        if (prefetchTask == null) {
+            return startLoadTask(context, session);
+        }
+        // the prefetch is owned by the prefetcher, stopping this service must not cancel it
+        return prefetchTask.thenComposeDetached(new WorkerFunction<Localization, WorkerTask<Localization>>() {
+            @Override
+            public WorkerTask<Localization> apply(Localization prefetched) {
+                if (prefetched == null) {
+                    return startLoadTask(context, session);
+                }
+                PaymentSessionRepository.getInstance().putLocalization(session, prefetched);
+                return WorkerTask.fromValue(prefetched);
+            }
+        });
     }
 
-    private Localization asyncLoadLocalizations(Context context, PaymentSession session)
+    /**
+     * Start the task loading the localizations, loaded localizations are stored in the repository together with their PaymentSession.
+     */
+    private WorkerTask<Localization> startLoadTask(final Context context, final PaymentSession session) {
+        WorkerTask<Localization> loadTask = WorkerTask.fromCallable(new Callable<Localization>() {
+            @Override
+            public Localization call() throws PaymentException {
+                Localization localization = asyncLoadLocalizations(context, session);
+                PaymentSessionRepository.getInstance().putLocalization(session, localization);
+                return localization;
+            }
+        });
+        Workers.getInstance().forNetworkTasks().execute(loadTask);
+        return loadTask;
+    }
+
+    /**
+     * Load all localizations for the payment session in the current thread
+     *
+     * @param context needed to load the local localization store
+     * @param session the payment session containing networks for which localizations should be loaded
+     * @return the loaded Localization
+     */
+    Localization asyncLoadLocalizations(Context context, PaymentSession session)
         throws PaymentException {
-        String listUrl = session.getListUrl();
-        if (!listUrl.equals(cache.getCacheId())) {
-            cache.clear();
-            cache.setCacheId(listUrl);
+        return asyncLoadLocalizations(context, session, Workers.getInstance().forNetworkTasks());
+    }
+
+    /**
+     * Load all localizations for the payment session in the current thread, additional downloads run on the given executor
+     *
+     * @param context needed to load the local localization store
+     * @param session the payment session containing networks for which localizations should be loaded
+     * @param executor running the downloads next to the current thread, e.g. the background lane when prefetching
+     * @return the loaded Localization
+     */
+    Localization asyncLoadLocalizations(Context context, PaymentSession session, ExecutorService executor)
+        throws PaymentException {
+        return asyncLoadLocalizations(context, session.getListResult(), executor);
+    }
+
+    /**
+     * Load all localizations for the supported networks and accounts of the ListResult in the current thread,
+     * these are the networks and accounts of the PaymentSession created from it.
+     *
+     * @param context needed to load the local localization store
+     * @param listResult containing the links of the language files
+     * @param executor running the downloads next to the current thread
+     * @return the loaded Localization
+     */
+    Localization asyncLoadLocalizations(Context context, ListResult listResult, ExecutorService executor)
+        throws PaymentException {
+        URL sharedUrl = getLangLink(listResult.getLinks());
+        Map<String, URL> codeUrls = new LinkedHashMap<>();
+        Networks networks = listResult.getNetworks();
+        List<ApplicableNetwork> applicable = networks != null ? networks.getApplicable() : null;
+        List<AccountRegistration> accounts = listResult.getAccounts();
+
+        if (applicable != null) {
+            for (ApplicableNetwork network : applicable) {
+                if (NetworkServiceLookup.supports(network.getCode(), network.getMethod())) {
+                    codeUrls.put(network.getCode(), getLangLink(network.getLinks()));
+                }
+            }
         }
+        if (accounts != null) {
+            for (AccountRegistration account : accounts) {
+                codeUrls.put(account.getCode(), getLangLink(account.getLinks()));
+            }
+        }
+        List<URL> urls = new ArrayList<>();
+        urls.add(sharedUrl);
+        urls.addAll(codeUrls.values());
+        LocalizationLoader loader = new LocalizationLoader(connection, cache, executor, maxConcurrency);
+        Map<String, LocalizationHolder> loaded = loader.load(urls, Locale.getDefault());
+
         LocalizationHolder localHolder = new LocalLocalizationHolder(context);
-        LocalizationHolder sharedHolder = loadLocalizationHolder(session.getLink("lang"), localHolder);
-        Map<String, LocalizationHolder> holders = new HashMap<>();
+        LocalizationHolder sharedHolder = new MultiLocalizationHolder(loaded.get(sharedUrl.toString()), localHolder);
+        Map<String, LocalizationHolder> holders = new LinkedHashMap<>();
 
-        for (PaymentNetwork network : session.getPaymentNetworks()) {
-            holders.put(network.getCode(), loadLocalizationHolder(network.getLink("lang"), sharedHolder));
-        }
-        for (AccountCard account : session.getAccountCards()) {
-            holders.put(account.getCode(), loadLocalizationHolder(account.getLink("lang"), sharedHolder));
+        for (Map.Entry<String, URL> entry : codeUrls.entrySet()) {
+            holders.put(entry.getKey(), createLocalizationHolder(loaded, entry.getValue(), sharedHolder));
         }
         return new Localization(sharedHolder, holders);
     }
 
-    private LocalizationHolder loadLocalizationHolder(URL url, LocalizationHolder fallback) throws PaymentException {
-        String langUrl = url.toString();
-        LocalizationHolder holder = cache.get(langUrl);
+    private static URL getLangLink(Map<String, URL> links) {
+        return links != null ? links.get("lang") : null;
+    }
 
-        if (holder == null) {
-            holder = new MultiLocalizationHolder(connection.loadLocalization(url), fallback);
-            cache.put(langUrl, holder);
-        }
-        return holder;
+    private LocalizationHolder createLocalizationHolder(Map<String, LocalizationHolder> loaded, URL url, LocalizationHolder fallback) {
+        return new MultiLocalizationHolder(loaded.get(url.toString()), fallback);
     }
 }
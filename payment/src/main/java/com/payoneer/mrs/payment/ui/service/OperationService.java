@@ -53,10 +53,11 @@ public final class OperationService {
 
     /**
      * Stop and unsubscribe from the task that is currently active in this service.
+     * An operation that has not been started yet is cancelled, an operation already posted is allowed to finish.
      */
     public void stop() {
         if (operationTask != null) {
-            operationTask.unsubscribe();
+            operationTask.cancel(false);
             operationTask = null;
         }
     }
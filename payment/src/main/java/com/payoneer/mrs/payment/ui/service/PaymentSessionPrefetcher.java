@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.service;
+
+import java.util.concurrent.Callable;
+
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.core.WorkerFunction;
+import com.payoneer.mrs.payment.core.WorkerTask;
+import com.payoneer.mrs.payment.core.Workers;
+import com.payoneer.mrs.payment.localization.Localization;
+import com.payoneer.mrs.payment.ui.model.PaymentSession;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * The Singleton class prefetching the PaymentSession and its localizations before the Payment Page is shown.
+ * A prefetch is handed over once to the PaymentSessionService and LocalizationLoaderService, whether it has finished or is still in-flight.
+ * Prefetches are discarded when they are older than the max age, when another list is prefetched or when they failed,
+ * in these cases the services load the PaymentSession themselves.
+ * All requests of a prefetch run on the background lane. Services chain on the WorkerTasks of a prefetch instead of waiting for them,
+ * no worker is blocked while a prefetch is in-flight.
+ */
+public final class PaymentSessionPrefetcher {
+
+    /** The default time in millis a prefetched PaymentSession may be used */
+    public final static long DEFAULT_MAX_AGE = 2 * 60 * 1000L;
+
+    private Prefetch prefetch;
+    private long maxAge;
+
+    private PaymentSessionPrefetcher() {
+        this.maxAge = DEFAULT_MAX_AGE;
+    }
+
+    /**
+     * Get the instance of this PaymentSessionPrefetcher
+     *
+     * @return the instance of this PaymentSessionPrefetcher
+     */
+    public static PaymentSessionPrefetcher getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Set the time in millis a prefetched PaymentSession may be used after the prefetch has been started
+     *
+     * @param maxAge the max age in millis
+     */
+    public synchronized void setMaxAge(long maxAge) {
+        if (maxAge <= 0) {
+            throw new IllegalArgumentException("maxAge must be larger than 0");
+        }
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Start prefetching the PaymentSession and localizations for the listUrl in the background.
+     * An unexpired prefetch for the same listUrl is kept, a prefetch for another listUrl is cancelled.
+     *
+     * @param context used to load the resources and localizations
+     * @param listUrl URL pointing to the list on the Payment API
+     */
+    public synchronized void prefetch(Context context, String listUrl) {
+        if (context == null || listUrl == null) {
+            throw new IllegalArgumentException("context and listUrl cannot be null");
+        }
+        if (prefetch != null && prefetch.listUrl.equals(listUrl) && !prefetch.isExpired(maxAge)) {
+            return;
+        }
+        invalidate();
+        Prefetch newPrefetch = new Prefetch(context.getApplicationContext(), listUrl);
+        newPrefetch.start();
+        this.prefetch = newPrefetch;
+    }
+
+    /**
+     * Cancel and discard the current prefetch
+     */
+    public synchronized void invalidate() {
+        if (prefetch != null) {
+            prefetch.cancel();
+            prefetch = null;
+        }
+    }
+
+    /**
+     * Take the task of the prefetched PaymentSession for the listUrl, the task may still be in-flight.
+     * The task is handed over only once, a second call will return null. The task never fails, it completes with null when
+     * the prefetch failed or was cancelled and the caller should then load the PaymentSession itself.
+     *
+     * @param listUrl URL pointing to the list on the Payment API
+     * @return the task of the prefetched PaymentSession or null if none is available
+     */
+    synchronized WorkerTask<PaymentSession> takePaymentSession(String listUrl) {
+        final Prefetch current = prefetch;
+        if (current == null || !current.listUrl.equals(listUrl) || current.sessionTaken) {
+            return null;
+        }
+        if (current.isExpired(maxAge)) {
+            invalidate();
+            return null;
+        }
+        current.sessionTaken = true;
+        // the prefetch is shared with takeLocalization, cancelling the caller's task must not cancel it
+        return current.sessionTask.thenComposeDetached(new WorkerFunction<PaymentSession, WorkerTask<PaymentSession>>() {
+            @Override
+            public WorkerTask<PaymentSession> apply(PaymentSession session) {
+                if (session == null) {
+                    discard(current);
+                }
+                return WorkerTask.fromValue(session);
+            }
+        });
+    }
+
+    /**
+     * Take the task of the prefetched Localization for the PaymentSession that was previously handed over by this prefetcher.
+     * The prefetch is discarded afterwards. The task never fails, it completes with null when the localizations could not be prefetched.
+     *
+     * @param session the PaymentSession for which the localization is requested
+     * @return the task of the prefetched Localization or null if none is available
+     */
+    synchronized WorkerTask<Localization> takeLocalization(PaymentSession session) {
+        Prefetch current = prefetch;
+        if (current == null || !current.sessionTaken || current.session != session) {
+            return null;
+        }
+        prefetch = null;
+        return current.localizationTask;
+    }
+
+    private synchronized void discard(Prefetch discarded) {
+        if (prefetch == discarded) {
+            prefetch = null;
+        }
+    }
+
+    /**
+     * Class loading the PaymentSession first and the localizations second on the background lane.
+     * Both results are provided by WorkerTasks so that services can chain on them instead of waiting for them.
+     */
+    private static final class Prefetch {
+        private final Context context;
+        private final String listUrl;
+        private final long created;
+        private final WorkerTask<PaymentSession> sessionTask;
+        private final WorkerTask<Localization> localizationTask;
+        private boolean sessionTaken;
+        private boolean cancelled;
+        private Thread runner;
+        private volatile PaymentSession session;
+        private PaymentSessionService sessionService;
+        private LocalizationLoaderService localizationService;
+
+        Prefetch(Context context, String listUrl) {
+            this.context = context;
+            this.listUrl = listUrl;
+            this.created = Workers.getInstance().getScheduler().currentTimeMillis();
+            this.sessionTask = WorkerTask.fromCallable(new Callable<PaymentSession>() {
+                @Override
+                public PaymentSession call() {
+                    return loadPaymentSession();
+                }
+            });
+            // the localizations are loaded by a separate task, the PaymentSession is handed over as soon as it has been loaded
+            this.localizationTask = sessionTask.thenCompose(new WorkerFunction<PaymentSession, WorkerTask<Localization>>() {
+                @Override
+                public WorkerTask<Localization> apply(final PaymentSession loaded) {
+                    if (loaded == null || loaded.isEmpty()) {
+                        return WorkerTask.fromValue(null);
+                    }
+                    WorkerTask<Localization> task = WorkerTask.fromCallable(new Callable<Localization>() {
+                        @Override
+                        public Localization call() {
+                            return loadLocalization(loaded);
+                        }
+                    });
+                    Workers.getInstance().forBackgroundTasks().execute(task);
+                    return task;
+                }
+            });
+        }
+
+        void start() {
+            Workers.getInstance().forBackgroundTasks().execute(sessionTask);
+        }
+
+        /**
+         * Cancel this prefetch and abort its requests, the tasks of this prefetch complete with null.
+         * The thread running the prefetch is interrupted before the requests are aborted so that they are not retried.
+         */
+        synchronized void cancel() {
+            cancelled = true;
+            if (runner != null) {
+                runner.interrupt();
+            }
+            if (sessionService != null) {
+                sessionService.stop();
+            }
+            if (localizationService != null) {
+                localizationService.stop();
+            }
+        }
+
+        boolean isExpired(long maxAge) {
+            return Workers.getInstance().getScheduler().currentTimeMillis() - created >= maxAge;
+        }
+
+        private PaymentSession loadPaymentSession() {
+            PaymentSessionService service;
+            synchronized (this) {
+                if (cancelled) {
+                    return null;
+                }
+                service = sessionService = new PaymentSessionService(context);
+                runner = Thread.currentThread();
+            }
+            try {
+                PaymentSession loaded = service.asyncLoadPaymentSession(listUrl, context);
+                session = loaded;
+                return isCancelled() ? null : loaded;
+            } catch (PaymentException | RuntimeException e) {
+                // the services load the PaymentSession themselves, the prefetch task never fails
+                Log.w("android-sdk", e);
+                return null;
+            } finally {
+                release();
+            }
+        }
+
+        private Localization loadLocalization(PaymentSession loaded) {
+            LocalizationLoaderService service;
+            synchronized (this) {
+                if (cancelled) {
+                    return null;
+                }
+                service = localizationService = new LocalizationLoaderService(context);
+                runner = Thread.currentThread();
+            }
+            try {
+                Localization localization = service.asyncLoadLocalizations(context, loaded, Workers.getInstance().forBackgroundTasks());
+                return isCancelled() ? null : localization;
+            } catch (PaymentException | RuntimeException e) {
+                Log.w("android-sdk", e);
+                return null;
+            } finally {
+                release();
+            }
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Release the current thread after loading, the interrupt of a cancelled prefetch must not leak into the next task of the worker
+         */
+        private void release() {
+            synchronized (this) {
+                runner = null;
+                if (!cancelled) {
+                    return;
+                }
+            }
+            Thread.interrupted();
+        }
+    }
+
+    private static class InstanceHolder {
+        static final PaymentSessionPrefetcher INSTANCE = new PaymentSessionPrefetcher();
+    }
+}
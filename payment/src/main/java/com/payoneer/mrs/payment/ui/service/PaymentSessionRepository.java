@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.payoneer.mrs.payment.core.WorkerTask;
+import com.payoneer.mrs.payment.core.Workers;
+import com.payoneer.mrs.payment.localization.Localization;
+import com.payoneer.mrs.payment.model.Interaction;
+import com.payoneer.mrs.payment.model.InteractionCode;
+import com.payoneer.mrs.payment.ui.model.PaymentSession;
+
+/**
+ * The Singleton class holding the loaded PaymentSessions and their localizations by listUrl.
+ * The list, charge and recreated activities obtain the PaymentSession from this repository instead of loading it again.
+ * Every request receives its own copy of the stored PaymentSession, the user input state of the NetworkCards is never shared.
+ * A Localization is stored for the loaded list, it is found for every copy of the PaymentSession.
+ * Stored PaymentSessions are used within the max age and must be invalidated when the list has changed on the Payment API,
+ * e.g. after a RELOAD or TRY_OTHER_NETWORK interaction.
+ */
+public final class PaymentSessionRepository {
+
+    /** The default time in millis a stored PaymentSession may be used */
+    public final static long DEFAULT_MAX_AGE = 5 * 60 * 1000L;
+
+    private final static int MAX_ENTRIES = 4;
+
+    private final Map<String, Snapshot> snapshots;
+    private long maxAge;
+
+    private PaymentSessionRepository() {
+        this.maxAge = DEFAULT_MAX_AGE;
+        this.snapshots = new LinkedHashMap<String, Snapshot>(MAX_ENTRIES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    }
+
+    /**
+     * Get the instance of this PaymentSessionRepository
+     *
+     * @return the instance of this PaymentSessionRepository
+     */
+    public static PaymentSessionRepository getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Set the time in millis a stored PaymentSession may be used after it has been loaded
+     *
+     * @param maxAge the max age in millis
+     */
+    public synchronized void setMaxAge(long maxAge) {
+        if (maxAge <= 0) {
+            throw new IllegalArgumentException("maxAge must be larger than 0");
+        }
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Get a copy of the stored PaymentSession for the listUrl, see PaymentSession.copy()
+     *
+     * @param listUrl URL pointing to the list on the Payment API
+     * @return the PaymentSession or null if none is stored or it has expired
+     */
+    public synchronized PaymentSession getPaymentSession(String listUrl) {
+        Snapshot snapshot = getSnapshot(listUrl);
+        return snapshot != null ? snapshot.session.copy() : null;
+    }
+
+    /**
+     * Store the loaded PaymentSession for the listUrl, a previously stored PaymentSession and Localization are replaced.
+     *
+     * @param listUrl URL pointing to the list on the Payment API
+     * @param session the loaded PaymentSession
+     */
+    public synchronized void putPaymentSession(String listUrl, PaymentSession session) {
+        if (listUrl == null || session == null) {
+            throw new IllegalArgumentException("listUrl and session cannot be null");
+        }
+        snapshots.put(listUrl, new Snapshot(session));
+    }
+
+    /**
+     * Get the stored Localization loaded for the PaymentSession
+     *
+     * @param session the stored PaymentSession or a copy of it
+     * @return the Localization or null if none is stored for this PaymentSession
+     */
+    public synchronized Localization getLocalization(PaymentSession session) {
+        Snapshot snapshot = findSnapshot(session);
+        return snapshot != null ? snapshot.localization : null;
+    }
+
+    /**
+     * Store the Localization loaded for the PaymentSession, it is ignored if the PaymentSession is not stored in this repository.
+     *
+     * @param session the stored PaymentSession or a copy of it
+     * @param localization the loaded Localization
+     */
+    public synchronized void putLocalization(PaymentSession session, Localization localization) {
+        Snapshot snapshot = findSnapshot(session);
+        if (snapshot != null) {
+            snapshot.localization = localization;
+        }
+    }
+
+    /**
+     * Get the task preloading the Localization for the PaymentSession
+     *
+     * @param session the stored PaymentSession or a copy of it
+     * @return the task or null if the Localization is not being preloaded for this PaymentSession
+     */
+    public synchronized WorkerTask<Localization> getLocalizationTask(PaymentSession session) {
+        Snapshot snapshot = findSnapshot(session);
+        return snapshot != null ? snapshot.localizationTask : null;
+    }
+
+    /**
+     * Store the task preloading the Localization for the PaymentSession, it is ignored if the PaymentSession is not stored in this repository.
+     *
+     * @param session the stored PaymentSession or a copy of it
+     * @param task preloading the Localization
+     * @return true when the task has been stored, false otherwise
+     */
+    public synchronized boolean putLocalizationTask(PaymentSession session, WorkerTask<Localization> task) {
+        Snapshot snapshot = findSnapshot(session);
+        if (snapshot == null) {
+            return false;
+        }
+        snapshot.localizationTask = task;
+        return true;
+    }
+
+    /**
+     * Invalidate the stored PaymentSession for the listUrl, the next request will load it from the Payment API again.
+     *
+     * @param listUrl URL pointing to the list on the Payment API
+     */
+    public synchronized void invalidate(String listUrl) {
+        if (listUrl != null) {
+            snapshots.remove(listUrl);
+        }
+    }
+
+    /**
+     * Invalidate the stored PaymentSession if the interaction indicates that the list has changed on the Payment API.
+     * Only the RETRY interaction keeps the stored PaymentSession, the user may retry with the same list.
+     *
+     * @param listUrl URL pointing to the list on the Payment API
+     * @param interaction received from the Payment API
+     */
+    public synchronized void invalidate(String listUrl, Interaction interaction) {
+        if (interaction == null || !InteractionCode.RETRY.equals(interaction.getCode())) {
+            invalidate(listUrl);
+        }
+    }
+
+    /**
+     * Remove all stored PaymentSessions from this repository
+     */
+    public synchronized void clear() {
+        snapshots.clear();
+    }
+
+    private Snapshot getSnapshot(String listUrl) {
+        if (listUrl == null) {
+            return null;
+        }
+        Snapshot snapshot = snapshots.get(listUrl);
+        if (snapshot != null && snapshot.isExpired(maxAge)) {
+            snapshots.remove(listUrl);
+            return null;
+        }
+        return snapshot;
+    }
+
+    private Snapshot findSnapshot(PaymentSession session) {
+        if (session == null) {
+            return null;
+        }
+        // copies of a stored PaymentSession share the ListResult it has been created from
+        for (Snapshot snapshot : snapshots.values()) {
+            if (snapshot.session.getListResult() == session.getListResult()) {
+                return snapshot.isExpired(maxAge) ? null : snapshot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Class holding a loaded PaymentSession and the Localization loaded for it
+     */
+    private static final class Snapshot {
+        private final PaymentSession session;
+        private final long created;
+        private Localization localization;
+        private WorkerTask<Localization> localizationTask;
+
+        Snapshot(PaymentSession session) {
+            this.session = session;
+            this.created = Workers.getInstance().getScheduler().currentTimeMillis();
+        }
+
+        boolean isExpired(long maxAge) {
+            return Workers.getInstance().getScheduler().currentTimeMillis() - created >= maxAge;
+        }
+    }
+
+    private static class InstanceHolder {
+        static final PaymentSessionRepository INSTANCE = new PaymentSessionRepository();
+    }
+}
@@ -15,21 +15,25 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
-import com.payoneer.mrs.payment.R;
 import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.core.WorkerFunction;
 import com.payoneer.mrs.payment.core.WorkerSubscriber;
 import com.payoneer.mrs.payment.core.WorkerTask;
 import com.payoneer.mrs.payment.core.Workers;
+import com.payoneer.mrs.payment.localization.Localization;
 import com.payoneer.mrs.payment.model.AccountRegistration;
 import com.payoneer.mrs.payment.model.ApplicableNetwork;
+import com.payoneer.mrs.payment.model.Interaction;
+import com.payoneer.mrs.payment.model.InteractionCode;
 import com.payoneer.mrs.payment.model.ListResult;
 import com.payoneer.mrs.payment.model.NetworkOperationType;
 import com.payoneer.mrs.payment.model.Networks;
 import com.payoneer.mrs.payment.model.PresetAccount;
 import com.payoneer.mrs.payment.network.ListConnection;
 import com.payoneer.mrs.payment.resource.PaymentGroup;
-import com.payoneer.mrs.payment.resource.ResourceLoader;
+import com.payoneer.mrs.payment.resource.ResourceRegistry;
 import com.payoneer.mrs.payment.ui.model.AccountCard;
 import com.payoneer.mrs.payment.ui.model.NetworkCard;
 import com.payoneer.mrs.payment.ui.model.PaymentNetwork;
@@ -68,13 +72,14 @@ public final class PaymentSessionService {
     }
 
     /**
-     * Stop and unsubscribe from tasks that are currently active in this service.
+     * Stop and cancel the tasks that are currently active in this service, requests in progress are aborted.
      */
     public void stop() {
         if (sessionTask != null) {
-            sessionTask.unsubscribe();
+            sessionTask.cancel(true);
             sessionTask = null;
         }
+        listConnection.abortRequests();
     }
 
     /**
@@ -88,6 +93,7 @@ public final class PaymentSessionService {
 
     /**
      * Load the PaymentSession with the given listUrl, this will load the list result, languages and validator.
+     * The localizations of a newly loaded PaymentSession are preloaded as soon as the links of the list are known.
      *
      * @param listUrl URL pointing to the list on the Payment API
      * @param context Android context in which this service is used
@@ -97,10 +103,16 @@ public final class PaymentSessionService {
         if (sessionTask != null) {
             throw new IllegalStateException("Already loading payment session, stop first");
         }
-        sessionTask = WorkerTask.fromCallable(new Callable<PaymentSession>() {
+        WorkerTask<PaymentSession> lookupTask = WorkerTask.fromCallable(new Callable<PaymentSession>() {
             @Override
-            public PaymentSession call() throws PaymentException {
-                return asyncLoadPaymentSession(listUrl, context);
+            public PaymentSession call() {
+                return PaymentSessionRepository.getInstance().getPaymentSession(listUrl);
+            }
+        });
+        sessionTask = lookupTask.thenCompose(new WorkerFunction<PaymentSession, WorkerTask<PaymentSession>>() {
+            @Override
+            public WorkerTask<PaymentSession> apply(PaymentSession stored) {
+                return stored != null ? WorkerTask.fromValue(stored) : takeOrLoadPaymentSession(listUrl, context);
             }
         });
         sessionTask.subscribe(new WorkerSubscriber<PaymentSession>() {
@@ -122,7 +134,7 @@ public final class PaymentSessionService {
                 }
             }
         });
-        Workers.getInstance().forNetworkTasks().execute(sessionTask);
+        Workers.getInstance().forNetworkTasks().execute(lookupTask);
     }
 
     /**
@@ -135,7 +147,163 @@ public final class PaymentSessionService {
         return NetworkOperationType.CHARGE.equals(operationType) || NetworkOperationType.PRESET.equals(operationType);
     }
 
-    private PaymentSession asyncLoadPaymentSession(String listUrl, Context context) throws PaymentException {
+    /**
+     * Get the task providing the PaymentSession from the prefetcher, this method never blocks.
+     * When the prefetcher has no PaymentSession for the listUrl or the prefetch failed, the PaymentSession is loaded by this service.
+     * A prefetched PaymentSession is stored in the repository once available, also when this service has been stopped meanwhile.
+     *
+     * @param listUrl URL pointing to the list on the Payment API
+     * @param context Android context in which this service is used
+     * @return the task completing with the PaymentSession
+     */
+    private WorkerTask<PaymentSession> takeOrLoadPaymentSession(final String listUrl, final Context context) {
+        WorkerTask<PaymentSession> prefetchTask = PaymentSessionPrefetcher.getInstance().takePaymentSession(listUrl);
+        if (prefetchTask == null) {
+            return loadAndStorePaymentSession(listUrl, context);
+        }
+        // detached so that the prefetched PaymentSession, which cannot be taken again, is still stored when this service is stopped
+        return prefetchTask.thenComposeDetached(new WorkerFunction<PaymentSession, WorkerTask<PaymentSession>>() {
+            @Override
+            public WorkerTask<PaymentSession> apply(PaymentSession prefetched) {
+                if (prefetched == null) {
+                    return loadAndStorePaymentSession(listUrl, context);
+                }
+                storePaymentSession(listUrl, prefetched);
+                return WorkerTask.fromValue(prefetched);
+            }
+        });
+    }
+
+    /**
+     * Start loading the PaymentSession and store it in the repository.
+     * The list is fetched on the network lane while the shared groups and Validator are obtained from the ResourceRegistry in parallel
+     * on the compute lane. The localizations are preloaded as soon as the links of the ListResult are known, the PaymentSession
+     * is created once the list, groups and Validator have been loaded and is stored together with the preloading task.
+     *
+     * @param listUrl URL pointing to the list on the Payment API
+     * @param context Android context in which this service is used
+     * @return the task completing with the loaded PaymentSession
+     */
+    private WorkerTask<PaymentSession> loadAndStorePaymentSession(final String listUrl, final Context context) {
+        final WorkerTask<ListResult> listTask = WorkerTask.fromCallable(new Callable<ListResult>() {
+            @Override
+            public ListResult call() throws PaymentException {
+                return loadListResult(listUrl);
+            }
+        });
+        final WorkerTask<WorkerTask<Localization>> preloadTask = listTask.thenApply(new WorkerFunction<ListResult, WorkerTask<Localization>>() {
+            @Override
+            public WorkerTask<Localization> apply(ListResult listResult) {
+                // only lists that will be stored are preloaded, the preloading task is stored with the PaymentSession
+                if (!isProceed(listResult)) {
+                    return null;
+                }
+                return new LocalizationLoaderService(context).preloadLocalizations(context, listResult);
+            }
+        });
+        final WorkerTask<Map<String, PaymentGroup>> groupsTask = startLoadPaymentGroups(context);
+        final WorkerTask<Validator> validatorTask = startLoadValidator(context);
+        WorkerTask<PaymentSession> task = WorkerTask.allOf(preloadTask, groupsTask, validatorTask)
+            .thenApply(new WorkerFunction<Void, PaymentSession>() {
+                @Override
+                public PaymentSession apply(Void value) throws Exception {
+                    WorkerTask<Localization> localizationTask = preloadTask.get();
+                    PaymentSession session;
+                    try {
+                        session = createPaymentSession(listTask.get(), groupsTask.get(), validatorTask.get());
+                    } catch (PaymentException e) {
+                        cancelPreload(localizationTask);
+                        throw e;
+                    }
+                    if (storePaymentSession(listUrl, session) && localizationTask != null) {
+                        LocalizationLoaderService.storePreloadTask(session, localizationTask);
+                    }
+                    return session;
+                }
+            });
+        Workers.getInstance().forNetworkTasks().execute(listTask);
+        return task;
+    }
+
+    private static void cancelPreload(WorkerTask<Localization> localizationTask) {
+        if (localizationTask != null) {
+            localizationTask.cancel(true);
+        }
+    }
+
+    /**
+     * Store the PaymentSession in the repository if the list may be used for further requests
+     *
+     * @param listUrl URL pointing to the list on the Payment API
+     * @param session the loaded PaymentSession
+     * @return true when stored, false otherwise
+     */
+    private boolean storePaymentSession(String listUrl, PaymentSession session) {
+        if (isProceed(session.getListResult())) {
+            PaymentSessionRepository.getInstance().putPaymentSession(listUrl, session);
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isProceed(ListResult listResult) {
+        Interaction interaction = listResult.getInteraction();
+        return interaction != null && InteractionCode.PROCEED.equals(interaction.getCode());
+    }
+
+    /**
+     * Load the PaymentSession and block the current thread until it is loaded.
+     * The list is fetched on the current thread, e.g. a background prefetch never occupies a worker of the network lane.
+     * The shared groups and Validator are obtained on the compute lane in the meantime, tasks of the compute lane that have
+     * not started by the time the list has been fetched are run on the current thread instead of waiting for them.
+     *
+     * @param listUrl URL pointing to the list on the Payment API
+     * @param context Android context in which this service is used
+     * @return the loaded PaymentSession
+     */
+    PaymentSession asyncLoadPaymentSession(String listUrl, Context context) throws PaymentException {
+        WorkerTask<Map<String, PaymentGroup>> groupsTask = startLoadPaymentGroups(context);
+        WorkerTask<Validator> validatorTask = startLoadValidator(context);
+        try {
+            ListResult listResult = loadListResult(listUrl);
+            groupsTask.run();
+            validatorTask.run();
+            return createPaymentSession(listResult, groupsTask.get(), validatorTask.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentException("Interrupted while loading the payment session", e);
+        } catch (ExecutionException e) {
+            throw new PaymentException("Failed to load the payment session", e.getCause());
+        } finally {
+            // the shared resources are not needed when loading the list failed
+            groupsTask.cancel(false);
+            validatorTask.cancel(false);
+        }
+    }
+
+    private WorkerTask<Map<String, PaymentGroup>> startLoadPaymentGroups(final Context context) {
+        WorkerTask<Map<String, PaymentGroup>> task = WorkerTask.fromCallable(new Callable<Map<String, PaymentGroup>>() {
+            @Override
+            public Map<String, PaymentGroup> call() throws PaymentException {
+                return ResourceRegistry.getInstance().getPaymentGroups(context);
+            }
+        });
+        Workers.getInstance().forComputeTasks().execute(task);
+        return task;
+    }
+
+    private WorkerTask<Validator> startLoadValidator(final Context context) {
+        WorkerTask<Validator> task = WorkerTask.fromCallable(new Callable<Validator>() {
+            @Override
+            public Validator call() throws PaymentException {
+                return ResourceRegistry.getInstance().getValidator(context);
+            }
+        });
+        Workers.getInstance().forComputeTasks().execute(task);
+        return task;
+    }
+
+    private ListResult loadListResult(String listUrl) throws PaymentException {
         ListResult listResult = listConnection.getListResult(listUrl);
 
         String integrationType = listResult.getIntegrationType();
@@ -147,10 +315,12 @@ public final class PaymentSessionService {
         if (!isSupportedNetworkOperationType(operationType)) {
             throw new PaymentException("List operationType is not supported: " + operationType);
         }
-        Map<String, PaymentNetwork> networks = loadPaymentNetworks(listResult);
-        Map<String, PaymentGroup> groups = loadPaymentGroups(context);
+        return listResult;
+    }
 
-        Validator validator = loadValidator(context);
+    private PaymentSession createPaymentSession(ListResult listResult, Map<String, PaymentGroup> groups, Validator validator)
+        throws PaymentException {
+        Map<String, PaymentNetwork> networks = loadPaymentNetworks(listResult);
 
         PresetCard presetCard = createPresetCard(listResult);
         List<AccountCard> accountCards = createAccountCards(listResult, networks);
@@ -244,12 +414,4 @@ public final class PaymentSessionService {
         }
         return new PresetCard(account);
     }
-
-    private Map<String, PaymentGroup> loadPaymentGroups(Context context) throws PaymentException {
-        return ResourceLoader.loadPaymentGroups(context.getResources(), R.raw.groups);
-    }
-
-    private Validator loadValidator(Context context) throws PaymentException {
-        return new Validator(ResourceLoader.loadValidations(context.getResources(), R.raw.validations));
-    }
 }
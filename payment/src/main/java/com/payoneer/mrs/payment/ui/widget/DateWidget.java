@@ -14,7 +14,8 @@ import com.payoneer.mrs.payment.localization.Localization;
 import com.payoneer.mrs.payment.model.InputElement;
 import com.payoneer.mrs.payment.ui.widget.input.ExpiryDateInputMode;
 import com.payoneer.mrs.payment.util.PaymentUtils;
-import com.payoneer.mrs.payment.validation.ValidationResult;
+import com.payoneer.mrs.payment.validation.ValidationStatus;
+import com.payoneer.mrs.payment.validation.ValidationValues;
 
 import android.text.TextUtils;
 import android.view.View;
@@ -43,8 +44,17 @@ public final class DateWidget extends InputLayoutWidget {
     @Override
     public boolean validate() {
         ExpiryDate date = getExpiryDate();
-        ValidationResult result = presenter.validate(name, date.month, date.year);
-        return setValidationResult(result);
+        ValidationStatus result = presenter.validate(name, date.month, date.year);
+        return setValidationStatus(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putValidationValues(ValidationValues values) {
+        ExpiryDate date = getExpiryDate();
+        values.put(name, date.month, date.year);
     }
 
     /**
@@ -11,6 +11,8 @@ package com.payoneer.mrs.payment.ui.widget;
 import com.payoneer.mrs.payment.core.PaymentException;
 import com.payoneer.mrs.payment.form.Operation;
 import com.payoneer.mrs.payment.util.PaymentUtils;
+import com.payoneer.mrs.payment.validation.ValidationStatus;
+import com.payoneer.mrs.payment.validation.ValidationValues;
 
 import android.view.View;
 
@@ -110,6 +112,27 @@ public abstract class FormWidget {
         return true;
     }
 
+    /**
+     * Request the widget to put its input values into the ValidationValues, used to validate all widgets of a card at once.
+     * Widgets without input values to be validated do not put any values.
+     *
+     * @param values in which the input values should be added
+     */
+    public void putValidationValues(ValidationValues values) {
+    }
+
+    /**
+     * Set the ValidationStatus of the input values this widget has put into the ValidationValues.
+     *
+     * @param result the ValidationStatus of the input values of this widget
+     * @return true when valid, false otherwise
+     */
+    public boolean setValidationStatus(ValidationStatus result) {
+        boolean valid = result != null && !result.isError();
+        setValidationState(valid ? VALIDATION_OK : VALIDATION_ERROR);
+        return valid;
+    }
+
     /**
      * Set this widget visible or hide it.
      *
@@ -16,7 +16,9 @@ import com.payoneer.mrs.payment.R;
 import com.payoneer.mrs.payment.core.PaymentException;
 import com.payoneer.mrs.payment.form.Operation;
 import com.payoneer.mrs.payment.ui.widget.input.EditTextInputMode;
-import com.payoneer.mrs.payment.validation.ValidationResult;
+import com.payoneer.mrs.payment.validation.CardNumberState;
+import com.payoneer.mrs.payment.validation.ValidationStatus;
+import com.payoneer.mrs.payment.validation.ValidationValues;
 
 import android.text.TextUtils;
 import android.view.KeyEvent;
@@ -124,8 +126,9 @@ public abstract class InputLayoutWidget extends FormWidget {
      */
     @Override
     public boolean validate() {
-        ValidationResult result = presenter.validate(name, getValue(), null);
-        return setValidationResult(result);
+        CardNumberState cardNumberState = (mode != null) ? mode.getCardNumberState() : null;
+        ValidationStatus result = presenter.validate(name, getValue(), null, cardNumberState);
+        return setValidationStatus(result);
     }
 
     /**
@@ -139,6 +142,17 @@ public abstract class InputLayoutWidget extends FormWidget {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putValidationValues(ValidationValues values) {
+        values.put(name, getValue());
+        if (mode != null) {
+            mode.putValidationState(name, values);
+        }
+    }
+
     void setEndIcon(int mode, int resourceId) {
         textLayout.setEndIconMode(mode);
         textLayout.setEndIconDrawable(resourceId);
@@ -199,7 +213,11 @@ public abstract class InputLayoutWidget extends FormWidget {
         return (mode != null) ? mode.normalize(val) : val;
     }
 
-    boolean setValidationResult(ValidationResult result) {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean setValidationStatus(ValidationStatus result) {
         if (result == null) {
             return false;
         }
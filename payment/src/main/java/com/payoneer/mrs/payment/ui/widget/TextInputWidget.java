@@ -14,6 +14,7 @@ import com.payoneer.mrs.payment.R;
 import com.payoneer.mrs.payment.localization.Localization;
 import com.payoneer.mrs.payment.model.InputElement;
 import com.payoneer.mrs.payment.ui.widget.input.EditTextInputModeFactory;
+import com.payoneer.mrs.payment.validation.CardNumberState;
 
 import android.text.Editable;
 import android.text.TextUtils;
@@ -42,6 +43,7 @@ public final class TextInputWidget extends InputLayoutWidget {
             }
 
             public void afterTextChanged(Editable s) {
+                onTextInputTyped();
             }
         });
     }
@@ -83,6 +85,22 @@ public final class TextInputWidget extends InputLayoutWidget {
         setClearIcon(value, textInput.hasFocus());
     }
 
+    /**
+     * Validate a typed card number as soon as it is complete for the network, the completeness is known from the
+     * CardNumberState without scanning the card number on every keystroke.
+     */
+    private void onTextInputTyped() {
+        CardNumberState cardNumberState = (mode != null) ? mode.getCardNumberState() : null;
+        if (cardNumberState == null || !textInput.hasFocus()) {
+            return;
+        }
+        if (presenter.isCompleteCardNumber(cardNumberState)) {
+            validate();
+        } else if (state != VALIDATION_UNKNOWN) {
+            setInputLayoutState(VALIDATION_UNKNOWN, false, null);
+        }
+    }
+
     private void setClearIcon(String value, boolean hasFocus) {
         if (!TextUtils.isEmpty(value) && hasFocus) {
             setEndIcon(END_ICON_CUSTOM, R.drawable.ic_cancel);
@@ -8,7 +8,8 @@
 
 package com.payoneer.mrs.payment.ui.widget;
 
-import com.payoneer.mrs.payment.validation.ValidationResult;
+import com.payoneer.mrs.payment.validation.CardNumberState;
+import com.payoneer.mrs.payment.validation.ValidationStatus;
 
 import android.view.View;
 
@@ -65,9 +66,29 @@ public interface WidgetPresenter {
      * @param type type of the value to be validated
      * @param value1 mandatory first value to validate
      * @param value2 optional second value to validate
-     * @return ValidationResult holding the result of the validation
+     * @return shared and immutable ValidationStatus holding the result of the validation
      */
-    ValidationResult validate(String type, String value1, String value2);
+    ValidationStatus validate(String type, String value1, String value2);
+
+    /**
+     * Widgets call this method to validate their input values together with the CardNumberState of the typed card number.
+     * The Luhn check is taken from the state when it tracks the digits of the first value.
+     *
+     * @param type type of the value to be validated
+     * @param value1 mandatory first value to validate
+     * @param value2 optional second value to validate
+     * @param state the CardNumberState of the typed card number, may be null
+     * @return shared and immutable ValidationStatus holding the result of the validation
+     */
+    ValidationStatus validate(String type, String value1, String value2, CardNumberState state);
+
+    /**
+     * Check if the card number typed in the CardNumberState is complete for the network, i.e. on every keystroke
+     *
+     * @param state the CardNumberState of the typed card number
+     * @return true when the card number is complete, false otherwise
+     */
+    boolean isCompleteCardNumber(CardNumberState state);
 
     /**
      * Notify that text has changed in this widget.
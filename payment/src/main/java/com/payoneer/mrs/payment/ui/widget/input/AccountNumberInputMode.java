@@ -9,6 +9,8 @@
 package com.payoneer.mrs.payment.ui.widget.input;
 
 import com.google.android.material.textfield.TextInputEditText;
+import com.payoneer.mrs.payment.validation.CardNumberState;
+import com.payoneer.mrs.payment.validation.ValidationValues;
 
 import android.text.InputFilter;
 import android.text.InputType;
@@ -21,6 +23,8 @@ public final class AccountNumberInputMode extends EditTextInputMode {
 
     private final static String ACCOUNTNUMBER_DIGITS = "0123456789 ";
 
+    private final CardNumberState cardNumberState;
+
     /**
      * Construct an AccountNumberInputMode
      *
@@ -28,6 +32,15 @@ public final class AccountNumberInputMode extends EditTextInputMode {
      */
     public AccountNumberInputMode(int maxLength) {
         super(maxLength, 4);
+        this.cardNumberState = new CardNumberState();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CardNumberState getCardNumberState() {
+        return cardNumberState;
     }
 
     /**
@@ -38,6 +51,14 @@ public final class AccountNumberInputMode extends EditTextInputMode {
         return value != null ? value.replaceAll("\\s", "") : null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putValidationState(String type, ValidationValues values) {
+        values.putCardNumberState(type, cardNumberState);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -48,6 +69,7 @@ public final class AccountNumberInputMode extends EditTextInputMode {
         });
         editText.setInputType(InputType.TYPE_CLASS_NUMBER);
         editText.setKeyListener(DigitsKeyListener.getInstance(ACCOUNTNUMBER_DIGITS));
-        textWatcher = new GroupingTextWatcher(groupSize, editText);
+        cardNumberState.update(editText.getText());
+        textWatcher = new GroupingTextWatcher(groupSize, editText, cardNumberState);
     }
 }
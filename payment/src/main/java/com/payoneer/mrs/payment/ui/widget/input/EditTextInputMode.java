@@ -9,6 +9,8 @@
 package com.payoneer.mrs.payment.ui.widget.input;
 
 import com.google.android.material.textfield.TextInputEditText;
+import com.payoneer.mrs.payment.validation.CardNumberState;
+import com.payoneer.mrs.payment.validation.ValidationValues;
 
 /**
  * Base class for defining the mode for the TextInputWidget
@@ -46,6 +48,24 @@ public abstract class EditTextInputMode {
         return maxLength + (maxLength / groupSize);
     }
 
+    /**
+     * Put the state this mode keeps of the typed value into the ValidationValues, nothing is put by default
+     *
+     * @param type the PaymentInputType of the value
+     * @param values into which the state is put
+     */
+    public void putValidationState(String type, ValidationValues values) {
+    }
+
+    /**
+     * Get the CardNumberState in which this mode tracks the typed card number, modes not tracking a card number return null
+     *
+     * @return the CardNumberState or null
+     */
+    public CardNumberState getCardNumberState() {
+        return null;
+    }
+
     /**
      * Reset this mode when it is not used anymore
      */
@@ -64,7 +64,7 @@ public class ExpiryDateTextWatcher extends EditTextWatcher {
         editable.replace(0, editable.length(), newValue);
     }
 
-    private void formatExpiryDate(final StringBuilder sb) {
+    static void formatExpiryDate(final StringBuilder sb) {
         char c = sb.charAt(0);
         if (c == '0') {
             // Cannot recover from 2 zeros, replace all with one zero
@@ -81,7 +81,7 @@ public class ExpiryDateTextWatcher extends EditTextWatcher {
         sb.insert(0, "0");
     }
 
-    private String normalize(final String value) {
+    static String normalize(final String value) {
         return value.replaceAll("[\\s,/]", "");
     }
 }
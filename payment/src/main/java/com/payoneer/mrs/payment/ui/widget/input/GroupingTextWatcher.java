@@ -11,6 +11,8 @@ package com.payoneer.mrs.payment.ui.widget.input;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.payoneer.mrs.payment.validation.CardNumberState;
+
 import android.text.Editable;
 import android.widget.EditText;
 
@@ -23,8 +25,11 @@ public class GroupingTextWatcher extends EditTextWatcher {
     private static final String STRING_DIVIDER = " ";
 
     private final int groupSize;
-    private final int dividerModulo;
     private final Pattern inputPattern;
+    private final CardNumberState cardNumberState;
+
+    /** When the text is correctly grouped the index of a digit can be computed from its position in the text */
+    private boolean grouped;
 
     /**
      * Construct a new GroupingTextWatcher for the given editText
@@ -33,15 +38,45 @@ public class GroupingTextWatcher extends EditTextWatcher {
      * @param editText for which this class is manipulating the input
      */
     public GroupingTextWatcher(int groupSize, EditText editText) {
+        this(groupSize, editText, null);
+    }
+
+    /**
+     * Construct a new GroupingTextWatcher for the given editText feeding the grouped input to the CardNumberState
+     *
+     * @param groupSize the size of grouped characters
+     * @param editText for which this class is manipulating the input
+     * @param cardNumberState updated with the digits changed by each change of the input, may be null
+     */
+    public GroupingTextWatcher(int groupSize, EditText editText, CardNumberState cardNumberState) {
         super(editText);
 
         if (groupSize <= 0) {
             throw new IllegalArgumentException("groupSize must be equal or greater than 1");
         }
         this.groupSize = groupSize;
-        this.dividerModulo = groupSize + 1;
-        String inputRegex = "(\\w{" + groupSize + "}" + DIVIDER + ")*\\w{1," + groupSize + "}";
-        this.inputPattern = Pattern.compile(inputRegex);
+        this.inputPattern = createInputPattern(groupSize);
+        this.cardNumberState = cardNumberState;
+        this.grouped = editText.length() == 0 || isInputCorrect(editText.getText().toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onTextChanged(final CharSequence s, final int start, final int before, final int count) {
+        // changes made while correcting the grouping are applied to the CardNumberState in validate
+        if (cardNumberState == null || internalLock) {
+            return;
+        }
+        int digitStart = toDigitIndex(start);
+        int digitEnd = toDigitIndex(start + before);
+
+        if (grouped && digitEnd <= cardNumberState.length()) {
+            cardNumberState.replace(digitStart, digitEnd - digitStart, s, start, start + count);
+        } else {
+            cardNumberState.update(s);
+        }
     }
 
     /**
@@ -58,18 +93,48 @@ public class GroupingTextWatcher extends EditTextWatcher {
             if (deleteLength > 0 && s.length() > 0 && (previousText.charAt(start) == DIVIDER || start == s.length())) {
                 newString = previousText.substring(0, start - 1);
                 --cursor;
+                removeDigit(start - 1);
             }
 
             if (insertLength > 0) {
                 newString += afterText.substring(start, start + insertLength);
-                newString = buildCorrectInput(newString);
+                newString = buildCorrectInput(newString, groupSize);
                 cursor = newString.length();
             }
             newString += previousText.substring(start + deleteLength);
-            s.replace(0, s.length(), buildCorrectInput(newString));
+            s.replace(0, s.length(), buildCorrectInput(newString, groupSize));
 
             setCursor(cursor);
+            if (cardNumberState != null && !grouped) {
+                cardNumberState.update(s);
+            }
         }
+        if (!previousText.equals(afterText)) {
+            // the text is either correctly grouped or has been corrected above
+            grouped = true;
+        }
+    }
+
+    /**
+     * Remove the digit at the position of the previous text from the CardNumberState, used when correcting the grouping
+     * removes the digit in front of a deleted divider.
+     *
+     * @param position of the removed character in the previous text
+     */
+    private void removeDigit(final int position) {
+        if (cardNumberState != null && grouped && Character.isDigit(previousText.charAt(position))) {
+            cardNumberState.replace(toDigitIndex(position), 1, null);
+        }
+    }
+
+    /**
+     * Get the index of the digit at the position in the correctly grouped text, i.e. the number of digits in front of it
+     *
+     * @param position in the text
+     * @return the index of the digit
+     */
+    private int toDigitIndex(final int position) {
+        return position - position / (groupSize + 1);
     }
 
     /**
@@ -85,20 +150,32 @@ public class GroupingTextWatcher extends EditTextWatcher {
         return matcherDot.matches();
     }
 
+    /**
+     * Create the Pattern matching input with the white spaces in the correct positions
+     *
+     * @param groupSize the size of grouped characters
+     * @return the Pattern for correctly grouped input
+     */
+    static Pattern createInputPattern(final int groupSize) {
+        String inputRegex = "(\\w{" + groupSize + "}" + DIVIDER + ")*\\w{1," + groupSize + "}";
+        return Pattern.compile(inputRegex);
+    }
+
     /**
      * Puts the white spaces in the correct positions,
      * see the example in {@link GroupingTextWatcher#isInputCorrect(String)}
      * to understand the correct positions.
      *
      * @param input String to be corrected.
+     * @param groupSize the size of grouped characters
      * @return String corrected.
      */
-    private String buildCorrectInput(final String input) {
+    static String buildCorrectInput(final String input, final int groupSize) {
         StringBuilder sbs = new StringBuilder(
             input.replaceAll(STRING_DIVIDER, ""));
 
         // Insert the divider in the correct positions
-        for (int i = groupSize; i < sbs.length(); i += dividerModulo) {
+        for (int i = groupSize; i < sbs.length(); i += groupSize + 1) {
             sbs.insert(i, DIVIDER);
         }
         return sbs.toString();
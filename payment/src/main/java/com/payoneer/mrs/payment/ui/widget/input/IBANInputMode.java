@@ -43,7 +43,8 @@ public final class IBANInputMode extends EditTextInputMode {
         editText.setFilters(new InputFilter[] {
             new InputFilter.LengthFilter(getMaxLengthForGrouping()),
             new InputFilter.AllCaps(),
-            new AlphaNumericInputFilter(true)
+            new AlphaNumericInputFilter(true),
+            new IbanInputFilter()
         });
         editText.setInputType(InputType.TYPE_TEXT_VARIATION_VISIBLE_PASSWORD);
         textWatcher = new GroupingTextWatcher(groupSize, editText);
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.widget.input;
+
+import com.payoneer.mrs.payment.validation.IbanStructure;
+
+import android.text.InputFilter;
+import android.text.Spanned;
+
+/**
+ * Class for filtering IBAN inputs, characters typed at the end of the IBAN that do not fit the IbanStructure of the country are dropped.
+ * Edits in the middle of the IBAN are not filtered, these are validated once the input is complete.
+ */
+public final class IbanInputFilter implements InputFilter {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CharSequence filter(CharSequence source, int start, int end, Spanned dest, int dstart, int dend) {
+        if (dstart != dend || dend != dest.length()) {
+            return null;
+        }
+        char c0 = 0;
+        char c1 = 0;
+        int position = 0;
+
+        for (int i = 0; i < dstart + end - start; i++) {
+            boolean inserted = i >= dstart;
+            char c = inserted ? source.charAt(start + i - dstart) : dest.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (!IbanStructure.isValidChar(c0, c1, position, c)) {
+                // the existing text is left as is, only the inserted characters after the first invalid one are dropped
+                return inserted ? source.subSequence(start, start + i - dstart) : null;
+            }
+            if (position == 0) {
+                c0 = c;
+            } else if (position == 1) {
+                c1 = c;
+            }
+            position++;
+        }
+        return null;
+    }
+}
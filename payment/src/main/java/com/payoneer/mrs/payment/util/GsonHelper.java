@@ -13,18 +13,23 @@ import java.lang.reflect.Type;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
+import com.payoneer.mrs.payment.model.ModelTypeAdapterFactory;
 
 import android.text.TextUtils;
 
 /**
- * Class with helper methods for Gson
+ * Class with helper methods for Gson.
+ * The Gson instance is shared by the whole SDK and created when first used, the model classes are read and written
+ * by the generated TypeAdapters of the ModelTypeAdapterFactory instead of Gson's reflective adapter.
  */
 public final class GsonHelper {
 
     private final Gson gson;
 
     private GsonHelper() {
-        this.gson = new GsonBuilder().create();
+        this.gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
     }
 
     /**
@@ -36,6 +41,15 @@ public final class GsonHelper {
         return InstanceHolder.INSTANCE;
     }
 
+    /**
+     * Get the Gson instance shared by the whole SDK
+     *
+     * @return the shared Gson instance
+     */
+    public Gson getGson() {
+        return gson;
+    }
+
     /**
      * This method serializes the specified object into its equivalent Json representation.
      *
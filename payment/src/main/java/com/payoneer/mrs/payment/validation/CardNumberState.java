@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.validation;
+
+import java.util.Arrays;
+
+/**
+ * Incremental state of a card number while it is being typed.
+ * The running Luhn sums are kept for both parities, i.e. doubling the digits at even or at odd positions from the start,
+ * so that the Luhn check and the length are known in O(1) after each change. Appending or removing digits at the end with
+ * append, deleteLast or replace costs O(1) per changed digit, changing digits in the middle also updates the digits following them.
+ * The update method compares the complete text with the state and costs O(n), it is meant for text that was set at once.
+ * Whitespace, i.e. the dividers inserted when grouping digits, is ignored.
+ */
+public final class CardNumberState {
+
+    private final static int INITIAL_CAPACITY = 24;
+    private final static int[] DOUBLED = { 0, 2, 4, 6, 8, 1, 3, 5, 7, 9 };
+
+    private byte[] digits;
+    private int[] hashes;
+    private int length;
+    private int sumEven;
+    private int sumOdd;
+    private int invalidChars;
+
+    /**
+     * Construct a new empty CardNumberState
+     */
+    public CardNumberState() {
+        this.digits = new byte[INITIAL_CAPACITY];
+        this.hashes = new int[INITIAL_CAPACITY + 1];
+    }
+
+    /**
+     * Get the number of digits of the card number
+     *
+     * @return the number of digits
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Get the hash of the digits, it is equal to the hashCode of a String holding only the digits of the card number
+     *
+     * @return the hash of the digits
+     */
+    public int digitHash() {
+        return hashes[length];
+    }
+
+    /**
+     * Check if this state tracks the card number, i.e. before using its Luhn check for a number that was read from the input field.
+     * The number is compared by length and hash so that it is not scanned again.
+     *
+     * @param number the card number containing only digits
+     * @return true when the number has the same length and hash as the digits of this state
+     */
+    public boolean tracks(String number) {
+        return number != null && number.length() == length && number.hashCode() == hashes[length];
+    }
+
+    /**
+     * Check if the card number passes the Luhn check, the result is equal to CardNumberValidator.isValidLuhn()
+     *
+     * @return true when the card number is not empty, only contains digits and passes the Luhn check
+     */
+    public boolean isValidLuhn() {
+        if (length == 0 || invalidChars > 0) {
+            return false;
+        }
+        // the rightmost digit is never doubled, i.e. digits at even positions are doubled when the length is even
+        int sum = (length & 0x1) == 0 ? sumEven : sumOdd;
+        return sum % 10 == 0;
+    }
+
+    /**
+     * Check if the card number is complete for a network accepting card numbers within the given length range
+     *
+     * @param minLength the minimum length of card numbers of the network
+     * @param maxLength the maximum length of card numbers of the network
+     * @return true when the length is within the range and the card number passes the Luhn check, known in O(1)
+     */
+    public boolean isComplete(int minLength, int maxLength) {
+        return length >= minLength && length <= maxLength && isValidLuhn();
+    }
+
+    /**
+     * Append a digit to the end of the card number
+     *
+     * @param digit the character of the digit to append
+     */
+    public void append(char digit) {
+        ensureCapacity(length + 1);
+        setDigit(length, toDigit(digit));
+        length++;
+        updateHashes(length - 1, length);
+    }
+
+    /**
+     * Remove the last digit of the card number, nothing happens when the card number is empty
+     */
+    public void deleteLast() {
+        if (length > 0) {
+            length--;
+            removeContribution(length);
+        }
+    }
+
+    /**
+     * Replace the digits within the range by the inserted digits
+     *
+     * @param start the index of the first digit to replace
+     * @param deleteCount the number of digits to remove
+     * @param inserted the digits to insert, characters other than digits are ignored
+     */
+    public void replace(int start, int deleteCount, CharSequence inserted) {
+        replace(start, deleteCount, inserted, 0, inserted != null ? inserted.length() : 0);
+    }
+
+    /**
+     * Replace the digits within the range by the digits of the source between from and to, i.e. the characters
+     * inserted into the input field as reported to TextWatcher.onTextChanged. Only the inserted characters are read.
+     *
+     * @param start the index of the first digit to replace
+     * @param deleteCount the number of digits to remove
+     * @param source containing the digits to insert, characters other than digits are ignored
+     * @param from the index of the first character to insert
+     * @param to the index after the last character to insert
+     */
+    public void replace(int start, int deleteCount, CharSequence source, int from, int to) {
+        if (start < 0 || deleteCount < 0 || start + deleteCount > length) {
+            throw new IllegalArgumentException("Invalid range to replace: " + start + ", " + deleteCount);
+        }
+        int sourceLength = source != null ? source.length() : 0;
+        if (from < 0 || from > to || to > sourceLength) {
+            throw new IllegalArgumentException("Invalid range to insert: " + from + ", " + to);
+        }
+        replaceDigits(start, deleteCount, source, from, to);
+    }
+
+    /**
+     * Update this state to the text of the input field, only the digits that changed are removed or added.
+     * The text is compared with the digits of this state which costs O(n), use replace for the changes of each keystroke.
+     * Characters other than digits and whitespace make the card number invalid until they are removed.
+     *
+     * @param text the current text of the input field
+     */
+    public void update(CharSequence text) {
+        int textLength = text != null ? text.length() : 0;
+        int invalid = 0;
+
+        // find the digits in common at the start of the text
+        int prefix = 0;
+        int from = 0;
+        while (from < textLength) {
+            char c = text.charAt(from);
+            if (isDigit(c)) {
+                if (prefix == length || digits[prefix] != c - '0') {
+                    break;
+                }
+                prefix++;
+            } else if (!Character.isWhitespace(c)) {
+                invalid++;
+            }
+            from++;
+        }
+        // find the digits in common at the end of the text, not overlapping the common start
+        int suffix = 0;
+        int to = textLength;
+        while (to > from && prefix + suffix < length) {
+            char c = text.charAt(to - 1);
+            if (isDigit(c)) {
+                if (digits[length - suffix - 1] != c - '0') {
+                    break;
+                }
+                suffix++;
+            } else if (!Character.isWhitespace(c)) {
+                invalid++;
+            }
+            to--;
+        }
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c) && !Character.isWhitespace(c)) {
+                invalid++;
+            }
+        }
+        this.invalidChars = invalid;
+        replaceDigits(prefix, length - prefix - suffix, text, from, to);
+    }
+
+    /**
+     * Remove all digits from this state
+     */
+    public void clear() {
+        length = 0;
+        sumEven = 0;
+        sumOdd = 0;
+        invalidChars = 0;
+    }
+
+    private void replaceDigits(int start, int deleteCount, CharSequence source, int from, int to) {
+        int insertCount = 0;
+        for (int i = from; i < to; i++) {
+            if (isDigit(source.charAt(i))) {
+                insertCount++;
+            }
+        }
+        int tail = length - start - deleteCount;
+        boolean shifted = insertCount != deleteCount;
+
+        // the digits after the replaced range only change their position when the number of digits changed
+        int end = shifted ? length : start + deleteCount;
+        for (int i = start; i < end; i++) {
+            removeContribution(i);
+        }
+        int newLength = start + insertCount + tail;
+        ensureCapacity(newLength);
+        if (shifted) {
+            System.arraycopy(digits, start + deleteCount, digits, start + insertCount, tail);
+        }
+        int index = start;
+        for (int i = from; i < to; i++) {
+            char c = source.charAt(i);
+            if (isDigit(c)) {
+                digits[index++] = (byte) (c - '0');
+            }
+        }
+        end = shifted ? newLength : start + insertCount;
+        for (int i = start; i < end; i++) {
+            addContribution(i);
+        }
+        // the hash of each digit includes the digits before it, the hashes of all following digits change
+        updateHashes(start, newLength);
+        length = newLength;
+    }
+
+    private void setDigit(int index, int digit) {
+        digits[index] = (byte) digit;
+        addContribution(index);
+    }
+
+    private void addContribution(int index) {
+        int digit = digits[index];
+        if ((index & 0x1) == 0) {
+            sumEven += DOUBLED[digit];
+            sumOdd += digit;
+        } else {
+            sumEven += digit;
+            sumOdd += DOUBLED[digit];
+        }
+    }
+
+    private void removeContribution(int index) {
+        int digit = digits[index];
+        if ((index & 0x1) == 0) {
+            sumEven -= DOUBLED[digit];
+            sumOdd -= digit;
+        } else {
+            sumEven -= digit;
+            sumOdd -= DOUBLED[digit];
+        }
+    }
+
+    private void updateHashes(int start, int end) {
+        // same as String.hashCode() of the digit characters, hashes[i] is the hash of the first i digits
+        for (int i = start; i < end; i++) {
+            hashes[i + 1] = 31 * hashes[i] + ('0' + digits[i]);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > digits.length) {
+            digits = Arrays.copyOf(digits, Math.max(capacity, digits.length * 2));
+            hashes = Arrays.copyOf(hashes, digits.length + 1);
+        }
+    }
+
+    private static int toDigit(char c) {
+        if (!isDigit(c)) {
+            throw new IllegalArgumentException("Not a digit: " + c);
+        }
+        return c - '0';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
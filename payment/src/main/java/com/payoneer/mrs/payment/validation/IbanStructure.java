@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.validation;
+
+/**
+ * Class containing the structure of IBANs per country, i.e. the total length and the character class of each BBAN position.
+ * The structures are stored in a compact table indexed by country code so that lookups do not allocate.
+ * IBANs of countries not in the table are only checked for being alphanumeric and not exceeding the maximum length.
+ * Information based on the SWIFT IBAN registry.
+ */
+public final class IbanStructure {
+
+    /**
+     * The maximum length of an IBAN of any country
+     */
+    public final static int MAX_LENGTH = 34;
+
+    private final static int BBAN_START = 4;
+    private final static byte NUMERIC = 1;
+    private final static byte ALPHA = 2;
+    private final static byte ALPHANUMERIC = 3;
+
+    private final static byte[][] STRUCTURES = new byte[26 * 26][];
+
+    static {
+        put("AD", "4n4n12c");
+        put("AE", "3n16n");
+        put("AL", "8n16c");
+        put("AT", "5n11n");
+        put("AZ", "4a20c");
+        put("BA", "3n3n8n2n");
+        put("BE", "3n7n2n");
+        put("BG", "4a4n2n8c");
+        put("BH", "4a14c");
+        put("BR", "8n5n10n1a1c");
+        put("BY", "4c4n16c");
+        put("CH", "5n12c");
+        put("CR", "4n14n");
+        put("CY", "3n5n16c");
+        put("CZ", "4n6n10n");
+        put("DE", "8n10n");
+        put("DK", "4n9n1n");
+        put("DO", "4c20n");
+        put("EE", "2n2n11n1n");
+        put("EG", "4n4n17n");
+        put("ES", "4n4n1n1n10n");
+        put("FI", "3n11n");
+        put("FO", "4n9n1n");
+        put("FR", "5n5n11c2n");
+        put("GB", "4a6n8n");
+        put("GE", "2a16n");
+        put("GI", "4a15c");
+        put("GL", "4n9n1n");
+        put("GR", "3n4n16c");
+        put("GT", "4c20c");
+        put("HR", "7n10n");
+        put("HU", "3n4n1n15n1n");
+        put("IE", "4a6n8n");
+        put("IL", "3n3n13n");
+        put("IQ", "4a3n12n");
+        put("IS", "4n2n6n10n");
+        put("IT", "1a5n5n12c");
+        put("JO", "4a4n18c");
+        put("KW", "4a22c");
+        put("KZ", "3n13c");
+        put("LB", "4n20c");
+        put("LC", "4a24c");
+        put("LI", "5n12c");
+        put("LT", "5n11n");
+        put("LU", "3n13c");
+        put("LV", "4a13c");
+        put("LY", "3n3n15n");
+        put("MC", "5n5n11c2n");
+        put("MD", "2c18c");
+        put("ME", "3n13n2n");
+        put("MK", "3n10c2n");
+        put("MR", "5n5n11n2n");
+        put("MT", "4a5n18c");
+        put("MU", "4a2n2n12n3n3a");
+        put("NL", "4a10n");
+        put("NO", "4n6n1n");
+        put("PK", "4a16c");
+        put("PL", "8n16n");
+        put("PS", "4a21c");
+        put("PT", "4n4n11n2n");
+        put("QA", "4a21c");
+        put("RO", "4a16c");
+        put("RS", "3n13n2n");
+        put("SA", "2n18c");
+        put("SC", "4a2n2n16n3a");
+        put("SD", "2n12n");
+        put("SE", "3n16n1n");
+        put("SI", "5n8n2n");
+        put("SK", "4n6n10n");
+        put("SM", "1a5n5n12c");
+        put("ST", "4n4n11n2n");
+        put("SV", "4a20n");
+        put("TL", "3n14n2n");
+        put("TN", "2n3n13n2n");
+        put("TR", "5n1n16c");
+        put("UA", "6n19c");
+        put("VA", "3n15n");
+        put("VG", "4a16n");
+        put("XK", "4n10n2n");
+    }
+
+    private IbanStructure() {
+    }
+
+    /**
+     * Get the total length of IBANs of the country
+     *
+     * @param c0 the first character of the country code
+     * @param c1 the second character of the country code
+     * @return the total length of IBANs of the country or 0 if the country is unknown
+     */
+    public static int getLength(char c0, char c1) {
+        byte[] structure = getStructure(c0, c1);
+        return structure != null ? BBAN_START + structure.length : 0;
+    }
+
+    /**
+     * Check if the character is allowed at the position of an IBAN starting with the country code.
+     * Letters are accepted in both upper and lower case.
+     *
+     * @param c0 the first character of the country code, ignored for positions 0 and 1
+     * @param c1 the second character of the country code, ignored for positions 0 and 1
+     * @param position of the character in the IBAN without whitespace
+     * @param c the character to check
+     * @return true when the character is allowed at the position, false otherwise
+     */
+    public static boolean isValidChar(char c0, char c1, int position, char c) {
+        if (position < 2) {
+            return isLetter(c);
+        }
+        if (position < BBAN_START) {
+            return isDigit(c);
+        }
+        byte[] structure = getStructure(c0, c1);
+        if (structure == null) {
+            return position < MAX_LENGTH && (isLetter(c) || isDigit(c));
+        }
+        int index = position - BBAN_START;
+        if (index >= structure.length) {
+            return false;
+        }
+        switch (structure[index]) {
+            case NUMERIC:
+                return isDigit(c);
+            case ALPHA:
+                return isLetter(c);
+            default:
+                return isLetter(c) || isDigit(c);
+        }
+    }
+
+    /**
+     * Check if the text, while it is being typed, can still be completed into an IBAN with a valid structure.
+     * Whitespace, i.e. the dividers inserted when grouping characters, is ignored.
+     *
+     * @param text the text typed so far
+     * @return true when the text is a valid start of an IBAN, false otherwise
+     */
+    public static boolean isValidPrefix(CharSequence text) {
+        if (text == null) {
+            return true;
+        }
+        char c0 = 0;
+        char c1 = 0;
+        int position = 0;
+
+        for (int i = 0, len = text.length(); i < len; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (!isValidChar(c0, c1, position, c)) {
+                return false;
+            }
+            if (position == 0) {
+                c0 = c;
+            } else if (position == 1) {
+                c1 = c;
+            }
+            position++;
+        }
+        return true;
+    }
+
+    /**
+     * Get the numeric value of an IBAN character as used by the ISO 7064 Mod 97,10 check,
+     * only Latin digits and letters have a value.
+     *
+     * @param c the character
+     * @return the value between 0 and 35 or -1 if the character has no value
+     */
+    static int getValue(char c) {
+        if (isDigit(c)) {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static byte[] getStructure(char c0, char c1) {
+        int index = countryIndex(c0, c1);
+        return index >= 0 ? STRUCTURES[index] : null;
+    }
+
+    private static int countryIndex(char c0, char c1) {
+        int i0 = getValue(c0) - 10;
+        int i1 = getValue(c1) - 10;
+        if (i0 < 0 || i1 < 0) {
+            return -1;
+        }
+        return i0 * 26 + i1;
+    }
+
+    private static void put(String country, String bban) {
+        byte[] buffer = new byte[MAX_LENGTH - BBAN_START];
+        int length = 0;
+        int count = 0;
+
+        for (int i = 0; i < bban.length(); i++) {
+            char c = bban.charAt(i);
+            if (isDigit(c)) {
+                count = count * 10 + (c - '0');
+                continue;
+            }
+            byte type = c == 'n' ? NUMERIC : c == 'a' ? ALPHA : ALPHANUMERIC;
+            for (int j = 0; j < count; j++) {
+                buffer[length++] = type;
+            }
+            count = 0;
+        }
+        byte[] structure = new byte[length];
+        System.arraycopy(buffer, 0, structure, 0, length);
+        STRUCTURES[countryIndex(country.charAt(0), country.charAt(1))] = structure;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
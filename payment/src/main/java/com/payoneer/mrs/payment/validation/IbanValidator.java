@@ -8,78 +8,74 @@
 
 package com.payoneer.mrs.payment.validation;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import com.payoneer.mrs.payment.util.PaymentUtils;
 
 /**
  * Class with helper methods to validate Iban numbers
  */
 final class IbanValidator {
-    private static final Map<String, Integer> IBAN_ACCOUNT_POSITIONS = new HashMap<>();
+    private static final byte[] IBAN_ACCOUNT_POSITIONS = new byte[26 * 26];
 
-    private static final long MAX = 999999999;
-    private static final long MODULUS = 97;
+    private static final int MODULUS = 97;
 
     static {
         // Initializes account positions for IBAN numbers from different countries
         // Information based on: http://en.wikipedia.org/wiki/IBAN
-        IBAN_ACCOUNT_POSITIONS.put("AD", 12);
-        IBAN_ACCOUNT_POSITIONS.put("AE", 7);
-        IBAN_ACCOUNT_POSITIONS.put("AL", 12);
-        IBAN_ACCOUNT_POSITIONS.put("AT", 9);
-        IBAN_ACCOUNT_POSITIONS.put("BA", 10);
-        IBAN_ACCOUNT_POSITIONS.put("BE", 7);
-        IBAN_ACCOUNT_POSITIONS.put("BG", 12);
-        IBAN_ACCOUNT_POSITIONS.put("CH", 9);
-        IBAN_ACCOUNT_POSITIONS.put("CY", 12);
-        IBAN_ACCOUNT_POSITIONS.put("CZ", 14);
-        IBAN_ACCOUNT_POSITIONS.put("DE", 12);
-        IBAN_ACCOUNT_POSITIONS.put("DK", 8);
-        IBAN_ACCOUNT_POSITIONS.put("DO", 8);
-        IBAN_ACCOUNT_POSITIONS.put("EE", 8);
-        IBAN_ACCOUNT_POSITIONS.put("ES", 14);
-        IBAN_ACCOUNT_POSITIONS.put("FI", 10);
-        IBAN_ACCOUNT_POSITIONS.put("FO", 8);
-        IBAN_ACCOUNT_POSITIONS.put("FR", 14);
-        IBAN_ACCOUNT_POSITIONS.put("GB", 14);
-        IBAN_ACCOUNT_POSITIONS.put("GE", 6);
-        IBAN_ACCOUNT_POSITIONS.put("GI", 8);
-        IBAN_ACCOUNT_POSITIONS.put("GL", 8);
-        IBAN_ACCOUNT_POSITIONS.put("GR", 11);
-        IBAN_ACCOUNT_POSITIONS.put("HR", 11);
-        IBAN_ACCOUNT_POSITIONS.put("HU", 12);
-        IBAN_ACCOUNT_POSITIONS.put("IE", 14);
-        IBAN_ACCOUNT_POSITIONS.put("IL", 10);
-        IBAN_ACCOUNT_POSITIONS.put("IS", 10);
-        IBAN_ACCOUNT_POSITIONS.put("IT", 15);
-        IBAN_ACCOUNT_POSITIONS.put("KW", 8);
-        IBAN_ACCOUNT_POSITIONS.put("KZ", 7);
-        IBAN_ACCOUNT_POSITIONS.put("LB", 8);
-        IBAN_ACCOUNT_POSITIONS.put("LI", 9);
-        IBAN_ACCOUNT_POSITIONS.put("LT", 9);
-        IBAN_ACCOUNT_POSITIONS.put("LU", 7);
-        IBAN_ACCOUNT_POSITIONS.put("LV", 8);
-        IBAN_ACCOUNT_POSITIONS.put("MC", 1);
-        IBAN_ACCOUNT_POSITIONS.put("ME", 7);
-        IBAN_ACCOUNT_POSITIONS.put("MK", 7);
-        IBAN_ACCOUNT_POSITIONS.put("MR", 17);
-        IBAN_ACCOUNT_POSITIONS.put("MT", 16);
-        IBAN_ACCOUNT_POSITIONS.put("MU", 12);
-        IBAN_ACCOUNT_POSITIONS.put("NL", 8);
-        IBAN_ACCOUNT_POSITIONS.put("NO", 8);
-        IBAN_ACCOUNT_POSITIONS.put("PL", 12);
-        IBAN_ACCOUNT_POSITIONS.put("PT", 12);
-        IBAN_ACCOUNT_POSITIONS.put("RO", 8);
-        IBAN_ACCOUNT_POSITIONS.put("RS", 7);
-        IBAN_ACCOUNT_POSITIONS.put("SA", 6);
-        IBAN_ACCOUNT_POSITIONS.put("SE", 8);
-        IBAN_ACCOUNT_POSITIONS.put("SI", 9);
-        IBAN_ACCOUNT_POSITIONS.put("SK", 14);
-        IBAN_ACCOUNT_POSITIONS.put("SM", 15);
-        IBAN_ACCOUNT_POSITIONS.put("TN", 9);
-        IBAN_ACCOUNT_POSITIONS.put("TR", 10);
+        putAccountPosition("AD", 12);
+        putAccountPosition("AE", 7);
+        putAccountPosition("AL", 12);
+        putAccountPosition("AT", 9);
+        putAccountPosition("BA", 10);
+        putAccountPosition("BE", 7);
+        putAccountPosition("BG", 12);
+        putAccountPosition("CH", 9);
+        putAccountPosition("CY", 12);
+        putAccountPosition("CZ", 14);
+        putAccountPosition("DE", 12);
+        putAccountPosition("DK", 8);
+        putAccountPosition("DO", 8);
+        putAccountPosition("EE", 8);
+        putAccountPosition("ES", 14);
+        putAccountPosition("FI", 10);
+        putAccountPosition("FO", 8);
+        putAccountPosition("FR", 14);
+        putAccountPosition("GB", 14);
+        putAccountPosition("GE", 6);
+        putAccountPosition("GI", 8);
+        putAccountPosition("GL", 8);
+        putAccountPosition("GR", 11);
+        putAccountPosition("HR", 11);
+        putAccountPosition("HU", 12);
+        putAccountPosition("IE", 14);
+        putAccountPosition("IL", 10);
+        putAccountPosition("IS", 10);
+        putAccountPosition("IT", 15);
+        putAccountPosition("KW", 8);
+        putAccountPosition("KZ", 7);
+        putAccountPosition("LB", 8);
+        putAccountPosition("LI", 9);
+        putAccountPosition("LT", 9);
+        putAccountPosition("LU", 7);
+        putAccountPosition("LV", 8);
+        putAccountPosition("MC", 1);
+        putAccountPosition("ME", 7);
+        putAccountPosition("MK", 7);
+        putAccountPosition("MR", 17);
+        putAccountPosition("MT", 16);
+        putAccountPosition("MU", 12);
+        putAccountPosition("NL", 8);
+        putAccountPosition("NO", 8);
+        putAccountPosition("PL", 12);
+        putAccountPosition("PT", 12);
+        putAccountPosition("RO", 8);
+        putAccountPosition("RS", 7);
+        putAccountPosition("SA", 6);
+        putAccountPosition("SE", 8);
+        putAccountPosition("SI", 9);
+        putAccountPosition("SK", 14);
+        putAccountPosition("SM", 15);
+        putAccountPosition("TN", 9);
+        putAccountPosition("TR", 10);
     }
 
     /**
@@ -98,8 +94,9 @@ final class IbanValidator {
         }
 
         final String countryCode = iban.substring(0, 2).toUpperCase();
-        if (IBAN_ACCOUNT_POSITIONS.containsKey(countryCode)) {
-            return IBAN_ACCOUNT_POSITIONS.get(countryCode);
+        final int index = countryIndex(countryCode);
+        if (index >= 0 && IBAN_ACCOUNT_POSITIONS[index] > 0) {
+            return (int) IBAN_ACCOUNT_POSITIONS[index];
         } else {
             throw new IllegalArgumentException("Unknown IBAN country code: " + countryCode);
         }
@@ -107,30 +104,49 @@ final class IbanValidator {
 
     /**
      * This routine is based on the ISO 7064 Mod 97,10 check digit calculation
-     * routine.
+     * routine. The IBAN is walked once without creating a rearranged copy, the
+     * total length and the character class of each BBAN position are checked
+     * against the IbanStructure of the country.
      * <p/>
      * For further information see
      * <a href="http://en.wikipedia.org/wiki/International_Bank_Account_Number">
      * Wikipedia - IBAN number</a>.
      */
     public static boolean isValidIban(final String code) {
-        if ((code == null) || (code.length() < 5)) {
+        if ((code == null) || (code.length() < 5) || (code.length() > IbanStructure.MAX_LENGTH)) {
             return false;
         }
-        final String reformattedCode = code.substring(4) + code.substring(0, 4);
-
-        long total = 0;
-        for (int i = 0; i < reformattedCode.length(); i++) {
-            final int charValue = Character.getNumericValue(reformattedCode.charAt(i));
-            if (charValue < 0 || charValue > 35) {
+        final int length = code.length();
+        final char c0 = code.charAt(0);
+        final char c1 = code.charAt(1);
+        final int expectedLength = IbanStructure.getLength(c0, c1);
+        if (expectedLength != 0 && expectedLength != length) {
+            return false;
+        }
+        int total = 0;
+        for (int i = 0; i < length; i++) {
+            // the first four characters are moved to the end of the IBAN
+            final int position = i < length - 4 ? i + 4 : i - (length - 4);
+            final char c = code.charAt(position);
+            if (!IbanStructure.isValidChar(c0, c1, position, c)) {
                 return false;
             }
-            total = (charValue > 9 ? total * 100 : total * 10) + charValue;
-            if (total > MAX) {
-                total = (total % MODULUS);
-            }
+            final int charValue = IbanStructure.getValue(c);
+            total = ((charValue > 9 ? total * 100 : total * 10) + charValue) % MODULUS;
         }
+        return total == 1;
+    }
+
+    private static void putAccountPosition(String countryCode, int position) {
+        IBAN_ACCOUNT_POSITIONS[countryIndex(countryCode)] = (byte) position;
+    }
 
-        return ((int) (total % MODULUS) == 1);
+    private static int countryIndex(String countryCode) {
+        final char c0 = countryCode.charAt(0);
+        final char c1 = countryCode.charAt(1);
+        if (c0 < 'A' || c0 > 'Z' || c1 < 'A' || c1 > 'Z') {
+            return -1;
+        }
+        return (c0 - 'A') * 26 + (c1 - 'A');
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.validation;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled Pattern holding one Matcher per thread, the Matcher is reset for every match instead of creating a new one.
+ * The Matcher does not keep a reference to the matched value after matching, i.e. to a card number.
+ */
+final class PatternMatcher {
+
+    private final Pattern pattern;
+    private final ThreadLocal<Matcher> matchers;
+
+    /**
+     * Construct a new PatternMatcher
+     *
+     * @param pattern the precompiled Pattern
+     */
+    PatternMatcher(final Pattern pattern) {
+        this.pattern = pattern;
+        this.matchers = new ThreadLocal<Matcher>() {
+            @Override
+            protected Matcher initialValue() {
+                return pattern.matcher("");
+            }
+        };
+    }
+
+    /**
+     * Get the precompiled Pattern of this PatternMatcher
+     *
+     * @return the Pattern
+     */
+    Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Check if the entire value matches the Pattern
+     *
+     * @param value to be matched
+     * @return true when the value matches, false otherwise
+     */
+    boolean matches(CharSequence value) {
+        Matcher matcher = matchers.get();
+        boolean matches = matcher.reset(value).matches();
+        matcher.reset("");
+        return matches;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.validation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.payoneer.mrs.payment.resource.ValidationGroup;
+import com.payoneer.mrs.payment.resource.ValidationGroupItem;
+
+/**
+ * Immutable validation plan built once from the validations, it holds a ValidationRule with a precompiled Pattern
+ * for each network code and input type so that validating a value does not compile or search for a regex.
+ * The Matchers of the Patterns are reused per thread, see PatternMatcher.
+ */
+final class ValidationPlan {
+
+    private final Map<String, Map<String, ValidationRule>> rules;
+
+    /**
+     * Construct a new ValidationPlan from the validations
+     *
+     * @param validations the validation groups mapped by network code
+     */
+    ValidationPlan(Map<String, ValidationGroup> validations) {
+        Map<String, Map<String, ValidationRule>> map = new HashMap<>();
+        for (Map.Entry<String, ValidationGroup> entry : validations.entrySet()) {
+            Map<String, ValidationRule> groupRules = createRules(entry.getValue());
+            if (!groupRules.isEmpty()) {
+                map.put(entry.getKey(), groupRules);
+            }
+        }
+        this.rules = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Compile the regex, all Patterns used for validation are compiled through this method
+     *
+     * @param regex the regular expression to compile
+     * @return the compiled Pattern
+     */
+    static Pattern compile(String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid validation regex: " + regex, e);
+        }
+    }
+
+    /**
+     * Get the ValidationRule for the network code and input type
+     *
+     * @param code the network code like VISA
+     * @param type the input type like "number"
+     * @return the rule or null if no rule has been defined
+     */
+    ValidationRule getRule(String code, String type) {
+        if (code == null || type == null) {
+            return null;
+        }
+        Map<String, ValidationRule> groupRules = rules.get(code);
+        return groupRules != null ? groupRules.get(type) : null;
+    }
+
+    private static Map<String, ValidationRule> createRules(ValidationGroup group) {
+        List<ValidationGroupItem> items = group != null ? group.getValidationGroupItems() : null;
+        if (items == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, ValidationRule> map = new HashMap<>();
+        for (ValidationGroupItem item : items) {
+            String type = item.getType();
+            // the first item defined for a type is used, as when searching the items
+            if (type != null && !map.containsKey(type)) {
+                map.put(type, new ValidationRule(item));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * The precompiled validation settings of one input type of a network
+     */
+    static final class ValidationRule {
+        final String regex;
+        final Pattern pattern;
+        final PatternMatcher matcher;
+        final int maxLength;
+        final boolean hidden;
+
+        ValidationRule(ValidationGroupItem item) {
+            this.regex = item.getRegex();
+            this.pattern = regex != null ? compile(regex) : null;
+            this.matcher = pattern != null ? new PatternMatcher(pattern) : null;
+            this.maxLength = item.getMaxLength();
+            this.hidden = item.getHide();
+        }
+    }
+}
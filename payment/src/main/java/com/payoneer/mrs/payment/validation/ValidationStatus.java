@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.validation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable status of a validation, the error codes are the ones defined in ValidationResult.
+ * Statuses obtained through valueOf() are shared and may be returned for every validation without allocating an object,
+ * statuses holding a localized message are created with withMessage() and may be cached by the caller.
+ */
+public final class ValidationStatus {
+
+    private final static ValidationStatus VALID = new ValidationStatus(null, null);
+    private final static Map<String, ValidationStatus> SHARED = createSharedStatuses(
+        ValidationResult.INVALID_ACCOUNT_NUMBER, ValidationResult.MISSING_ACCOUNT_NUMBER,
+        ValidationResult.INVALID_HOLDER_NAME, ValidationResult.MISSING_HOLDER_NAME,
+        ValidationResult.INVALID_EXPIRY_DATE, ValidationResult.MISSING_EXPIRY_DATE,
+        ValidationResult.INVALID_EXPIRY_MONTH, ValidationResult.MISSING_EXPIRY_MONTH,
+        ValidationResult.INVALID_EXPIRY_YEAR, ValidationResult.MISSING_EXPIRY_YEAR,
+        ValidationResult.INVALID_VERIFICATION_CODE, ValidationResult.MISSING_VERIFICATION_CODE,
+        ValidationResult.INVALID_BANK_CODE, ValidationResult.MISSING_BANK_CODE,
+        ValidationResult.INVALID_IBAN, ValidationResult.MISSING_IBAN,
+        ValidationResult.INVALID_BIC, ValidationResult.MISSING_BIC);
+
+    private final String error;
+    private final String message;
+
+    private ValidationStatus(String error, String message) {
+        this.error = error;
+        this.message = message;
+    }
+
+    /**
+     * Get the shared ValidationStatus for the error, no object is allocated for the error codes defined in ValidationResult
+     *
+     * @param error the error code or null when the validation succeeded
+     * @return the shared ValidationStatus
+     */
+    public static ValidationStatus valueOf(String error) {
+        if (error == null) {
+            return VALID;
+        }
+        ValidationStatus status = SHARED.get(error);
+        return status != null ? status : new ValidationStatus(error, null);
+    }
+
+    /**
+     * Create a copy of this ValidationStatus holding the message, i.e. to be cached per network and error
+     *
+     * @param message the localized message describing the error
+     * @return the newly created ValidationStatus
+     */
+    public ValidationStatus withMessage(String message) {
+        return new ValidationStatus(error, message);
+    }
+
+    /**
+     * Create a new ValidationResult from this status that may be modified by the caller
+     *
+     * @return the newly created ValidationResult
+     */
+    public ValidationResult toValidationResult() {
+        ValidationResult result = new ValidationResult(error);
+        result.setMessage(message);
+        return result;
+    }
+
+    public boolean isError() {
+        return this.error != null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    private static Map<String, ValidationStatus> createSharedStatuses(String... errors) {
+        Map<String, ValidationStatus> map = new HashMap<>();
+        for (String error : errors) {
+            map.put(error, new ValidationStatus(error, null));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+}
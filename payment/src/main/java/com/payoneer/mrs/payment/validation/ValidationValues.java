@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.validation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class holding the input values of all widgets of a payment card, used to validate the whole card at once.
+ * Each value is stored under its PaymentInputType, a type may hold a second value, i.e. the year of an expiry date.
+ * A card number may be accompanied by its CardNumberState so that the Luhn check does not scan the number again.
+ */
+public final class ValidationValues {
+
+    private final Map<String, String[]> values = new LinkedHashMap<>();
+    private final Map<String, CardNumberState> cardNumberStates = new HashMap<>();
+
+    /**
+     * Put the value of the input type
+     *
+     * @param type the PaymentInputType like "number"
+     * @param value the value of the input type
+     */
+    public void put(String type, String value) {
+        put(type, value, null);
+    }
+
+    /**
+     * Put the values of the input type, the first value is mandatory and the second is optional
+     *
+     * @param type the PaymentInputType like "expiryDate"
+     * @param value1 the mandatory first value of the input type
+     * @param value2 the optional second value of the input type
+     */
+    public void put(String type, String value1, String value2) {
+        if (type == null) {
+            throw new IllegalArgumentException("type may not be null");
+        }
+        values.put(type, new String[] { value1, value2 });
+    }
+
+    /**
+     * Put the CardNumberState tracking the value of the input type as it was typed
+     *
+     * @param type the PaymentInputType like "number"
+     * @param state the CardNumberState of the value
+     */
+    public void putCardNumberState(String type, CardNumberState state) {
+        if (type == null) {
+            throw new IllegalArgumentException("type may not be null");
+        }
+        cardNumberStates.put(type, state);
+    }
+
+    /**
+     * Get the CardNumberState of the input type
+     *
+     * @param type the PaymentInputType
+     * @return the CardNumberState or null if not available
+     */
+    public CardNumberState getCardNumberState(String type) {
+        return cardNumberStates.get(type);
+    }
+
+    /**
+     * Check if a value has been put for the input type
+     *
+     * @param type the PaymentInputType
+     * @return true when this ValidationValues contains the input type
+     */
+    public boolean contains(String type) {
+        return values.containsKey(type);
+    }
+
+    /**
+     * Get the first value of the input type
+     *
+     * @param type the PaymentInputType
+     * @return the first value or null if not available
+     */
+    public String getValue1(String type) {
+        String[] entry = values.get(type);
+        return entry != null ? entry[0] : null;
+    }
+
+    /**
+     * Get the second value of the input type
+     *
+     * @param type the PaymentInputType
+     * @return the second value or null if not available
+     */
+    public String getValue2(String type) {
+        String[] entry = values.get(type);
+        return entry != null ? entry[1] : null;
+    }
+
+    /**
+     * Get the input types in the order in which they were put
+     *
+     * @return the unmodifiable set of input types
+     */
+    public Set<String> getTypes() {
+        return Collections.unmodifiableSet(values.keySet());
+    }
+}
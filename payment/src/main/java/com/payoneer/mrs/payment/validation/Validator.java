@@ -9,6 +9,7 @@
 package com.payoneer.mrs.payment.validation;
 
 import java.util.Calendar;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.payoneer.mrs.payment.core.PaymentInputType;
@@ -19,7 +20,9 @@ import android.text.TextUtils;
 import android.util.Log;
 
 /**
- * Class for validating input type values
+ * Class for validating input type values.
+ * The validations are turned into a ValidationPlan with precompiled Patterns when this Validator is created,
+ * validating a value only looks up the rule and matches the precompiled Pattern with a reused Matcher.
  */
 public class Validator {
 
@@ -38,8 +41,19 @@ public class Validator {
     public final static int MAXLENGTH_BIC = 11;
 
     public final static int MAX_EXPIRY_YEAR = 50;
+    public final static int MINLENGTH_CARD_NUMBER = 12;
 
-    private final Map<String, ValidationGroup> validations;
+    private final static PatternMatcher MATCHER_MONTH = new PatternMatcher(ValidationPlan.compile(REGEX_MONTH));
+    private final static PatternMatcher MATCHER_YEAR = new PatternMatcher(ValidationPlan.compile(REGEX_YEAR));
+    private final static PatternMatcher MATCHER_BIC = new PatternMatcher(ValidationPlan.compile(REGEX_BIC));
+    private final static PatternMatcher MATCHER_ACCOUNT_NUMBER = new PatternMatcher(ValidationPlan.compile(REGEX_ACCOUNT_NUMBER));
+    private final static PatternMatcher MATCHER_VERIFICATION_CODE = new PatternMatcher(ValidationPlan.compile(REGEX_VERIFICATION_CODE));
+    private final static PatternMatcher MATCHER_HOLDER_NAME = new PatternMatcher(ValidationPlan.compile(REGEX_HOLDER_NAME));
+    private final static PatternMatcher MATCHER_BANK_CODE = new PatternMatcher(ValidationPlan.compile(REGEX_BANK_CODE));
+
+    private static volatile CurrentMonth currentMonth;
+
+    private final ValidationPlan plan;
 
     /**
      * Construct a new Validator with the provided validations
@@ -50,7 +64,7 @@ public class Validator {
         if (validations == null) {
             throw new IllegalArgumentException("Validations may not be null");
         }
-        this.validations = validations;
+        this.plan = new ValidationPlan(validations);
     }
 
     /**
@@ -61,12 +75,8 @@ public class Validator {
      * @return ValidationGroupItem or null if not found
      */
     public String getValidationRegex(String code, String type) {
-
-        if (code == null || type == null) {
-            return null;
-        }
-        ValidationGroup group = validations.get(code);
-        return group != null ? group.getValidationRegex(type) : null;
+        ValidationPlan.ValidationRule rule = plan.getRule(code, type);
+        return rule != null ? rule.regex : null;
     }
 
     public int getMaxLength(String code, String type) {
@@ -74,12 +84,9 @@ public class Validator {
         if (code == null || type == null) {
             return MAXLENGTH_DEFAULT;
         }
-        int maxLength = 0;
+        ValidationPlan.ValidationRule rule = plan.getRule(code, type);
+        int maxLength = rule != null ? rule.maxLength : 0;
 
-        ValidationGroup group = validations.get(code);
-        if (group != null) {
-            maxLength = group.getMaxLength(type);
-        }
         if (maxLength > 0) {
             return maxLength;
         }
@@ -98,15 +105,8 @@ public class Validator {
     }
 
     public boolean isHidden(String code, String type) {
-
-        if (code == null || type == null) {
-            return false;
-        }
-        if (!validations.containsKey(code)) {
-            return false;
-        }
-        ValidationGroup group = validations.get(code);
-        return group != null && group.isHidden(type);
+        ValidationPlan.ValidationRule rule = plan.getRule(code, type);
+        return rule != null && rule.hidden;
     }
 
     /**
@@ -117,8 +117,85 @@ public class Validator {
      * @param type the PaymentInputType like "number"
      * @param value1 holding the mandatory first value for the given input type, may be empty
      * @param value2 holding the optional second value for the given input type
+     * @return newly created ValidationResult that may be modified by the caller
      */
     public ValidationResult validate(String method, String code, String type, String value1, String value2) {
+        return new ValidationResult(validateShared(method, code, type, value1, value2).getError());
+    }
+
+    /**
+     * Validate the given input values defined by its type without allocating objects, i.e. on every keystroke.
+     * The returned ValidationStatus is shared and immutable, see ValidationStatus.valueOf().
+     *
+     * @param method the Payment method like CREDIT_CARD
+     * @param code the payment code like VISA
+     * @param type the PaymentInputType like "number"
+     * @param value1 holding the mandatory first value for the given input type, may be empty
+     * @param value2 holding the optional second value for the given input type
+     * @return the shared ValidationStatus
+     */
+    public ValidationStatus validateShared(String method, String code, String type, String value1, String value2) {
+        return validateValue(method, code, type, value1, value2, null);
+    }
+
+    /**
+     * Validate the given input values defined by its type without allocating objects, i.e. on every keystroke.
+     * The Luhn check of a card number is taken from the CardNumberState when the state tracks the validated number.
+     *
+     * @param method the Payment method like CREDIT_CARD
+     * @param code the payment code like VISA
+     * @param type the PaymentInputType like "number"
+     * @param value1 holding the mandatory first value for the given input type, may be empty
+     * @param value2 holding the optional second value for the given input type
+     * @param state the CardNumberState in which the card number was typed, may be null
+     * @return the shared ValidationStatus
+     */
+    public ValidationStatus validateShared(String method, String code, String type, String value1, String value2,
+        CardNumberState state) {
+        return validateValue(method, code, type, value1, value2, state);
+    }
+
+    /**
+     * Check in O(1) if the card number typed in the CardNumberState is complete for the network, i.e. when it has at least
+     * the minimum length of card numbers, not more digits than allowed by the network and passes the Luhn check.
+     *
+     * @param code the payment code like VISA
+     * @param state the CardNumberState in which the card number is typed
+     * @return true when complete, false otherwise
+     */
+    public boolean isCompleteCardNumber(String code, CardNumberState state) {
+        if (state == null) {
+            return false;
+        }
+        return state.isComplete(MINLENGTH_CARD_NUMBER, getMaxLength(code, PaymentInputType.ACCOUNT_NUMBER));
+    }
+
+    /**
+     * Validate all input values of a payment card at once, i.e. when the pay button is clicked.
+     * Each value is validated as with validateShared, cross-field rules are applied afterwards:
+     * a valid expiry month and a valid expiry year must together form a valid expiry date.
+     * The Luhn check of a card number is taken from its CardNumberState when the values contain one.
+     *
+     * @param method the Payment method like CREDIT_CARD
+     * @param code the payment code like VISA
+     * @param values holding the input values of the payment card
+     * @return the shared ValidationStatuses mapped by input type, in the order in which the values were put
+     */
+    public Map<String, ValidationStatus> validateAll(String method, String code, ValidationValues values) {
+        if (values == null) {
+            throw new IllegalArgumentException("values may not be null");
+        }
+        Map<String, ValidationStatus> results = new LinkedHashMap<>();
+        for (String type : values.getTypes()) {
+            results.put(type, validateValue(method, code, type, values.getValue1(type), values.getValue2(type),
+                values.getCardNumberState(type)));
+        }
+        validateExpiryMonthAndYear(values, results);
+        return results;
+    }
+
+    private ValidationStatus validateValue(String method, String code, String type, String value1, String value2,
+        CardNumberState state) {
 
         if (TextUtils.isEmpty(method)) {
             throw new IllegalArgumentException("method may not be null or empty");
@@ -131,17 +208,17 @@ public class Validator {
         }
         value1 = value1 == null ? "" : value1;
         value2 = value2 == null ? "" : value2;
-        String regex = getValidationRegex(code, type);
+        PatternMatcher matcher = getMatcher(code, type);
 
         switch (type) {
             case PaymentInputType.ACCOUNT_NUMBER:
-                return validateAccountNumber(method, value1, regex);
+                return validateAccountNumber(method, value1, matcher, state);
             case PaymentInputType.VERIFICATION_CODE:
-                return validateVerificationCode(value1, regex);
+                return validateVerificationCode(value1, matcher);
             case PaymentInputType.HOLDER_NAME:
-                return validateHolderName(value1, regex);
+                return validateHolderName(value1, matcher);
             case PaymentInputType.BANK_CODE:
-                return validateBankCode(value1, regex);
+                return validateBankCode(value1, matcher);
             case PaymentInputType.EXPIRY_DATE:
                 return validateExpiryDate(value1, value2);
             case PaymentInputType.EXPIRY_MONTH:
@@ -153,67 +230,88 @@ public class Validator {
             case PaymentInputType.BIC:
                 return validateBic(value1);
             default:
-                return new ValidationResult(null);
+                return ValidationStatus.valueOf(null);
+        }
+    }
+
+    private void validateExpiryMonthAndYear(ValidationValues values, Map<String, ValidationStatus> results) {
+        ValidationStatus month = results.get(PaymentInputType.EXPIRY_MONTH);
+        ValidationStatus year = results.get(PaymentInputType.EXPIRY_YEAR);
+
+        if (month == null || year == null || month.isError() || year.isError()) {
+            return;
         }
+        if (!isValidExpiryDate(values.getValue1(PaymentInputType.EXPIRY_MONTH), values.getValue1(PaymentInputType.EXPIRY_YEAR))) {
+            ValidationStatus error = ValidationStatus.valueOf(ValidationResult.INVALID_EXPIRY_DATE);
+            results.put(PaymentInputType.EXPIRY_MONTH, error);
+            results.put(PaymentInputType.EXPIRY_YEAR, error);
+        }
+    }
+
+    private PatternMatcher getMatcher(String code, String type) {
+        ValidationPlan.ValidationRule rule = plan.getRule(code, type);
+        return rule != null ? rule.matcher : null;
     }
 
-    private ValidationResult validateAccountNumber(String method, String number, String regex) {
-        regex = regex != null ? regex : REGEX_ACCOUNT_NUMBER;
+    private ValidationStatus validateAccountNumber(String method, String number, PatternMatcher matcher, CardNumberState state) {
+        matcher = matcher != null ? matcher : MATCHER_ACCOUNT_NUMBER;
 
         switch (method) {
             case PaymentMethod.CREDIT_CARD:
             case PaymentMethod.DEBIT_CARD:
-                return validateCardNumber(number, regex);
+                return validateCardNumber(number, matcher, state);
             default:
-                if (!number.matches(regex)) {
+                if (!matcher.matches(number)) {
                     if (TextUtils.isEmpty(number)) {
-                        return new ValidationResult(ValidationResult.MISSING_ACCOUNT_NUMBER);
+                        return ValidationStatus.valueOf(ValidationResult.MISSING_ACCOUNT_NUMBER);
                     }
-                    return new ValidationResult(ValidationResult.INVALID_ACCOUNT_NUMBER);
+                    return ValidationStatus.valueOf(ValidationResult.INVALID_ACCOUNT_NUMBER);
                 }
         }
-        return new ValidationResult(null);
+        return ValidationStatus.valueOf(null);
     }
 
-    private ValidationResult validateCardNumber(String number, String regex) {
+    private ValidationStatus validateCardNumber(String number, PatternMatcher matcher, CardNumberState state) {
 
-        if (!number.matches(regex)) {
+        if (!matcher.matches(number)) {
             if (TextUtils.isEmpty(number)) {
-                return new ValidationResult(ValidationResult.MISSING_ACCOUNT_NUMBER);
+                return ValidationStatus.valueOf(ValidationResult.MISSING_ACCOUNT_NUMBER);
             }
-            return new ValidationResult(ValidationResult.INVALID_ACCOUNT_NUMBER);
+            return ValidationStatus.valueOf(ValidationResult.INVALID_ACCOUNT_NUMBER);
         }
-        if (!CardNumberValidator.isValidLuhn(number)) {
-            return new ValidationResult(ValidationResult.INVALID_ACCOUNT_NUMBER);
+        // the state is only used when it tracks the same digits as the validated number
+        boolean validLuhn = state != null && state.tracks(number) ? state.isValidLuhn() : CardNumberValidator.isValidLuhn(number);
+        if (!validLuhn) {
+            return ValidationStatus.valueOf(ValidationResult.INVALID_ACCOUNT_NUMBER);
         }
-        return new ValidationResult(null);
+        return ValidationStatus.valueOf(null);
     }
 
-    private ValidationResult validateVerificationCode(String verificationCode, String regex) {
-        regex = regex != null ? regex : REGEX_VERIFICATION_CODE;
+    private ValidationStatus validateVerificationCode(String verificationCode, PatternMatcher matcher) {
+        matcher = matcher != null ? matcher : MATCHER_VERIFICATION_CODE;
 
-        if (!verificationCode.matches(regex)) {
+        if (!matcher.matches(verificationCode)) {
             if (TextUtils.isEmpty(verificationCode)) {
-                return new ValidationResult(ValidationResult.MISSING_VERIFICATION_CODE);
+                return ValidationStatus.valueOf(ValidationResult.MISSING_VERIFICATION_CODE);
             }
-            return new ValidationResult(ValidationResult.INVALID_VERIFICATION_CODE);
+            return ValidationStatus.valueOf(ValidationResult.INVALID_VERIFICATION_CODE);
         }
-        return new ValidationResult(null);
+        return ValidationStatus.valueOf(null);
     }
 
-    private ValidationResult validateHolderName(String holderName, String regex) {
-        regex = regex != null ? regex : REGEX_HOLDER_NAME;
+    private ValidationStatus validateHolderName(String holderName, PatternMatcher matcher) {
+        matcher = matcher != null ? matcher : MATCHER_HOLDER_NAME;
 
-        if (!holderName.matches(regex)) {
+        if (!matcher.matches(holderName)) {
             if (TextUtils.isEmpty(holderName)) {
-                return new ValidationResult(ValidationResult.MISSING_HOLDER_NAME);
+                return ValidationStatus.valueOf(ValidationResult.MISSING_HOLDER_NAME);
             }
-            return new ValidationResult(ValidationResult.INVALID_HOLDER_NAME);
+            return ValidationStatus.valueOf(ValidationResult.INVALID_HOLDER_NAME);
         }
-        return new ValidationResult(null);
+        return ValidationStatus.valueOf(null);
     }
 
-    private ValidationResult validateExpiryDate(String month, String year) {
+    private ValidationStatus validateExpiryDate(String month, String year) {
         String error = null;
 
         if (TextUtils.isEmpty(month) || TextUtils.isEmpty(year)) {
@@ -221,44 +319,44 @@ public class Validator {
         } else if (!isValidExpiryDate(month, year)) {
             error = ValidationResult.INVALID_EXPIRY_DATE;
         }
-        return new ValidationResult(error);
+        return ValidationStatus.valueOf(error);
     }
 
-    private ValidationResult validateExpiryMonth(String month) {
+    private ValidationStatus validateExpiryMonth(String month) {
         String error = null;
 
         if (TextUtils.isEmpty(month)) {
             error = ValidationResult.MISSING_EXPIRY_MONTH;
-        } else if (!month.matches(REGEX_MONTH)) {
+        } else if (!MATCHER_MONTH.matches(month)) {
             error = ValidationResult.INVALID_EXPIRY_MONTH;
         }
-        return new ValidationResult(error);
+        return ValidationStatus.valueOf(error);
     }
 
-    private ValidationResult validateExpiryYear(String year) {
+    private ValidationStatus validateExpiryYear(String year) {
         String error = null;
 
         if (TextUtils.isEmpty(year)) {
             error = ValidationResult.MISSING_EXPIRY_YEAR;
-        } else if (!year.matches(REGEX_YEAR)) {
+        } else if (!MATCHER_YEAR.matches(year)) {
             error = ValidationResult.INVALID_EXPIRY_YEAR;
         }
-        return new ValidationResult(error);
+        return ValidationStatus.valueOf(error);
     }
 
-    private ValidationResult validateBankCode(String bankCode, String regex) {
-        regex = regex != null ? regex : REGEX_BANK_CODE;
+    private ValidationStatus validateBankCode(String bankCode, PatternMatcher matcher) {
+        matcher = matcher != null ? matcher : MATCHER_BANK_CODE;
 
-        if (!bankCode.matches(regex)) {
+        if (!matcher.matches(bankCode)) {
             if (TextUtils.isEmpty(bankCode)) {
-                return new ValidationResult(ValidationResult.MISSING_BANK_CODE);
+                return ValidationStatus.valueOf(ValidationResult.MISSING_BANK_CODE);
             }
-            return new ValidationResult(ValidationResult.INVALID_BANK_CODE);
+            return ValidationStatus.valueOf(ValidationResult.INVALID_BANK_CODE);
         }
-        return new ValidationResult(null);
+        return ValidationStatus.valueOf(null);
     }
 
-    private ValidationResult validateIban(String iban) {
+    private ValidationStatus validateIban(String iban) {
         String error = null;
 
         if (TextUtils.isEmpty(iban)) {
@@ -266,32 +364,32 @@ public class Validator {
         } else if (!IbanValidator.isValidIban(iban)) {
             error = ValidationResult.INVALID_IBAN;
         }
-        return new ValidationResult(error);
+        return ValidationStatus.valueOf(error);
     }
 
-    private ValidationResult validateBic(String bic) {
+    private ValidationStatus validateBic(String bic) {
         String error = null;
 
         if (TextUtils.isEmpty(bic)) {
             error = ValidationResult.MISSING_BIC;
-        } else if (!bic.matches(REGEX_BIC)) {
+        } else if (!MATCHER_BIC.matches(bic)) {
             error = ValidationResult.INVALID_BIC;
         }
-        return new ValidationResult(error);
+        return ValidationStatus.valueOf(error);
     }
 
     private boolean isValidExpiryDate(String month, String year) {
 
-        if (!(month.matches(REGEX_MONTH) && year.matches(REGEX_YEAR))) {
+        if (!(MATCHER_MONTH.matches(month) && MATCHER_YEAR.matches(year))) {
             return false;
         }
         try {
             int expMonth = Integer.parseInt(month);
             int expYear = Integer.parseInt(year);
 
-            Calendar cal = Calendar.getInstance();
-            int curMonth = cal.get(Calendar.MONTH) + 1;
-            int curYear = cal.get(Calendar.YEAR);
+            CurrentMonth current = getCurrentMonth();
+            int curMonth = current.month;
+            int curYear = current.year;
 
             if (expYear < curYear) {
                 return false;
@@ -306,4 +404,46 @@ public class Validator {
         }
         return false;
     }
+
+    /**
+     * Get the current month, it is only computed again when the time is outside of the month computed before.
+     *
+     * @return the current month
+     */
+    private static CurrentMonth getCurrentMonth() {
+        long now = System.currentTimeMillis();
+        CurrentMonth month = currentMonth;
+
+        if (month == null || now < month.start || now >= month.end) {
+            month = new CurrentMonth(now);
+            currentMonth = month;
+        }
+        return month;
+    }
+
+    /**
+     * The month and year of a point in time, with the start and end of that month in the default time zone at creation
+     */
+    private static final class CurrentMonth {
+        final int month;
+        final int year;
+        final long start;
+        final long end;
+
+        CurrentMonth(long time) {
+            Calendar cal = Calendar.getInstance();
+            cal.setTimeInMillis(time);
+            month = cal.get(Calendar.MONTH) + 1;
+            year = cal.get(Calendar.YEAR);
+
+            cal.set(Calendar.DAY_OF_MONTH, 1);
+            cal.set(Calendar.HOUR_OF_DAY, 0);
+            cal.set(Calendar.MINUTE, 0);
+            cal.set(Calendar.SECOND, 0);
+            cal.set(Calendar.MILLISECOND, 0);
+            start = cal.getTimeInMillis();
+            cal.add(Calendar.MONTH, 1);
+            end = cal.getTimeInMillis();
+        }
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import android.os.Looper;
+
+@RunWith(RobolectricTestRunner.class)
+public class LooperDispatcherTest {
+
+    @Test
+    public void dispatch_multipleCallbacks_runInOrder() {
+        LooperDispatcher dispatcher = new LooperDispatcher();
+        List<String> calls = new ArrayList<>();
+        dispatcher.dispatch(createCallback(calls, "first"));
+        dispatcher.dispatch(createCallback(calls, "second"));
+        dispatcher.dispatch(createCallback(calls, "third"));
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(Arrays.asList("first", "second", "third"), calls);
+    }
+
+    @Test
+    public void dispatch_fromCallback_runAfterPendingCallbacks() {
+        final LooperDispatcher dispatcher = new LooperDispatcher();
+        final List<String> calls = new ArrayList<>();
+        dispatcher.dispatch(new Runnable() {
+            @Override
+            public void run() {
+                calls.add("first");
+                dispatcher.dispatch(createCallback(calls, "nested"));
+            }
+        });
+        dispatcher.dispatch(createCallback(calls, "second"));
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(Arrays.asList("first", "second", "nested"), calls);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void dispatch_nullCallback_IllegalArgumentException() {
+        new LooperDispatcher().dispatch(null);
+    }
+
+    private static Runnable createCallback(final List<String> calls, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                calls.add(name);
+            }
+        };
+    }
+}
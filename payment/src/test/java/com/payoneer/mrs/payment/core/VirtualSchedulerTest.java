@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class VirtualSchedulerTest {
+
+    private final VirtualScheduler scheduler = new VirtualScheduler();
+
+    @After
+    public void tearDown() {
+        scheduler.uninstall();
+    }
+
+    @Test
+    public void advanceBy_delayedTasks_runInTimeOrder() {
+        List<String> calls = new ArrayList<>();
+        scheduler.schedule(createTask(calls, "late"), 200);
+        scheduler.schedule(createTask(calls, "early"), 100);
+        scheduler.execute(createTask(calls, "now"));
+
+        assertEquals(1, scheduler.runUntilIdle());
+        assertEquals(Arrays.asList("now"), calls);
+        assertEquals(1, scheduler.advanceBy(150));
+        assertEquals(150, scheduler.currentTimeMillis());
+        assertEquals(1, scheduler.advanceBy(50));
+        assertEquals(Arrays.asList("now", "early", "late"), calls);
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void sleep_advancesVirtualTime() throws InterruptedException {
+        List<String> calls = new ArrayList<>();
+        scheduler.schedule(createTask(calls, "delayed"), 30000);
+        scheduler.sleep(60000);
+        assertEquals(60000, scheduler.currentTimeMillis());
+        // sleeping only moves the virtual clock, the delayed task runs when the scheduler runs its tasks
+        assertEquals(0, scheduler.getExecutedCount());
+        assertEquals(1, scheduler.runUntilIdle());
+        assertEquals(Arrays.asList("delayed"), calls);
+    }
+
+    @Test
+    public void getCriticalPathLength_parallelTasks_samePosition() {
+        final ExecutorService executor = scheduler.createExecutor();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(createTask(new ArrayList<String>(), "first"));
+                executor.execute(createTask(new ArrayList<String>(), "second"));
+            }
+        });
+        scheduler.runUntilIdle();
+        assertEquals(3, scheduler.getExecutedCount());
+        assertEquals(2, scheduler.getCriticalPathLength());
+    }
+
+    @Test
+    public void getCriticalPathLength_serializedTasks_increased() {
+        final ExecutorService executor = scheduler.createExecutor();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        executor.execute(createTask(new ArrayList<String>(), "last"));
+                    }
+                });
+            }
+        });
+        scheduler.runUntilIdle();
+        assertEquals(3, scheduler.getCriticalPathLength());
+    }
+
+    @Test
+    public void install_workerTask_completedInVirtualTime() throws Exception {
+        scheduler.install();
+        assertSame(scheduler, Workers.getInstance().getScheduler());
+        final List<String> calls = new ArrayList<>();
+        WorkerTask<String> task = WorkerTask.fromCallable(new Callable<String>() {
+            @Override
+            public String call() {
+                return "result";
+            }
+        });
+        task.subscribe(new WorkerSubscriber<String>() {
+            @Override
+            public void onSuccess(String param) {
+                calls.add(param);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                calls.add("error");
+            }
+        });
+        Workers.getInstance().forNetworkTasks().execute(task);
+        assertTrue(calls.isEmpty());
+
+        scheduler.runUntilIdle();
+        assertEquals(Arrays.asList("result"), calls);
+        assertEquals(2, scheduler.getCriticalPathLength());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void schedule_negativeDelay_IllegalArgumentException() {
+        scheduler.schedule(createTask(new ArrayList<String>(), "task"), -1);
+    }
+
+    private static Runnable createTask(final List<String> calls, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                calls.add(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class WorkerTaskTest {
+
+    @After
+    public void tearDown() {
+        Workers.getInstance().setMainThreadDispatcher(null);
+    }
+
+    @Test
+    public void run_subscribed_notifiedThroughDispatcher() {
+        List<Runnable> callbacks = setRecordingDispatcher();
+        WorkerTask<String> task = createTask("result");
+        AtomicBoolean notified = new AtomicBoolean();
+        task.subscribe(createSubscriber(notified));
+        task.run();
+
+        assertEquals(1, callbacks.size());
+        assertFalse(notified.get());
+        callbacks.get(0).run();
+        assertTrue(notified.get());
+    }
+
+    @Test
+    public void run_unsubscribedBeforeDelivery_notNotified() {
+        List<Runnable> callbacks = setRecordingDispatcher();
+        WorkerTask<String> task = createTask("result");
+        AtomicBoolean notified = new AtomicBoolean();
+        task.subscribe(createSubscriber(notified));
+        task.run();
+        task.unsubscribe();
+
+        callbacks.get(0).run();
+        assertFalse(notified.get());
+    }
+
+    @Test
+    public void run_notSubscribed_nothingDispatched() {
+        List<Runnable> callbacks = setRecordingDispatcher();
+        WorkerTask<String> task = createTask("first");
+        WorkerTask<String> dependent = task.thenApply(new WorkerFunction<String, String>() {
+            @Override
+            public String apply(String value) {
+                return value;
+            }
+        });
+        dependent.subscribe(createSubscriber(new AtomicBoolean()));
+        task.run();
+        assertEquals(1, callbacks.size());
+    }
+
+    @Test
+    public void cancel_notStarted_neverRuns() {
+        final AtomicBoolean called = new AtomicBoolean();
+        WorkerTask<String> task = WorkerTask.fromCallable(new Callable<String>() {
+            @Override
+            public String call() {
+                called.set(true);
+                return "result";
+            }
+        });
+        task.subscribe(createSubscriber(new AtomicBoolean()));
+
+        assertTrue(task.cancel(false));
+        assertFalse(task.isSubscribed());
+        task.run();
+        assertFalse(called.get());
+    }
+
+    @Test
+    public void cancel_running_workerInterrupted() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        WorkerTask<String> task = WorkerTask.fromCallable(new Callable<String>() {
+            @Override
+            public String call() {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return "result";
+            }
+        });
+        AtomicBoolean notified = new AtomicBoolean();
+        task.subscribe(createSubscriber(notified));
+        Thread thread = new Thread(task);
+        thread.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        task.cancel(true);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertFalse(notified.get());
+    }
+
+    @Test
+    public void thenApply_completed_functionApplied() throws Exception {
+        WorkerTask<String> task = createTask("list");
+        WorkerTask<Integer> dependent = task.thenApply(new WorkerFunction<String, Integer>() {
+            @Override
+            public Integer apply(String value) {
+                return value.length();
+            }
+        });
+        assertFalse(dependent.isDone());
+        task.run();
+        assertEquals(Integer.valueOf(4), dependent.get());
+    }
+
+    @Test
+    public void thenApply_failedSource_errorPropagated() throws InterruptedException {
+        final PaymentException error = new PaymentException("failed");
+        WorkerTask<String> task = WorkerTask.fromCallable(new Callable<String>() {
+            @Override
+            public String call() throws PaymentException {
+                throw error;
+            }
+        });
+        final AtomicBoolean applied = new AtomicBoolean();
+        WorkerTask<String> dependent = task.thenApply(new WorkerFunction<String, String>() {
+            @Override
+            public String apply(String value) {
+                applied.set(true);
+                return value;
+            }
+        });
+        task.run();
+        try {
+            dependent.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertSame(error, e.getCause());
+        }
+        assertFalse(applied.get());
+    }
+
+    @Test
+    public void thenCompose_nextTask_completesWithNextResult() throws Exception {
+        WorkerTask<String> task = createTask("list");
+        final WorkerTask<String> next = createTask("localization");
+        WorkerTask<String> dependent = task.thenCompose(new WorkerFunction<String, WorkerTask<String>>() {
+            @Override
+            public WorkerTask<String> apply(String value) {
+                return next;
+            }
+        });
+        task.run();
+        assertFalse(dependent.isDone());
+        next.run();
+        assertEquals("localization", dependent.get());
+    }
+
+    @Test
+    public void allOf_allCompleted_completes() throws Exception {
+        WorkerTask<String> first = createTask("first");
+        WorkerTask<String> second = createTask("second");
+        WorkerTask<Void> all = WorkerTask.allOf(first, second);
+        first.run();
+        assertFalse(all.isDone());
+        second.run();
+        assertNull(all.get());
+        assertTrue(WorkerTask.allOf().isDone());
+    }
+
+    @Test
+    public void allOf_oneFailed_othersCancelled() throws InterruptedException {
+        WorkerTask<String> failing = WorkerTask.fromCallable(new Callable<String>() {
+            @Override
+            public String call() throws PaymentException {
+                throw new PaymentException("failed");
+            }
+        });
+        WorkerTask<String> pending = createTask("pending");
+        WorkerTask<Void> all = WorkerTask.allOf(failing, pending);
+        failing.run();
+        try {
+            all.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PaymentException);
+        }
+        assertTrue(pending.isCancelled());
+    }
+
+    @Test
+    public void cancel_dependent_sourcesCancelled() {
+        WorkerTask<String> first = createTask("first");
+        WorkerTask<String> second = createTask("second");
+        WorkerTask<String> dependent = WorkerTask.allOf(first, second).thenApply(new WorkerFunction<Void, String>() {
+            @Override
+            public String apply(Void value) {
+                return "done";
+            }
+        });
+        dependent.cancel(true);
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+    }
+
+    @Test
+    public void cancel_detachedDependent_sourceNotCancelled() {
+        WorkerTask<String> shared = createTask("shared");
+        final WorkerTask<String> next = createTask("next");
+        WorkerTask<String> dependent = shared.thenComposeDetached(new WorkerFunction<String, WorkerTask<String>>() {
+            @Override
+            public WorkerTask<String> apply(String value) {
+                return next;
+            }
+        });
+        dependent.cancel(true);
+        assertFalse(shared.isCancelled());
+        shared.run();
+        assertTrue(next.isCancelled());
+    }
+
+    private static List<Runnable> setRecordingDispatcher() {
+        final List<Runnable> callbacks = new ArrayList<>();
+        Workers.getInstance().setMainThreadDispatcher(new MainThreadDispatcher() {
+            @Override
+            public void dispatch(Runnable callback) {
+                callbacks.add(callback);
+            }
+        });
+        return callbacks;
+    }
+
+    private static WorkerTask<String> createTask(final String result) {
+        return WorkerTask.fromCallable(new Callable<String>() {
+            @Override
+            public String call() {
+                return result;
+            }
+        });
+    }
+
+    private static WorkerSubscriber<String> createSubscriber(final AtomicBoolean notified) {
+        return new WorkerSubscriber<String>() {
+            @Override
+            public void onSuccess(String param) {
+                notified.set(true);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                notified.set(true);
+            }
+        };
+    }
+}
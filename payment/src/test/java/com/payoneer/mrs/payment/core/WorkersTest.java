@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import android.os.Process;
+
+@RunWith(RobolectricTestRunner.class)
+public class WorkersTest {
+
+    private WorkerExecutor executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        Workers workers = Workers.getInstance();
+        workers.setNetworkExecutor(null);
+        workers.setComputeExecutor(null);
+        workers.setBackgroundExecutor(null);
+    }
+
+    @Test
+    public void forTasks_defaultLanes_separateExecutors() {
+        Workers workers = Workers.getInstance();
+        assertNotSame(workers.forNetworkTasks(), workers.forComputeTasks());
+        assertNotSame(workers.forNetworkTasks(), workers.forBackgroundTasks());
+        assertNotSame(workers.forComputeTasks(), workers.forBackgroundTasks());
+    }
+
+    @Test
+    public void setNetworkExecutor_hostExecutor_usedAndRestored() {
+        Workers workers = Workers.getInstance();
+        ExecutorService defaultExecutor = workers.forNetworkTasks();
+        ExecutorService hostExecutor = Executors.newSingleThreadExecutor();
+        try {
+            workers.setNetworkExecutor(hostExecutor);
+            assertSame(hostExecutor, workers.forNetworkTasks());
+            workers.setNetworkExecutor(null);
+            assertSame(defaultExecutor, workers.forNetworkTasks());
+        } finally {
+            hostExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void submit_namedThread() throws ExecutionException, InterruptedException {
+        executor = new WorkerExecutor("test-lane", 1, 4, Process.THREAD_PRIORITY_BACKGROUND);
+        String name = executor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return Thread.currentThread().getName();
+            }
+        }).get();
+        assertEquals("test-lane-1", name);
+    }
+
+    @Test
+    public void execute_queueFull_RejectedExecutionException() throws InterruptedException {
+        executor = new WorkerExecutor("test-lane", 1, 1, Process.THREAD_PRIORITY_BACKGROUND);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(createBlockingTask(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(createBlockingTask(done, release));
+
+        try {
+            executor.execute(createBlockingTask(done, release));
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(1, executor.getQueueDepth());
+        assertEquals(1, executor.getRejectedCount());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void execute_queueFullWorkerTask_taskFails() throws InterruptedException {
+        executor = new WorkerExecutor("test-lane", 1, 1, Process.THREAD_PRIORITY_BACKGROUND);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(createBlockingTask(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(createBlockingTask(null, release));
+
+        // a WorkerTask submitted from the main UI Thread is never thrown at, it fails instead
+        WorkerTask<String> task = WorkerTask.fromCallable(new Callable<String>() {
+            @Override
+            public String call() {
+                return "rejected";
+            }
+        });
+        executor.execute(task);
+        release.countDown();
+        try {
+            task.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(1, executor.getRejectedCount());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void execute_shutdown_RejectedExecutionException() {
+        executor = new WorkerExecutor("test-lane", 1, 1, Process.THREAD_PRIORITY_BACKGROUND);
+        executor.shutdown();
+        executor.execute(createBlockingTask(null, new CountDownLatch(0)));
+    }
+
+    @Test
+    public void execute_queuedTask_waitTimeRecorded() throws InterruptedException {
+        executor = new WorkerExecutor("test-lane", 1, 4, Process.THREAD_PRIORITY_BACKGROUND);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch queuedStarted = new CountDownLatch(1);
+        executor.execute(createBlockingTask(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(createBlockingTask(queuedStarted, release));
+
+        Thread.sleep(50);
+        release.countDown();
+        assertTrue(queuedStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(2, executor.getExecutedCount());
+        assertTrue(executor.getMaxWaitTime() >= 50);
+        assertTrue(executor.getAverageWaitTime() >= 25);
+    }
+
+    private static Runnable createBlockingTask(final CountDownLatch started, final CountDownLatch release) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                if (started != null) {
+                    started.countDown();
+                }
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
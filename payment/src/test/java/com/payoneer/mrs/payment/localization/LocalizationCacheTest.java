@@ -11,34 +11,152 @@ package com.payoneer.mrs.payment.localization;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Locale;
+
+import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.VirtualScheduler;
 
+@RunWith(RobolectricTestRunner.class)
 public class LocalizationCacheTest {
 
+    private final static String VERSION = "\"etag1\"";
+
+    private URL visaUrl;
+    private URL mastercardUrl;
+
+    @Before
+    public void setUp() {
+        visaUrl = createLangURL("VISA");
+        mastercardUrl = createLangURL("MASTERCARD");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void construct_invalidTimeToLive_IllegalArgumentException() {
+        new LocalizationCache(LocalizationCache.DEFAULT_MAX_ENTRIES, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void construct_invalidMaxEntries_IllegalArgumentException() {
+        new LocalizationCache(0, LocalizationCache.DEFAULT_TIME_TO_LIVE);
+    }
+
     @Test
-    public void setCacheId() {
+    public void get_cached_sameHolder() {
         LocalizationCache cache = new LocalizationCache();
-        String cacheId = "cacheId";
-        cache.setCacheId(cacheId);
-        assertEquals(cacheId, cache.getCacheId());
+        LocalizationHolder holder = LocalizationTest.createMapLocalizationHolder("key", "value", 5);
+        cache.put(visaUrl, Locale.ENGLISH, VERSION, holder);
+
+        assertSame(holder, cache.get(visaUrl, Locale.ENGLISH, VERSION));
+        assertNull(cache.get(mastercardUrl, Locale.ENGLISH, VERSION));
+        assertNull(new LocalizationCache().get(visaUrl, Locale.ENGLISH, VERSION));
     }
 
     @Test
-    public void clear() {
+    public void get_differentLocale_null() {
         LocalizationCache cache = new LocalizationCache();
-        String cacheId = "cacheId";
-        cache.setCacheId(cacheId);
+        cache.put(visaUrl, Locale.ENGLISH, VERSION, LocalizationTest.createMapLocalizationHolder("key", "value", 5));
 
-        LocalizationHolder holder = LocalizationTest.createMapLocalizationHolder("key", "value", 5);
-        String holderKey = "holder";
-        cache.put(holderKey, holder);
+        assertNotNull(cache.get(visaUrl, Locale.ENGLISH, VERSION));
+        assertNull(cache.get(visaUrl, Locale.GERMAN, VERSION));
+    }
 
-        assertEquals(cacheId, cache.getCacheId());
-        assertNotNull(cache.get(holderKey));
+    @Test
+    public void get_differentVersion_null() {
+        LocalizationCache cache = new LocalizationCache();
+        cache.put(visaUrl, Locale.ENGLISH, VERSION, LocalizationTest.createMapLocalizationHolder("key", "value", 5));
+
+        assertNull(cache.get(visaUrl, Locale.ENGLISH, "\"etag2\""));
+        assertNull(cache.get(visaUrl, Locale.ENGLISH, null));
+        // the entry of the old version has been removed
+        assertNull(cache.get(visaUrl, Locale.ENGLISH, VERSION));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void put_nullVersion_IllegalArgumentException() {
+        new LocalizationCache().put(visaUrl, Locale.ENGLISH, null, LocalizationTest.createMapLocalizationHolder("key", "value", 5));
+    }
+
+    @Test
+    public void get_maxEntriesExceeded_leastRecentlyUsedEvicted() {
+        LocalizationCache cache = new LocalizationCache(2, LocalizationCache.DEFAULT_TIME_TO_LIVE);
+        URL amexUrl = createLangURL("AMEX");
+        cache.put(visaUrl, Locale.ENGLISH, VERSION, LocalizationTest.createMapLocalizationHolder("visa", "value", 5));
+        cache.put(mastercardUrl, Locale.ENGLISH, VERSION, LocalizationTest.createMapLocalizationHolder("mastercard", "value", 5));
+        assertNotNull(cache.get(visaUrl, Locale.ENGLISH, VERSION));
+        cache.put(amexUrl, Locale.ENGLISH, VERSION, LocalizationTest.createMapLocalizationHolder("amex", "value", 5));
+
+        assertNotNull(cache.get(visaUrl, Locale.ENGLISH, VERSION));
+        assertNull(cache.get(mastercardUrl, Locale.ENGLISH, VERSION));
+        assertNotNull(cache.get(amexUrl, Locale.ENGLISH, VERSION));
+    }
+
+    @Test
+    public void get_timeToLiveExpiredInVirtualTime_null() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        scheduler.install();
+        try {
+            LocalizationCache cache = new LocalizationCache(LocalizationCache.DEFAULT_MAX_ENTRIES, 10);
+            cache.put(visaUrl, Locale.ENGLISH, VERSION, LocalizationTest.createMapLocalizationHolder("key", "value", 5));
+
+            scheduler.advanceBy(9);
+            assertNotNull(cache.get(visaUrl, Locale.ENGLISH, VERSION));
+            scheduler.advanceBy(1);
+            assertNull(cache.get(visaUrl, Locale.ENGLISH, VERSION));
+        } finally {
+            scheduler.uninstall();
+        }
+    }
+
+    @Test
+    public void clear() {
+        LocalizationCache cache = new LocalizationCache();
+        cache.put(visaUrl, Locale.ENGLISH, VERSION, LocalizationTest.createMapLocalizationHolder("key", "value", 5));
+        assertNotNull(cache.get(visaUrl, Locale.ENGLISH, VERSION));
 
         cache.clear();
-        assertNull(cache.getCacheId());
-        assertNull(cache.get(holderKey));
+        assertNull(cache.get(visaUrl, Locale.ENGLISH, VERSION));
+    }
+
+    @Test
+    public void put_concurrentLoaders_allStored() throws InterruptedException {
+        final LocalizationCache cache = new LocalizationCache(4, LocalizationCache.DEFAULT_TIME_TO_LIVE);
+        Thread[] threads = new Thread[8];
+
+        for (int i = 0; i < threads.length; i++) {
+            final URL url = createLangURL("NETWORK" + (i % 4));
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 50; j++) {
+                        cache.put(url, Locale.ENGLISH, VERSION, LocalizationTest.createMapLocalizationHolder("key", "value", 10));
+                        assertNotNull(cache.get(url, Locale.ENGLISH, VERSION));
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < 4; i++) {
+            LocalizationHolder holder = cache.get(createLangURL("NETWORK" + i), Locale.ENGLISH, VERSION);
+            assertEquals("value9", holder.translate("key9"));
+        }
+    }
+
+    private static URL createLangURL(String code) {
+        try {
+            return new URL("https://resources.sandbox.oscato.com/resource/lang/MOBILE_NATIVE/en_US/" + code + ".json");
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
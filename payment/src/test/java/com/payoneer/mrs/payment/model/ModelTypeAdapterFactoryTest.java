@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.payoneer.mrs.payment.util.GsonHelper;
+
+/**
+ * Class for testing the generated TypeAdapters against Gson's reflective adapter
+ */
+public class ModelTypeAdapterFactoryTest {
+
+    private final static String LIST_RESULT = "{"
+        + "\"links\":{\"self\":\"https://api.sandbox.oscato.com/pci/v1/5fd8\",\"lang\":\"https://resources.sandbox.oscato.com/lang.json\"},"
+        + "\"resultInfo\":\"6 applicable and 1 registered networks are found\","
+        + "\"interaction\":{\"code\":\"PROCEED\",\"reason\":\"OK\"},"
+        + "\"accounts\":[{\"code\":\"VISA\",\"method\":\"CREDIT_CARD\",\"selected\":false,"
+        + "\"maskedAccount\":{\"displayLabel\":\"41 *** 1111    12 | 2030\",\"number\":\"41 *** 1111\",\"expiryMonth\":12,\"expiryYear\":2030},"
+        + "\"inputElements\":[{\"name\":\"verificationCode\",\"type\":\"integer\"}],\"contractData\":{\"PAGE_ENVIRONMENT\":\"test\"}}],"
+        + "\"networks\":{\"applicable\":[{\"code\":\"MASTERCARD\",\"label\":\"MasterCard\",\"method\":\"CREDIT_CARD\","
+        + "\"redirect\":false,\"selected\":true,\"emptyForm\":false,\"inputElements\":["
+        + "{\"name\":\"expiryMonth\",\"type\":\"select\",\"options\":[{\"value\":\"01\",\"selected\":null},{\"value\":\"02\"}]},"
+        + "{\"name\":\"number\",\"type\":\"numeric\"}],\"unknownField\":{\"nested\":[1,2,3]}}]},"
+        + "\"extraElements\":{\"top\":[{\"text\":\"Top text\",\"checkbox\":{\"name\":\"terms\",\"mode\":\"REQUIRED\"}}],\"bottom\":null},"
+        + "\"operationType\":\"CHARGE\",\"allowDelete\":true,"
+        + "\"style\":{\"language\":\"en_US\",\"cssOverride\":null},"
+        + "\"payment\":{\"reference\":\"Shop 101/20\",\"amount\":19.990,\"currency\":\"EUR\"},"
+        + "\"integrationType\":\"MOBILE_NATIVE\"}";
+
+    private final Gson reflectiveGson = new GsonBuilder().create();
+    private final Gson gson = GsonHelper.getInstance().getGson();
+
+    @Test
+    public void create_modelClass_generatedAdapter() {
+        assertEquals(ModelTypeAdapterFactory.class, gson.getAdapter(ListResult.class).getClass().getEnclosingClass());
+        assertEquals(ModelTypeAdapterFactory.class, gson.getAdapter(InputElement.class).getClass().getEnclosingClass());
+    }
+
+    @Test
+    public void create_otherClass_null() {
+        ModelTypeAdapterFactory factory = new ModelTypeAdapterFactory();
+        assertNull(factory.create(gson, TypeToken.get(String.class)));
+        assertNull(factory.create(gson, TypeToken.get(InteractionCode.class)));
+    }
+
+    @Test
+    public void fromJson_listResult_equalToReflective() {
+        ListResult expected = reflectiveGson.fromJson(LIST_RESULT, ListResult.class);
+        ListResult result = gson.fromJson(LIST_RESULT, ListResult.class);
+
+        assertEquals(reflectiveGson.toJson(expected), reflectiveGson.toJson(result));
+        assertEquals(new BigDecimal("19.990"), result.getPayment().getAmount());
+        assertEquals(Integer.valueOf(2030), result.getAccounts().get(0).getMaskedAccount().getExpiryYear());
+    }
+
+    @Test
+    public void toJson_listResult_equalToReflective() {
+        ListResult listResult = reflectiveGson.fromJson(LIST_RESULT, ListResult.class);
+        assertEquals(reflectiveGson.toJson(listResult), gson.toJson(listResult));
+    }
+
+    @Test
+    public void toJson_nullFields_omitted() {
+        Interaction interaction = new Interaction(InteractionCode.PROCEED, null);
+        assertEquals("{\"code\":\"PROCEED\"}", gson.toJson(interaction));
+        assertEquals("null", gson.toJson(null, Interaction.class));
+    }
+
+    @Test
+    public void fromJson_list_equalToReflective() {
+        String json = "[{\"name\":\"holderName\",\"type\":\"string\"},null,{\"name\":\"number\",\"options\":[]}]";
+        TypeToken<ArrayList<InputElement>> type = new TypeToken<ArrayList<InputElement>>() { };
+        List<InputElement> expected = reflectiveGson.fromJson(json, type.getType());
+        List<InputElement> result = gson.fromJson(json, type.getType());
+        assertEquals(reflectiveGson.toJson(expected), reflectiveGson.toJson(result));
+    }
+
+    @Test
+    public void fromJson_notAnObject_throwsJsonSyntaxException() {
+        String json = "{\"interaction\":[\"PROCEED\",\"OK\"]}";
+        try {
+            reflectiveGson.fromJson(json, ListResult.class);
+            fail("Expected a JsonSyntaxException from the reflective adapter");
+        } catch (JsonSyntaxException e) {
+            // expected
+        }
+        try {
+            gson.fromJson(json, ListResult.class);
+            fail("Expected a JsonSyntaxException from the generated adapter");
+        } catch (JsonSyntaxException e) {
+            // expected
+        }
+    }
+}
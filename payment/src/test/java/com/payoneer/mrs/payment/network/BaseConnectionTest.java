@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.google.gson.JsonParseException;
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.model.ErrorInfo;
+import com.payoneer.mrs.payment.model.ListResult;
+import com.payoneer.mrs.test.util.LocalHttpServer;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+public class BaseConnectionTest {
+
+    private final static int NETWORK_COUNT = 500;
+    private final static long SLOW_DELAY = 10000;
+
+    private LocalHttpServer server;
+    private String listJson;
+
+    @Before
+    public void setUp() throws IOException {
+        listJson = createListJson(NETWORK_COUNT);
+        server = new LocalHttpServer(new LocalHttpServer.Handler() {
+            @Override
+            public LocalHttpServer.Response handle(LocalHttpServer.Request request) {
+                if (request.getPath().startsWith("/lists")) {
+                    return LocalHttpServer.Response.json(200, listJson);
+                }
+                if (request.getPath().startsWith("/slow")) {
+                    return LocalHttpServer.Response.json(200, listJson).delay(SLOW_DELAY);
+                }
+                return LocalHttpServer.Response.json(422, "{\n\"resultInfo\": \"Invalid list\",\n\"interaction\": {\"code\": \"ABORT\", \"reason\": \"CLIENTSIDE_ERROR\"}\n}");
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void getListResult_largeList_allNetworksDecoded() throws PaymentException {
+        ListResult result = createListConnection().getListResult(server.getURL("/lists/123").toString());
+        assertEquals(NETWORK_COUNT, result.getNetworks().getApplicable().size());
+        assertEquals("NETWORK" + (NETWORK_COUNT - 1), result.getNetworks().getApplicable().get(NETWORK_COUNT - 1).getCode());
+    }
+
+    @Test
+    public void abortRequests_blockedRequest_failsPromptly() throws InterruptedException {
+        final ListConnection conn = createListConnection();
+        final AtomicReference<PaymentException> error = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    conn.getListResult(server.getURL("/slow/123").toString());
+                } catch (PaymentException e) {
+                    error.set(e);
+                }
+            }
+        });
+        thread.start();
+        awaitRequestCount(1);
+
+        thread.interrupt();
+        conn.abortRequests();
+        thread.join(SLOW_DELAY / 2);
+        assertFalse(thread.isAlive());
+        assertNotNull(error.get());
+        assertTrue(error.get().getNetworkFailure());
+        // an aborted request must not be retried
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void getListResult_errorResponse_errorInfoDecoded() {
+        try {
+            createListConnection().getListResult(server.getURL("/error").toString());
+            fail("Expected PaymentException");
+        } catch (PaymentException e) {
+            ErrorInfo errorInfo = e.getErrorInfo();
+            assertNotNull(errorInfo);
+            assertEquals("Invalid list", errorInfo.getResultInfo());
+            assertEquals("ABORT", errorInfo.getInteraction().getCode());
+        }
+    }
+
+    @Test
+    public void getListResult_exceedsMaxBodySize_PaymentException() {
+        ListConnection conn = createListConnection();
+        conn.setMaxBodySize(1024);
+        try {
+            conn.getListResult(server.getURL("/lists/123").toString());
+            fail("Expected PaymentException");
+        } catch (PaymentException e) {
+            assertFalse(e.getNetworkFailure());
+            assertTrue(e.getCause() instanceof JsonParseException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxBodySize_invalidSize_IllegalArgumentException() {
+        createListConnection().setMaxBodySize(0);
+    }
+
+    @Test
+    public void readJson_emptyStream_returnsNull() throws IOException {
+        assertNull(createListConnection().readJson(new ByteArrayInputStream(new byte[0]), ListResult.class));
+    }
+
+    @Test
+    public void readJson_streamFullyConsumed() throws IOException {
+        byte[] data = "{\"resultInfo\": \"info\"}\n\n".getBytes(StandardCharsets.UTF_8);
+        ByteArrayInputStream in = new ByteArrayInputStream(data);
+        ListResult result = createListConnection().readJson(in, ListResult.class);
+
+        assertEquals("info", result.getResultInfo());
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void readJson_largeList_lowerAllocationThanStringDecoding() throws IOException {
+        ListConnection conn = createListConnection();
+        byte[] data = listJson.getBytes(StandardCharsets.UTF_8);
+
+        // warm up both decode paths so class loading and Gson type adapters are not measured
+        decodeFromString(conn, new ByteArrayInputStream(data));
+        conn.readJson(new ByteArrayInputStream(data), ListResult.class);
+
+        long stringBytes = measureAllocation(new Decoder() {
+            @Override
+            public ListResult decode(InputStream in) throws IOException {
+                return decodeFromString(conn, in);
+            }
+        }, data);
+        long streamBytes = measureAllocation(new Decoder() {
+            @Override
+            public ListResult decode(InputStream in) throws IOException {
+                return conn.readJson(in, ListResult.class);
+            }
+        }, data);
+        assertTrue("stream: " + streamBytes + " bytes, string: " + stringBytes + " bytes", streamBytes < stringBytes);
+    }
+
+    private long measureAllocation(Decoder decoder, byte[] data) throws IOException {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long start = bean.getThreadAllocatedBytes(threadId);
+        ListResult result = decoder.decode(new ByteArrayInputStream(data));
+        long allocated = bean.getThreadAllocatedBytes(threadId) - start;
+
+        assertEquals(NETWORK_COUNT, result.getNetworks().getApplicable().size());
+        return allocated;
+    }
+
+    /**
+     * Decode the ListResult the way it was done before the streaming decoder, i.e. reading the complete body into a String first
+     */
+    private static ListResult decodeFromString(ListConnection conn, InputStream in) throws IOException {
+        StringBuilder buf = new StringBuilder();
+        try (BufferedReader rd = new BufferedReader(new InputStreamReader(in))) {
+            String line;
+            while ((line = rd.readLine()) != null) {
+                buf.append(line);
+            }
+        }
+        return conn.gson.fromJson(buf.toString(), ListResult.class);
+    }
+
+    private static String createListJson(int networkCount) {
+        StringBuilder buf = new StringBuilder();
+        buf.append("{\n\"resultInfo\": \"List with ").append(networkCount).append(" networks\",\n");
+        buf.append("\"operationType\": \"CHARGE\",\n\"integrationType\": \"MOBILE_NATIVE\",\n");
+        buf.append("\"networks\": {\n\"applicable\": [\n");
+        for (int i = 0; i < networkCount; i++) {
+            if (i > 0) {
+                buf.append(",\n");
+            }
+            String code = "NETWORK" + i;
+            buf.append("{\n\"code\": \"").append(code).append("\",\n");
+            buf.append("\"label\": \"Network ").append(i).append("\",\n");
+            buf.append("\"method\": \"CREDIT_CARD\",\n\"grouping\": \"CREDIT_CARD\",\n");
+            buf.append("\"registration\": \"OPTIONAL\",\n\"recurrence\": \"NONE\",\n\"redirect\": false,\n");
+            buf.append("\"operationType\": \"CHARGE\",\n\"button\": \"button.charge.label\",\n\"selected\": false,\n");
+            buf.append("\"links\": {\n");
+            buf.append("\"logo\": \"https://resources.sandbox.oscato.com/resource/network/MOBILE_NATIVE/en_US/").append(code).append("/logo.png\",\n");
+            buf.append("\"lang\": \"https://resources.sandbox.oscato.com/resource/lang/MOBILE_NATIVE/en_US/").append(code).append(".json\",\n");
+            buf.append("\"operation\": \"https://api.sandbox.oscato.com/pci/v1/5f2d1e2c/").append(code).append("/charge\"\n},\n");
+            buf.append("\"inputElements\": [\n");
+            buf.append("{\"name\": \"number\", \"type\": \"numeric\"},\n");
+            buf.append("{\"name\": \"expiryMonth\", \"type\": \"integer\"},\n");
+            buf.append("{\"name\": \"expiryYear\", \"type\": \"integer\"},\n");
+            buf.append("{\"name\": \"verificationCode\", \"type\": \"integer\"},\n");
+            buf.append("{\"name\": \"holderName\", \"type\": \"string\"}\n");
+            buf.append("]\n}");
+        }
+        buf.append("\n]\n}\n}\n");
+        return buf.toString();
+    }
+
+    private ListConnection createListConnection() {
+        Context context = ApplicationProvider.getApplicationContext();
+        return new ListConnection(context);
+    }
+
+    private void awaitRequestCount(int count) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (server.getRequestCount() < count && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, server.getRequestCount());
+    }
+
+    private interface Decoder {
+        ListResult decode(InputStream in) throws IOException;
+    }
+}
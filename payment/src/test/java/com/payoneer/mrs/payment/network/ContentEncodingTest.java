@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.localization.LocalizationHolder;
+import com.payoneer.mrs.test.util.LocalHttpServer;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+public class ContentEncodingTest {
+
+    private final List<NetworkMetrics> metrics = new CopyOnWriteArrayList<>();
+    private LocalHttpServer server;
+    private byte[] json;
+
+    @Before
+    public void setUp() throws IOException {
+        json = createLanguageJson().getBytes(StandardCharsets.UTF_8);
+        server = new LocalHttpServer(new LocalHttpServer.Handler() {
+            @Override
+            public LocalHttpServer.Response handle(LocalHttpServer.Request request) {
+                try {
+                    return createResponse(request.getPath());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        server.start();
+        NetworkMetricsDispatcher.getInstance().setListener(new NetworkMetricsListener() {
+            @Override
+            public void onNetworkMetrics(NetworkMetrics networkMetrics) {
+                metrics.add(networkMetrics);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        NetworkMetricsDispatcher.getInstance().setListener(null);
+        server.shutdown();
+    }
+
+    @Test
+    public void loadLocalization_gzip_decompressed() throws PaymentException {
+        LocalizationConnection conn = createLocalizationConnection();
+        assertLocalization(conn.loadLocalization(server.getURL("/gzip")));
+
+        NetworkMetrics stats = getLastMetrics();
+        assertEquals(ContentEncoding.GZIP, stats.getContentEncoding());
+        assertEquals(json.length, stats.getBytesDecoded());
+        assertTrue(stats.getBytesReceived() < stats.getBytesDecoded());
+    }
+
+    @Test
+    public void loadLocalization_deflate_decompressed() throws PaymentException {
+        LocalizationConnection conn = createLocalizationConnection();
+        assertLocalization(conn.loadLocalization(server.getURL("/deflate")));
+
+        NetworkMetrics stats = getLastMetrics();
+        assertEquals(ContentEncoding.DEFLATE, stats.getContentEncoding());
+        assertEquals(json.length, stats.getBytesDecoded());
+        assertTrue(stats.getBytesReceived() < stats.getBytesDecoded());
+    }
+
+    @Test
+    public void loadLocalization_rawDeflate_decompressed() throws PaymentException {
+        LocalizationConnection conn = createLocalizationConnection();
+        assertLocalization(conn.loadLocalization(server.getURL("/rawdeflate")));
+        assertEquals(json.length, getLastMetrics().getBytesDecoded());
+    }
+
+    @Test
+    public void loadLocalization_identity_sameByteCounts() throws PaymentException {
+        LocalizationConnection conn = createLocalizationConnection();
+        assertLocalization(conn.loadLocalization(server.getURL("/identity")));
+
+        NetworkMetrics stats = getLastMetrics();
+        assertEquals(ContentEncoding.IDENTITY, stats.getContentEncoding());
+        assertEquals(json.length, stats.getBytesReceived());
+        assertEquals(json.length, stats.getBytesDecoded());
+    }
+
+    @Test
+    public void loadLocalization_acceptEncodingNegotiated() throws PaymentException {
+        URL url = server.getURL("/identity");
+        createLocalizationConnection().loadLocalization(url);
+        assertEquals(ContentEncoding.ACCEPT_ENCODING, server.getRequests().get(0).getHeader("Accept-Encoding"));
+    }
+
+    @Test
+    public void loadLocalization_gzipKeepAlive_socketReused() throws PaymentException {
+        LocalizationConnection conn = createLocalizationConnection();
+        conn.loadLocalization(server.getURL("/gzip"));
+        conn.loadLocalization(server.getURL("/deflate"));
+        conn.loadLocalization(server.getURL("/gzip"));
+        assertEquals(1, server.getAcceptedCount());
+    }
+
+    @Test
+    public void normalize_emptyEncoding_identity() {
+        assertEquals(ContentEncoding.IDENTITY, ContentEncoding.normalize(null));
+        assertEquals(ContentEncoding.IDENTITY, ContentEncoding.normalize(""));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.normalize(" GZIP "));
+    }
+
+    private void assertLocalization(LocalizationHolder holder) {
+        assertEquals("Card Number", holder.translate("account.number.label"));
+        assertEquals("Value 99", holder.translate("key.99"));
+    }
+
+    private LocalHttpServer.Response createResponse(String path) throws IOException {
+        switch (path) {
+            case "/gzip":
+                return LocalHttpServer.Response.bytes(200, gzip(json)).header("Content-Type", "application/json")
+                    .header("Content-Encoding", "gzip");
+            case "/deflate":
+                return LocalHttpServer.Response.bytes(200, deflate(json, false)).header("Content-Type", "application/json")
+                    .header("Content-Encoding", "deflate");
+            case "/rawdeflate":
+                return LocalHttpServer.Response.bytes(200, deflate(json, true)).header("Content-Type", "application/json")
+                    .header("Content-Encoding", "deflate");
+            default:
+                return LocalHttpServer.Response.bytes(200, json).header("Content-Type", "application/json");
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data, boolean nowrap) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream deflate = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap))) {
+            deflate.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static String createLanguageJson() {
+        StringBuilder buf = new StringBuilder("{\n\"account.number.label\": \"Card Number\"");
+        for (int i = 0; i < 100; i++) {
+            buf.append(",\n\"key.").append(i).append("\": \"Value ").append(i).append("\"");
+        }
+        return buf.append("\n}\n").toString();
+    }
+
+    private NetworkMetrics getLastMetrics() {
+        return metrics.get(metrics.size() - 1);
+    }
+
+    private LocalizationConnection createLocalizationConnection() {
+        Context context = ApplicationProvider.getApplicationContext();
+        LocalizationConnection conn = new LocalizationConnection(context, new KeepAliveHttpTransport());
+        conn.setHttpCache(null);
+        return conn;
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.core.VirtualScheduler;
+import com.payoneer.mrs.payment.localization.LocalizationHolder;
+import com.payoneer.mrs.test.util.LocalHttpServer;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+public class HttpCacheTest {
+
+    private final static String ETAG = "\"etag1\"";
+    private final static String LAST_MODIFIED = "Wed, 21 Oct 2020 07:28:00 GMT";
+    private final static long MAX_AGE_MILLIS = 3600 * 1000L;
+
+    private LocalHttpServer server;
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDir = Files.createTempDirectory("httpcache").toFile();
+        server = new LocalHttpServer(new LocalHttpServer.Handler() {
+            @Override
+            public LocalHttpServer.Response handle(LocalHttpServer.Request request) {
+                return createResponse(request);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void construct_invalidMaxSize_IllegalArgumentException() {
+        new HttpCache(cacheDir, 0);
+    }
+
+    @Test
+    public void loadLocalization_maxAge_servedFromCache() throws PaymentException {
+        HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        LocalizationConnection conn = createLocalizationConnection(cache);
+        URL url = server.getURL("/maxage/lang.json");
+
+        LocalizationHolder first = conn.loadLocalization(url);
+        LocalizationHolder second = conn.loadLocalization(url);
+
+        // only the bytes are cached, every request decodes a new object
+        assertNotSame(first, second);
+        assertEquals("maxage", second.translate("type"));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getRevalidationCount());
+    }
+
+    @Test
+    public void loadLocalization_maxAgeExpiredInVirtualTime_downloadedAgain() throws PaymentException {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        scheduler.install();
+        try {
+            HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+            LocalizationConnection conn = createLocalizationConnection(cache);
+            URL url = server.getURL("/maxage/lang.json");
+
+            conn.loadLocalization(url);
+            scheduler.advanceBy(MAX_AGE_MILLIS - 1);
+            conn.loadLocalization(url);
+            assertEquals(1, server.getRequestCount());
+
+            scheduler.advanceBy(1);
+            conn.loadLocalization(url);
+            assertEquals(2, server.getRequestCount());
+            assertEquals(2, cache.getMissCount());
+        } finally {
+            scheduler.uninstall();
+        }
+    }
+
+    @Test
+    public void loadLocalization_etag_revalidated() throws PaymentException {
+        HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        LocalizationConnection conn = createLocalizationConnection(cache);
+        URL url = server.getURL("/etag/lang.json");
+
+        conn.loadLocalization(url);
+        LocalizationHolder second = conn.loadLocalization(url);
+
+        assertEquals("etag", second.translate("type"));
+        List<LocalHttpServer.Request> requests = server.getRequests();
+        assertEquals(2, requests.size());
+        assertNull(requests.get(0).getHeader(HttpCache.HEADER_IF_NONE_MATCH));
+        assertEquals(ETAG, requests.get(1).getHeader(HttpCache.HEADER_IF_NONE_MATCH));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getRevalidationCount());
+    }
+
+    @Test
+    public void loadLocalization_lastModified_revalidated() throws PaymentException {
+        HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        LocalizationConnection conn = createLocalizationConnection(cache);
+        URL url = server.getURL("/lastmodified/lang.json");
+
+        conn.loadLocalization(url);
+        LocalizationHolder second = conn.loadLocalization(url);
+
+        assertEquals("lastmodified", second.translate("type"));
+        assertEquals(LAST_MODIFIED, server.getRequests().get(1).getHeader(HttpCache.HEADER_IF_MODIFIED_SINCE));
+        assertEquals(1, cache.getRevalidationCount());
+    }
+
+    @Test
+    public void loadLocalization_noStore_notStored() throws PaymentException {
+        HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        LocalizationConnection conn = createLocalizationConnection(cache);
+        URL url = server.getURL("/nostore/lang.json");
+
+        conn.loadLocalization(url);
+        conn.loadLocalization(url);
+
+        assertEquals(2, server.getRequestCount());
+        assertNull(server.getRequests().get(1).getHeader(HttpCache.HEADER_IF_NONE_MATCH));
+        assertEquals(0, cache.getSize());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void loadLocalization_private_notStored() throws PaymentException {
+        HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        LocalizationConnection conn = createLocalizationConnection(cache);
+        URL url = server.getURL("/private/lang.json");
+
+        conn.loadLocalization(url);
+        conn.loadLocalization(url);
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void loadLocalization_noCache_alwaysRevalidated() throws PaymentException {
+        HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        LocalizationConnection conn = createLocalizationConnection(cache);
+        URL url = server.getURL("/nocache/lang.json");
+
+        conn.loadLocalization(url);
+        conn.loadLocalization(url);
+        conn.loadLocalization(url);
+
+        assertEquals(3, server.getRequestCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getRevalidationCount());
+    }
+
+    @Test
+    public void loadLocalization_newCacheInstance_loadedFromDisk() throws PaymentException {
+        URL maxAgeUrl = server.getURL("/maxage/lang.json");
+        URL etagUrl = server.getURL("/etag/lang.json");
+        HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        LocalizationConnection conn = createLocalizationConnection(cache);
+        conn.loadLocalization(maxAgeUrl);
+        conn.loadLocalization(etagUrl);
+
+        // simulates a process restart
+        HttpCache restored = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        conn = createLocalizationConnection(restored);
+        assertEquals(cache.getSize(), restored.getSize());
+
+        assertEquals("maxage", conn.loadLocalization(maxAgeUrl).translate("type"));
+        assertEquals("etag", conn.loadLocalization(etagUrl).translate("type"));
+        assertEquals(3, server.getRequestCount());
+        assertEquals(1, restored.getHitCount());
+        assertEquals(1, restored.getRevalidationCount());
+    }
+
+    @Test
+    public void loadLocalization_restoredInVirtualTime_freshnessUsesWallClock() throws PaymentException, IOException {
+        URL url = server.getURL("/maxage/lang.json");
+        HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        createLocalizationConnection(cache).loadLocalization(url);
+
+        VirtualScheduler scheduler = new VirtualScheduler();
+        scheduler.install();
+        try {
+            // the stored response is still fresh by the wall clock
+            HttpCache restored = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+            createLocalizationConnection(restored).loadLocalization(url);
+            assertEquals(1, server.getRequestCount());
+            assertEquals(1, restored.getHitCount());
+
+            // the stored response expired by the wall clock, the virtual clock must not keep it fresh
+            File[] metaFiles = cacheDir.listFiles(new FilenameFilter() {
+                @Override
+                public boolean accept(File dir, String name) {
+                    return name.endsWith(".meta");
+                }
+            });
+            assertNotNull(metaFiles);
+            assertEquals(1, metaFiles.length);
+            String meta = new String(Files.readAllBytes(metaFiles[0].toPath()), StandardCharsets.UTF_8);
+            long expired = System.currentTimeMillis() - MAX_AGE_MILLIS - 1;
+            meta = meta.replaceAll("\"responseTime\":\\d+", "\"responseTime\":" + expired);
+            Files.write(metaFiles[0].toPath(), meta.getBytes(StandardCharsets.UTF_8));
+
+            HttpCache expiredCache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+            createLocalizationConnection(expiredCache).loadLocalization(url);
+            assertEquals(2, server.getRequestCount());
+            assertEquals(1, expiredCache.getMissCount());
+        } finally {
+            scheduler.uninstall();
+        }
+    }
+
+    @Test
+    public void loadLocalization_maxSizeExceeded_leastRecentlyUsedEvicted() throws PaymentException {
+        // each localization response is 18 bytes, the cache can hold two of them
+        HttpCache cache = new HttpCache(cacheDir, 40);
+        LocalizationConnection conn = createLocalizationConnection(cache);
+        URL url1 = server.getURL("/maxage/lang1.json");
+        URL url2 = server.getURL("/maxage/lang2.json");
+        URL url3 = server.getURL("/maxage/lang3.json");
+
+        conn.loadLocalization(url1);
+        conn.loadLocalization(url2);
+        // access the first file so the second file becomes the least recently used
+        conn.loadLocalization(url1);
+        conn.loadLocalization(url3);
+
+        assertTrue(cache.getSize() <= cache.getMaxSize());
+        assertNotNull(cache.get(url1));
+        assertNull(cache.get(url2));
+        assertNotNull(cache.get(url3));
+    }
+
+    @Test
+    public void getListResult_cacheSet_neverStored() throws PaymentException {
+        HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        ListConnection conn = createListConnection(cache);
+        String url = server.getURL("/list/123").toString();
+
+        conn.getListResult(url);
+        conn.getListResult(url);
+
+        assertEquals(2, server.getRequestCount());
+        assertNull(server.getRequests().get(1).getHeader(HttpCache.HEADER_IF_NONE_MATCH));
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getMissCount());
+        File[] files = cacheDir.listFiles();
+        assertTrue(files == null || files.length == 0);
+    }
+
+    @Test
+    public void clear_removesAllEntries() throws PaymentException {
+        HttpCache cache = new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE);
+        createLocalizationConnection(cache).loadLocalization(server.getURL("/maxage/lang.json"));
+        assertTrue(cache.getSize() > 0);
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE).getSize());
+    }
+
+    private LocalHttpServer.Response createResponse(LocalHttpServer.Request request) {
+        String path = request.getPath();
+        String type = path.substring(1, path.indexOf('/', 1));
+        if ("list".equals(type)) {
+            return LocalHttpServer.Response.json(200, "{\"resultInfo\": \"list\", \"links\": {}}")
+                .header(HttpCache.HEADER_CACHE_CONTROL, "max-age=3600").header(HttpCache.HEADER_ETAG, ETAG);
+        }
+        LocalHttpServer.Response response = LocalHttpServer.Response.json(200, "{\"type\": \"" + type + "\"}");
+
+        switch (type) {
+            case "maxage":
+                return response.header(HttpCache.HEADER_CACHE_CONTROL, "public, max-age=" + (MAX_AGE_MILLIS / 1000));
+            case "etag":
+                if (ETAG.equals(request.getHeader(HttpCache.HEADER_IF_NONE_MATCH))) {
+                    return LocalHttpServer.Response.bytes(304, new byte[0]).header(HttpCache.HEADER_ETAG, ETAG);
+                }
+                return response.header(HttpCache.HEADER_ETAG, ETAG);
+            case "lastmodified":
+                if (LAST_MODIFIED.equals(request.getHeader(HttpCache.HEADER_IF_MODIFIED_SINCE))) {
+                    return LocalHttpServer.Response.bytes(304, new byte[0]);
+                }
+                return response.header(HttpCache.HEADER_LAST_MODIFIED, LAST_MODIFIED);
+            case "nostore":
+                return response.header(HttpCache.HEADER_CACHE_CONTROL, "no-store").header(HttpCache.HEADER_ETAG, ETAG);
+            case "private":
+                return response.header(HttpCache.HEADER_CACHE_CONTROL, "private, max-age=3600").header(HttpCache.HEADER_ETAG, ETAG);
+            case "nocache":
+                if (ETAG.equals(request.getHeader(HttpCache.HEADER_IF_NONE_MATCH))) {
+                    return LocalHttpServer.Response.bytes(304, new byte[0]);
+                }
+                return response.header(HttpCache.HEADER_CACHE_CONTROL, "no-cache, max-age=3600").header(HttpCache.HEADER_ETAG, ETAG);
+            default:
+                return response;
+        }
+    }
+
+    private LocalizationConnection createLocalizationConnection(HttpCache cache) {
+        Context context = ApplicationProvider.getApplicationContext();
+        LocalizationConnection conn = new LocalizationConnection(context, new KeepAliveHttpTransport());
+        conn.setHttpCache(cache);
+        return conn;
+    }
+
+    private ListConnection createListConnection(HttpCache cache) {
+        Context context = ApplicationProvider.getApplicationContext();
+        ListConnection conn = new ListConnection(context, new KeepAliveHttpTransport());
+        conn.setHttpCache(cache);
+        return conn;
+    }
+}
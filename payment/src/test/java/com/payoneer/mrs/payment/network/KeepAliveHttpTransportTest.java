@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.localization.LocalizationHolder;
+import com.payoneer.mrs.test.util.LocalHttpServer;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+public class KeepAliveHttpTransportTest {
+
+    private final static int REQUEST_COUNT = 10;
+
+    private LocalHttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LocalHttpServer(new LocalHttpServer.Handler() {
+            @Override
+            public LocalHttpServer.Response handle(LocalHttpServer.Request request) {
+                return LocalHttpServer.Response.json(200, "{\"key\":\"value\"}");
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void openConnection_invalidURL_IllegalArgumentException() throws IOException {
+        new KeepAliveHttpTransport().openConnection(null);
+    }
+
+    @Test
+    public void loadLocalization_keepAlive_reusesSocket() throws PaymentException {
+        KeepAliveHttpTransport transport = new KeepAliveHttpTransport();
+        loadLocalizations(transport, server.getURL("/lang/visa.json"));
+
+        assertEquals(REQUEST_COUNT, server.getRequestCount());
+        assertEquals(1, server.getAcceptedCount());
+        assertEquals(REQUEST_COUNT, transport.getConnectionCount());
+    }
+
+    @Test
+    public void loadLocalization_noKeepAlive_socketPerRequest() throws PaymentException {
+        server.setKeepAlive(false);
+        loadLocalizations(new KeepAliveHttpTransport(), server.getURL("/lang/visa.json"));
+
+        assertEquals(REQUEST_COUNT, server.getRequestCount());
+        assertEquals(REQUEST_COUNT, server.getAcceptedCount());
+    }
+
+    @Test
+    public void releaseConnection_unreadBody_drainedAndSocketReused() throws IOException {
+        KeepAliveHttpTransport transport = new KeepAliveHttpTransport();
+        URL url = server.getURL("/lang/visa.json");
+
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            HttpURLConnection conn = transport.openConnection(url);
+            assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+            transport.releaseConnection(conn, true, false);
+        }
+        assertEquals(REQUEST_COUNT, server.getRequestCount());
+        assertEquals(1, server.getAcceptedCount());
+    }
+
+    @Test
+    public void releaseConnection_noResponse_disconnected() throws IOException {
+        KeepAliveHttpTransport transport = new KeepAliveHttpTransport();
+        HttpURLConnection conn = transport.openConnection(server.getURL("/lang/visa.json"));
+        transport.releaseConnection(conn, false, false);
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void releaseConnection_bodyConsumed_streamNotReopened() throws IOException {
+        ClosedBodyConnection conn = new ClosedBodyConnection(server.getURL("/lang/visa.json"));
+        new KeepAliveHttpTransport().releaseConnection(conn, true, true);
+        assertEquals(0, conn.streamRequests);
+        assertFalse(conn.disconnected);
+    }
+
+    @Test
+    public void releaseConnection_unreadBodyClosed_disconnected() throws IOException {
+        ClosedBodyConnection conn = new ClosedBodyConnection(server.getURL("/lang/visa.json"));
+        new KeepAliveHttpTransport().releaseConnection(conn, true, false);
+        assertTrue(conn.disconnected);
+    }
+
+    @Test
+    public void loadLocalization_bodyRead_releasedAsConsumed() throws PaymentException {
+        final List<Boolean> consumed = new ArrayList<>();
+        final KeepAliveHttpTransport transport = new KeepAliveHttpTransport();
+        loadLocalizations(new HttpTransport() {
+            @Override
+            public HttpURLConnection openConnection(URL url) throws IOException {
+                return transport.openConnection(url);
+            }
+
+            @Override
+            public void releaseConnection(HttpURLConnection conn, boolean responseReceived, boolean bodyConsumed) {
+                consumed.add(responseReceived && bodyConsumed);
+                transport.releaseConnection(conn, responseReceived, bodyConsumed);
+            }
+        }, server.getURL("/lang/visa.json"));
+
+        assertEquals(REQUEST_COUNT, consumed.size());
+        assertFalse(consumed.contains(Boolean.FALSE));
+    }
+
+    /**
+     * Connection of which the response body has been consumed and closed, the stream cannot be opened again.
+     * This mimics the behaviour of the Android HttpURLConnection instead of relying on the closed stream of the JDK.
+     */
+    private static class ClosedBodyConnection extends HttpURLConnection {
+
+        int streamRequests;
+        boolean disconnected;
+
+        ClosedBodyConnection(URL url) {
+            super(url);
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            streamRequests++;
+            return new InputStream() {
+                @Override
+                public int read() {
+                    throw new IllegalStateException("closed");
+                }
+            };
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return null;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+            disconnected = true;
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+
+    private void loadLocalizations(HttpTransport transport, URL url) throws PaymentException {
+        Context context = ApplicationProvider.getApplicationContext();
+        LocalizationConnection conn = new LocalizationConnection(context, transport);
+
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            LocalizationHolder holder = conn.loadLocalization(url);
+            assertEquals("value", holder.translate("key"));
+        }
+    }
+}
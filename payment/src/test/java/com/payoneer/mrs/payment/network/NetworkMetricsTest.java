@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.test.util.LocalHttpServer;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkMetricsTest {
+
+    private final static String LIST_JSON = "{\"resultInfo\": \"metrics\", \"links\": {}}";
+    private final static String LANG_JSON = "{\"key\": \"value\"}";
+    private final static long RESPONSE_DELAY = 50;
+
+    private LocalHttpServer server;
+    private File cacheDir;
+    private AtomicInteger failures;
+    private final List<NetworkMetrics> events = Collections.synchronizedList(new ArrayList<NetworkMetrics>());
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDir = Files.createTempDirectory("metrics").toFile();
+        failures = new AtomicInteger();
+        server = new LocalHttpServer(new LocalHttpServer.Handler() {
+            @Override
+            public LocalHttpServer.Response handle(LocalHttpServer.Request request) {
+                if (failures.getAndDecrement() > 0) {
+                    return LocalHttpServer.Response.truncated(LIST_JSON);
+                }
+                if (request.getPath().startsWith("/error")) {
+                    return LocalHttpServer.Response.json(500, "{}");
+                }
+                if (request.getPath().startsWith("/lang")) {
+                    return LocalHttpServer.Response.json(200, LANG_JSON).header(HttpCache.HEADER_CACHE_CONTROL, "max-age=3600");
+                }
+                return LocalHttpServer.Response.json(200, LIST_JSON).header(HttpCache.HEADER_CACHE_CONTROL, "max-age=3600")
+                    .delay(RESPONSE_DELAY);
+            }
+        });
+        server.start();
+        NetworkMetricsDispatcher.getInstance().setListener(new NetworkMetricsListener() {
+            @Override
+            public void onNetworkMetrics(NetworkMetrics metrics) {
+                events.add(metrics);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        NetworkMetricsDispatcher.getInstance().setListener(null);
+        server.shutdown();
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+    }
+
+    @Test
+    public void getListResult_success_phasesRecorded() throws PaymentException {
+        createListConnection(null).getListResult(server.getURL("/lists/123").toString());
+
+        assertEquals(1, events.size());
+        NetworkMetrics metrics = events.get(0);
+        assertEquals(NetworkMetrics.Endpoint.LIST, metrics.getEndpoint());
+        assertEquals("GET", metrics.getMethod());
+        assertEquals(server.getURL("/lists/123"), metrics.getUrl());
+        assertEquals(200, metrics.getStatusCode());
+        assertTrue(metrics.getFirstByteTime() >= RESPONSE_DELAY);
+        assertTrue(metrics.getTotalTime() >= metrics.getFirstByteTime());
+        assertEquals(LIST_JSON.length(), metrics.getBytesReceived());
+        assertEquals(LIST_JSON.length(), metrics.getBytesDecoded());
+        assertEquals(0, metrics.getRetryCount());
+        assertEquals(NetworkMetrics.CacheOutcome.NONE, metrics.getCacheOutcome());
+        assertNull(metrics.getError());
+    }
+
+    @Test
+    public void loadLocalization_cached_hitRecorded() throws PaymentException {
+        Context context = ApplicationProvider.getApplicationContext();
+        LocalizationConnection conn = new LocalizationConnection(context, new KeepAliveHttpTransport());
+        conn.setHttpCache(new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE));
+        URL url = server.getURL("/lang/visa.json");
+        conn.loadLocalization(url);
+        conn.loadLocalization(url);
+
+        assertEquals(2, events.size());
+        assertEquals(NetworkMetrics.CacheOutcome.MISS, events.get(0).getCacheOutcome());
+        NetworkMetrics hit = events.get(1);
+        assertEquals(NetworkMetrics.CacheOutcome.HIT, hit.getCacheOutcome());
+        assertEquals(0, hit.getStatusCode());
+        assertEquals(0, hit.getBytesReceived());
+    }
+
+    @Test
+    public void getListResult_retried_singleEventWithRetryCount() throws PaymentException {
+        failures.set(1);
+        ListConnection conn = createListConnection(null);
+        conn.setRetryPolicy(RetryPolicy.createBuilder().setInitialDelay(10).build());
+        conn.getListResult(server.getURL("/lists/123").toString());
+
+        assertEquals(1, events.size());
+        assertEquals(1, events.get(0).getRetryCount());
+        assertEquals(200, events.get(0).getStatusCode());
+    }
+
+    @Test
+    public void getListResult_errorStatus_errorRecorded() {
+        try {
+            createListConnection(null).getListResult(server.getURL("/error/123").toString());
+            fail("Expected a PaymentException");
+        } catch (PaymentException e) {
+            assertEquals(1, events.size());
+            assertEquals(500, events.get(0).getStatusCode());
+            assertEquals(e, events.get(0).getError());
+        }
+    }
+
+    @Test
+    public void createPaymentSession_post_bytesSentRecorded() throws PaymentException {
+        String listData = "{\"transactionId\": \"1234\"}";
+        createListConnection(null).createPaymentSession(server.getURL("/").toString(), "Basic abc", listData);
+
+        assertEquals(1, events.size());
+        NetworkMetrics metrics = events.get(0);
+        assertEquals("POST", metrics.getMethod());
+        assertEquals(NetworkMetrics.Endpoint.LIST, metrics.getEndpoint());
+        assertEquals(listData.length(), metrics.getBytesSent());
+        assertEquals(NetworkMetrics.CacheOutcome.NONE, metrics.getCacheOutcome());
+    }
+
+    @Test
+    public void getListResult_listenerThrows_requestSucceeds() throws PaymentException {
+        NetworkMetricsDispatcher.getInstance().setListener(new NetworkMetricsListener() {
+            @Override
+            public void onNetworkMetrics(NetworkMetrics metrics) {
+                throw new IllegalStateException("listener failed");
+            }
+        });
+        assertNotNull(createListConnection(null).getListResult(server.getURL("/lists/123").toString()));
+    }
+
+    @Test
+    public void getListResult_noListener_nothingRecorded() throws PaymentException {
+        NetworkMetricsDispatcher dispatcher = NetworkMetricsDispatcher.getInstance();
+        dispatcher.setListener(null);
+        assertNull(dispatcher.startRecording(NetworkMetrics.Endpoint.LIST, "GET"));
+
+        createListConnection(null).getListResult(server.getURL("/lists/123").toString());
+        assertTrue(events.isEmpty());
+    }
+
+    private ListConnection createListConnection(HttpCache cache) {
+        Context context = ApplicationProvider.getApplicationContext();
+        ListConnection conn = new ListConnection(context, new KeepAliveHttpTransport());
+        conn.setHttpCache(cache);
+        return conn;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.model.ListResult;
+import com.payoneer.mrs.test.util.LocalHttpServer;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+public class RetryPolicyTest {
+
+    private final static String LIST_JSON = "{\"resultInfo\": \"retry\", \"links\": {}}";
+
+    private LocalHttpServer server;
+    private AtomicInteger failures;
+    private volatile int status;
+
+    @Before
+    public void setUp() throws IOException {
+        failures = new AtomicInteger();
+        status = 200;
+        server = new LocalHttpServer(new LocalHttpServer.Handler() {
+            @Override
+            public LocalHttpServer.Response handle(LocalHttpServer.Request request) {
+                if (failures.getAndDecrement() > 0) {
+                    return LocalHttpServer.Response.truncated(LIST_JSON);
+                }
+                return LocalHttpServer.Response.json(status, LIST_JSON);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxAttempts_invalidMaxAttempts_IllegalArgumentException() {
+        RetryPolicy.createBuilder().setMaxAttempts(0);
+    }
+
+    @Test
+    public void getDelay_exponentialBackoff_withinBounds() {
+        RetryPolicy policy = RetryPolicy.createBuilder().setInitialDelay(100).setMaxDelay(1000).build();
+        assertEquals(100, policy.getDelayBound(1));
+        assertEquals(200, policy.getDelayBound(2));
+        assertEquals(400, policy.getDelayBound(3));
+        assertEquals(1000, policy.getDelayBound(5));
+        assertEquals(1000, policy.getDelayBound(100));
+
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.getDelay(3);
+            assertTrue(delay >= 0 && delay <= 400);
+        }
+    }
+
+    @Test
+    public void getListResult_lostConnections_succeedsAfterRetries() throws PaymentException {
+        failures.set(2);
+        RecordingListener listener = new RecordingListener();
+        ListConnection conn = createListConnection(createPolicy(3, 10000, listener));
+
+        ListResult result = conn.getListResult(server.getURL("/lists/123").toString());
+        assertNotNull(result);
+        assertEquals(3, server.getRequestCount());
+        assertEquals(2, listener.retries.size());
+        assertEquals(Integer.valueOf(1), listener.retries.get(0));
+        assertEquals(Integer.valueOf(2), listener.retries.get(1));
+        assertEquals(3, listener.attempts);
+        assertNull(listener.cause);
+    }
+
+    @Test
+    public void getListResult_maxAttemptsReached_networkFailure() {
+        failures.set(10);
+        RecordingListener listener = new RecordingListener();
+        ListConnection conn = createListConnection(createPolicy(3, 10000, listener));
+
+        try {
+            conn.getListResult(server.getURL("/lists/123").toString());
+            fail("Expected a PaymentException");
+        } catch (PaymentException e) {
+            assertTrue(e.getNetworkFailure());
+        }
+        assertEquals(3, server.getRequestCount());
+        assertEquals(2, listener.retries.size());
+        assertEquals(3, listener.attempts);
+        assertNotNull(listener.cause);
+    }
+
+    @Test
+    public void getListResult_errorStatus_notRetried() {
+        status = 500;
+        RecordingListener listener = new RecordingListener();
+        ListConnection conn = createListConnection(createPolicy(3, 10000, listener));
+
+        try {
+            conn.getListResult(server.getURL("/lists/123").toString());
+            fail("Expected a PaymentException");
+        } catch (PaymentException e) {
+            assertFalse(e.getNetworkFailure());
+        }
+        assertEquals(1, server.getRequestCount());
+        assertTrue(listener.retries.isEmpty());
+    }
+
+    @Test
+    public void getListResult_deadlineExceeded_noFurtherAttempts() {
+        failures.set(10);
+        RetryPolicy policy = RetryPolicy.createBuilder().setMaxAttempts(10).setInitialDelay(200).setMaxDelay(200).setDeadline(1).build();
+        ListConnection conn = createListConnection(policy);
+
+        try {
+            conn.getListResult(server.getURL("/lists/123").toString());
+            fail("Expected a PaymentException");
+        } catch (PaymentException e) {
+            assertTrue(e.getNetworkFailure());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void getListResult_noRetryPolicy_singleAttempt() {
+        failures.set(1);
+        ListConnection conn = createListConnection(RetryPolicy.createNoRetry());
+
+        try {
+            conn.getListResult(server.getURL("/lists/123").toString());
+            fail("Expected a PaymentException");
+        } catch (PaymentException e) {
+            assertTrue(e.getNetworkFailure());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private RetryPolicy createPolicy(int maxAttempts, long deadline, RetryPolicy.Listener listener) {
+        return RetryPolicy.createBuilder().setMaxAttempts(maxAttempts).setInitialDelay(10).setMaxDelay(50).setDeadline(deadline)
+            .setListener(listener).build();
+    }
+
+    private ListConnection createListConnection(RetryPolicy policy) {
+        Context context = ApplicationProvider.getApplicationContext();
+        ListConnection conn = new ListConnection(context, new KeepAliveHttpTransport());
+        conn.setHttpCache(null);
+        conn.setRetryPolicy(policy);
+        return conn;
+    }
+
+    private static final class RecordingListener implements RetryPolicy.Listener {
+        final List<Integer> retries = Collections.synchronizedList(new ArrayList<Integer>());
+        volatile int attempts;
+        volatile IOException cause;
+
+        @Override
+        public void onRetry(URL url, int attempt, long delay, IOException cause) {
+            retries.add(attempt);
+        }
+
+        @Override
+        public void onComplete(URL url, int attempts, IOException cause) {
+            this.attempts = attempts;
+            this.cause = cause;
+        }
+    }
+}
@@ -8,9 +8,13 @@
 
 package com.payoneer.mrs.payment.resource;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Test;
@@ -65,6 +69,86 @@ public class ResourceLoaderTest {
         validateGroup(validations, "MAESTROUK");
     }
 
+    @Test
+    public void loadPaymentGroups_precompiled_equalToJson() throws PaymentException {
+        Resources res = ApplicationProvider.getApplicationContext().getResources();
+        Map<String, PaymentGroup> expected = ResourceLoader.loadPaymentGroups(res, R.raw.groups);
+        Map<String, PaymentGroup> groups = ResourceLoader.loadPaymentGroups();
+        assertEquals(expected.keySet(), groups.keySet());
+
+        for (Map.Entry<String, PaymentGroup> entry : expected.entrySet()) {
+            List<PaymentGroupItem> expectedItems = entry.getValue().getPaymentGroupItems();
+            List<PaymentGroupItem> items = groups.get(entry.getKey()).getPaymentGroupItems();
+            assertEquals(expectedItems.size(), items.size());
+
+            for (int i = 0; i < expectedItems.size(); i++) {
+                assertEquals(expectedItems.get(i).getCode(), items.get(i).getCode());
+                assertEquals(expectedItems.get(i).getRegex(), items.get(i).getRegex());
+            }
+        }
+    }
+
+    @Test
+    public void loadValidations_precompiled_equalToJson() throws PaymentException {
+        Resources res = ApplicationProvider.getApplicationContext().getResources();
+        Map<String, ValidationGroup> expected = ResourceLoader.loadValidations(res, R.raw.validations);
+        Map<String, ValidationGroup> validations = ResourceLoader.loadValidations();
+        assertEquals(expected.keySet(), validations.keySet());
+
+        for (Map.Entry<String, ValidationGroup> entry : expected.entrySet()) {
+            List<ValidationGroupItem> expectedItems = entry.getValue().getValidationGroupItems();
+            List<ValidationGroupItem> items = validations.get(entry.getKey()).getValidationGroupItems();
+            assertEquals(expectedItems.size(), items.size());
+
+            for (int i = 0; i < expectedItems.size(); i++) {
+                ValidationGroupItem expectedItem = expectedItems.get(i);
+                ValidationGroupItem item = items.get(i);
+                assertEquals(expectedItem.getType(), item.getType());
+                assertEquals(expectedItem.getRegex(), item.getRegex());
+                assertEquals(expectedItem.getHide(), item.getHide());
+                assertEquals(expectedItem.getMaxLength(), item.getMaxLength());
+            }
+        }
+    }
+
+    @Test
+    public void isPrecompiled_defaultResources_true() throws PaymentException {
+        Resources res = ApplicationProvider.getApplicationContext().getResources();
+        assertTrue(ResourceLoader.isPrecompiled(res, R.raw.groups, PrecompiledResources.GROUPS_LENGTH,
+            PrecompiledResources.GROUPS_CHECKSUM));
+        assertTrue(ResourceLoader.isPrecompiled(res, R.raw.validations, PrecompiledResources.VALIDATIONS_LENGTH,
+            PrecompiledResources.VALIDATIONS_CHECKSUM));
+    }
+
+    @Test
+    public void isPrecompiled_otherResource_false() throws PaymentException {
+        Resources res = ApplicationProvider.getApplicationContext().getResources();
+        assertFalse(ResourceLoader.isPrecompiled(res, R.raw.validations, PrecompiledResources.GROUPS_LENGTH,
+            PrecompiledResources.GROUPS_CHECKSUM));
+        assertFalse(ResourceLoader.isPrecompiled(res, R.raw.groups, PrecompiledResources.GROUPS_LENGTH,
+            PrecompiledResources.GROUPS_CHECKSUM + 1));
+    }
+
+    @Test(expected = PaymentException.class)
+    public void isPrecompiled_invalidResourceId() throws PaymentException {
+        Resources res = ApplicationProvider.getApplicationContext().getResources();
+        ResourceLoader.isPrecompiled(res, 0, PrecompiledResources.GROUPS_LENGTH, PrecompiledResources.GROUPS_CHECKSUM);
+    }
+
+    @Test
+    public void loadPaymentGroups_resources_equalToJson() throws PaymentException {
+        Resources res = ApplicationProvider.getApplicationContext().getResources();
+        Map<String, PaymentGroup> expected = ResourceLoader.loadPaymentGroups(res, R.raw.groups);
+        assertEquals(expected.keySet(), ResourceLoader.loadPaymentGroups(res).keySet());
+    }
+
+    @Test
+    public void loadValidations_resources_equalToJson() throws PaymentException {
+        Resources res = ApplicationProvider.getApplicationContext().getResources();
+        Map<String, ValidationGroup> expected = ResourceLoader.loadValidations(res, R.raw.validations);
+        assertEquals(expected.keySet(), ResourceLoader.loadValidations(res).keySet());
+    }
+
     @Test(expected = IOException.class)
     public void readRawResource_invalidResourceId() throws IOException {
         Resources res = ApplicationProvider.getApplicationContext().getResources();
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.validation.Validator;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+public class ResourceRegistryTest {
+
+    @After
+    public void tearDown() {
+        ResourceRegistry.getInstance().invalidate();
+    }
+
+    @Test
+    public void getPaymentGroups_loadedOnce_sameInstance() throws PaymentException {
+        Context context = ApplicationProvider.getApplicationContext();
+        ResourceRegistry registry = ResourceRegistry.getInstance();
+        Map<String, PaymentGroup> groups = registry.getPaymentGroups(context);
+        int loadCount = registry.getLoadCount();
+
+        assertNotNull(groups.get("VISA"));
+        assertSame(groups, registry.getPaymentGroups(context));
+        assertEquals(loadCount, registry.getLoadCount());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getPaymentGroups_immutable_UnsupportedOperationException() throws PaymentException {
+        Context context = ApplicationProvider.getApplicationContext();
+        ResourceRegistry.getInstance().getPaymentGroups(context).clear();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getPaymentGroups_groupItemsImmutable_UnsupportedOperationException() throws PaymentException {
+        Context context = ApplicationProvider.getApplicationContext();
+        ResourceRegistry.getInstance().getPaymentGroups(context).get("VISA").getPaymentGroupItems().clear();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getPaymentGroups_setPaymentGroupItems_UnsupportedOperationException() throws PaymentException {
+        Context context = ApplicationProvider.getApplicationContext();
+        ResourceRegistry.getInstance().getPaymentGroups(context).get("VISA").setPaymentGroupItems(new ArrayList<PaymentGroupItem>());
+    }
+
+    @Test
+    public void getPaymentGroups_copiesLoadedGroups_loadedGroupsMutable() throws PaymentException {
+        Context context = ApplicationProvider.getApplicationContext();
+        Map<String, PaymentGroup> groups = ResourceRegistry.getInstance().getPaymentGroups(context);
+        PaymentGroup loaded = ResourceLoader.loadPaymentGroups(context.getResources()).get("VISA");
+        PaymentGroup group = groups.get("VISA");
+
+        assertNotSame(loaded, group);
+        assertEquals(loaded.getPaymentGroupItems().size(), group.getPaymentGroupItems().size());
+        // all codes of a group still share the same PaymentGroup
+        for (PaymentGroupItem item : group.getPaymentGroupItems()) {
+            assertSame(group, groups.get(item.getCode()));
+        }
+        loaded.setPaymentGroupItems(new ArrayList<PaymentGroupItem>());
+        assertTrue(loaded.getPaymentGroupItems().isEmpty());
+    }
+
+    @Test
+    public void getValidator_loadedOnce_sameInstance() throws PaymentException {
+        Context context = ApplicationProvider.getApplicationContext();
+        ResourceRegistry registry = ResourceRegistry.getInstance();
+        Validator validator = registry.getValidator(context);
+        assertNotNull(validator.getValidationRegex("VISA", "number"));
+        assertSame(validator, registry.getValidator(context));
+    }
+
+    @Test
+    public void invalidate_loadedAgain() throws PaymentException {
+        Context context = ApplicationProvider.getApplicationContext();
+        ResourceRegistry registry = ResourceRegistry.getInstance();
+        Validator validator = registry.getValidator(context);
+        registry.invalidate();
+        assertNotSame(validator, registry.getValidator(context));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.model.ApplicableNetwork;
+import com.payoneer.mrs.payment.resource.PaymentGroup;
+import com.payoneer.mrs.payment.resource.PaymentGroupItem;
+import com.payoneer.mrs.payment.resource.ResourceLoader;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkPrefixMatcherTest {
+
+    @Test
+    public void compile_groupRegexes_allInTrie() {
+        Map<String, String> regexes = loadGroupRegexes();
+        NetworkPrefixMatcher matcher = NetworkPrefixMatcher.compile(regexes);
+        assertEquals(7, regexes.size());
+        assertEquals(regexes.size(), matcher.getPrefixCodeCount());
+    }
+
+    @Test
+    public void match_allPrefixes_sameAsRegex() {
+        Map<String, String> regexes = loadGroupRegexes();
+        NetworkPrefixMatcher matcher = NetworkPrefixMatcher.compile(regexes);
+        Map<String, Pattern> patterns = compilePatterns(regexes);
+
+        // all digit strings up to 6 digits, this covers every prefix in the groups
+        StringBuilder sb = new StringBuilder();
+        assertSameAsRegex(matcher, patterns, "");
+        for (int length = 1; length <= 6; length++) {
+            int count = (int) Math.pow(10, length);
+            for (int i = 0; i < count; i++) {
+                sb.setLength(0);
+                String digits = Integer.toString(i);
+                for (int j = digits.length(); j < length; j++) {
+                    sb.append('0');
+                }
+                assertSameAsRegex(matcher, patterns, sb.append(digits).toString());
+            }
+        }
+    }
+
+    @Test
+    public void match_longAndInvalidText_sameAsRegex() {
+        Map<String, String> regexes = loadGroupRegexes();
+        NetworkPrefixMatcher matcher = NetworkPrefixMatcher.compile(regexes);
+        Map<String, Pattern> patterns = compilePatterns(regexes);
+        Random random = new Random(21);
+        String chars = "0123456789 a-";
+
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 7 + random.nextInt(13);
+            for (int j = 0; j < length; j++) {
+                sb.append(random.nextInt(10) == 0 ? chars.charAt(random.nextInt(chars.length())) : (char) ('0' + random.nextInt(10)));
+            }
+            assertSameAsRegex(matcher, patterns, sb.toString());
+        }
+    }
+
+    @Test
+    public void parsePrefixes_supportedRegexes() {
+        List<int[]> prefixes = NetworkPrefixMatcher.parsePrefixes("^(2014|3[689])[0-9]*$");
+        assertNotNull(prefixes);
+        assertEquals(2, prefixes.size());
+        assertEquals(4, prefixes.get(0).length);
+        assertEquals(2, prefixes.get(1).length);
+        assertEquals((1 << 6) | (1 << 8) | (1 << 9), prefixes.get(1)[1]);
+
+        assertNotNull(NetworkPrefixMatcher.parsePrefixes("4[0-9]*"));
+        assertNotNull(NetworkPrefixMatcher.parsePrefixes("^2[3-6]\\d{2}[0-9]*$"));
+    }
+
+    @Test
+    public void parsePrefixes_unsupportedRegexes() {
+        assertNull(NetworkPrefixMatcher.parsePrefixes("^4[0-9]{12}$"));
+        assertNull(NetworkPrefixMatcher.parsePrefixes("^4|5[0-9]*$"));
+        assertNull(NetworkPrefixMatcher.parsePrefixes("^(4|5)+[0-9]*$"));
+        assertNull(NetworkPrefixMatcher.parsePrefixes("^([^4])[0-9]*$"));
+        assertNull(NetworkPrefixMatcher.parsePrefixes("^(4[0-9]{9})[0-9]*$"));
+        assertNull(NetworkPrefixMatcher.parsePrefixes("^([0-9]{4})[0-9]*$"));
+    }
+
+    @Test
+    public void isSelected_unsupportedRegex_matchedByPattern() {
+        Map<String, String> regexes = new LinkedHashMap<>();
+        regexes.put("VISA", "^4[0-9]*$");
+        regexes.put("OTHER", "^4[0-9]{3}$");
+        NetworkPrefixMatcher matcher = NetworkPrefixMatcher.compile(regexes);
+        assertEquals(1, matcher.getPrefixCodeCount());
+
+        long match = matcher.match("4111");
+        assertTrue(matcher.isSelected("VISA", "4111", match));
+        assertTrue(matcher.isSelected("OTHER", "4111", match));
+        match = matcher.match("41111");
+        assertTrue(matcher.isSelected("VISA", "41111", match));
+        assertFalse(matcher.isSelected("OTHER", "41111", match));
+        assertFalse(matcher.isSelected("UNKNOWN", "41111", match));
+    }
+
+    @Test
+    public void validate_smartSwitch_selectsNetworksInOrder() {
+        List<PaymentNetwork> networks = new ArrayList<>();
+        SmartSwitch smartSwitch = new SmartSwitch(networks);
+        for (Map.Entry<String, String> entry : loadGroupRegexes().entrySet()) {
+            ApplicableNetwork network = new ApplicableNetwork();
+            network.setCode(entry.getKey());
+            networks.add(new PaymentNetwork(network));
+            smartSwitch.addSelectionRegex(entry.getKey(), entry.getValue());
+        }
+        assertFalse(smartSwitch.validate("3"));
+        assertTrue(smartSwitch.validate("36"));
+        assertEquals(1, smartSwitch.getSelectedCount());
+        assertEquals("DINERS", smartSwitch.getFirstSelected().getCode());
+
+        assertTrue(smartSwitch.validate("35"));
+        assertEquals(1, smartSwitch.getSelectedCount());
+        assertEquals("JCB", smartSwitch.getFirstSelected().getCode());
+        assertFalse(smartSwitch.validate("3528"));
+
+        assertTrue(smartSwitch.validate("622126"));
+        assertEquals(2, smartSwitch.getSelectedCount());
+        assertSame(networks.get(0), smartSwitch.getFirstSelected());
+
+        assertTrue(smartSwitch.validate("1"));
+        assertEquals(0, smartSwitch.getSelectedCount());
+        assertNull(smartSwitch.getFirstSelected());
+    }
+
+    private static void assertSameAsRegex(NetworkPrefixMatcher matcher, Map<String, Pattern> patterns, String text) {
+        long match = matcher.match(text);
+        for (Map.Entry<String, Pattern> entry : patterns.entrySet()) {
+            boolean expected = entry.getValue().matcher(text).matches();
+            assertEquals(entry.getKey() + " " + text, expected, matcher.isSelected(entry.getKey(), text, match));
+        }
+    }
+
+    private static Map<String, Pattern> compilePatterns(Map<String, String> regexes) {
+        Map<String, Pattern> patterns = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : regexes.entrySet()) {
+            patterns.put(entry.getKey(), Pattern.compile(entry.getValue()));
+        }
+        return patterns;
+    }
+
+    private static Map<String, String> loadGroupRegexes() {
+        Map<String, String> regexes = new LinkedHashMap<>();
+        for (PaymentGroup group : ResourceLoader.loadPaymentGroups().values()) {
+            for (PaymentGroupItem item : group.getPaymentGroupItems()) {
+                regexes.put(item.getCode(), item.getRegex());
+            }
+        }
+        return regexes;
+    }
+}
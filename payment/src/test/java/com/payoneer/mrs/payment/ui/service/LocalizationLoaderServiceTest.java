@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.VirtualScheduler;
+import com.payoneer.mrs.payment.core.WorkerTask;
+import com.payoneer.mrs.payment.localization.Localization;
+import com.payoneer.mrs.payment.model.ListResult;
+import com.payoneer.mrs.payment.ui.model.PaymentSession;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+public class LocalizationLoaderServiceTest {
+
+    private final static String LIST_URL = "https://api.sandbox.oscato.com/pci/v1/lists/123";
+
+    private VirtualScheduler scheduler;
+    private List<Object> results;
+    private LocalizationLoaderService service;
+
+    @Before
+    public void setUp() {
+        scheduler = new VirtualScheduler();
+        scheduler.install();
+        results = new ArrayList<>();
+
+        Context context = ApplicationProvider.getApplicationContext();
+        service = new LocalizationLoaderService(context);
+        service.setListener(new LocalizationLoaderListener() {
+            @Override
+            public void onLocalizationSuccess(Localization localization) {
+                results.add(localization);
+            }
+
+            @Override
+            public void onLocalizationError(Throwable cause) {
+                results.add(cause);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.uninstall();
+        PaymentSessionRepository.getInstance().clear();
+    }
+
+    @Test
+    public void loadLocalizations_stored_deliveredToListener() {
+        PaymentSession session = putPaymentSession();
+        Localization localization = new Localization(null, new HashMap<>());
+        PaymentSessionRepository.getInstance().putLocalization(session, localization);
+
+        service.loadLocalizations(ApplicationProvider.getApplicationContext(), session);
+        assertTrue(results.isEmpty());
+        scheduler.runUntilIdle();
+
+        assertEquals(1, results.size());
+        assertSame(localization, results.get(0));
+    }
+
+    @Test
+    public void loadLocalizations_preloading_chainedWithoutBlockingWorker() {
+        PaymentSession session = putPaymentSession();
+        final Localization localization = new Localization(null, new HashMap<>());
+        WorkerTask<Localization> preloadTask = WorkerTask.fromCallable(new Callable<Localization>() {
+            @Override
+            public Localization call() {
+                return localization;
+            }
+        });
+        PaymentSessionRepository.getInstance().putLocalizationTask(session, preloadTask);
+
+        // the preloading task has not run yet, waiting for it would block the scheduler forever
+        service.loadLocalizations(ApplicationProvider.getApplicationContext(), session);
+        scheduler.runUntilIdle();
+        assertTrue(results.isEmpty());
+
+        preloadTask.run();
+        scheduler.runUntilIdle();
+        assertEquals(1, results.size());
+        assertSame(localization, results.get(0));
+    }
+
+    @Test
+    public void stop_preloading_preloadTaskNotCancelled() throws Exception {
+        PaymentSession session = putPaymentSession();
+        final Localization localization = new Localization(null, new HashMap<>());
+        WorkerTask<Localization> preloadTask = WorkerTask.fromCallable(new Callable<Localization>() {
+            @Override
+            public Localization call() {
+                return localization;
+            }
+        });
+        PaymentSessionRepository.getInstance().putLocalizationTask(session, preloadTask);
+
+        service.loadLocalizations(ApplicationProvider.getApplicationContext(), session);
+        scheduler.runUntilIdle();
+        service.stop();
+        assertFalse(preloadTask.isCancelled());
+
+        // the preloaded localization is still delivered to the next payment page
+        preloadTask.run();
+        assertSame(localization, preloadTask.get());
+        service.loadLocalizations(ApplicationProvider.getApplicationContext(), session);
+        scheduler.runUntilIdle();
+        assertEquals(1, results.size());
+        assertSame(localization, results.get(0));
+    }
+
+    private static PaymentSession putPaymentSession() {
+        PaymentSession session = new PaymentSession(new ListResult(), null, new ArrayList<>(), new ArrayList<>(), null);
+        PaymentSessionRepository.getInstance().putPaymentSession(LIST_URL, session);
+        return session;
+    }
+}
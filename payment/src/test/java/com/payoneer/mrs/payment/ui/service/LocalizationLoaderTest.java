@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.PaymentException;
+import com.payoneer.mrs.payment.core.VirtualScheduler;
+import com.payoneer.mrs.payment.localization.LocalizationCache;
+import com.payoneer.mrs.payment.localization.LocalizationHolder;
+import com.payoneer.mrs.payment.network.HttpCache;
+import com.payoneer.mrs.payment.network.LocalizationConnection;
+import com.payoneer.mrs.test.util.LocalHttpServer;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+public class LocalizationLoaderTest {
+
+    private final static long FILE_DELAY = 150;
+    private final static long SLOWEST_FILE_DELAY = 300;
+    private final static long MAX_AGE_MILLIS = 3600 * 1000L;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private LocalHttpServer server;
+    private ExecutorService executor;
+    private LocalizationConnection connection;
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LocalHttpServer(new LocalHttpServer.Handler() {
+            @Override
+            public LocalHttpServer.Response handle(LocalHttpServer.Request request) {
+                String path = request.getPath();
+                if (path.contains("FAILED")) {
+                    return LocalHttpServer.Response.json(500, "{}");
+                }
+                long delay = path.contains("SLOWEST") ? SLOWEST_FILE_DELAY : FILE_DELAY;
+                int current = inFlight.incrementAndGet();
+                int max;
+                while (current > (max = maxInFlight.get()) && !maxInFlight.compareAndSet(max, current)) {
+                    // retry until the max number of requests in flight has been updated
+                }
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                return LocalHttpServer.Response.json(200, "{\"path\": \"" + path + "\"}")
+                    .header("Cache-Control", "public, max-age=" + (MAX_AGE_MILLIS / 1000));
+            }
+        });
+        server.start();
+        cacheDir = Files.createTempDirectory("localizationloader").toFile();
+        executor = Executors.newCachedThreadPool();
+
+        Context context = ApplicationProvider.getApplicationContext();
+        connection = new LocalizationConnection(context);
+        connection.setHttpCache(null);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        server.shutdown();
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void construct_invalidMaxConcurrency_IllegalArgumentException() {
+        new LocalizationLoader(connection, new LocalizationCache(), executor, 0);
+    }
+
+    @Test
+    public void load_duplicateURLs_fetchedOnce() throws PaymentException {
+        LocalizationLoader loader = new LocalizationLoader(connection, new LocalizationCache(), executor, 4);
+        List<URL> urls = createURLs("shared", "VISA", "MASTERCARD", "VISA", "SEPA", "MASTERCARD");
+        Map<String, LocalizationHolder> holders = loader.load(urls, Locale.ENGLISH);
+
+        assertEquals(4, server.getRequestCount());
+        assertEquals(4, holders.size());
+        for (URL url : urls) {
+            assertEquals(url.getPath(), holders.get(url.toString()).translate("path"));
+        }
+    }
+
+    @Test
+    public void load_resultsInRequestedOrder() throws PaymentException {
+        LocalizationLoader loader = new LocalizationLoader(connection, new LocalizationCache(), executor, 4);
+        List<URL> urls = createURLs("shared", "SLOWEST", "VISA", "MASTERCARD", "SEPA", "AMEX");
+        Map<String, LocalizationHolder> holders = loader.load(urls, Locale.ENGLISH);
+
+        List<String> expected = new ArrayList<>();
+        for (URL url : urls) {
+            expected.add(url.toString());
+        }
+        assertEquals(expected, new ArrayList<>(holders.keySet()));
+    }
+
+    @Test
+    public void load_cachedLocalizations_notFetched() throws PaymentException {
+        connection.setHttpCache(new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE));
+        LocalizationLoader loader = new LocalizationLoader(connection, new LocalizationCache(), executor, 4);
+        Map<String, LocalizationHolder> first = loader.load(createURLs("shared", "VISA"), Locale.ENGLISH);
+        Map<String, LocalizationHolder> second = loader.load(createURLs("shared", "VISA", "MASTERCARD"), Locale.ENGLISH);
+
+        assertEquals(3, server.getRequestCount());
+        for (String key : first.keySet()) {
+            assertSame(first.get(key), second.get(key));
+        }
+    }
+
+    @Test
+    public void load_httpFreshnessExpired_fetchedAgain() throws PaymentException {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        scheduler.install();
+        try {
+            connection.setHttpCache(new HttpCache(cacheDir, HttpCache.DEFAULT_MAX_SIZE));
+            LocalizationLoader loader = new LocalizationLoader(connection, new LocalizationCache(), executor, 4);
+            List<URL> urls = createURLs("VISA");
+            LocalizationHolder first = loader.load(urls, Locale.ENGLISH).get(urls.get(0).toString());
+
+            scheduler.advanceBy(MAX_AGE_MILLIS - 1);
+            assertSame(first, loader.load(urls, Locale.ENGLISH).get(urls.get(0).toString()));
+            assertEquals(1, server.getRequestCount());
+
+            // the memory cache never outlives the Cache-Control freshness of the language file
+            scheduler.advanceBy(1);
+            assertNotSame(first, loader.load(urls, Locale.ENGLISH).get(urls.get(0).toString()));
+            assertEquals(2, server.getRequestCount());
+        } finally {
+            scheduler.uninstall();
+        }
+    }
+
+    @Test
+    public void load_httpCacheDisabled_fetchedAgain() throws PaymentException {
+        LocalizationLoader loader = new LocalizationLoader(connection, new LocalizationCache(), executor, 4);
+        loader.load(createURLs("VISA"), Locale.ENGLISH);
+        loader.load(createURLs("VISA"), Locale.ENGLISH);
+
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void load_concurrent_allFilesInFlightTogether() throws PaymentException {
+        List<URL> urls = createURLs("shared", "SLOWEST", "VISA", "MASTERCARD", "SEPA", "AMEX");
+        LocalizationLoader loader = new LocalizationLoader(connection, new LocalizationCache(), executor, urls.size());
+        long start = System.nanoTime();
+        loader.load(urls, Locale.ENGLISH);
+        long loadTime = (System.nanoTime() - start) / 1000000L;
+
+        assertTrue("load: " + loadTime + "ms", loadTime >= SLOWEST_FILE_DELAY);
+        assertEquals(urls.size(), server.getRequestCount());
+        assertTrue("in flight: " + maxInFlight.get(), maxInFlight.get() > 1);
+    }
+
+    @Test
+    public void load_maxConcurrency_limitsParallelDownloads() throws PaymentException {
+        List<URL> urls = createURLs("shared", "VISA", "MASTERCARD", "SEPA");
+        LocalizationLoader loader = new LocalizationLoader(connection, new LocalizationCache(), executor, 2);
+        long start = System.nanoTime();
+        loader.load(urls, Locale.ENGLISH);
+        long loadTime = (System.nanoTime() - start) / 1000000L;
+
+        // four files with two downloads at a time take at least two rounds
+        assertTrue("load: " + loadTime + "ms", loadTime >= 2 * FILE_DELAY);
+        assertEquals(4, server.getRequestCount());
+        assertTrue("in flight: " + maxInFlight.get(), maxInFlight.get() <= 2);
+    }
+
+    @Test
+    public void load_helpersNeverStarted_loadedByCallingThread() throws PaymentException {
+        // the virtual executor only runs the helpers when the scheduler is advanced, i.e. a fully saturated executor
+        VirtualScheduler scheduler = new VirtualScheduler();
+        LocalizationLoader loader = new LocalizationLoader(connection, new LocalizationCache(), scheduler.createExecutor(), 4);
+        List<URL> urls = createURLs("shared", "VISA", "MASTERCARD", "SEPA");
+        Map<String, LocalizationHolder> holders = loader.load(urls, Locale.ENGLISH);
+
+        assertEquals(4, holders.size());
+        assertEquals(4, server.getRequestCount());
+
+        // the cancelled helpers do not download anything when they are finally run
+        scheduler.runUntilIdle();
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    public void load_failedFile_PaymentException() {
+        LocalizationLoader loader = new LocalizationLoader(connection, new LocalizationCache(), executor, 4);
+        try {
+            loader.load(createURLs("shared", "VISA", "FAILED"), Locale.ENGLISH);
+            fail("Expected PaymentException");
+        } catch (PaymentException e) {
+            // expected
+        }
+    }
+
+    private List<URL> createURLs(String... codes) {
+        List<URL> urls = new ArrayList<>();
+        for (String code : Arrays.asList(codes)) {
+            urls.add(server.getURL("/lang/" + code + ".json"));
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.VirtualScheduler;
+import com.payoneer.mrs.payment.core.WorkerTask;
+import com.payoneer.mrs.payment.core.Workers;
+import com.payoneer.mrs.payment.localization.Localization;
+import com.payoneer.mrs.payment.ui.model.PaymentSession;
+import com.payoneer.mrs.test.util.LocalHttpServer;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+
+@RunWith(RobolectricTestRunner.class)
+public class PaymentSessionPrefetcherTest {
+
+    private final static long LIST_DELAY = 300;
+
+    private LocalHttpServer server;
+    private String listUrl;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LocalHttpServer(new LocalHttpServer.Handler() {
+            @Override
+            public LocalHttpServer.Response handle(LocalHttpServer.Request request) {
+                if (request.getPath().startsWith("/lists")) {
+                    return LocalHttpServer.Response.json(200, createListJson()).delay(LIST_DELAY);
+                }
+                return LocalHttpServer.Response.json(200, "{\"account.label\": \"" + request.getPath() + "\"}");
+            }
+        });
+        server.start();
+        listUrl = server.getURL("/lists/123").toString();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        PaymentSessionPrefetcher prefetcher = PaymentSessionPrefetcher.getInstance();
+        prefetcher.invalidate();
+        prefetcher.setMaxAge(PaymentSessionPrefetcher.DEFAULT_MAX_AGE);
+        server.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxAge_invalidMaxAge_IllegalArgumentException() {
+        PaymentSessionPrefetcher.getInstance().setMaxAge(0);
+    }
+
+    @Test
+    public void takePaymentSession_inFlight_completesWithPrefetch() throws Exception {
+        PaymentSessionPrefetcher prefetcher = PaymentSessionPrefetcher.getInstance();
+        prefetcher.prefetch(getContext(), listUrl);
+        // prefetching the same list again must not start a second request
+        prefetcher.prefetch(getContext(), listUrl);
+
+        PaymentSession session = prefetcher.takePaymentSession(listUrl).get();
+        assertNotNull(session);
+        assertEquals(listUrl, session.getListUrl());
+        assertEquals(1, countRequests("/lists"));
+        assertNull(prefetcher.takePaymentSession(listUrl));
+    }
+
+    @Test
+    public void takeLocalization_prefetchedSession_localizationLoaded() throws Exception {
+        PaymentSessionPrefetcher prefetcher = PaymentSessionPrefetcher.getInstance();
+        prefetcher.prefetch(getContext(), listUrl);
+
+        PaymentSession session = prefetcher.takePaymentSession(listUrl).get();
+        Localization localization = prefetcher.takeLocalization(session).get();
+        assertNotNull(localization);
+        Localization.setInstance(localization);
+        assertEquals("/lang/shared.json", Localization.translate("account.label"));
+        assertEquals("/lang/VISA.json", Localization.translate("VISA", "account.label"));
+        assertEquals(2, countRequests("/lang"));
+        assertNull(prefetcher.takeLocalization(session));
+    }
+
+    @Test
+    public void takeLocalization_networkLaneUnavailable_prefetchedOnBackgroundLane() throws Exception {
+        // a shut down executor rejects every task, the prefetch must not use the network lane
+        ExecutorService networkExecutor = Executors.newSingleThreadExecutor();
+        networkExecutor.shutdown();
+        Workers.getInstance().setNetworkExecutor(networkExecutor);
+        try {
+            PaymentSessionPrefetcher prefetcher = PaymentSessionPrefetcher.getInstance();
+            prefetcher.prefetch(getContext(), listUrl);
+
+            PaymentSession session = prefetcher.takePaymentSession(listUrl).get();
+            assertNotNull(session);
+            assertNotNull(prefetcher.takeLocalization(session).get());
+            assertEquals(1, countRequests("/lists"));
+            assertEquals(2, countRequests("/lang"));
+        } finally {
+            Workers.getInstance().setNetworkExecutor(null);
+        }
+    }
+
+    @Test
+    public void takePaymentSession_otherListUrl_null() {
+        PaymentSessionPrefetcher prefetcher = PaymentSessionPrefetcher.getInstance();
+        prefetcher.prefetch(getContext(), listUrl);
+
+        assertNull(prefetcher.takePaymentSession(server.getURL("/lists/456").toString()));
+        assertNotNull(prefetcher.takePaymentSession(listUrl));
+    }
+
+    @Test
+    public void takePaymentSession_expired_null() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        scheduler.install();
+        try {
+            PaymentSessionPrefetcher prefetcher = PaymentSessionPrefetcher.getInstance();
+            prefetcher.setMaxAge(10);
+            prefetcher.prefetch(getContext(), listUrl);
+            scheduler.advanceBy(10);
+
+            assertEquals(1, countRequests("/lists"));
+            assertNull(prefetcher.takePaymentSession(listUrl));
+        } finally {
+            scheduler.uninstall();
+        }
+    }
+
+    @Test
+    public void takePaymentSession_invalidated_null() {
+        PaymentSessionPrefetcher prefetcher = PaymentSessionPrefetcher.getInstance();
+        prefetcher.prefetch(getContext(), listUrl);
+        prefetcher.invalidate();
+
+        assertNull(prefetcher.takePaymentSession(listUrl));
+    }
+
+    @Test
+    public void takePaymentSession_invalidatedInFlight_completesWithNull() throws Exception {
+        PaymentSessionPrefetcher prefetcher = PaymentSessionPrefetcher.getInstance();
+        prefetcher.prefetch(getContext(), listUrl);
+        WorkerTask<PaymentSession> task = prefetcher.takePaymentSession(listUrl);
+        prefetcher.invalidate();
+
+        // the requests of the prefetch are aborted, the caller then loads the PaymentSession itself
+        assertNull(task.get());
+        assertFalse(task.isCancelled());
+    }
+
+    private int countRequests(String prefix) {
+        int count = 0;
+        for (LocalHttpServer.Request request : server.getRequests()) {
+            if (request.getPath().startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private String createListJson() {
+        StringBuilder buf = new StringBuilder();
+        buf.append("{\n\"resultInfo\": \"List prefetch\",\n");
+        buf.append("\"operationType\": \"CHARGE\",\n\"integrationType\": \"MOBILE_NATIVE\",\n");
+        buf.append("\"interaction\": {\"code\": \"PROCEED\", \"reason\": \"OK\"},\n");
+        buf.append("\"links\": {\n\"self\": \"").append(listUrl).append("\",\n");
+        buf.append("\"lang\": \"").append(server.getURL("/lang/shared.json")).append("\"\n},\n");
+        buf.append("\"accounts\": [{\n\"code\": \"VISA\",\n\"label\": \"Visa\",\n\"method\": \"CREDIT_CARD\",\n");
+        buf.append("\"operationType\": \"CHARGE\",\n\"links\": {\n\"lang\": \"").append(server.getURL("/lang/VISA.json")).append("\"\n}\n}],\n");
+        buf.append("\"networks\": {\n\"applicable\": []\n}\n}\n");
+        return buf.toString();
+    }
+
+    private Context getContext() {
+        return ApplicationProvider.getApplicationContext();
+    }
+}
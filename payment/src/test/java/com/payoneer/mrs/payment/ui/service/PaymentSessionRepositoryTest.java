@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.ui.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import com.payoneer.mrs.payment.core.VirtualScheduler;
+import com.payoneer.mrs.payment.localization.Localization;
+import com.payoneer.mrs.payment.model.ApplicableNetwork;
+import com.payoneer.mrs.payment.model.Interaction;
+import com.payoneer.mrs.payment.model.InteractionCode;
+import com.payoneer.mrs.payment.model.InteractionReason;
+import com.payoneer.mrs.payment.model.ListResult;
+import com.payoneer.mrs.payment.ui.model.NetworkCard;
+import com.payoneer.mrs.payment.ui.model.PaymentNetwork;
+import com.payoneer.mrs.payment.ui.model.PaymentSession;
+
+@RunWith(RobolectricTestRunner.class)
+public class PaymentSessionRepositoryTest {
+
+    private final static String LIST_URL = "https://api.sandbox.oscato.com/pci/v1/lists/123";
+
+    @After
+    public void tearDown() {
+        PaymentSessionRepository repository = PaymentSessionRepository.getInstance();
+        repository.clear();
+        repository.setMaxAge(PaymentSessionRepository.DEFAULT_MAX_AGE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxAge_invalidMaxAge_IllegalArgumentException() {
+        PaymentSessionRepository.getInstance().setMaxAge(-1);
+    }
+
+    @Test
+    public void getPaymentSession_stored_copyOfSnapshot() {
+        PaymentSessionRepository repository = PaymentSessionRepository.getInstance();
+        PaymentSession session = createPaymentSession();
+        Localization localization = new Localization(null, new HashMap<>());
+        repository.putPaymentSession(LIST_URL, session);
+        repository.putLocalization(session, localization);
+
+        PaymentSession copy = repository.getPaymentSession(LIST_URL);
+        assertNotSame(session, copy);
+        assertSame(session.getListResult(), copy.getListResult());
+        assertSame(localization, repository.getLocalization(copy));
+        assertNull(repository.getPaymentSession("https://api.sandbox.oscato.com/pci/v1/lists/456"));
+    }
+
+    @Test
+    public void getLocalization_replacedPaymentSession_null() {
+        PaymentSessionRepository repository = PaymentSessionRepository.getInstance();
+        PaymentSession session = createPaymentSession();
+        repository.putPaymentSession(LIST_URL, session);
+        repository.putLocalization(session, new Localization(null, new HashMap<>()));
+
+        repository.putPaymentSession(LIST_URL, createPaymentSession());
+        assertNull(repository.getLocalization(session));
+    }
+
+    @Test
+    public void getPaymentSession_expired_null() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        scheduler.install();
+        try {
+            PaymentSessionRepository repository = PaymentSessionRepository.getInstance();
+            repository.setMaxAge(10);
+            repository.putPaymentSession(LIST_URL, createPaymentSession());
+            scheduler.advanceBy(10);
+
+            assertNull(repository.getPaymentSession(LIST_URL));
+        } finally {
+            scheduler.uninstall();
+        }
+    }
+
+    @Test
+    public void getPaymentSession_virtualTimeExpired_null() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        scheduler.install();
+        try {
+            PaymentSessionRepository repository = PaymentSessionRepository.getInstance();
+            repository.putPaymentSession(LIST_URL, createPaymentSession());
+            scheduler.advanceBy(PaymentSessionRepository.DEFAULT_MAX_AGE - 1);
+            assertNotNull(repository.getPaymentSession(LIST_URL));
+
+            scheduler.advanceBy(1);
+            assertNull(repository.getPaymentSession(LIST_URL));
+        } finally {
+            scheduler.uninstall();
+        }
+    }
+
+    @Test
+    public void invalidate_reloadInteraction_removed() {
+        PaymentSessionRepository repository = PaymentSessionRepository.getInstance();
+        repository.putPaymentSession(LIST_URL, createPaymentSession());
+        repository.invalidate(LIST_URL, new Interaction(InteractionCode.RELOAD, InteractionReason.SYSTEM_FAILURE));
+        assertNull(repository.getPaymentSession(LIST_URL));
+
+        repository.putPaymentSession(LIST_URL, createPaymentSession());
+        repository.invalidate(LIST_URL, new Interaction(InteractionCode.TRY_OTHER_NETWORK, InteractionReason.DECLINED));
+        assertNull(repository.getPaymentSession(LIST_URL));
+    }
+
+    @Test
+    public void invalidate_retryInteraction_kept() {
+        PaymentSessionRepository repository = PaymentSessionRepository.getInstance();
+        PaymentSession session = createPaymentSession();
+        repository.putPaymentSession(LIST_URL, session);
+        repository.invalidate(LIST_URL, new Interaction(InteractionCode.RETRY, InteractionReason.NETWORK_FAILURE));
+
+        assertSame(session.getListResult(), repository.getPaymentSession(LIST_URL).getListResult());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getNetworkCards_immutableSnapshot_UnsupportedOperationException() {
+        createPaymentSession().getNetworkCards().clear();
+    }
+
+    @Test
+    public void getPaymentSession_smartSelection_notShared() {
+        PaymentSessionRepository repository = PaymentSessionRepository.getInstance();
+        NetworkCard card = new NetworkCard();
+        card.addPaymentNetwork(createPaymentNetwork("VISA"));
+        card.addPaymentNetwork(createPaymentNetwork("MASTERCARD"));
+        card.getSmartSwitch().addSelectionRegex("VISA", "^4[0-9]*$");
+        card.getSmartSwitch().addSelectionRegex("MASTERCARD", "^5[1-5][0-9]*$");
+
+        List<NetworkCard> cards = new ArrayList<>();
+        cards.add(card);
+        repository.putPaymentSession(LIST_URL, new PaymentSession(new ListResult(), null, new ArrayList<>(), cards, null));
+
+        NetworkCard first = repository.getPaymentSession(LIST_URL).getNetworkCards().get(0);
+        assertTrue(first.getSmartSwitch().validate("4111"));
+        assertEquals("VISA", first.getVisibleNetwork().getCode());
+
+        NetworkCard second = repository.getPaymentSession(LIST_URL).getNetworkCards().get(0);
+        assertEquals(0, second.getSmartSwitch().getSelectedCount());
+        assertTrue(second.getSmartSwitch().validate("5500"));
+        assertEquals("MASTERCARD", second.getVisibleNetwork().getCode());
+        assertEquals("VISA", first.getVisibleNetwork().getCode());
+    }
+
+    private static PaymentNetwork createPaymentNetwork(String code) {
+        ApplicableNetwork network = new ApplicableNetwork();
+        network.setCode(code);
+        return new PaymentNetwork(network);
+    }
+
+    private static PaymentSession createPaymentSession() {
+        return new PaymentSession(new ListResult(), null, new ArrayList<>(), new ArrayList<>(), null);
+    }
+}
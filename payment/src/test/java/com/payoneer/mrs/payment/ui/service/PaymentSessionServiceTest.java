@@ -8,14 +8,31 @@
 
 package com.payoneer.mrs.payment.ui.service;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
+import com.payoneer.mrs.payment.core.VirtualScheduler;
+import com.payoneer.mrs.payment.core.Workers;
 import com.payoneer.mrs.payment.model.NetworkOperationType;
+import com.payoneer.mrs.payment.ui.model.PaymentSession;
+import com.payoneer.mrs.test.util.LocalHttpServer;
 
 import android.content.Context;
 import androidx.test.core.app.ApplicationProvider;
@@ -23,6 +40,47 @@ import androidx.test.core.app.ApplicationProvider;
 @RunWith(RobolectricTestRunner.class)
 public class PaymentSessionServiceTest {
 
+    private final static long LIST_DELAY = 10000;
+    private final static long PREFETCH_DELAY = 300;
+    private final static String LIST_JSON = "{\"resultInfo\": \"loaded\", \"links\": {}, \"networks\": {\"applicable\": []}, "
+        + "\"integrationType\": \"MOBILE_NATIVE\", \"operationType\": \"CHARGE\", "
+        + "\"interaction\": {\"code\": \"PROCEED\", \"reason\": \"OK\"}}";
+    private final static String LANG_JSON = "{\"button.update.label\": \"Update\"}";
+
+    private LocalHttpServer server;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LocalHttpServer(new LocalHttpServer.Handler() {
+            @Override
+            public LocalHttpServer.Response handle(LocalHttpServer.Request request) {
+                if (request.getPath().startsWith("/langlists")) {
+                    return LocalHttpServer.Response.json(200, LIST_JSON.replace("\"links\": {}", "\"links\": {\"lang\": \""
+                        + server.getURL("/lang/shared.json") + "\"}"));
+                }
+                if (request.getPath().startsWith("/lang")) {
+                    return LocalHttpServer.Response.json(200, LANG_JSON);
+                }
+                LocalHttpServer.Response response = LocalHttpServer.Response.json(200, LIST_JSON);
+                if (request.getPath().startsWith("/prefetch")) {
+                    return response.delay(PREFETCH_DELAY);
+                }
+                return request.getPath().startsWith("/slow") ? response.delay(LIST_DELAY) : response;
+            }
+        });
+        server.start();
+        executor = Executors.newSingleThreadExecutor();
+        Workers.getInstance().setNetworkExecutor(executor);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Workers.getInstance().setNetworkExecutor(null);
+        executor.shutdownNow();
+        server.shutdown();
+    }
+
     @Test
     public void isSupportedOperationType() {
         Context context = ApplicationProvider.getApplicationContext();
@@ -34,4 +92,141 @@ public class PaymentSessionServiceTest {
         assertFalse(service.isSupportedNetworkOperationType(NetworkOperationType.PAYOUT));
         assertFalse(service.isSupportedNetworkOperationType(null));
     }
+
+    @Test
+    public void stop_loadingPaymentSession_workerReleased() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        PaymentSessionService service = new PaymentSessionService(context);
+        service.loadPaymentSession(server.getURL("/slow/lists/123").toString(), context);
+        awaitRequestCount(1);
+        assertTrue(service.isActive());
+
+        service.stop();
+        assertFalse(service.isActive());
+
+        // the single worker thread must be available again long before the list response would arrive
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get(LIST_DELAY / 2, TimeUnit.MILLISECONDS);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void loadPaymentSession_virtualTime_listGroupsAndValidatorLoadedInParallel() throws Exception {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        scheduler.install();
+        try {
+            Context context = ApplicationProvider.getApplicationContext();
+            PaymentSessionService service = new PaymentSessionService(context);
+            final List<Object> results = new ArrayList<>();
+            service.setListener(new PaymentSessionListener() {
+                @Override
+                public void onPaymentSessionSuccess(PaymentSession paymentSession) {
+                    results.add(paymentSession);
+                }
+
+                @Override
+                public void onPaymentSessionError(Throwable cause) {
+                    results.add(cause);
+                }
+            });
+            service.loadPaymentSession(server.getURL("/lists/456").toString(), context);
+            assertTrue(results.isEmpty());
+            scheduler.runUntilIdle();
+
+            assertEquals(1, results.size());
+            assertTrue(results.get(0) instanceof PaymentSession);
+            // lookup, then list, groups and validator side by side, then the preloaded localizations and the listener
+            assertEquals(3, scheduler.getCriticalPathLength());
+        } finally {
+            scheduler.uninstall();
+            PaymentSessionRepository.getInstance().clear();
+        }
+    }
+
+    @Test
+    public void stop_waitingForPrefetch_prefetchedSessionStored() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        String listUrl = server.getURL("/prefetch/lists/789").toString();
+        PaymentSessionPrefetcher prefetcher = PaymentSessionPrefetcher.getInstance();
+        prefetcher.prefetch(context, listUrl);
+        try {
+            PaymentSessionService service = new PaymentSessionService(context);
+            service.loadPaymentSession(listUrl, context);
+
+            // the lookup hands over the in-flight prefetch without blocking the single worker thread
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get(PREFETCH_DELAY * 10, TimeUnit.MILLISECONDS);
+            service.stop();
+            assertNull(prefetcher.takePaymentSession(listUrl));
+
+            // the prefetched PaymentSession can only be taken once and is stored although the service has been stopped
+            long timeout = System.currentTimeMillis() + 5000;
+            while (PaymentSessionRepository.getInstance().getPaymentSession(listUrl) == null && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            assertNotNull(PaymentSessionRepository.getInstance().getPaymentSession(listUrl));
+            assertEquals(1, server.getRequestCount());
+        } finally {
+            prefetcher.invalidate();
+            PaymentSessionRepository.getInstance().clear();
+        }
+    }
+
+    @Test
+    public void loadPaymentSession_computeLaneBusy_localizationsPreloadedFromList() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService computeExecutor = Executors.newSingleThreadExecutor();
+        computeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Workers.getInstance().setComputeExecutor(computeExecutor);
+        String listUrl = server.getURL("/langlists/321").toString();
+        try {
+            PaymentSessionService service = new PaymentSessionService(context);
+            service.loadPaymentSession(listUrl, context);
+
+            // the groups and Validator cannot be loaded yet, the language file is requested as soon as the list has been fetched
+            awaitRequestCount(2);
+            assertEquals("/lang/shared.json", server.getRequests().get(1).getPath());
+            assertNull(PaymentSessionRepository.getInstance().getPaymentSession(listUrl));
+
+            release.countDown();
+            long timeout = System.currentTimeMillis() + 5000;
+            PaymentSession session = null;
+            while (session == null && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+                session = PaymentSessionRepository.getInstance().getPaymentSession(listUrl);
+            }
+            assertNotNull(session);
+            assertNotNull(PaymentSessionRepository.getInstance().getLocalizationTask(session).get(5, TimeUnit.SECONDS));
+            assertEquals(2, server.getRequestCount());
+        } finally {
+            release.countDown();
+            Workers.getInstance().setComputeExecutor(null);
+            computeExecutor.shutdownNow();
+            PaymentSessionRepository.getInstance().clear();
+        }
+    }
+
+    private void awaitRequestCount(int count) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (server.getRequestCount() < count && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, server.getRequestCount());
+    }
 }
@@ -9,11 +9,14 @@
 package com.payoneer.mrs.payment.ui.widget.input;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
+import com.payoneer.mrs.payment.validation.CardNumberState;
+
 import android.content.Context;
 import android.text.Editable;
 import android.text.SpannableStringBuilder;
@@ -74,6 +77,60 @@ public class GroupingTextWatcherTest {
         validateTextInput(watcher, result, "9", "1234 5678 9");
     }
 
+    @Test
+    public void typeAndDeleteDigits_cardNumberState_tracksText() {
+        Context context = ApplicationProvider.getApplicationContext();
+        EditText editText = new EditText(context);
+        CardNumberState state = new CardNumberState();
+        new GroupingTextWatcher(4, editText, state);
+
+        String number = "4556260657599841";
+        for (int i = 0; i < number.length(); i++) {
+            editText.getText().append(number.charAt(i));
+            assertCardNumberState(editText, state);
+        }
+        assertEquals("4556 2606 5759 9841", editText.getText().toString());
+        assertTrue(state.isValidLuhn());
+        while (editText.length() > 0) {
+            editText.getText().delete(editText.length() - 1, editText.length());
+            assertCardNumberState(editText, state);
+        }
+    }
+
+    @Test
+    public void editGroupedText_cardNumberState_tracksText() {
+        Context context = ApplicationProvider.getApplicationContext();
+        EditText editText = new EditText(context);
+        CardNumberState state = new CardNumberState();
+        new GroupingTextWatcher(4, editText, state);
+
+        editText.getText().append("4556260657599841");
+        assertCardNumberState(editText, state);
+
+        // delete the divider, the digit in front of it is removed
+        editText.getText().delete(4, 5);
+        assertEquals("4552 6065 7599 841", editText.getText().toString());
+        assertCardNumberState(editText, state);
+
+        editText.getText().insert(2, "99");
+        assertEquals("4599 5260 6575 9984 1", editText.getText().toString());
+        assertCardNumberState(editText, state);
+
+        editText.getText().replace(3, 12, "7");
+        assertEquals("4597 7599 841", editText.getText().toString());
+        assertCardNumberState(editText, state);
+
+        editText.getText().replace(0, editText.length(), "5386813397330555");
+        assertEquals("5386 8133 9733 0555", editText.getText().toString());
+        assertCardNumberState(editText, state);
+        assertTrue(state.isValidLuhn());
+    }
+
+    private static void assertCardNumberState(EditText editText, CardNumberState state) {
+        String number = editText.getText().toString().replace(" ", "");
+        assertTrue(state.tracks(number));
+    }
+
     private static String validateTextInput(TextWatcher watcher, String current, String input, String result) {
         String val = simulateTextInput(watcher, current, input);
         assertEquals(result, val);
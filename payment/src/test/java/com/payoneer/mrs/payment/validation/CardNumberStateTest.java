@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CardNumberStateTest {
+
+    @Test
+    public void append_validNumbers_parityWithValidator() {
+        String[] numbers = { "4556260657599841", "5386813397330555", "376848137807457", "30121723749105", "1234567890123456" };
+        for (String number : numbers) {
+            CardNumberState state = new CardNumberState();
+            for (int i = 0; i < number.length(); i++) {
+                state.append(number.charAt(i));
+                assertEquals(CardNumberValidator.isValidLuhn(number.substring(0, i + 1)), state.isValidLuhn());
+            }
+            assertEquals(number.length(), state.length());
+        }
+    }
+
+    @Test
+    public void deleteLast_typedNumber_parityWithValidator() {
+        String number = "4556260657599841";
+        CardNumberState state = new CardNumberState();
+        state.update(number);
+        for (int i = number.length() - 1; i >= 0; i--) {
+            state.deleteLast();
+            assertEquals(i, state.length());
+            assertEquals(CardNumberValidator.isValidLuhn(number.substring(0, i)), state.isValidLuhn());
+        }
+    }
+
+    @Test
+    public void update_randomEdits_parityWithValidator() {
+        Random random = new Random(42);
+        CardNumberState state = new CardNumberState();
+        StringBuilder number = new StringBuilder();
+
+        for (int i = 0; i < 5000; i++) {
+            int position = random.nextInt(number.length() + 1);
+            if (number.length() > 0 && random.nextInt(3) == 0) {
+                int end = Math.min(number.length(), position + 1 + random.nextInt(3));
+                number.delete(Math.min(position, number.length() - 1), end);
+            } else if (number.length() < 19) {
+                number.insert(position, (char) ('0' + random.nextInt(10)));
+            }
+            state.update(group(number));
+            assertEquals(number.length(), state.length());
+            assertEquals(CardNumberValidator.isValidLuhn(number.toString()), state.isValidLuhn());
+        }
+    }
+
+    @Test
+    public void replace_randomEdits_parityWithValidator() {
+        Random random = new Random(42);
+        CardNumberState state = new CardNumberState();
+        StringBuilder number = new StringBuilder();
+
+        for (int i = 0; i < 5000; i++) {
+            int start = random.nextInt(number.length() + 1);
+            int deleteCount = random.nextInt(Math.min(3, number.length() - start) + 1);
+            int insertCount = number.length() - deleteCount < 19 ? random.nextInt(3) : 0;
+            StringBuilder inserted = new StringBuilder();
+            for (int j = 0; j < insertCount; j++) {
+                inserted.append((char) ('0' + random.nextInt(10)));
+            }
+            number.replace(start, start + deleteCount, inserted.toString());
+
+            // the inserted digits are read from the grouped text as reported by TextWatcher.onTextChanged
+            String source = "12 " + group(inserted) + " 34";
+            state.replace(start, deleteCount, source, 3, source.length() - 3);
+            assertEquals(number.length(), state.length());
+            assertTrue(state.tracks(number.toString()));
+            assertEquals(CardNumberValidator.isValidLuhn(number.toString()), state.isValidLuhn());
+        }
+    }
+
+    @Test
+    public void digitHash_typedNumber_equalsStringHashCode() {
+        String number = "4556260657599841";
+        CardNumberState state = new CardNumberState();
+        assertEquals("".hashCode(), state.digitHash());
+
+        for (int i = 0; i < number.length(); i++) {
+            state.append(number.charAt(i));
+            assertEquals(number.substring(0, i + 1).hashCode(), state.digitHash());
+        }
+        state.replace(4, 2, "99");
+        assertEquals("4556990657599841".hashCode(), state.digitHash());
+        assertTrue(state.tracks("4556990657599841"));
+        assertFalse(state.tracks("4556260657599841"));
+        assertFalse(state.tracks(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void replace_invalidRange_IllegalArgumentException() {
+        CardNumberState state = new CardNumberState();
+        state.update("4556");
+        state.replace(2, 3, "1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void replace_invalidSourceRange_IllegalArgumentException() {
+        new CardNumberState().replace(0, 0, "4556", 2, 5);
+    }
+
+    @Test
+    public void update_invalidCharacter_invalidUntilRemoved() {
+        CardNumberState state = new CardNumberState();
+        state.update("4556 2606 5759 9841");
+        assertTrue(state.isValidLuhn());
+        state.update("4556 2606 5759 984a1");
+        assertFalse(state.isValidLuhn());
+        state.update("4556 2606 5759 9841");
+        assertTrue(state.isValidLuhn());
+    }
+
+    @Test
+    public void isComplete_lengthRange() {
+        CardNumberState state = new CardNumberState();
+        state.update("376848137807457");
+        assertTrue(state.isComplete(15, 15));
+        assertFalse(state.isComplete(16, 19));
+        state.clear();
+        assertFalse(state.isComplete(0, 19));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void append_notDigit_IllegalArgumentException() {
+        new CardNumberState().append('a');
+    }
+
+    private static String group(CharSequence number) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < number.length(); i++) {
+            if (i > 0 && i % 4 == 0) {
+                sb.append(' ');
+            }
+            sb.append(number.charAt(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.payment.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IbanStructureTest {
+
+    @Test
+    public void getLength() {
+        assertEquals(22, IbanStructure.getLength('D', 'E'));
+        assertEquals(15, IbanStructure.getLength('N', 'O'));
+        assertEquals(32, IbanStructure.getLength('L', 'C'));
+        assertEquals(27, IbanStructure.getLength('m', 'c'));
+        assertEquals(0, IbanStructure.getLength('Z', 'Z'));
+        assertEquals(0, IbanStructure.getLength('1', 'E'));
+    }
+
+    @Test
+    public void isValidPrefix_typedIban_validAtEveryLength() {
+        String iban = "GB82 WEST 1234 5698 7654 32";
+        for (int i = 0; i <= iban.length(); i++) {
+            assertTrue(iban.substring(0, i), IbanStructure.isValidPrefix(iban.substring(0, i)));
+        }
+        assertTrue(IbanStructure.isValidPrefix(null));
+    }
+
+    @Test
+    public void isValidPrefix_invalidStart_invalid() {
+        assertFalse(IbanStructure.isValidPrefix("1"));
+        assertFalse(IbanStructure.isValidPrefix("DEX"));
+        assertFalse(IbanStructure.isValidPrefix("DE89 3704 004A"));
+        assertFalse(IbanStructure.isValidPrefix("GB82 W3"));
+        assertFalse(IbanStructure.isValidPrefix("DE89 3704 0044 0532 0130 000"));
+    }
+
+    @Test
+    public void isValidChar_unknownCountry_alphanumericUpToMaxLength() {
+        assertTrue(IbanStructure.isValidChar('Z', 'Z', 4, 'A'));
+        assertTrue(IbanStructure.isValidChar('Z', 'Z', IbanStructure.MAX_LENGTH - 1, '9'));
+        assertFalse(IbanStructure.isValidChar('Z', 'Z', IbanStructure.MAX_LENGTH, '9'));
+        assertFalse(IbanStructure.isValidChar('Z', 'Z', 4, '-'));
+    }
+}
@@ -8,6 +8,7 @@
 
 package com.payoneer.mrs.payment.validation;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -15,6 +16,14 @@ import org.junit.Test;
 
 public class IbanValidatorTest {
 
+    private final static String[] VALID_IBANS = {
+        "DE27100777770209299700", "AT022050302101023600", "GB82WEST12345698765432", "NL91ABNA0417164300",
+        "FR1420041010050500013M02606", "BE68539007547034", "CH9300762011623852957", "IT60X0542811101000000123456",
+        "ES9121000418450200051332", "NO9386011117947", "MT84MALT011000012345MTLCAST001S", "SC18SSCB11010000000000001497USD",
+        "PL61109010140000071219812874", "SE4550000000058398257466", "MU17BOMM0101101030300200000MUR",
+        "BR1800360305000010009795493C1", "LC55HEMM000100010012001200023015"
+    };
+
     @Test
     public void isValidIban() {
         assertTrue(IbanValidator.isValidIban("DE27100777770209299700"));
@@ -24,4 +33,63 @@ public class IbanValidatorTest {
         assertFalse(IbanValidator.isValidIban(""));
         assertFalse(IbanValidator.isValidIban("AT1234567890123456"));
     }
+
+    @Test
+    public void isValidIban_registryExamples_valid() {
+        for (String iban : VALID_IBANS) {
+            assertTrue(iban, IbanValidator.isValidIban(iban));
+            assertTrue(iban, IbanValidator.isValidIban(iban.toLowerCase()));
+        }
+    }
+
+    @Test
+    public void isValidIban_wrongCountryLength_invalid() {
+        // valid mod 97 checksum but one digit too short for Germany
+        assertFalse(IbanValidator.isValidIban("DE8937040044053201300"));
+        assertFalse(IbanValidator.isValidIban("DE89370400440532013000" + "0"));
+    }
+
+    @Test
+    public void isValidIban_wrongCharacterClass_invalid() {
+        // the German BBAN only contains digits, a letter with the same mod 97 value is rejected
+        assertFalse(IbanValidator.isValidIban("DE8937040044053201300A"));
+        // the bank code of GB must be letters
+        assertFalse(IbanValidator.isValidIban("GB82123412345698765432"));
+    }
+
+    @Test
+    public void isValidIban_nonLatinDigits_invalid() {
+        // Arabic-Indic digit three is accepted by Character.getNumericValue but not by IBAN validation
+        assertFalse(IbanValidator.isValidIban("DE89\u06637040044053201300"));
+        assertFalse(IbanValidator.isValidIban("\uff24E89370400440532013000"));
+    }
+
+    @Test
+    public void isValidIban_unknownCountry_checksumOnly() {
+        // country not in the structure table, only the checksum and characters are validated
+        assertTrue(IbanValidator.isValidIban(computeIban("ZZ", "12345ABCDE")));
+        assertFalse(IbanValidator.isValidIban("ZZ0012345ABCDE"));
+    }
+
+    @Test
+    public void getAccountPosition() {
+        assertEquals(Integer.valueOf(12), IbanValidator.getAccountPosition("DE89370400440532013000"));
+        assertEquals(Integer.valueOf(1), IbanValidator.getAccountPosition("mc5811222000010123456789030"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getAccountPosition_unknownCountry_IllegalArgumentException() {
+        IbanValidator.getAccountPosition("ZZ0012345ABCDE");
+    }
+
+    private static String computeIban(String country, String bban) {
+        int total = 0;
+        String rearranged = bban + country + "00";
+        for (int i = 0; i < rearranged.length(); i++) {
+            int value = Character.digit(rearranged.charAt(i), 36);
+            total = ((value > 9 ? total * 100 : total * 10) + value) % 97;
+        }
+        int check = 98 - total;
+        return country + (check < 10 ? "0" : "") + check + bban;
+    }
 }
@@ -11,21 +11,34 @@ package com.payoneer.mrs.payment.validation;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import com.payoneer.mrs.payment.R;
 import com.payoneer.mrs.payment.core.PaymentException;
 import com.payoneer.mrs.payment.core.PaymentInputType;
 import com.payoneer.mrs.payment.core.PaymentNetworkCodes;
 import com.payoneer.mrs.payment.model.PaymentMethod;
 import com.payoneer.mrs.payment.resource.ResourceLoader;
+import com.payoneer.mrs.payment.resource.ValidationGroup;
+import com.payoneer.mrs.payment.resource.ValidationGroupItem;
 
 import android.content.res.Resources;
 import androidx.test.core.app.ApplicationProvider;
@@ -893,6 +906,232 @@ public class ValidatorTest {
         assertEquals(ValidationResult.MISSING_BIC, result.getError());
     }
 
+    @Test
+    public void getRule_precompiledPlan_samePatternInstances() throws PaymentException {
+        Resources res = ApplicationProvider.getApplicationContext().getResources();
+        ValidationPlan plan = new ValidationPlan(ResourceLoader.loadValidations(res, R.raw.validations));
+        String[][] rules = {
+            { PaymentNetworkCodes.VISA, PaymentInputType.ACCOUNT_NUMBER },
+            { PaymentNetworkCodes.VISA, PaymentInputType.VERIFICATION_CODE },
+            { PaymentNetworkCodes.MASTERCARD, PaymentInputType.ACCOUNT_NUMBER }
+        };
+        for (String[] rule : rules) {
+            Pattern pattern = plan.getRule(rule[0], rule[1]).pattern;
+            assertNotNull(pattern);
+
+            for (int i = 0; i < 10; i++) {
+                assertSame(pattern, plan.getRule(rule[0], rule[1]).pattern);
+            }
+        }
+        // rules without a regex have no Pattern
+        assertNull(plan.getRule("SEPADD", PaymentInputType.BIC).pattern);
+        assertNull(plan.getRule(PaymentNetworkCodes.VISA, PaymentInputType.HOLDER_NAME));
+    }
+
+    @Test
+    public void validateShared_validAndInvalid_sharedStatuses() throws PaymentException {
+        Validator validator = createValidator(R.raw.validations);
+        String method = PaymentMethod.CREDIT_CARD;
+        String code = PaymentNetworkCodes.VISA;
+        String type = PaymentInputType.VERIFICATION_CODE;
+
+        ValidationStatus valid = validator.validateShared(method, code, type, "123", null);
+        assertFalse(valid.isError());
+        assertSame(valid, validator.validateShared(method, code, PaymentInputType.HOLDER_NAME, "John Doe", null));
+
+        ValidationStatus invalid = validator.validateShared(method, code, type, "12", null);
+        assertEquals(ValidationResult.INVALID_VERIFICATION_CODE, invalid.getError());
+        assertSame(invalid, validator.validateShared(method, code, type, "1", null));
+        assertSame(invalid, ValidationStatus.valueOf(ValidationResult.INVALID_VERIFICATION_CODE));
+    }
+
+    @Test
+    public void validateShared_validValues_noObjectsAllocated() throws PaymentException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+        Validator validator = createValidator(R.raw.validations);
+        long threadId = Thread.currentThread().getId();
+        long allocated = 0;
+
+        // the first rounds initialize the Matchers of this thread and the current month
+        for (int i = 0; i < 3; i++) {
+            long start = allocations.getThreadAllocatedBytes(threadId);
+            validateValidValues(validator);
+            allocated = allocations.getThreadAllocatedBytes(threadId) - start;
+        }
+        assertEquals(0, allocated);
+    }
+
+    private void validateValidValues(Validator validator) {
+        String method = PaymentMethod.CREDIT_CARD;
+        String code = PaymentNetworkCodes.VISA;
+        validator.validateShared(method, code, PaymentInputType.ACCOUNT_NUMBER, "4111111111111111", null);
+        validator.validateShared(method, code, PaymentInputType.VERIFICATION_CODE, "123", null);
+        validator.validateShared(method, code, PaymentInputType.HOLDER_NAME, "John Doe", null);
+        validator.validateShared(method, code, PaymentInputType.EXPIRY_DATE, "12", "2099");
+        validator.validateShared(method, code, PaymentInputType.EXPIRY_MONTH, "12", null);
+        validator.validateShared(method, code, PaymentInputType.EXPIRY_YEAR, "2099", null);
+        validator.validateShared(PaymentMethod.DIRECT_DEBIT, "SEPADD", PaymentInputType.BIC, "AABSDE31XXX", null);
+        validator.validateShared(PaymentMethod.DIRECT_DEBIT, "SEPADD", PaymentInputType.BANK_CODE, "12345", null);
+    }
+
+    @Test
+    public void setMessage_validateResult_messageSet() throws PaymentException {
+        Validator validator = createValidator(R.raw.validations);
+        ValidationResult result = validator.validate(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA,
+            PaymentInputType.VERIFICATION_CODE, "12", null);
+        result.setMessage("Invalid verification code");
+        assertEquals("Invalid verification code", result.getMessage());
+
+        ValidationResult other = validator.validate(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA,
+            PaymentInputType.VERIFICATION_CODE, "12", null);
+        assertNotSame(result, other);
+        assertNull(other.getMessage());
+    }
+
+    @Test
+    public void withMessage_sharedStatus_messageInCopy() {
+        ValidationStatus shared = ValidationStatus.valueOf(ValidationResult.INVALID_IBAN);
+        ValidationStatus status = shared.withMessage("Invalid IBAN");
+        assertEquals(ValidationResult.INVALID_IBAN, status.getError());
+        assertEquals("Invalid IBAN", status.getMessage());
+        assertNull(shared.getMessage());
+
+        ValidationResult result = status.toValidationResult();
+        assertEquals(ValidationResult.INVALID_IBAN, result.getError());
+        assertEquals("Invalid IBAN", result.getMessage());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createInstance_invalidRegex_IllegalArgumentException() {
+        Map<String, ValidationGroup> validations = new HashMap<>();
+        ValidationGroup group = new ValidationGroup();
+        group.setCode(PaymentNetworkCodes.VISA);
+        group.setValidationGroupItems(new Gson().fromJson("[{\"type\": \"number\", \"regex\": \"^[0-9\"}]",
+            new TypeToken<List<ValidationGroupItem>>() { }.getType()));
+        validations.put(PaymentNetworkCodes.VISA, group);
+        new Validator(validations);
+    }
+
+    @Test
+    public void validateAll_cardValues_resultsInOrder() throws PaymentException {
+        final Validator validator = createValidator(R.raw.validations);
+        ValidationValues values = new ValidationValues();
+        values.put(PaymentInputType.ACCOUNT_NUMBER, "4111111111111111");
+        values.put(PaymentInputType.EXPIRY_DATE, "12", "1999");
+        values.put(PaymentInputType.VERIFICATION_CODE, "");
+
+        Map<String, ValidationStatus> results = validator.validateAll(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA, values);
+        assertEquals(3, results.size());
+        assertEquals(values.getTypes(), results.keySet());
+        assertSame(ValidationStatus.valueOf(null), results.get(PaymentInputType.ACCOUNT_NUMBER));
+        assertEquals(ValidationResult.INVALID_EXPIRY_DATE, results.get(PaymentInputType.EXPIRY_DATE).getError());
+        assertEquals(ValidationResult.MISSING_VERIFICATION_CODE, results.get(PaymentInputType.VERIFICATION_CODE).getError());
+    }
+
+    @Test
+    public void validateAll_expiryMonthAndYearInPast_bothInvalid() throws PaymentException {
+        final Validator validator = createValidator(R.raw.validations);
+        Calendar cal = Calendar.getInstance();
+        int month = cal.get(Calendar.MONTH) + 1;
+        int year = cal.get(Calendar.YEAR);
+
+        ValidationValues values = new ValidationValues();
+        values.put(PaymentInputType.EXPIRY_MONTH, month == 1 ? "12" : String.format("%02d", month - 1));
+        values.put(PaymentInputType.EXPIRY_YEAR, Integer.toString(month == 1 ? year - 1 : year));
+        Map<String, ValidationStatus> results = validator.validateAll(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA, values);
+        assertEquals(ValidationResult.INVALID_EXPIRY_DATE, results.get(PaymentInputType.EXPIRY_MONTH).getError());
+        assertEquals(ValidationResult.INVALID_EXPIRY_DATE, results.get(PaymentInputType.EXPIRY_YEAR).getError());
+
+        values.put(PaymentInputType.EXPIRY_YEAR, Integer.toString(year + 1));
+        results = validator.validateAll(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA, values);
+        assertFalse(results.get(PaymentInputType.EXPIRY_MONTH).isError());
+        assertFalse(results.get(PaymentInputType.EXPIRY_YEAR).isError());
+    }
+
+    @Test
+    public void validateAll_invalidExpiryMonth_noCrossFieldError() throws PaymentException {
+        final Validator validator = createValidator(R.raw.validations);
+        ValidationValues values = new ValidationValues();
+        values.put(PaymentInputType.EXPIRY_MONTH, "13");
+        values.put(PaymentInputType.EXPIRY_YEAR, "1999");
+
+        Map<String, ValidationStatus> results = validator.validateAll(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA, values);
+        assertEquals(ValidationResult.INVALID_EXPIRY_MONTH, results.get(PaymentInputType.EXPIRY_MONTH).getError());
+        assertEquals(ValidationResult.INVALID_EXPIRY_YEAR, results.get(PaymentInputType.EXPIRY_YEAR).getError());
+    }
+
+    @Test
+    public void validateAll_cardNumberState_usedForLuhnCheck() throws PaymentException {
+        final Validator validator = createValidator(R.raw.validations);
+        CardNumberState state = new CardNumberState();
+        state.update("4111 1111 1111 1112");
+
+        ValidationValues values = new ValidationValues();
+        values.put(PaymentInputType.ACCOUNT_NUMBER, "4111111111111112");
+        values.putCardNumberState(PaymentInputType.ACCOUNT_NUMBER, state);
+        Map<String, ValidationStatus> results = validator.validateAll(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA, values);
+        assertEquals(ValidationResult.INVALID_ACCOUNT_NUMBER, results.get(PaymentInputType.ACCOUNT_NUMBER).getError());
+
+        state.update("4111 1111 1111 1111");
+        values.put(PaymentInputType.ACCOUNT_NUMBER, "4111111111111111");
+        results = validator.validateAll(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA, values);
+        assertFalse(results.get(PaymentInputType.ACCOUNT_NUMBER).isError());
+    }
+
+    @Test
+    public void validateAll_cardNumberStateOtherDigits_numberChecked() throws PaymentException {
+        final Validator validator = createValidator(R.raw.validations);
+        CardNumberState state = new CardNumberState();
+        state.update("4111 1111 1111 1112");
+
+        ValidationValues values = new ValidationValues();
+        values.put(PaymentInputType.ACCOUNT_NUMBER, "4111111111111111");
+        values.putCardNumberState(PaymentInputType.ACCOUNT_NUMBER, state);
+        Map<String, ValidationStatus> results = validator.validateAll(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA, values);
+        assertFalse(results.get(PaymentInputType.ACCOUNT_NUMBER).isError());
+
+        state.update("4111 1111 1111 1111");
+        values.put(PaymentInputType.ACCOUNT_NUMBER, "4111111111111112");
+        results = validator.validateAll(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA, values);
+        assertEquals(ValidationResult.INVALID_ACCOUNT_NUMBER, results.get(PaymentInputType.ACCOUNT_NUMBER).getError());
+    }
+
+    @Test
+    public void isCompleteCardNumber_cardNumberState_lengthAndLuhnChecked() throws PaymentException {
+        final Validator validator = createValidator(R.raw.validations);
+        CardNumberState state = new CardNumberState();
+        assertFalse(validator.isCompleteCardNumber(PaymentNetworkCodes.VISA, null));
+
+        state.update("4111 1111 1111 111");
+        assertFalse(validator.isCompleteCardNumber(PaymentNetworkCodes.VISA, state));
+        state.update("4111 1111 1111 1111");
+        assertTrue(validator.isCompleteCardNumber(PaymentNetworkCodes.VISA, state));
+        state.update("4111 1111 1111 1112");
+        assertFalse(validator.isCompleteCardNumber(PaymentNetworkCodes.VISA, state));
+    }
+
+    @Test
+    public void validateAll_cardNumberStateOtherLength_numberChecked() throws PaymentException {
+        final Validator validator = createValidator(R.raw.validations);
+        CardNumberState state = new CardNumberState();
+        state.update("4111 1111 1111");
+
+        ValidationValues values = new ValidationValues();
+        values.put(PaymentInputType.ACCOUNT_NUMBER, "4111111111111111");
+        values.putCardNumberState(PaymentInputType.ACCOUNT_NUMBER, state);
+        Map<String, ValidationStatus> results = validator.validateAll(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA, values);
+        assertFalse(results.get(PaymentInputType.ACCOUNT_NUMBER).isError());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validateAll_nullValues_IllegalArgumentException() throws PaymentException {
+        createValidator(R.raw.validations).validateAll(PaymentMethod.CREDIT_CARD, PaymentNetworkCodes.VISA, null);
+    }
+
     private Validator createValidator(int resId) throws PaymentException {
         Resources res = ApplicationProvider.getApplicationContext().getResources();
         return new Validator(ResourceLoader.loadValidations(res, resId));
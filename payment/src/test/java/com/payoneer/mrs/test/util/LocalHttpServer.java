@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.test.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal HTTP/1.1 server running on the loopback interface, used as stand-in for the Payment API in unit tests.
+ * The server supports keep-alive connections and can simulate the cost of setting up a new connection.
+ */
+public final class LocalHttpServer {
+
+    private final Handler handler;
+    private final ExecutorService executor;
+    private final AtomicInteger acceptedCount;
+    private final AtomicInteger requestCount;
+    private final List<Request> requests;
+    private ServerSocket serverSocket;
+    private volatile long acceptDelay;
+    private volatile boolean keepAlive;
+    private volatile boolean running;
+
+    /**
+     * Construct a new LocalHttpServer
+     *
+     * @param handler creating the responses for the received requests
+     */
+    public LocalHttpServer(Handler handler) {
+        this.handler = handler;
+        this.executor = Executors.newCachedThreadPool();
+        this.acceptedCount = new AtomicInteger();
+        this.requestCount = new AtomicInteger();
+        this.requests = Collections.synchronizedList(new ArrayList<>());
+        this.keepAlive = true;
+    }
+
+    /**
+     * Set the delay in milliseconds for each newly accepted socket, this simulates the TCP and TLS handshakes.
+     *
+     * @param acceptDelay delay in milliseconds
+     */
+    public void setAcceptDelay(long acceptDelay) {
+        this.acceptDelay = acceptDelay;
+    }
+
+    /**
+     * Set whether this server keeps connections alive, when false every socket is closed after one response.
+     *
+     * @param keepAlive true to keep connections alive, false otherwise
+     */
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Start this server on a free port of the loopback interface
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        running = true;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop();
+            }
+        });
+    }
+
+    /**
+     * Shutdown this server and close all open sockets
+     */
+    public void shutdown() throws IOException {
+        running = false;
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Get the URL pointing to the path on this server
+     *
+     * @param path starting with a slash
+     * @return the URL
+     */
+    public URL getURL(String path) {
+        return TestUtils.createTestURL("http://127.0.0.1:" + serverSocket.getLocalPort() + path);
+    }
+
+    /**
+     * Get the number of sockets accepted by this server
+     *
+     * @return the number of accepted sockets
+     */
+    public int getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    /**
+     * Get the number of requests received by this server
+     *
+     * @return the number of requests
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Get a copy of the requests received by this server
+     *
+     * @return the list of received requests
+     */
+    public List<Request> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                final Socket socket = serverSocket.accept();
+                acceptedCount.incrementAndGet();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            sleep(acceptDelay);
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            Request request;
+
+            while ((request = readRequest(in)) != null) {
+                requestCount.incrementAndGet();
+                requests.add(request);
+                Response response = handler.handle(request);
+                if (response.dropConnection) {
+                    return;
+                }
+                sleep(response.delay);
+                boolean close = !keepAlive || "close".equalsIgnoreCase(request.getHeader("connection"));
+                writeResponse(out, response, close);
+                if (close || response.truncated) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // socket closed by the client
+        }
+    }
+
+    private static Request readRequest(InputStream in) throws IOException {
+        String requestLine = readLine(in);
+        if (requestLine == null || requestLine.isEmpty()) {
+            return null;
+        }
+        String[] parts = requestLine.split(" ");
+        Map<String, String> headers = new HashMap<>();
+        String line;
+
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int index = line.indexOf(':');
+            if (index > 0) {
+                headers.put(line.substring(0, index).trim().toLowerCase(Locale.ROOT), line.substring(index + 1).trim());
+            }
+        }
+        byte[] body = new byte[0];
+        String length = headers.get("content-length");
+        if (length != null) {
+            body = readFully(in, Integer.parseInt(length));
+        }
+        return new Request(parts[0], parts[1], headers, body);
+    }
+
+    private static void writeResponse(OutputStream out, Response response, boolean close) throws IOException {
+        StringBuilder head = new StringBuilder();
+        head.append("HTTP/1.1 ").append(response.status).append(" ").append(response.status < 400 ? "OK" : "Error").append("\r\n");
+        for (Map.Entry<String, String> entry : response.headers.entrySet()) {
+            head.append(entry.getKey()).append(": ").append(entry.getValue()).append("\r\n");
+        }
+        head.append("Content-Length: ").append(response.body.length).append("\r\n");
+        if (close) {
+            head.append("Connection: close\r\n");
+        }
+        head.append("\r\n");
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        buf.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        buf.write(response.body, 0, response.truncated ? response.body.length / 2 : response.body.length);
+        out.write(buf.toByteArray());
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                break;
+            }
+            if (c != '\r') {
+                buf.write(c);
+            }
+        }
+        if (c == -1 && buf.size() == 0) {
+            return null;
+        }
+        return new String(buf.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] data = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int read = in.read(data, offset, length - offset);
+            if (read == -1) {
+                throw new IOException("Unexpected end of stream");
+            }
+            offset += read;
+        }
+        return data;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Handler creating a response for each request received by the server
+     */
+    public interface Handler {
+
+        /**
+         * Handle the request
+         *
+         * @param request received by the server
+         * @return the response to be send back to the client
+         */
+        Response handle(Request request);
+    }
+
+    /**
+     * Class holding the request received by the server
+     */
+    public static final class Request {
+        private final String method;
+        private final String path;
+        private final Map<String, String> headers;
+        private final byte[] body;
+
+        Request(String method, String path, Map<String, String> headers, byte[] body) {
+            this.method = method;
+            this.path = path;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Get the request header value
+         *
+         * @param name case insensitive name of the header
+         * @return the header value or null if not present
+         */
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    /**
+     * Class holding the response to be send by the server
+     */
+    public static final class Response {
+        private final int status;
+        private final byte[] body;
+        private final Map<String, String> headers;
+        private long delay;
+        private boolean dropConnection;
+        private boolean truncated;
+
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+            this.headers = new LinkedHashMap<>();
+        }
+
+        /**
+         * Create a new response with a json body
+         *
+         * @param status the HTTP status code
+         * @param json the json content of the body
+         * @return the newly created response
+         */
+        public static Response json(int status, String json) {
+            return new Response(status, json.getBytes(StandardCharsets.UTF_8)).header("Content-Type", "application/json;charset=UTF-8");
+        }
+
+        /**
+         * Create a new response with a binary body
+         *
+         * @param status the HTTP status code
+         * @param body the content of the body
+         * @return the newly created response
+         */
+        public static Response bytes(int status, byte[] body) {
+            return new Response(status, body);
+        }
+
+        /**
+         * Create a response that closes the socket without sending any data, this simulates a dropped connection.
+         *
+         * @return the newly created response
+         */
+        public static Response drop() {
+            Response response = new Response(0, new byte[0]);
+            response.dropConnection = true;
+            return response;
+        }
+
+        /**
+         * Create a response that closes the socket after sending half of the json body, this simulates a connection lost while reading.
+         *
+         * @param json the json content of the body
+         * @return the newly created response
+         */
+        public static Response truncated(String json) {
+            Response response = json(200, json);
+            response.truncated = true;
+            return response;
+        }
+
+        /**
+         * Add a header to this response
+         *
+         * @param name of the header
+         * @param value of the header
+         * @return this response
+         */
+        public Response header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * Delay sending this response, this simulates the server processing time
+         *
+         * @param delay in milliseconds
+         * @return this response
+         */
+        public Response delay(long delay) {
+            this.delay = delay;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation placed on a package to generate streaming Gson TypeAdapters for the model classes in this package.
+ * The adapters are generated as nested classes of a public TypeAdapterFactory with the given name, in the same package.
+ * <p>
+ * An adapter is generated for every public top-level class with a public no-argument constructor that directly extends Object.
+ * All non-static and non-transient fields must be accessible through bean style getters and setters, e.g. generated
+ * by Lombok's @Getter and @Setter annotations. Classes that cannot be handled are left to Gson's reflective adapter.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.PACKAGE)
+public @interface GenerateTypeAdapters {
+
+    /**
+     * The simple name of the generated TypeAdapterFactory
+     *
+     * @return the simple name of the factory class
+     */
+    String value();
+}
@@ -0,0 +1,495 @@
+/*
+ * Copyright (c) 2020 Payoneer Germany GmbH
+ * https://www.payoneer.com
+ *
+ * This file is open source and available under the MIT license.
+ * See the LICENSE file for more information.
+ */
+
+package com.payoneer.mrs.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor generating streaming Gson TypeAdapters for the model classes in packages annotated with GenerateTypeAdapters.
+ * The generated adapters read and write the fields through their getters and setters, so no reflection is used and the model
+ * classes can be shrunk and obfuscated. The json names, null handling and error reporting are equal to Gson's reflective adapter.
+ */
+@SupportedAnnotationTypes("com.payoneer.mrs.processor.GenerateTypeAdapters")
+public final class TypeAdapterProcessor extends AbstractProcessor {
+
+    private final static String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+    private final static String JSON_ADAPTER = "com.google.gson.annotations.JsonAdapter";
+    private final static Set<String> IMPORTED_NAMES = new HashSet<>(Arrays.asList("IOException", "Type", "Gson", "JsonSyntaxException",
+        "TypeAdapter", "TypeAdapterFactory", "TypeToken", "JsonReader", "JsonToken", "JsonWriter"));
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateTypeAdapters.class)) {
+            if (element.getKind() != ElementKind.PACKAGE) {
+                continue;
+            }
+            PackageElement packageElement = (PackageElement) element;
+            String factoryName = element.getAnnotation(GenerateTypeAdapters.class).value();
+            try {
+                generateFactory(packageElement, factoryName);
+            } catch (IOException e) {
+                error(element, "Failed to write " + factoryName + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void generateFactory(PackageElement packageElement, String factoryName) throws IOException {
+        List<ModelClass> models = new ArrayList<>();
+        for (TypeElement typeElement : ElementFilter.typesIn(packageElement.getEnclosedElements())) {
+            ModelClass model = createModelClass(typeElement);
+            if (model != null) {
+                models.add(model);
+            }
+        }
+        Collections.sort(models, new Comparator<ModelClass>() {
+            @Override
+            public int compare(ModelClass model1, ModelClass model2) {
+                return model1.name.compareTo(model2.name);
+            }
+        });
+        String packageName = packageElement.getQualifiedName().toString();
+        Element[] originatingElements = new Element[models.size() + 1];
+        originatingElements[0] = packageElement;
+        for (int i = 0; i < models.size(); i++) {
+            originatingElements[i + 1] = models.get(i).element;
+        }
+        String source = new FactoryWriter(packageName, factoryName, models).write();
+        try (Writer writer = processingEnv.getFiler().createSourceFile(packageName + "." + factoryName, originatingElements).openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    /**
+     * Create the model of a class for which an adapter can be generated
+     *
+     * @param element the type element of the class
+     * @return the model class or null if no adapter can be generated and Gson's reflective adapter should be used
+     */
+    private ModelClass createModelClass(TypeElement element) {
+        Set<Modifier> modifiers = element.getModifiers();
+        if (element.getKind() != ElementKind.CLASS || element.getNestingKind() != NestingKind.TOP_LEVEL
+            || !modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+            return null;
+        }
+        List<VariableElement> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            Set<Modifier> fieldModifiers = field.getModifiers();
+            if (!fieldModifiers.contains(Modifier.STATIC) && !fieldModifiers.contains(Modifier.TRANSIENT)) {
+                fields.add(field);
+            }
+        }
+        if (fields.isEmpty()) {
+            return null;
+        }
+        String skipReason = getSkipReason(element);
+        if (skipReason != null) {
+            note(element, "No TypeAdapter generated for " + element.getSimpleName() + ", " + skipReason);
+            return null;
+        }
+        ModelClass model = new ModelClass(element);
+        Set<String> jsonNames = new HashSet<>();
+        for (VariableElement field : fields) {
+            if (field.getModifiers().contains(Modifier.FINAL) || !isSupportedType(field.asType())
+                || getAnnotation(field, JSON_ADAPTER) != null) {
+                note(element, "No TypeAdapter generated for " + element.getSimpleName() + ", field " + field.getSimpleName() + " is not supported");
+                return null;
+            }
+            ModelField modelField = new ModelField(field);
+            for (String jsonName : modelField.getJsonNames()) {
+                if (!jsonNames.add(jsonName)) {
+                    error(field, element.getSimpleName() + " declares multiple JSON fields named " + jsonName);
+                    return null;
+                }
+            }
+            model.fields.add(modelField);
+        }
+        return model;
+    }
+
+    private String getSkipReason(TypeElement element) {
+        if (!element.getTypeParameters().isEmpty()) {
+            return "generic classes are not supported";
+        }
+        TypeMirror superclass = element.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED
+            || !((TypeElement) ((DeclaredType) superclass).asElement()).getQualifiedName().contentEquals("java.lang.Object")) {
+            return "subclasses are not supported";
+        }
+        if (getAnnotation(element, JSON_ADAPTER) != null) {
+            return "the class has its own JsonAdapter";
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return null;
+            }
+        }
+        return "the class has no public no-argument constructor";
+    }
+
+    private boolean isSupportedType(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case CHAR:
+            case FLOAT:
+            case DOUBLE:
+                return true;
+            case ARRAY:
+                TypeMirror componentType = ((ArrayType) type).getComponentType();
+                return componentType.getKind().isPrimitive()
+                    || (componentType.getKind() == TypeKind.DECLARED && ((DeclaredType) componentType).getTypeArguments().isEmpty());
+            case DECLARED:
+                DeclaredType declaredType = (DeclaredType) type;
+                if (((TypeElement) declaredType.asElement()).getNestingKind() == NestingKind.MEMBER
+                    && !declaredType.asElement().getModifiers().contains(Modifier.STATIC)) {
+                    return false;
+                }
+                for (TypeMirror typeArgument : declaredType.getTypeArguments()) {
+                    if (typeArgument.getKind() != TypeKind.DECLARED || !isSupportedType(typeArgument)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationElement = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationElement.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Class holding the model class for which an adapter is generated
+     */
+    private final static class ModelClass {
+        final TypeElement element;
+        final String name;
+        final List<ModelField> fields = new ArrayList<>();
+
+        ModelClass(TypeElement element) {
+            this.element = element;
+            this.name = element.getSimpleName().toString();
+        }
+    }
+
+    /**
+     * Class holding a field of a model class, the accessor names follow the Lombok conventions
+     */
+    private final static class ModelField {
+        final String name;
+        final TypeMirror type;
+        String jsonName;
+        final List<String> alternateNames = new ArrayList<>();
+
+        ModelField(VariableElement element) {
+            this.name = element.getSimpleName().toString();
+            this.type = element.asType();
+            this.jsonName = name;
+
+            AnnotationMirror serializedName = getAnnotation(element, SERIALIZED_NAME);
+            if (serializedName == null) {
+                return;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : serializedName.getElementValues().entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                if ("value".equals(key)) {
+                    jsonName = (String) entry.getValue().getValue();
+                } else if ("alternate".equals(key)) {
+                    for (Object alternate : (List<?>) entry.getValue().getValue()) {
+                        alternateNames.add((String) ((AnnotationValue) alternate).getValue());
+                    }
+                }
+            }
+        }
+
+        List<String> getJsonNames() {
+            List<String> names = new ArrayList<>();
+            names.add(jsonName);
+            names.addAll(alternateNames);
+            return names;
+        }
+
+        String getGetterName() {
+            if (type.getKind() == TypeKind.BOOLEAN) {
+                return hasIsPrefix() ? name : "is" + capitalize(name);
+            }
+            return "get" + capitalize(name);
+        }
+
+        String getSetterName() {
+            if (type.getKind() == TypeKind.BOOLEAN && hasIsPrefix()) {
+                return "set" + name.substring(2);
+            }
+            return "set" + capitalize(name);
+        }
+
+        String getAdapterName() {
+            return name + "Adapter";
+        }
+
+        private boolean hasIsPrefix() {
+            return name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2));
+        }
+
+        private static String capitalize(String value) {
+            return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+        }
+    }
+
+    /**
+     * Class writing the source of the TypeAdapterFactory
+     */
+    private final class FactoryWriter {
+        private final String packageName;
+        private final String factoryName;
+        private final List<ModelClass> models;
+        private final StringBuilder src = new StringBuilder();
+
+        FactoryWriter(String packageName, String factoryName, List<ModelClass> models) {
+            this.packageName = packageName;
+            this.factoryName = factoryName;
+            this.models = models;
+        }
+
+        String write() {
+            src.append("package ").append(packageName).append(";\n\n");
+            src.append("import java.io.IOException;\n");
+            src.append("import java.lang.reflect.Type;\n\n");
+            src.append("import com.google.gson.Gson;\n");
+            src.append("import com.google.gson.JsonSyntaxException;\n");
+            src.append("import com.google.gson.TypeAdapter;\n");
+            src.append("import com.google.gson.TypeAdapterFactory;\n");
+            src.append("import com.google.gson.reflect.TypeToken;\n");
+            src.append("import com.google.gson.stream.JsonReader;\n");
+            src.append("import com.google.gson.stream.JsonToken;\n");
+            src.append("import com.google.gson.stream.JsonWriter;\n\n");
+            src.append("/**\n");
+            src.append(" * Generated by the TypeAdapterProcessor from the model classes in this package, do not edit.\n");
+            src.append(" * The streaming TypeAdapters read and write the fields through their getters and setters without reflection.\n");
+            src.append(" */\n");
+            src.append("public final class ").append(factoryName).append(" implements TypeAdapterFactory {\n\n");
+
+            src.append("    @Override\n");
+            src.append("    @SuppressWarnings(\"unchecked\")\n");
+            src.append("    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {\n");
+            src.append("        Class<? super T> rawType = type.getRawType();\n");
+            for (ModelClass model : models) {
+                src.append("        if (rawType == ").append(className(model)).append(".class) {\n");
+                src.append("            return (TypeAdapter<T>) new ").append(model.name).append("Adapter(gson);\n");
+                src.append("        }\n");
+            }
+            src.append("        return null;\n");
+            src.append("    }\n\n");
+
+            src.append("    @SuppressWarnings(\"unchecked\")\n");
+            src.append("    private static <T> TypeAdapter<T> getAdapter(Gson gson, Type type) {\n");
+            src.append("        return (TypeAdapter<T>) gson.getAdapter(TypeToken.get(type));\n");
+            src.append("    }\n");
+
+            for (ModelClass model : models) {
+                writeAdapter(model);
+            }
+            src.append("}\n");
+            return src.toString();
+        }
+
+        private void writeAdapter(ModelClass model) {
+            String className = className(model);
+            String adapterName = model.name + "Adapter";
+
+            src.append("\n    private final static class ").append(adapterName).append(" extends TypeAdapter<").append(className).append("> {\n");
+            for (ModelField field : model.fields) {
+                src.append("        private final TypeAdapter<").append(typeName(field.type)).append("> ").append(field.getAdapterName()).append(";\n");
+            }
+            src.append("\n        ").append(adapterName).append("(Gson gson) {\n");
+            for (ModelField field : model.fields) {
+                src.append("            this.").append(field.getAdapterName()).append(" = ").append(adapterExpression(field.type)).append(";\n");
+            }
+            src.append("        }\n\n");
+
+            src.append("        @Override\n");
+            src.append("        public void write(JsonWriter out, ").append(className).append(" value) throws IOException {\n");
+            src.append("            if (value == null) {\n");
+            src.append("                out.nullValue();\n");
+            src.append("                return;\n");
+            src.append("            }\n");
+            src.append("            out.beginObject();\n");
+            for (ModelField field : model.fields) {
+                src.append("            out.name(").append(javaString(field.jsonName)).append(");\n");
+                src.append("            ").append(field.getAdapterName()).append(".write(out, value.").append(field.getGetterName()).append("());\n");
+            }
+            src.append("            out.endObject();\n");
+            src.append("        }\n\n");
+
+            src.append("        @Override\n");
+            src.append("        public ").append(className).append(" read(JsonReader in) throws IOException {\n");
+            src.append("            if (in.peek() == JsonToken.NULL) {\n");
+            src.append("                in.nextNull();\n");
+            src.append("                return null;\n");
+            src.append("            }\n");
+            src.append("            ").append(className).append(" value = new ").append(className).append("();\n");
+            src.append("            try {\n");
+            src.append("                in.beginObject();\n");
+            src.append("                while (in.hasNext()) {\n");
+            src.append("                    switch (in.nextName()) {\n");
+            for (ModelField field : model.fields) {
+                for (String jsonName : field.getJsonNames()) {
+                    src.append("                        case ").append(javaString(jsonName)).append(":\n");
+                }
+                writeReadField(field);
+                src.append("                            break;\n");
+            }
+            src.append("                        default:\n");
+            src.append("                            in.skipValue();\n");
+            src.append("                    }\n");
+            src.append("                }\n");
+            src.append("            } catch (IllegalStateException e) {\n");
+            src.append("                throw new JsonSyntaxException(e);\n");
+            src.append("            }\n");
+            src.append("            in.endObject();\n");
+            src.append("            return value;\n");
+            src.append("        }\n");
+            src.append("    }\n");
+        }
+
+        private void writeReadField(ModelField field) {
+            String read = field.getAdapterName() + ".read(in)";
+            if (!field.type.getKind().isPrimitive()) {
+                src.append("                            value.").append(field.getSetterName()).append("(").append(read).append(");\n");
+                return;
+            }
+            // like the reflective adapter, a json null leaves the primitive field unchanged
+            String local = field.name + "Value";
+            src.append("                            ").append(typeName(field.type)).append(" ").append(local).append(" = ").append(read).append(";\n");
+            src.append("                            if (").append(local).append(" != null) {\n");
+            src.append("                                value.").append(field.getSetterName()).append("(").append(local).append(");\n");
+            src.append("                            }\n");
+        }
+
+        private String className(ModelClass model) {
+            return IMPORTED_NAMES.contains(model.name) ? model.element.getQualifiedName().toString() : model.name;
+        }
+
+        private String typeName(TypeMirror type) {
+            if (type.getKind().isPrimitive()) {
+                return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+            }
+            String rawName = rawName(type);
+            if (type.getKind() != TypeKind.DECLARED || ((DeclaredType) type).getTypeArguments().isEmpty()) {
+                return rawName;
+            }
+            StringBuilder sb = new StringBuilder(rawName).append("<");
+            String separator = "";
+            for (TypeMirror typeArgument : ((DeclaredType) type).getTypeArguments()) {
+                sb.append(separator).append(typeName(typeArgument));
+                separator = ", ";
+            }
+            return sb.append(">").toString();
+        }
+
+        private String adapterExpression(TypeMirror type) {
+            if (type.getKind() != TypeKind.DECLARED || ((DeclaredType) type).getTypeArguments().isEmpty()) {
+                return "gson.getAdapter(" + rawName(type) + ".class)";
+            }
+            return "getAdapter(gson, " + typeExpression(type) + ")";
+        }
+
+        private String typeExpression(TypeMirror type) {
+            if (type.getKind() != TypeKind.DECLARED || ((DeclaredType) type).getTypeArguments().isEmpty()) {
+                return rawName(type) + ".class";
+            }
+            StringBuilder sb = new StringBuilder("TypeToken.getParameterized(").append(rawName(type)).append(".class");
+            for (TypeMirror typeArgument : ((DeclaredType) type).getTypeArguments()) {
+                sb.append(", ").append(typeExpression(typeArgument));
+            }
+            return sb.append(").getType()").toString();
+        }
+
+        private String rawName(TypeMirror type) {
+            if (type.getKind().isPrimitive()) {
+                return type.getKind().name().toLowerCase(Locale.ROOT);
+            }
+            if (type.getKind() == TypeKind.ARRAY) {
+                return rawName(((ArrayType) type).getComponentType()) + "[]";
+            }
+            return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        }
+
+        private String javaString(String value) {
+            StringBuilder sb = new StringBuilder("\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    sb.append('\\').append(c);
+                } else if (c < 0x20 || c > 0x7e) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.append("\"").toString();
+        }
+    }
+}